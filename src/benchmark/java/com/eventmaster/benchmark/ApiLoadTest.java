@@ -0,0 +1,404 @@
+package com.eventmaster.benchmark;
+
+import com.eventmaster.service.UserCursor;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop HTTP load test of the REST API with a regression gate. The application is booted
+ * in-process with {@code users} seeded users, and each operation is requested at its own fixed
+ * arrival rate, however long earlier requests take:
+ * <ul>
+ *   <li>{@code get}: {@code GET /users/{id}}</li>
+ *   <li>{@code username}: {@code GET /users/by-username/{username}}</li>
+ *   <li>{@code email}: {@code GET /users/by-email/{email}}</li>
+ *   <li>{@code list}: {@code GET /users}, a page of twenty after a random cursor</li>
+ *   <li>{@code create}: {@code POST /users}, a {@code duplicates} fraction of them (0.2) with a
+ *       taken username, which must answer 409</li>
+ * </ul>
+ *
+ * <p>Latency is measured from when a request was due to be sent, not from when it was sent, so a
+ * stall that delays the requests behind it counts against all of them (coordinated omission). The
+ * uncorrected p99, from the actual send, is printed next to it.
+ *
+ * <p>Throughput is the number of responses with the expected status that arrived within the
+ * measured period, per second. With a fixed arrival rate it equals the offered rate until the
+ * service falls behind. The p99 and throughput of every operation are compared with the
+ * {@code baseline} file; when any p99 is higher than the baseline by more than
+ * {@code p99-tolerance} (0.5) and {@code p99-slack-ms} (2), or any throughput lower by more than
+ * {@code tolerance} (0.1), the report lists the regressions and the process exits with status 1,
+ * failing the Maven build. With {@code record=true} the run is written to the baseline instead.
+ * Results always go to {@code result} (target/api-load-result.properties).
+ *
+ * <p>Other arguments, all {@code key=value}: {@code rates}
+ * ({@code get:200,username:200,email:100,list:50,create:20} requests per second), {@code users}
+ * (10000), {@code warmup} (10 seconds), {@code duration} (30 seconds), {@code password-cost} (4, so
+ * bcrypt does not dominate {@code create}). A baseline only gates runs with its own rates and users.
+ */
+public final class ApiLoadTest {
+
+    private static final String CONTEXT_PATH = "/user-service";
+    private static final String DEFAULT_RATES = "get:200,username:200,email:100,list:50,create:20";
+    private static final String DEFAULT_BASELINE = "src/benchmark/api-load-baseline.properties";
+    private static final String DEFAULT_RESULT = "target/api-load-result.properties";
+    private static final int CLIENT_THREADS = 4;
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        String rates = options.getOrDefault("rates", DEFAULT_RATES);
+        Map<String, Double> offered = parseRates(rates);
+        int users = Integer.parseInt(options.getOrDefault("users", "10000"));
+        Duration warmup = Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup", "10")));
+        Duration duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "30")));
+        double duplicates = Double.parseDouble(options.getOrDefault("duplicates", "0.2"));
+        String passwordCost = options.getOrDefault("password-cost", "4");
+        Path baseline = Paths.get(options.getOrDefault("baseline", DEFAULT_BASELINE));
+        Path resultFile = Paths.get(options.getOrDefault("result", DEFAULT_RESULT));
+        boolean record = Boolean.parseBoolean(options.getOrDefault("record", "false"));
+        double tolerance = Double.parseDouble(options.getOrDefault("tolerance", "0.1"));
+        double p99Tolerance = Double.parseDouble(options.getOrDefault("p99-tolerance", "0.5"));
+        double p99SlackMs = Double.parseDouble(options.getOrDefault("p99-slack-ms", "2"));
+
+        Map<String, Stats> results;
+        // Every duplicate create is logged as a warning by the service and again by the exception handler
+        ConfigurableApplicationContext context = BenchmarkSupport.start(Map.of(
+                "user.password.cost", passwordCost,
+                "logging.level.com.eventmaster.service", "ERROR",
+                "logging.level.com.eventmaster.exception", "ERROR"));
+        try {
+            BenchmarkSupport.seedUsers(context, users);
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            Target target = new Target("http://localhost:" + port + CONTEXT_PATH, users, duplicates);
+
+            System.out.printf("warming up for %ds%n", warmup.getSeconds());
+            drive(target, offered, warmup);
+            System.out.printf("measuring for %ds%n", duration.getSeconds());
+            results = drive(target, offered, duration);
+        } finally {
+            context.close();
+        }
+
+        Map<String, String> recorded = new LinkedHashMap<>();
+        recorded.put("rates", rates);
+        recorded.put("users", Integer.toString(users));
+        results.forEach((operation, stats) -> {
+            recorded.put(operation + ".throughput", String.format("%.1f", stats.throughput));
+            recorded.put(operation + ".p99-ms", String.format("%.3f", stats.p99Millis));
+        });
+        String header = String.format("ApiLoadTest %s duration=%ds java=%d cpus=%d", Instant.now(),
+                duration.getSeconds(), Runtime.version().feature(), Runtime.getRuntime().availableProcessors());
+        write(resultFile, header, recorded);
+
+        System.out.println();
+        System.out.printf("users=%d duration=%ds java=%d%n", users, duration.getSeconds(), Runtime.version().feature());
+        System.out.printf("%-10s %10s %12s %8s %10s %10s %10s %10s %16s%n", "operation", "offered/s",
+                "throughput/s", "errors", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "uncorrected p99");
+        results.forEach((operation, stats) -> System.out.printf("%-10s %10.1f %12.1f %8d %10.2f %10.2f %10.2f %10.2f %16.2f%n",
+                operation, offered.get(operation), stats.throughput, stats.errors, stats.p50Millis,
+                stats.p99Millis, stats.p999Millis, stats.maxMillis, stats.uncorrectedP99Millis));
+
+        if (record) {
+            write(baseline, header, recorded);
+            System.out.println("Recorded the baseline in " + baseline);
+            return;
+        }
+        if (!Files.exists(baseline)) {
+            System.out.println("No baseline at " + baseline + ", run with record=true to create one");
+            return;
+        }
+        Properties expected = read(baseline);
+        if (!rates.equals(expected.getProperty("rates"))
+                || !Integer.toString(users).equals(expected.getProperty("users"))) {
+            System.err.printf("Baseline %s was recorded with rates=%s users=%s; record one for this load%n",
+                    baseline, expected.getProperty("rates"), expected.getProperty("users"));
+            System.exit(1);
+        }
+        List<String> regressions = new ArrayList<>();
+        results.forEach((operation, stats) -> {
+            String p99 = expected.getProperty(operation + ".p99-ms");
+            String throughput = expected.getProperty(operation + ".throughput");
+            if (p99 != null) {
+                double allowed = Math.max(Double.parseDouble(p99) * (1 + p99Tolerance), Double.parseDouble(p99) + p99SlackMs);
+                if (stats.p99Millis > allowed) {
+                    regressions.add(String.format("%s p99 %.2f ms, baseline %s ms, allowed %.2f ms",
+                            operation, stats.p99Millis, p99, allowed));
+                }
+            }
+            if (throughput != null) {
+                double allowed = Double.parseDouble(throughput) * (1 - tolerance);
+                if (stats.throughput < allowed) {
+                    regressions.add(String.format("%s throughput %.1f/s, baseline %s/s, allowed %.1f/s",
+                            operation, stats.throughput, throughput, allowed));
+                }
+            }
+        });
+        if (!regressions.isEmpty()) {
+            System.err.println("Regressed against " + baseline + ":");
+            regressions.forEach(regression -> System.err.println("  " + regression));
+            System.exit(1);
+        }
+        System.out.println("Within the baseline in " + baseline);
+    }
+
+    /**
+     * Sends every operation at its rate for {@code duration}, then waits for the responses still
+     * outstanding. One thread paces all of them; each request is stamped with the time it was due,
+     * so when sending falls behind the delay still shows up in the latency.
+     */
+    private static Map<String, Stats> drive(Target target, Map<String, Double> offered, Duration duration)
+            throws InterruptedException {
+        AtomicLong clientThreads = new AtomicLong();
+        ExecutorService clientExecutor = Executors.newFixedThreadPool(CLIENT_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "api-load-client-" + clientThreads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(clientExecutor)
+                .build();
+
+        List<Operation> operations = new ArrayList<>();
+        offered.forEach((name, rate) -> operations.add(new Operation(name, rate)));
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        // Registered per request and arrived at on its response, so the end of the run can wait for all of them
+        Phaser outstanding = new Phaser(1);
+        while (true) {
+            Operation next = operations.get(0);
+            for (Operation operation : operations) {
+                if (operation.due(start) < next.due(start)) {
+                    next = operation;
+                }
+            }
+            long due = next.due(start);
+            if (due >= end) {
+                break;
+            }
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            send(client, target, next, due, end, outstanding);
+            next.sent++;
+        }
+        try {
+            outstanding.awaitAdvanceInterruptibly(outstanding.arrive(),
+                    REQUEST_TIMEOUT.toSeconds() + 10, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            System.out.println("Gave up waiting for " + outstanding.getUnarrivedParties() + " responses");
+        }
+        clientExecutor.shutdownNow();
+
+        Map<String, Stats> results = new LinkedHashMap<>();
+        for (Operation operation : operations) {
+            results.put(operation.name, new Stats(operation, duration));
+        }
+        return results;
+    }
+
+    private static void send(HttpClient client, Target target, Operation operation, long due, long end,
+                             Phaser outstanding) {
+        Call call = target.call(operation.name);
+        long sent = System.nanoTime();
+        outstanding.register();
+        client.sendAsync(call.request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, failure) -> {
+            long received = System.nanoTime();
+            if (failure != null || response.statusCode() != call.expectedStatus) {
+                operation.errors.incrementAndGet();
+            } else if (received < end) {
+                operation.completed.incrementAndGet();
+            }
+            operation.latency.recordValue(Math.min(received - due, operation.latency.getHighestTrackableValue()));
+            operation.serviceTime.recordValue(Math.min(received - sent, operation.serviceTime.getHighestTrackableValue()));
+            outstanding.arrive();
+        });
+    }
+
+    private static Map<String, Double> parseRates(String rates) {
+        Map<String, Double> offered = new LinkedHashMap<>();
+        for (String rate : rates.split(",")) {
+            String[] parts = rate.trim().split(":");
+            if (parts.length != 2 || !Target.OPERATIONS.contains(parts[0])) {
+                throw new IllegalArgumentException("Expected <operation>:<requests per second> with an operation out of "
+                        + Target.OPERATIONS + ", got: " + rate);
+            }
+            double perSecond = Double.parseDouble(parts[1]);
+            if (perSecond <= 0) {
+                throw new IllegalArgumentException("Rate must be positive, got: " + rate);
+            }
+            offered.put(parts[0], perSecond);
+        }
+        return offered;
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 1) {
+                throw new IllegalArgumentException("Expected key=value, got: " + arg);
+            }
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        return options;
+    }
+
+    private static Properties read(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        return properties;
+    }
+
+    // Written by hand rather than with Properties.store, which shuffles the keys
+    private static void write(Path file, String header, Map<String, String> values) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("# " + header);
+        values.forEach((key, value) -> lines.add(key + "=" + value));
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Files.write(file, lines, StandardCharsets.UTF_8);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    /**
+     * Builds the requests: seeded users are picked at random, created ones are numbered past them.
+     */
+    private static final class Target {
+        static final Set<String> OPERATIONS = Set.of("get", "username", "email", "list", "create");
+
+        private final String baseUrl;
+        private final int users;
+        private final double duplicates;
+        private final AtomicLong created = new AtomicLong();
+
+        Target(String baseUrl, int users, double duplicates) {
+            this.baseUrl = baseUrl;
+            this.users = users;
+            this.duplicates = duplicates;
+        }
+
+        Call call(String operation) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int user = random.nextInt(users);
+            switch (operation) {
+                case "get":
+                    return get("/users/" + (BenchmarkSupport.FIRST_SEEDED_ID + user));
+                case "username":
+                    return get("/users/by-username/" + BenchmarkSupport.username(user));
+                case "email":
+                    return get("/users/by-email/" + BenchmarkSupport.email(user));
+                case "list":
+                    return get("/users?limit=20&cursor=" + UserCursor.encode(BenchmarkSupport.FIRST_SEEDED_ID + user));
+                case "create":
+                    boolean duplicate = random.nextDouble() < duplicates;
+                    long i = duplicate ? user : users + created.getAndIncrement();
+                    String body = String.format("{\"username\":\"%s\",\"password\":\"load%d\",\"email\":\"%s\","
+                                    + "\"name\":\"Load User %d\",\"location\":\"Austin, TX\"}",
+                            BenchmarkSupport.username(i), i, BenchmarkSupport.email(i), i);
+                    HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/users"))
+                            .timeout(REQUEST_TIMEOUT)
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString(body))
+                            .build();
+                    return new Call(request, duplicate ? 409 : 200);
+                default:
+                    throw new IllegalArgumentException("Unknown operation: " + operation);
+            }
+        }
+
+        private Call get(String path) {
+            return new Call(HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(REQUEST_TIMEOUT).build(), 200);
+        }
+    }
+
+    private static final class Call {
+        final HttpRequest request;
+        final int expectedStatus;
+
+        Call(HttpRequest request, int expectedStatus) {
+            this.request = request;
+            this.expectedStatus = expectedStatus;
+        }
+    }
+
+    /**
+     * One operation's schedule and what happened to its requests.
+     */
+    private static final class Operation {
+        final String name;
+        final double intervalNanos;
+        final Histogram latency = new ConcurrentHistogram(TimeUnit.MINUTES.toNanos(1), 3);
+        final Histogram serviceTime = new ConcurrentHistogram(TimeUnit.MINUTES.toNanos(1), 3);
+        final AtomicLong completed = new AtomicLong();
+        final AtomicLong errors = new AtomicLong();
+        long sent;
+
+        Operation(String name, double perSecond) {
+            this.name = name;
+            this.intervalNanos = TimeUnit.SECONDS.toNanos(1) / perSecond;
+        }
+
+        long due(long start) {
+            return start + (long) (sent * intervalNanos);
+        }
+    }
+
+    private static final class Stats {
+        final double throughput;
+        final long errors;
+        final double p50Millis;
+        final double p99Millis;
+        final double p999Millis;
+        final double maxMillis;
+        final double uncorrectedP99Millis;
+
+        Stats(Operation operation, Duration duration) {
+            this.throughput = operation.completed.get() / (double) duration.getSeconds();
+            this.errors = operation.errors.get();
+            this.p50Millis = millis(operation.latency.getValueAtPercentile(50));
+            this.p99Millis = millis(operation.latency.getValueAtPercentile(99));
+            this.p999Millis = millis(operation.latency.getValueAtPercentile(99.9));
+            this.maxMillis = millis(operation.latency.getMaxValue());
+            this.uncorrectedP99Millis = millis(operation.serviceTime.getValueAtPercentile(99));
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.eventmaster.benchmark;
+
+import com.eventmaster.UserServiceApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Shared setup for benchmarks that need the real application: boots it on a random port against a
+ * private in-memory H2 database with logging turned down, and seeds synthetic users.
+ */
+final class BenchmarkSupport {
+
+    /** Seeded users get ids starting here, clear of the rows in schema.sql. */
+    static final long FIRST_SEEDED_ID = 1_000;
+
+    private static final int SEED_BATCH = 5_000;
+
+    private BenchmarkSupport() {
+    }
+
+    static ConfigurableApplicationContext start(Map<String, Object> overrides) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("server.port", "0");
+        String database = "bench-" + UUID.randomUUID();
+        properties.put("spring.datasource.url", "jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1");
+        // Only used by the reactive profile, which must see the same database
+        properties.put("spring.r2dbc.url", "r2dbc:h2:mem:///" + database);
+        properties.put("spring.jpa.show-sql", "false");
+        // Every simulated client shares one address; benchmarks measure the service, not the limiter
+        properties.put("user.ratelimit.enabled", "false");
+        // logback-spring.xml pins levels on these child loggers, so each one is overridden by name
+        for (String logger : List.of("root", "com.eventmaster", "com.eventmaster.controller",
+                "com.eventmaster.service", "org.springframework", "org.springframework.boot",
+                "org.springframework.web", "org.hibernate", "org.hibernate.SQL",
+                "org.hibernate.type.descriptor.sql.BasicBinder")) {
+            properties.put("logging.level." + logger, "WARN");
+        }
+        // The duplicate-key benchmarks would otherwise flood the console with constraint violations
+        properties.put("logging.level.org.hibernate.engine.jdbc", "OFF");
+        properties.putAll(overrides);
+        // Passed as command-line arguments so they take precedence over application.properties
+        String[] args = properties.entrySet().stream()
+                .map(entry -> "--" + entry.getKey() + "=" + entry.getValue())
+                .toArray(String[]::new);
+        return new SpringApplicationBuilder(UserServiceApplication.class).run(args);
+    }
+
+    static String username(long i) {
+        return "user" + i;
+    }
+
+    static String email(long i) {
+        return "user" + i + "@bench.example";
+    }
+
+    /**
+     * Insert {@code count} users with plain JDBC batches, then move users_seq past them so
+     * saveUser keeps working.
+     */
+    static void seedUsers(ConfigurableApplicationContext context, int count) {
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        Date joined = Date.valueOf(LocalDate.of(2024, 1, 1));
+        List<Object[]> batch = new ArrayList<>(SEED_BATCH);
+        for (long i = 0; i < count; i++) {
+            long id = FIRST_SEEDED_ID + i;
+            batch.add(new Object[]{id, username(i), "password" + i, email(i), "Bench User " + i, "Austin, TX", joined});
+            if (batch.size() == SEED_BATCH) {
+                insert(jdbc, batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            insert(jdbc, batch);
+        }
+        jdbc.execute("ALTER SEQUENCE users_seq RESTART WITH " + (FIRST_SEEDED_ID + count + 1));
+    }
+
+    private static void insert(JdbcTemplate jdbc, List<Object[]> batch) {
+        jdbc.batchUpdate("INSERT INTO users (id, username, password, email, name, location, date_joined)"
+                + " VALUES (?, ?, ?, ?, ?, ?, ?)", batch);
+    }
+}
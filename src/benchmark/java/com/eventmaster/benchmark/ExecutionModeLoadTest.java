@@ -0,0 +1,242 @@
+package com.eventmaster.benchmark;
+
+import com.eventmaster.config.VirtualThreads;
+import com.eventmaster.service.UserCursor;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop HTTP load test comparing the platform and virtual-thread execution modes
+ * (see {@code ExecutionModeConfig}) and the reactive stack ({@code application-reactive.properties}).
+ * For each mode the application is booted in-process, seeded, and hit by {@code concurrency}
+ * clients issuing uncached user lookups and small page reads; throughput, latency percentiles and
+ * the peak number of server threads and database connections are printed per mode.
+ *
+ * <p>Each client is a chain of asynchronous requests on a handful of threads, so 10,000 clients
+ * cost 10,000 sockets rather than 10,000 threads. Client and server share the process, so that
+ * needs a file descriptor limit of a little over twice the concurrency.
+ *
+ * <p>Peak threads counts live platform threads outside the load generator; virtual threads are not
+ * included. Peak connections is the sum of active JDBC (Hikari) and acquired R2DBC connections.
+ *
+ * <p>Arguments are {@code key=value} pairs: {@code modes} (default: every mode this JDK supports),
+ * {@code concurrency} (1000), {@code users} (10000), {@code warmup} (10 seconds), {@code duration}
+ * (30 seconds).
+ */
+public final class ExecutionModeLoadTest {
+
+    private static final String CONTEXT_PATH = "/user-service";
+    private static final String CLIENT_THREAD_PREFIX = "load-client-";
+    private static final int CLIENT_THREADS = 4;
+    private static final long SAMPLE_INTERVAL_MS = 100;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        String defaultModes = VirtualThreads.isSupported() ? "platform,virtual,reactive" : "platform,reactive";
+        String[] modes = options.getOrDefault("modes", defaultModes).split(",");
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "1000"));
+        int users = Integer.parseInt(options.getOrDefault("users", "10000"));
+        Duration warmup = Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup", "10")));
+        Duration duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "30")));
+
+        List<String> report = new ArrayList<>();
+        report.add(String.format("%-10s %12s %8s %10s %10s %10s %10s %13s %13s",
+                "mode", "requests/s", "errors", "p50 ms", "p99 ms", "p99.9 ms", "max ms",
+                "peak threads", "peak db conns"));
+        for (String mode : modes) {
+            report.add(run(mode.trim(), concurrency, users, warmup, duration));
+        }
+        System.out.println();
+        System.out.printf("concurrency=%d users=%d duration=%ds java=%d%n",
+                concurrency, users, duration.getSeconds(), Runtime.version().feature());
+        report.forEach(System.out::println);
+    }
+
+    private static String run(String mode, int concurrency, int users, Duration warmup, Duration duration)
+            throws InterruptedException {
+        // Profiles are resolved from the command line, so the virtual and reactive profiles bring their pool policy along
+        Map<String, Object> overrides = Map.of(
+                "spring.profiles.active", mode.equals("platform") ? "default" : mode,
+                "user.cache.enabled", "false");
+        ConfigurableApplicationContext context = BenchmarkSupport.start(overrides);
+        try {
+            BenchmarkSupport.seedUsers(context, users);
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            String baseUrl = "http://localhost:" + port + CONTEXT_PATH;
+
+            System.out.printf("[%s] warming up for %ds%n", mode, warmup.getSeconds());
+            drive(baseUrl, concurrency, users, warmup, context);
+            System.out.printf("[%s] measuring for %ds%n", mode, duration.getSeconds());
+            Result result = drive(baseUrl, concurrency, users, duration, context);
+
+            Histogram histogram = result.histogram;
+            return String.format("%-10s %12.0f %8d %10.2f %10.2f %10.2f %10.2f %13d %13d",
+                    mode,
+                    histogram.getTotalCount() / (double) duration.getSeconds(),
+                    result.errors,
+                    millis(histogram.getValueAtPercentile(50)),
+                    millis(histogram.getValueAtPercentile(99)),
+                    millis(histogram.getValueAtPercentile(99.9)),
+                    millis(histogram.getMaxValue()),
+                    result.peakThreads,
+                    result.peakConnections);
+        } finally {
+            context.close();
+        }
+    }
+
+    private static Result drive(String baseUrl, int concurrency, int users, Duration duration,
+                                ConfigurableApplicationContext context) throws InterruptedException {
+        AtomicLong clientThreads = new AtomicLong();
+        ExecutorService clientExecutor = Executors.newFixedThreadPool(CLIENT_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, CLIENT_THREAD_PREFIX + clientThreads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(clientExecutor)
+                .build();
+        Histogram histogram = new ConcurrentHistogram(TimeUnit.MINUTES.toNanos(1), 3);
+        AtomicLong errors = new AtomicLong();
+        long deadline = System.nanoTime() + duration.toNanos();
+        CountDownLatch finished = new CountDownLatch(concurrency);
+
+        Sampler sampler = new Sampler(context.getBean(MeterRegistry.class));
+        ScheduledExecutorService sampling = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, CLIENT_THREAD_PREFIX + "sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sampling.scheduleAtFixedRate(sampler, 0, SAMPLE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        for (int i = 0; i < concurrency; i++) {
+            next(client, baseUrl, users, deadline, histogram, errors, finished);
+        }
+        finished.await(duration.toSeconds() + 60, TimeUnit.SECONDS);
+        sampling.shutdownNow();
+        clientExecutor.shutdownNow();
+        return new Result(histogram, errors.get(), sampler.peakThreads, sampler.peakConnections);
+    }
+
+    /**
+     * One client: issues a request, and when it completes records it and issues the next, until the deadline.
+     */
+    private static void next(HttpClient client, String baseUrl, int users, long deadline, Histogram histogram,
+                             AtomicLong errors, CountDownLatch finished) {
+        if (System.nanoTime() >= deadline) {
+            finished.countDown();
+            return;
+        }
+        HttpRequest request = HttpRequest.newBuilder(URI.create(nextUrl(baseUrl, users)))
+                .timeout(Duration.ofSeconds(30))
+                .build();
+        long start = System.nanoTime();
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, failure) -> {
+            if (failure != null || response.statusCode() != 200) {
+                errors.incrementAndGet();
+            }
+            histogram.recordValue(Math.min(System.nanoTime() - start, histogram.getHighestTrackableValue()));
+            next(client, baseUrl, users, deadline, histogram, errors, finished);
+        });
+    }
+
+    /**
+     * Nine in ten requests look up a random user by username, the rest read a page of twenty users.
+     */
+    private static String nextUrl(String baseUrl, int users) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (random.nextInt(10) == 0) {
+            long after = BenchmarkSupport.FIRST_SEEDED_ID + random.nextInt(users);
+            return baseUrl + "/users?limit=20&cursor=" + UserCursor.encode(after);
+        }
+        return baseUrl + "/users/by-username/" + BenchmarkSupport.username(random.nextInt(users));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 1) {
+                throw new IllegalArgumentException("Expected key=value, got: " + arg);
+            }
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        return options;
+    }
+
+    private static final class Result {
+        final Histogram histogram;
+        final long errors;
+        final int peakThreads;
+        final int peakConnections;
+
+        Result(Histogram histogram, long errors, int peakThreads, int peakConnections) {
+            this.histogram = histogram;
+            this.errors = errors;
+            this.peakThreads = peakThreads;
+            this.peakConnections = peakConnections;
+        }
+    }
+
+    /**
+     * Periodically records the number of server threads and database connections in use.
+     */
+    private static final class Sampler implements Runnable {
+        private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        private final MeterRegistry registry;
+        volatile int peakThreads;
+        volatile int peakConnections;
+
+        Sampler(MeterRegistry registry) {
+            this.registry = registry;
+        }
+
+        @Override
+        public void run() {
+            int serverThreads = 0;
+            for (ThreadInfo info : threads.getThreadInfo(threads.getAllThreadIds())) {
+                // The JDK HttpClient's own selector thread is named HttpClient-<n>-SelectorManager
+                if (info != null && !info.getThreadName().startsWith(CLIENT_THREAD_PREFIX)
+                        && !info.getThreadName().startsWith("HttpClient-")) {
+                    serverThreads++;
+                }
+            }
+            int connections = (int) (sum("hikaricp.connections.active") + sum("r2dbc.pool.acquired"));
+            peakThreads = Math.max(peakThreads, serverThreads);
+            peakConnections = Math.max(peakConnections, connections);
+        }
+
+        private double sum(String gauge) {
+            return registry.find(gauge).gauges().stream().mapToDouble(Gauge::value).sum();
+        }
+    }
+}
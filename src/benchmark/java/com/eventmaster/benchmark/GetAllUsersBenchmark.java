@@ -0,0 +1,77 @@
+package com.eventmaster.benchmark;
+
+import com.eventmaster.model.User;
+import com.eventmaster.model.UserPage;
+import com.eventmaster.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full-table reads at increasing table sizes: the materializing {@code getAllUsers()} against
+ * walking the table with keyset pages and with the streaming cursor. Each invocation reads
+ * every row, so single-shot timing is used. Run the 1M case with a large heap, e.g.
+ * {@code -Djmh.args="-jvmArgs -Xmx4g"}.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GetAllUsersBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int users;
+
+    private ConfigurableApplicationContext context;
+    private UserService userService;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = BenchmarkSupport.start(Map.of());
+        BenchmarkSupport.seedUsers(context, users);
+        userService = context.getBean(UserService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<User> getAllUsers() {
+        return userService.getAllUsers();
+    }
+
+    @Benchmark
+    public void pageThroughAllUsers(Blackhole blackhole) {
+        String cursor = null;
+        do {
+            UserPage page = userService.getUserPage(cursor, 1000);
+            blackhole.consume(page.getUsers());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+    }
+
+    @Benchmark
+    public long streamAllUsers(Blackhole blackhole) {
+        return userService.streamUsers(0L, blackhole::consume);
+    }
+}
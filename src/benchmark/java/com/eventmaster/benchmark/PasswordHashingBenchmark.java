@@ -0,0 +1,85 @@
+package com.eventmaster.benchmark;
+
+import com.eventmaster.model.User;
+import com.eventmaster.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cached lookups during a burst of logins: four threads call {@link UserService#authenticate}
+ * nonstop next to one thread calling {@link UserService#findById}. With {@code hashThreads=1} the
+ * password pool is bounded to one thread and the logins queue for it; with {@code hashThreads=4}
+ * every login hashes at once, as it would on its own request thread. Compare the {@code lookups}
+ * score across the two; {@code logins} shows what the bound costs in login throughput. The effect
+ * is clearest when the machine has no more cores than login threads.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PasswordHashingBenchmark {
+
+    private static final int USERS = 1_000;
+
+    @Param({"1", "4"})
+    private int hashThreads;
+
+    private ConfigurableApplicationContext context;
+    private UserService userService;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        // A fixed cost, so runs on different machines compare
+        context = BenchmarkSupport.start(Map.of(
+                "user.password.cost", "8",
+                "user.password.threads", String.valueOf(hashThreads)));
+        BenchmarkSupport.seedUsers(context, USERS);
+        userService = context.getBean(UserService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private static long randomIndex() {
+        return ThreadLocalRandom.current().nextInt(USERS);
+    }
+
+    // Seeded passwords are plaintext, so each user's first login also rehashes and writes back
+    @Benchmark
+    @Group("burst")
+    @GroupThreads(4)
+    public Optional<User> logins() {
+        long i = randomIndex();
+        return userService.authenticate(BenchmarkSupport.username(i), "password" + i);
+    }
+
+    @Benchmark
+    @Group("burst")
+    @GroupThreads(1)
+    public Optional<User> lookups() {
+        return userService.findById(BenchmarkSupport.FIRST_SEEDED_ID + randomIndex());
+    }
+}
@@ -0,0 +1,82 @@
+package com.eventmaster.benchmark;
+
+import com.eventmaster.exception.DuplicateUserException;
+import com.eventmaster.model.User;
+import com.eventmaster.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link UserService#saveUser} throughput for new users and for the duplicate-key path,
+ * where the insert is rejected and translated into a {@link DuplicateUserException}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SaveUserBenchmark {
+
+    private static final int SEEDED_USERS = 1_000;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private ConfigurableApplicationContext context;
+    private UserService userService;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        // The insert path only; PasswordHashingBenchmark covers the cost of hashing
+        context = BenchmarkSupport.start(Map.of("user.password.hashing.enabled", "false"));
+        BenchmarkSupport.seedUsers(context, SEEDED_USERS);
+        userService = context.getBean(UserService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public User saveNewUser() {
+        long n = sequence.incrementAndGet();
+        return userService.saveUser(new User("new" + n, "password", "new" + n + "@bench.example", "New User", "Austin, TX"));
+    }
+
+    @Benchmark
+    public Object saveDuplicateUsername() {
+        long n = sequence.incrementAndGet();
+        try {
+            return userService.saveUser(new User(BenchmarkSupport.username(0), "password",
+                    "dup" + n + "@bench.example", "Duplicate", "Austin, TX"));
+        } catch (DuplicateUserException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object saveDuplicateEmail() {
+        long n = sequence.incrementAndGet();
+        try {
+            return userService.saveUser(new User("dup" + n, "password",
+                    BenchmarkSupport.email(0), "Duplicate", "Austin, TX"));
+        } catch (DuplicateUserException e) {
+            return e;
+        }
+    }
+}
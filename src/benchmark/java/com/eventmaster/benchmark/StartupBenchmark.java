@@ -0,0 +1,155 @@
+package com.eventmaster.benchmark;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time-to-first-request of the packaged service: each run starts a fresh JVM and measures how long
+ * it takes until {@code GET /users/1} first answers 200, which includes whatever lazy initialization
+ * left for the first request. Also reports how long that first request itself took.
+ *
+ * <p>Variants are {@code default} (the Boot jar), {@code fast} (the Boot jar with the {@code fast}
+ * profile), and {@code cds} and {@code fast-cds}, which run target/cds/user-service.jar with its
+ * class-data-sharing archive and are skipped unless {@code mvn -P cds package} has built it with the
+ * same JDK.
+ *
+ * <p>Arguments are {@code key=value} pairs: {@code variants} (every available one), {@code runs} (5),
+ * {@code jar} (target/user-service-1.0-SNAPSHOT.jar), {@code cds} (target/cds).
+ */
+public final class StartupBenchmark {
+
+    private static final String FIRST_REQUEST_PATH = "/user-service/users/1";
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+    private static final long POLL_INTERVAL_MS = 10;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        int runs = Integer.parseInt(options.getOrDefault("runs", "5"));
+        Path jar = Paths.get(options.getOrDefault("jar", "target/user-service-1.0-SNAPSHOT.jar"));
+        Path cdsDirectory = Paths.get(options.getOrDefault("cds", "target/cds"));
+        Path cdsJar = cdsDirectory.resolve("user-service.jar");
+        Path cdsArchive = cdsDirectory.resolve("user-service.jsa");
+        boolean cdsAvailable = Files.exists(cdsJar) && Files.exists(cdsArchive);
+        String defaultVariants = cdsAvailable ? "default,fast,cds,fast-cds" : "default,fast";
+        List<String> variants = Arrays.asList(options.getOrDefault("variants", defaultVariants).split(","));
+
+        List<String> report = new ArrayList<>();
+        report.add(String.format("%-10s %12s %12s %12s %18s", "variant", "median ms", "min ms", "max ms", "first request ms"));
+        for (String variant : variants) {
+            variant = variant.trim();
+            boolean cds = variant.endsWith("cds");
+            if (cds && !cdsAvailable) {
+                throw new IllegalStateException("No class-data-sharing archive in " + cdsDirectory + ", run mvn -P cds package first");
+            }
+            List<String> command = new ArrayList<>();
+            command.add(ProcessHandle.current().info().command().orElse("java"));
+            if (cds) {
+                command.add("-XX:SharedArchiveFile=" + cdsArchive);
+                // Fail instead of silently starting without the archive
+                command.add("-Xshare:on");
+            }
+            command.add("-jar");
+            command.add((cds ? cdsJar : jar).toString());
+            if (variant.startsWith("fast")) {
+                command.add("--spring.profiles.active=fast");
+            }
+
+            long[] timesToFirstRequest = new long[runs];
+            long[] firstRequests = new long[runs];
+            for (int run = 0; run < runs; run++) {
+                long[] measured = measure(command);
+                timesToFirstRequest[run] = measured[0];
+                firstRequests[run] = measured[1];
+                System.out.printf("[%s] run %d: %d ms to first request%n", variant, run + 1, measured[0]);
+            }
+            Arrays.sort(timesToFirstRequest);
+            Arrays.sort(firstRequests);
+            report.add(String.format("%-10s %12d %12d %12d %18d", variant,
+                    timesToFirstRequest[runs / 2], timesToFirstRequest[0], timesToFirstRequest[runs - 1],
+                    firstRequests[runs / 2]));
+        }
+        System.out.println();
+        System.out.printf("runs=%d java=%d%n", runs, Runtime.version().feature());
+        report.forEach(System.out::println);
+    }
+
+    /**
+     * Starts the service and polls until the first request succeeds.
+     *
+     * @return milliseconds from process start to the first 200, and the duration of that request
+     */
+    private static long[] measure(List<String> baseCommand) throws IOException, InterruptedException {
+        int port = freePort();
+        List<String> command = new ArrayList<>(baseCommand);
+        command.add("--server.port=" + port);
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + FIRST_REQUEST_PATH))
+                .timeout(STARTUP_TIMEOUT)
+                .build();
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        try {
+            long deadline = start + STARTUP_TIMEOUT.toNanos();
+            while (System.nanoTime() < deadline) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("Service exited with " + process.exitValue() + ": " + command);
+                }
+                long requestStart = System.nanoTime();
+                try {
+                    HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                    long end = System.nanoTime();
+                    if (response.statusCode() == 200) {
+                        return new long[]{TimeUnit.NANOSECONDS.toMillis(end - start),
+                                TimeUnit.NANOSECONDS.toMillis(end - requestStart)};
+                    }
+                } catch (ConnectException e) {
+                    // Not listening yet
+                }
+                Thread.sleep(POLL_INTERVAL_MS);
+            }
+            throw new IllegalStateException("No response within " + STARTUP_TIMEOUT + ": " + command);
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 1) {
+                throw new IllegalArgumentException("Expected key=value, got: " + arg);
+            }
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        return options;
+    }
+}
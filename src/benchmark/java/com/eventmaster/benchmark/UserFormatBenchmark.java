@@ -0,0 +1,126 @@
+package com.eventmaster.benchmark;
+
+import com.eventmaster.config.JacksonConfig;
+import com.eventmaster.controller.UserStreamCodec;
+import com.eventmaster.model.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.http.MediaType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The response formats side by side: one {@link User} as {@code GET /users/{id}} returns it, and a
+ * 100-user stream as {@code GET /users/stream} writes it and {@code POST /users/batch} reads it
+ * (NDJSON for {@code json}, length-delimited records for {@code smile} and {@code cbor}).
+ * Payload sizes are printed once per fork, before the first iteration.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserFormatBenchmark {
+
+    private static final int STREAM_SIZE = 100;
+
+    @Param({"json", "smile", "cbor"})
+    private String format;
+
+    private ObjectWriter writer;
+    private ObjectReader reader;
+    private UserStreamCodec streamCodec;
+    private MediaType streamType;
+    private User user;
+    private List<User> users;
+    private byte[] encoded;
+    private byte[] stream;
+
+    @Setup
+    public void setup() throws IOException {
+        JacksonConfig jacksonConfig = new JacksonConfig();
+        ObjectMapper objectMapper;
+        switch (format) {
+            case "smile":
+                objectMapper = jacksonConfig.smileHttpMessageConverter().getObjectMapper();
+                streamType = MediaType.parseMediaType(UserStreamCodec.APPLICATION_SMILE_DELIMITED_VALUE);
+                break;
+            case "cbor":
+                objectMapper = jacksonConfig.cborHttpMessageConverter().getObjectMapper();
+                streamType = MediaType.parseMediaType(UserStreamCodec.APPLICATION_CBOR_DELIMITED_VALUE);
+                break;
+            default:
+                objectMapper = jacksonConfig.objectMapper();
+                streamType = MediaType.parseMediaType("application/x-ndjson");
+        }
+        streamCodec = new UserStreamCodec(jacksonConfig.objectMapper(), jacksonConfig.smileHttpMessageConverter(),
+                jacksonConfig.cborHttpMessageConverter());
+        writer = objectMapper.writerFor(User.class);
+        reader = objectMapper.readerFor(User.class);
+
+        user = new User("asmith", "securepass", "asmith@example.com", "Alice Smith", "Los Angeles",
+                LocalDate.of(2024, 7, 15));
+        users = new ArrayList<>(STREAM_SIZE);
+        for (int i = 0; i < STREAM_SIZE; i++) {
+            users.add(new User("user" + i, "password" + i, "user" + i + "@example.com", "User " + i, "Austin, TX",
+                    LocalDate.of(2024, 1, 1).plusDays(i)));
+        }
+        encoded = writer.writeValueAsBytes(user);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeStream(out);
+        stream = out.toByteArray();
+        System.out.printf("%n%s payload: user %d bytes, %d-user stream %d bytes%n",
+                format, encoded.length, STREAM_SIZE, stream.length);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return writer.writeValueAsBytes(user);
+    }
+
+    @Benchmark
+    public User decode() throws IOException {
+        return reader.readValue(encoded);
+    }
+
+    @Benchmark
+    public void encodeStream() throws IOException {
+        writeStream(OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public void decodeStream(Blackhole blackhole) throws IOException {
+        try (UserStreamCodec.RecordReader records = streamCodec.reader(streamType, new ByteArrayInputStream(stream))) {
+            records.forEachRemaining(blackhole::consume);
+        }
+    }
+
+    private void writeStream(OutputStream out) throws IOException {
+        try (UserStreamCodec.RecordWriter records = streamCodec.writer(streamType, out)) {
+            for (User row : users) {
+                records.write(row);
+            }
+        }
+    }
+}
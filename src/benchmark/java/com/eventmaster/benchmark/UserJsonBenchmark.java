@@ -0,0 +1,91 @@
+package com.eventmaster.benchmark;
+
+import com.eventmaster.config.JacksonConfig;
+import com.eventmaster.model.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON encode/decode of a single {@link User}, and of a 100-user page written to an output stream as
+ * {@code GET /users} does, with the handwritten codec the HTTP layer uses ({@code handwritten}) and
+ * with Jackson's reflective bean serializers ({@code reflection}). Run with {@code -prof gc} to
+ * compare allocations per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserJsonBenchmark {
+
+    private static final int PAGE_SIZE = 100;
+
+    @Param({"handwritten", "reflection"})
+    private String codec;
+
+    private ObjectWriter writer;
+    private ObjectWriter pageWriter;
+    private ObjectReader reader;
+    private User user;
+    private List<User> page;
+    private byte[] json;
+
+    @Setup
+    public void setup() throws IOException {
+        ObjectMapper objectMapper = codec.equals("handwritten")
+                ? new JacksonConfig().objectMapper()
+                : Jackson2ObjectMapperBuilder.json().modules(new JavaTimeModule()).build();
+        writer = objectMapper.writerFor(User.class);
+        // Declared type as in the controller's List<User> return value
+        pageWriter = objectMapper.writerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, User.class));
+        reader = objectMapper.readerFor(User.class);
+        user = new User("asmith", "securepass", "asmith@example.com", "Alice Smith", "Los Angeles",
+                LocalDate.of(2024, 7, 15));
+        user.setId(2L);
+        json = writer.writeValueAsBytes(user);
+        page = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            User row = new User("user" + i, "password" + i, "user" + i + "@example.com", "User " + i, "Austin, TX",
+                    LocalDate.of(2024, 1, 1).plusDays(i));
+            row.setId((long) i);
+            page.add(row);
+        }
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return writer.writeValueAsBytes(user);
+    }
+
+    @Benchmark
+    public User decode() throws IOException {
+        return reader.readValue(json);
+    }
+
+    @Benchmark
+    public void encodePage() throws IOException {
+        pageWriter.writeValue(OutputStream.nullOutputStream(), page);
+    }
+}
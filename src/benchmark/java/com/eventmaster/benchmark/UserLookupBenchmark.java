@@ -0,0 +1,76 @@
+package com.eventmaster.benchmark;
+
+import com.eventmaster.model.User;
+import com.eventmaster.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-user lookups through {@link UserService}, with and without the user cache.
+ * Keys are drawn uniformly from the seeded users.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserLookupBenchmark {
+
+    @Param({"10000"})
+    private int users;
+
+    @Param({"true", "false"})
+    private boolean cache;
+
+    private ConfigurableApplicationContext context;
+    private UserService userService;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = BenchmarkSupport.start(Map.of("user.cache.enabled", String.valueOf(cache)));
+        BenchmarkSupport.seedUsers(context, users);
+        userService = context.getBean(UserService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private long randomIndex() {
+        return ThreadLocalRandom.current().nextInt(users);
+    }
+
+    @Benchmark
+    public Optional<User> findById() {
+        return userService.findById(BenchmarkSupport.FIRST_SEEDED_ID + randomIndex());
+    }
+
+    @Benchmark
+    public User findByUsername() {
+        return userService.findByUsername(BenchmarkSupport.username(randomIndex()));
+    }
+
+    @Benchmark
+    public User findByEmail() {
+        return userService.findByEmail(BenchmarkSupport.email(randomIndex()));
+    }
+}
@@ -0,0 +1,85 @@
+package com.eventmaster.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.head;
+
+/**
+ * Probing for usernames through the full Spring MVC stack (MockMvc, so no socket): a GET that misses,
+ * the HEAD existence check for missing and existing users, with and without the negative cache.
+ * Missing names are drawn from a fixed set, as a client retrying its probes would send them.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+// The request path runs through most of Spring MVC, which takes a while to compile
+@Warmup(iterations = 6, time = 10)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserNotFoundBenchmark {
+
+    private static final int USERS = 10_000;
+    private static final int MISSING_NAMES = 1_000;
+
+    @Param({"true", "false"})
+    private boolean negativeCache;
+
+    private ConfigurableApplicationContext context;
+    private MockMvc mockMvc;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = BenchmarkSupport.start(Map.of(
+                "user.negative-cache.enabled", String.valueOf(negativeCache),
+                "user.negative-cache.ttl", "1h"));
+        BenchmarkSupport.seedUsers(context, USERS);
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private static String missingUsername() {
+        return "missing" + ThreadLocalRandom.current().nextInt(MISSING_NAMES);
+    }
+
+    @Benchmark
+    public MvcResult getMissing() throws Exception {
+        return mockMvc.perform(get("/users/by-username/{username}", missingUsername())).andReturn();
+    }
+
+    @Benchmark
+    public MvcResult headMissing() throws Exception {
+        return mockMvc.perform(head("/users/by-username/{username}", missingUsername())).andReturn();
+    }
+
+    @Benchmark
+    public MvcResult headExisting() throws Exception {
+        String username = BenchmarkSupport.username(ThreadLocalRandom.current().nextInt(USERS));
+        return mockMvc.perform(head("/users/by-username/{username}", username)).andReturn();
+    }
+}
@@ -0,0 +1,67 @@
+package com.eventmaster.benchmark;
+
+import com.eventmaster.model.UserSuggestion;
+import com.eventmaster.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Top-10 typeahead through {@link UserService#searchUsers}, served by the in-memory prefix index
+ * ({@code index=true}) or by the {@code LIKE} query it replaces. Prefixes go from matching almost
+ * every user ("u", "bench") to a handful ("user4242").
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserSearchBenchmark {
+
+    @Param({"100000"})
+    private int users;
+
+    @Param({"true", "false"})
+    private boolean index;
+
+    @Param({"u", "user4", "user4242", "bench"})
+    private String prefix;
+
+    private ConfigurableApplicationContext context;
+    private UserService userService;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = BenchmarkSupport.start(Map.of("user.search.enabled", String.valueOf(index)));
+        BenchmarkSupport.seedUsers(context, users);
+        userService = context.getBean(UserService.class);
+        // Seeded rows bypass saveUser, so index them the way startup would
+        userService.loadIndexes();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<UserSuggestion> search() {
+        return userService.searchUsers(prefix, 10);
+    }
+}
@@ -0,0 +1,92 @@
+package com.eventmaster.benchmark;
+
+import com.eventmaster.model.User;
+import com.eventmaster.service.UserService;
+import com.eventmaster.snapshot.UserSnapshotExporter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-user lookups through {@link UserService} served from the database with the user cache
+ * ({@code cached}), from the database alone ({@code database}), or from a memory-mapped snapshot
+ * of the same users ({@code snapshot}). Add {@code -prof gc} to compare allocation per lookup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserSnapshotBenchmark {
+
+    @Param({"100000"})
+    private int users;
+
+    @Param({"cached", "database", "snapshot"})
+    private String storage;
+
+    private Path file;
+    private ConfigurableApplicationContext context;
+    private UserService userService;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        context = BenchmarkSupport.start(Map.of("user.cache.enabled", String.valueOf(storage.equals("cached"))));
+        BenchmarkSupport.seedUsers(context, users);
+        if (storage.equals("snapshot")) {
+            file = Files.createTempFile("users", ".snapshot");
+            context.getBean(UserSnapshotExporter.class).export(file);
+            context.close();
+            context = BenchmarkSupport.start(Map.of("user.snapshot.enabled", "true",
+                    "user.snapshot.path", file.toString()));
+        }
+        userService = context.getBean(UserService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        if (file != null) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private long randomIndex() {
+        return ThreadLocalRandom.current().nextInt(users);
+    }
+
+    @Benchmark
+    public Optional<User> findById() {
+        return userService.findById(BenchmarkSupport.FIRST_SEEDED_ID + randomIndex());
+    }
+
+    @Benchmark
+    public User findByUsername() {
+        return userService.findByUsername(BenchmarkSupport.username(randomIndex()));
+    }
+
+    @Benchmark
+    public Optional<User> findByEmailMiss() {
+        return userService.findOptionalByEmail("missing" + randomIndex() + "@example.com");
+    }
+}
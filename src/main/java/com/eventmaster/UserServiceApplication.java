@@ -1,11 +1,29 @@
 package com.eventmaster;
 
+import com.eventmaster.cli.UserDataCommand;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class UserServiceApplication {
+
+    /**
+     * System property for the class-data-sharing training run (the {@code cds} Maven profile): start
+     * up completely, then exit so the JVM writes the classes it loaded to its archive.
+     */
+    public static final String EXIT_AFTER_STARTUP = "user.startup.exit";
+
     public static void main(String[] args) {
-        SpringApplication.run(UserServiceApplication.class, args);
+        if (UserDataCommand.isCommand(args)) {
+            // import/export: run once against the database and exit, without starting the web server
+            System.exit(UserDataCommand.run(args));
+        }
+        ConfigurableApplicationContext context = SpringApplication.run(UserServiceApplication.class, args);
+        if (Boolean.getBoolean(EXIT_AFTER_STARTUP)) {
+            System.exit(SpringApplication.exit(context));
+        }
     }
-}
\ No newline at end of file
+}
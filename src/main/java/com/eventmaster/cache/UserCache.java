@@ -0,0 +1,142 @@
+package com.eventmaster.cache;
+
+import com.eventmaster.model.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, in-process read-through cache for user lookups.
+ *
+ * <p>Entries live in a single Caffeine cache keyed by id (W-TinyLFU eviction, size limit and
+ * TTL). Username and email are secondary keys that point at the id, so one cached user is
+ * reachable by all three lookups but is stored and evicted only once. When Caffeine evicts
+ * or expires an entry the removal listener drops its secondary keys as well, which keeps the
+ * secondary maps bounded by the primary cache size.
+ *
+ * <p>Hits and misses are counted here rather than by Caffeine, because a secondary-key miss
+ * never reaches the underlying cache. Evictions come from Caffeine's own statistics.
+ */
+@Component
+@ConditionalOnProperty(name = "user.cache.enabled", havingValue = "true", matchIfMissing = true)
+public class UserCache {
+    private static final Logger logger = LoggerFactory.getLogger(UserCache.class);
+
+    private final Cache<Long, User> usersById;
+    private final ConcurrentMap<String, Long> idsByUsername = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Long> idsByEmail = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public UserCache(@Value("${user.cache.max-size:100000}") long maxSize,
+                     @Value("${user.cache.ttl:10m}") Duration ttl) {
+        this.usersById = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                // Run the listener on the calling thread so secondary keys never outlive their entry for long
+                .executor(Runnable::run)
+                .removalListener(this::onRemoval)
+                .build();
+        logger.info("User cache enabled with max size {} and ttl {}", maxSize, ttl);
+    }
+
+    public Optional<User> getById(Long id) {
+        User user = id == null ? null : usersById.getIfPresent(id);
+        return record(user);
+    }
+
+    public Optional<User> getByUsername(String username) {
+        Long id = username == null ? null : idsByUsername.get(username);
+        User user = id == null ? null : usersById.getIfPresent(id);
+        return record(user != null && username.equals(user.getUsername()) ? user : null);
+    }
+
+    public Optional<User> getByEmail(String email) {
+        Long id = email == null ? null : idsByEmail.get(email);
+        User user = id == null ? null : usersById.getIfPresent(id);
+        return record(user != null && email.equals(user.getEmail()) ? user : null);
+    }
+
+    /**
+     * Add or refresh a user. If the cached copy had a different username or email (the user was
+     * updated), the stale secondary keys are removed first.
+     */
+    public void put(User user) {
+        if (user == null || user.getId() == null) {
+            return;
+        }
+        User previous = usersById.asMap().put(user.getId(), user);
+        if (previous != null) {
+            if (!Objects.equals(previous.getUsername(), user.getUsername())) {
+                idsByUsername.remove(previous.getUsername(), previous.getId());
+            }
+            if (!Objects.equals(previous.getEmail(), user.getEmail())) {
+                idsByEmail.remove(previous.getEmail(), previous.getId());
+            }
+        }
+        idsByUsername.put(user.getUsername(), user.getId());
+        idsByEmail.put(user.getEmail(), user.getId());
+    }
+
+    public void invalidate(Long id) {
+        if (id != null) {
+            usersById.invalidate(id);
+        }
+    }
+
+    public void invalidateAll() {
+        usersById.invalidateAll();
+    }
+
+    public long size() {
+        return usersById.estimatedSize();
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long evictionCount() {
+        return usersById.stats().evictionCount();
+    }
+
+    public double hitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 1.0 : (double) hitCount / total;
+    }
+
+    private Optional<User> record(User user) {
+        if (user == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        return Optional.of(user);
+    }
+
+    private void onRemoval(Long id, User user, RemovalCause cause) {
+        if (user == null || cause == RemovalCause.REPLACED) {
+            return;
+        }
+        idsByUsername.remove(user.getUsername(), id);
+        idsByEmail.remove(user.getEmail(), id);
+    }
+}
@@ -0,0 +1,43 @@
+package com.eventmaster.cache;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Actuator endpoint exposing user cache counters at {@code /actuator/usercache} so the size and
+ * TTL can be tuned against the observed hit ratio. A DELETE clears the cache. Exposed only by the
+ * admin profile, see application-admin.properties.
+ */
+@Component
+@ConditionalOnProperty(name = "user.cache.enabled", havingValue = "true", matchIfMissing = true)
+@Endpoint(id = "usercache")
+public class UserCacheEndpoint {
+
+    private final UserCache userCache;
+
+    public UserCacheEndpoint(UserCache userCache) {
+        this.userCache = userCache;
+    }
+
+    @ReadOperation
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", userCache.size());
+        stats.put("hits", userCache.hitCount());
+        stats.put("misses", userCache.missCount());
+        stats.put("hitRate", userCache.hitRate());
+        stats.put("evictions", userCache.evictionCount());
+        return stats;
+    }
+
+    @DeleteOperation
+    public void clear() {
+        userCache.invalidateAll();
+    }
+}
@@ -0,0 +1,41 @@
+package com.eventmaster.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes the {@link UserCache} counters as meters. Values are read from the cache when the
+ * registry is scraped, nothing is recorded on the lookup path.
+ */
+@Component
+@ConditionalOnProperty(name = "user.cache.enabled", havingValue = "true", matchIfMissing = true)
+public class UserCacheMetrics implements MeterBinder {
+
+    private final UserCache userCache;
+
+    public UserCacheMetrics(UserCache userCache) {
+        this.userCache = userCache;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("user.cache.size", userCache, UserCache::size)
+                .description("Users held in the cache")
+                .register(registry);
+        FunctionCounter.builder("user.cache.gets", userCache, UserCache::hitCount)
+                .description("Cache lookups by id, username or email")
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("user.cache.gets", userCache, UserCache::missCount)
+                .description("Cache lookups by id, username or email")
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("user.cache.evictions", userCache, UserCache::evictionCount)
+                .description("Entries evicted for size or expiry")
+                .register(registry);
+    }
+}
@@ -0,0 +1,101 @@
+package com.eventmaster.cache;
+
+import com.eventmaster.model.User;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight for user lookups that miss the cache: while a query for a key is running, other
+ * callers asking for the same key wait for it instead of issuing their own, and all of them get its
+ * result, including an empty one or the exception it threw. The entry is dropped as soon as the
+ * query finishes, so nothing is cached here; a caller arriving afterwards queries again (or, for a
+ * found user, hits {@link UserCache}, which the query's caller fills before the entry is dropped).
+ *
+ * <p>Waiters block on the running query without holding a connection, since the caller that runs it
+ * opens the transaction inside the loader.
+ */
+@Component
+@ConditionalOnProperty(name = "user.coalescing.enabled", havingValue = "true", matchIfMissing = true)
+public class UserLoadCoalescer {
+
+    public enum Lookup {
+        ID, USERNAME, EMAIL
+    }
+
+    private final Map<Lookup, Flights> flights = new EnumMap<>(Lookup.class);
+
+    public UserLoadCoalescer() {
+        for (Lookup lookup : Lookup.values()) {
+            flights.put(lookup, new Flights());
+        }
+    }
+
+    /**
+     * Runs {@code loader} for the key, or waits for the identical load already running.
+     */
+    public Optional<User> load(Lookup lookup, Object key, Supplier<Optional<User>> loader) {
+        Flights byKey = flights.get(lookup);
+        CompletableFuture<Optional<User>> flight = new CompletableFuture<>();
+        CompletableFuture<Optional<User>> running = byKey.inFlight.putIfAbsent(key, flight);
+        if (running != null) {
+            byKey.coalesced.increment();
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                throw unwrap(e);
+            }
+        }
+        byKey.loads.increment();
+        try {
+            Optional<User> user = loader.get();
+            byKey.inFlight.remove(key, flight);
+            flight.complete(user);
+            return user;
+        } catch (RuntimeException | Error e) {
+            byKey.inFlight.remove(key, flight);
+            flight.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private static RuntimeException unwrap(CompletionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return e;
+    }
+
+    /** Queries run on behalf of callers. */
+    public long loadCount(Lookup lookup) {
+        return flights.get(lookup).loads.sum();
+    }
+
+    /** Callers that shared another caller's query instead of running their own. */
+    public long coalescedCount(Lookup lookup) {
+        return flights.get(lookup).coalesced.sum();
+    }
+
+    public int inFlight() {
+        return flights.values().stream().mapToInt(f -> f.inFlight.size()).sum();
+    }
+
+    private static final class Flights {
+        final ConcurrentMap<Object, CompletableFuture<Optional<User>>> inFlight = new ConcurrentHashMap<>();
+        final LongAdder loads = new LongAdder();
+        final LongAdder coalesced = new LongAdder();
+    }
+}
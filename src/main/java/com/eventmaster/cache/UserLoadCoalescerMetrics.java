@@ -0,0 +1,43 @@
+package com.eventmaster.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+/**
+ * Publishes the {@link UserLoadCoalescer} counters as meters: per lookup type, the queries that ran
+ * and the callers that shared them. Their ratio is the database work coalescing saved.
+ */
+@Component
+@ConditionalOnProperty(name = "user.coalescing.enabled", havingValue = "true", matchIfMissing = true)
+public class UserLoadCoalescerMetrics implements MeterBinder {
+
+    private final UserLoadCoalescer coalescer;
+
+    public UserLoadCoalescerMetrics(UserLoadCoalescer coalescer) {
+        this.coalescer = coalescer;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (UserLoadCoalescer.Lookup lookup : UserLoadCoalescer.Lookup.values()) {
+            String key = lookup.name().toLowerCase(Locale.ROOT);
+            FunctionCounter.builder("user.lookup.loads", coalescer, c -> c.loadCount(lookup))
+                    .description("Cache-miss lookups that queried the database")
+                    .tag("key", key)
+                    .register(registry);
+            FunctionCounter.builder("user.lookup.coalesced", coalescer, c -> c.coalescedCount(lookup))
+                    .description("Cache-miss lookups that waited for an identical query already running")
+                    .tag("key", key)
+                    .register(registry);
+        }
+        Gauge.builder("user.lookup.in.flight", coalescer, UserLoadCoalescer::inFlight)
+                .description("Distinct lookup queries running")
+                .register(registry);
+    }
+}
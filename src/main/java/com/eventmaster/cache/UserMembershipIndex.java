@@ -0,0 +1,144 @@
+package com.eventmaster.cache;
+
+import com.eventmaster.model.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Every username and email known to be taken, so {@code saveUser} can spot a duplicate before
+ * attempting the insert.
+ *
+ * <p>A hit is a strong hint, not proof: a value can go stale if a user is renamed by another
+ * writer, so callers confirm hits against the database. A miss is not proof either, since rows
+ * written by other instances are only learned when they collide; the unique constraints remain
+ * the final check. Keys are stored exactly as the database compares them (case-sensitive).
+ *
+ * <p>Because every hit is confirmed anyway, the keys are held in two Bloom filters rather than
+ * in sets, so memory stays fixed however large the table grows: sized for
+ * {@code user.membership-index.expected-entries} keys at a false-positive rate of
+ * {@code user.membership-index.false-positive-rate}, about 1.2 MB per filter for a million keys
+ * at 1%. A false positive costs one {@code exists} query; past the expected size the rate rises,
+ * but nothing is rejected that is not taken.
+ */
+@Component
+@ConditionalOnProperty(name = "user.membership-index.enabled", havingValue = "true", matchIfMissing = true)
+public class UserMembershipIndex {
+    private static final Logger logger = LoggerFactory.getLogger(UserMembershipIndex.class);
+
+    public static final String USERNAME = "username";
+    public static final String EMAIL = "email";
+
+    private final BloomFilter usernames;
+    private final BloomFilter emails;
+
+    public UserMembershipIndex(@Value("${user.membership-index.expected-entries:1000000}") long expectedEntries,
+                               @Value("${user.membership-index.false-positive-rate:0.01}") double falsePositiveRate) {
+        if (expectedEntries < 1) {
+            throw new IllegalArgumentException("user.membership-index.expected-entries must be positive, got " + expectedEntries);
+        }
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("user.membership-index.false-positive-rate must be between 0 and 1, got "
+                    + falsePositiveRate);
+        }
+        this.usernames = new BloomFilter(expectedEntries, falsePositiveRate);
+        this.emails = new BloomFilter(expectedEntries, falsePositiveRate);
+        logger.info("Membership index sized for {} usernames and emails at {} false positives: {} KB",
+                expectedEntries, falsePositiveRate, (usernames.sizeInBytes() + emails.sizeInBytes()) / 1024);
+    }
+
+    public boolean containsUsername(String username) {
+        return username != null && usernames.mightContain(username);
+    }
+
+    public boolean containsEmail(String email) {
+        return email != null && emails.mightContain(email);
+    }
+
+    public void add(User user) {
+        add(user.getUsername(), user.getEmail());
+    }
+
+    public void add(String username, String email) {
+        if (username != null) {
+            usernames.put(username);
+        }
+        if (email != null) {
+            emails.put(email);
+        }
+    }
+
+    /**
+     * Bits set with compare-and-set, so concurrent adds need no lock and a reader never misses a
+     * key whose add has returned. Bit positions come from two halves of a 64-bit hash combined
+     * ({@code h1 + i * h2}), which is as good as independent hash functions for this purpose.
+     */
+    private static final class BloomFilter {
+        private final AtomicLongArray words;
+        private final long bits;
+        private final int hashes;
+
+        BloomFilter(long expectedEntries, double falsePositiveRate) {
+            double ln2 = Math.log(2);
+            long optimalBits = (long) Math.ceil(-expectedEntries * Math.log(falsePositiveRate) / (ln2 * ln2));
+            long wordCount = Math.max(1, (optimalBits + 63) / 64);
+            if (wordCount > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Membership index for " + expectedEntries + " entries is too large");
+            }
+            this.words = new AtomicLongArray((int) wordCount);
+            this.bits = wordCount * 64;
+            this.hashes = Math.max(1, (int) Math.round((double) bits / expectedEntries * ln2));
+        }
+
+        void put(String key) {
+            long hash = hash(key);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashes; i++) {
+                long bit = Math.floorMod(h1 + (long) i * h2, bits);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long current;
+                do {
+                    current = words.get(word);
+                } while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask));
+            }
+        }
+
+        boolean mightContain(String key) {
+            long hash = hash(key);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashes; i++) {
+                long bit = Math.floorMod(h1 + (long) i * h2, bits);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        long sizeInBytes() {
+            return bits / 8;
+        }
+
+        // 64-bit FNV-1a over the UTF-16 chars, then a murmur3 finalizer to spread the bits
+        private static long hash(String key) {
+            long hash = 0xcbf29ce484222325L;
+            for (int i = 0; i < key.length(); i++) {
+                hash ^= key.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            hash ^= hash >>> 33;
+            hash *= 0xff51afd7ed558ccdL;
+            hash ^= hash >>> 33;
+            hash *= 0xc4ceb93fe1a85ec3L;
+            hash ^= hash >>> 33;
+            return hash;
+        }
+    }
+}
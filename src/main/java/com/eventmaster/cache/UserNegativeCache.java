@@ -0,0 +1,62 @@
+package com.eventmaster.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Usernames recently found not to exist, so repeated existence probes for them
+ * ({@code HEAD /users/by-username/{username}}) are answered without a query. Saves through this
+ * instance remove the username at once. A user created by another instance is reported missing
+ * for at most the TTL, which is why it is short.
+ */
+@Component
+@ConditionalOnProperty(name = "user.negative-cache.enabled", havingValue = "true", matchIfMissing = true)
+public class UserNegativeCache {
+    private static final Logger logger = LoggerFactory.getLogger(UserNegativeCache.class);
+
+    private final Cache<String, Boolean> missingUsernames;
+    private final LongAdder hits = new LongAdder();
+
+    public UserNegativeCache(@Value("${user.negative-cache.max-size:100000}") long maxSize,
+                             @Value("${user.negative-cache.ttl:5s}") Duration ttl) {
+        this.missingUsernames = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+        logger.info("Negative username cache enabled with max size {} and ttl {}", maxSize, ttl);
+    }
+
+    public boolean isKnownMissing(String username) {
+        boolean missing = missingUsernames.getIfPresent(username) != null;
+        if (missing) {
+            hits.increment();
+        }
+        return missing;
+    }
+
+    public void recordMissing(String username) {
+        missingUsernames.put(username, Boolean.TRUE);
+    }
+
+    public void invalidate(String username) {
+        if (username != null) {
+            missingUsernames.invalidate(username);
+        }
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long size() {
+        return missingUsernames.estimatedSize();
+    }
+}
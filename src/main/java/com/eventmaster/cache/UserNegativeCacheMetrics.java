@@ -0,0 +1,32 @@
+package com.eventmaster.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes the {@link UserNegativeCache} size and the existence checks it answered.
+ */
+@Component
+@ConditionalOnProperty(name = "user.negative-cache.enabled", havingValue = "true", matchIfMissing = true)
+public class UserNegativeCacheMetrics implements MeterBinder {
+
+    private final UserNegativeCache negativeCache;
+
+    public UserNegativeCacheMetrics(UserNegativeCache negativeCache) {
+        this.negativeCache = negativeCache;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("user.negative.cache.size", negativeCache, UserNegativeCache::size)
+                .description("Usernames remembered as missing")
+                .register(registry);
+        FunctionCounter.builder("user.negative.cache.hits", negativeCache, UserNegativeCache::hitCount)
+                .description("Existence checks answered as missing without a query")
+                .register(registry);
+    }
+}
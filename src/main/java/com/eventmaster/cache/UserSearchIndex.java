@@ -0,0 +1,121 @@
+package com.eventmaster.cache;
+
+import com.eventmaster.model.UserSuggestion;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Sorted in-memory index for username/name typeahead.
+ *
+ * <p>Each user is indexed under its lower-cased username, every word of its name and the full
+ * name, as {@code term + '\0' + id}. A prefix search is then a range scan starting at the prefix
+ * that stops at the first key not starting with it, so it reads only the entries it returns
+ * (plus the other terms of users already found). Exact term matches sort first, then longer terms
+ * in alphabetical order.
+ *
+ * <p>Reads are lock-free. Writes are serialized, so replacing a user's terms is atomic with
+ * respect to other writers, though a concurrent search may briefly see both old and new terms.
+ */
+@Component
+@ConditionalOnProperty(name = "user.search.enabled", havingValue = "true", matchIfMissing = true)
+public class UserSearchIndex {
+
+    private static final char SEPARATOR = '\0';
+
+    private final ConcurrentSkipListMap<String, UserSuggestion> entries = new ConcurrentSkipListMap<>();
+    private final Map<Long, Set<String>> keysById = new ConcurrentHashMap<>();
+
+    /**
+     * Adds or re-indexes a user; terms it no longer has are removed.
+     */
+    public synchronized void put(Long id, String username, String name) {
+        if (id == null) {
+            return;
+        }
+        UserSuggestion suggestion = new UserSuggestion(username, name);
+        Set<String> keys = keys(id, username, name);
+        Set<String> previous = keysById.put(id, keys);
+        if (previous != null) {
+            for (String key : previous) {
+                if (!keys.contains(key)) {
+                    entries.remove(key);
+                }
+            }
+        }
+        for (String key : keys) {
+            entries.put(key, suggestion);
+        }
+    }
+
+    /**
+     * Up to {@code limit} users with a username, name or name word starting with {@code prefix},
+     * ignoring case. Each user appears once.
+     */
+    public List<UserSuggestion> search(String prefix, int limit) {
+        String from = normalize(prefix);
+        List<UserSuggestion> results = new ArrayList<>(Math.min(limit, 16));
+        if (from.isEmpty()) {
+            return results;
+        }
+        for (Map.Entry<String, UserSuggestion> entry : entries.tailMap(from).entrySet()) {
+            if (results.size() == limit || !entry.getKey().startsWith(from)) {
+                break;
+            }
+            // All terms of one user share a single suggestion instance; limit is small, so a scan is cheapest
+            if (!containsSame(results, entry.getValue())) {
+                results.add(entry.getValue());
+            }
+        }
+        return results;
+    }
+
+    public int size() {
+        return keysById.size();
+    }
+
+    private static boolean containsSame(List<UserSuggestion> results, UserSuggestion suggestion) {
+        for (UserSuggestion result : results) {
+            if (result == suggestion) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Set<String> keys(Long id, String username, String name) {
+        Set<String> terms = new HashSet<>();
+        addTerm(terms, username);
+        String normalizedName = normalize(name);
+        if (!normalizedName.isEmpty()) {
+            terms.add(normalizedName);
+            for (String word : normalizedName.split("\\s+")) {
+                addTerm(terms, word);
+            }
+        }
+        Set<String> keys = new HashSet<>(terms.size() * 2);
+        for (String term : terms) {
+            keys.add(term + SEPARATOR + id);
+        }
+        return keys;
+    }
+
+    private static void addTerm(Set<String> terms, String value) {
+        String term = normalize(value);
+        if (!term.isEmpty()) {
+            terms.add(term);
+        }
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+}
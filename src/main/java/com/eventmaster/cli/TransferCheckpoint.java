@@ -0,0 +1,83 @@
+package com.eventmaster.cli;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * Progress of an import or export, saved next to its file as {@code <file>.checkpoint} so an
+ * interrupted run can be resumed with {@code --resume}. Each save replaces the file in one step;
+ * it is deleted once the run completes.
+ *
+ * <ul>
+ *   <li>Import: {@code records} read from the input whose rows are committed (or rejected).</li>
+ *   <li>Export: {@code lastId} written, and the {@code bytes} of output holding exactly those rows.</li>
+ * </ul>
+ */
+public final class TransferCheckpoint {
+
+    private final Path path;
+    private final Properties values = new Properties();
+
+    private TransferCheckpoint(Path path) {
+        this.path = path;
+    }
+
+    public static Path pathFor(Path file) {
+        return file.resolveSibling(file.getFileName() + ".checkpoint");
+    }
+
+    /**
+     * The checkpoint of a run on {@code file}: the saved one when resuming, otherwise a fresh one.
+     *
+     * @throws IllegalStateException when not resuming but an earlier run left a checkpoint
+     */
+    public static TransferCheckpoint open(Path file, boolean resume) throws IOException {
+        TransferCheckpoint checkpoint = new TransferCheckpoint(pathFor(file));
+        if (Files.exists(checkpoint.path)) {
+            if (!resume) {
+                throw new IllegalStateException("An interrupted run left " + checkpoint.path
+                        + ": pass --resume to continue it, or delete it to start over");
+            }
+            try (Reader in = Files.newBufferedReader(checkpoint.path, StandardCharsets.UTF_8)) {
+                checkpoint.values.load(in);
+            }
+        }
+        return checkpoint;
+    }
+
+    public long get(String key) {
+        return Long.parseLong(values.getProperty(key, "0"));
+    }
+
+    public TransferCheckpoint set(String key, long value) {
+        values.setProperty(key, Long.toString(value));
+        return this;
+    }
+
+    public boolean isResumed() {
+        return !values.isEmpty();
+    }
+
+    public void save() {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            try (Writer out = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+                values.store(out, null);
+            }
+            Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not save checkpoint " + path, e);
+        }
+    }
+
+    public void delete() throws IOException {
+        Files.deleteIfExists(path);
+    }
+}
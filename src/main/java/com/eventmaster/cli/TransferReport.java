@@ -0,0 +1,46 @@
+package com.eventmaster.cli;
+
+/**
+ * Outcome of an import or export run. Counts cover the whole file, including work done by earlier
+ * runs that were resumed; the rate covers only this run.
+ */
+public class TransferReport {
+
+    private final long rows;
+    private final long failed;
+    private final long rowsThisRun;
+    private final long nanos;
+
+    public TransferReport(long rows, long failed, long rowsThisRun, long nanos) {
+        this.rows = rows;
+        this.failed = failed;
+        this.rowsThisRun = rowsThisRun;
+        this.nanos = nanos;
+    }
+
+    /**
+     * Rows read (import) or written (export).
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * Rows rejected by an import, listed in its rejects file.
+     */
+    public long getFailed() {
+        return failed;
+    }
+
+    public double getSeconds() {
+        return nanos / 1e9;
+    }
+
+    public long getRowsPerSecond() {
+        return rate(rowsThisRun, nanos);
+    }
+
+    static long rate(long rows, long nanos) {
+        return nanos <= 0 ? rows : Math.round(rows * 1e9 / nanos);
+    }
+}
@@ -0,0 +1,191 @@
+package com.eventmaster.cli;
+
+import com.eventmaster.model.User;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * CSV form of a user: RFC 4180 quoting, a header row naming the columns, and {@code dateJoined} as
+ * an ISO date. An empty field is null and a quoted empty field ({@code ""}) is an empty string,
+ * so values survive a round trip. Files to import may order the columns any way and leave out
+ * the optional ones.
+ */
+public final class UserCsv {
+
+    public static final String USERNAME = "username";
+    public static final String PASSWORD = "password";
+    public static final String EMAIL = "email";
+    public static final String NAME = "name";
+    public static final String LOCATION = "location";
+    public static final String DATE_JOINED = "dateJoined";
+
+    private static final List<String> COLUMNS = List.of(USERNAME, PASSWORD, EMAIL, NAME, LOCATION, DATE_JOINED);
+
+    public static final String HEADER = String.join(",", COLUMNS);
+
+    private final String[] columns;
+
+    private UserCsv(String[] columns) {
+        this.columns = columns;
+    }
+
+    /**
+     * A parser for records laid out as the given header row describes.
+     *
+     * @throws IllegalArgumentException when the header names an unknown column, or lacks a required one
+     */
+    public static UserCsv forHeader(String header) {
+        List<String> names = split(header);
+        if (names.size() != new HashSet<>(names).size()) {
+            throw new IllegalArgumentException("CSV header repeats a column: " + header);
+        }
+        for (String required : List.of(USERNAME, PASSWORD, EMAIL)) {
+            if (!names.contains(required)) {
+                throw new IllegalArgumentException("CSV header has no " + required + " column: " + header);
+            }
+        }
+        for (String name : names) {
+            if (!COLUMNS.contains(name)) {
+                throw new IllegalArgumentException("Unknown CSV column '" + name + "', expected some of: " + HEADER);
+            }
+        }
+        return new UserCsv(names.toArray(new String[0]));
+    }
+
+    /**
+     * @throws IllegalArgumentException when the record does not fit the header or holds an invalid date
+     */
+    public User parse(String record) {
+        List<String> values = split(record);
+        if (values.size() != columns.length) {
+            throw new IllegalArgumentException("Expected " + columns.length + " fields, got " + values.size());
+        }
+        User user = new User();
+        for (int i = 0; i < columns.length; i++) {
+            String value = values.get(i);
+            switch (columns[i]) {
+                case USERNAME:
+                    user.setUsername(value);
+                    break;
+                case PASSWORD:
+                    user.setPassword(value);
+                    break;
+                case EMAIL:
+                    user.setEmail(value);
+                    break;
+                case NAME:
+                    user.setName(value);
+                    break;
+                case LOCATION:
+                    user.setLocation(value);
+                    break;
+                default:
+                    user.setDateJoined(parseDate(value));
+            }
+        }
+        return user;
+    }
+
+    public static void format(User user, StringBuilder out) {
+        field(user.getUsername(), out).append(',');
+        field(user.getPassword(), out).append(',');
+        field(user.getEmail(), out).append(',');
+        field(user.getName(), out).append(',');
+        field(user.getLocation(), out).append(',');
+        if (user.getDateJoined() != null) {
+            out.append(user.getDateJoined());
+        }
+        out.append('\n');
+    }
+
+    /**
+     * Whether {@code text} ends inside a quoted field, i.e. the record continues on the next line.
+     */
+    static boolean isOpen(CharSequence text) {
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '"') {
+                quoted = !quoted;
+            }
+        }
+        return quoted;
+    }
+
+    private static LocalDate parseDate(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid dateJoined '" + value + "', expected yyyy-MM-dd");
+        }
+    }
+
+    private static StringBuilder field(String value, StringBuilder out) {
+        if (value == null) {
+            return out;
+        }
+        if (!value.isEmpty() && !needsQuotes(value)) {
+            return out.append(value);
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.append('"');
+            }
+            out.append(c);
+        }
+        return out.append('"');
+    }
+
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Fields of one record; unquoted empty fields are null
+    private static List<String> split(String record) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean wasQuoted = false;
+        for (int i = 0; i < record.length(); i++) {
+            char c = record.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < record.length() && record.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+                wasQuoted = true;
+            } else if (c == ',') {
+                fields.add(field.length() == 0 && !wasQuoted ? null : field.toString());
+                field.setLength(0);
+                wasQuoted = false;
+            } else if (c != '\r' || i + 1 < record.length()) {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.length() == 0 && !wasQuoted ? null : field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,118 @@
+package com.eventmaster.cli;
+
+import com.eventmaster.UserServiceApplication;
+import com.eventmaster.service.UserBatchService;
+import com.eventmaster.service.UserService;
+import com.eventmaster.snapshot.UserSnapshotExporter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Command-line mode of the application: moves users between a file and the users table instead of
+ * serving HTTP.
+ * <pre>
+ * java -jar user-service.jar import &lt;file&gt; [--format=csv|ndjson] [--resume] [--threads=N] [--spring options]
+ * java -jar user-service.jar export &lt;file&gt; [--format=csv|ndjson|snapshot] [--resume] [--spring options]
+ * </pre>
+ * {@code --threads} sets both the parser threads and the password hashing threads of an import.
+ * The format defaults to the one the file extension names. Other options are passed to Spring, so
+ * {@code --spring.datasource.url=...} or {@code --spring.profiles.active=...} choose the database
+ * as they do for the server. The {@code cli} profile is always active.
+ */
+public final class UserDataCommand {
+    private static final Logger logger = LoggerFactory.getLogger(UserDataCommand.class);
+
+    public static final String IMPORT = "import";
+    public static final String EXPORT = "export";
+
+    private static final String USAGE = "Usage: import <file> [--format=csv|ndjson] [--resume] [--threads=N]\n"
+            + "       export <file> [--format=csv|ndjson|snapshot] [--resume]";
+
+    private UserDataCommand() {
+    }
+
+    public static boolean isCommand(String[] args) {
+        return args.length > 0 && (IMPORT.equals(args[0]) || EXPORT.equals(args[0]));
+    }
+
+    /**
+     * Runs the command in {@code args} against a non-web application context.
+     *
+     * @return the process exit code: 0 when the run completed, 1 when it failed, 2 for bad arguments
+     */
+    public static int run(String[] args) {
+        String command = args[0];
+        Path file = null;
+        UserFileFormat format = null;
+        boolean resume = false;
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<String> springArgs = new ArrayList<>();
+        try {
+            for (int i = 1; i < args.length; i++) {
+                String arg = args[i];
+                if (arg.startsWith("--format=")) {
+                    format = UserFileFormat.of(arg.substring("--format=".length()));
+                } else if (arg.equals("--resume")) {
+                    resume = true;
+                } else if (arg.startsWith("--threads=")) {
+                    threads = Integer.parseInt(arg.substring("--threads=".length()));
+                } else if (arg.startsWith("--")) {
+                    springArgs.add(arg);
+                } else if (file == null) {
+                    file = Paths.get(arg).toAbsolutePath();
+                } else {
+                    throw new IllegalArgumentException("Unexpected argument: " + arg);
+                }
+            }
+            if (file == null) {
+                throw new IllegalArgumentException("No file given");
+            }
+            if (format == null) {
+                format = UserFileFormat.forFile(file);
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            return 2;
+        }
+        // Nothing else runs in this process, so plaintext passwords may be hashed on every thread
+        if (springArgs.stream().noneMatch(arg -> arg.startsWith("--user.password.threads="))) {
+            springArgs.add("--user.password.threads=" + threads);
+        }
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(UserServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("cli")
+                .run(springArgs.toArray(new String[0]))) {
+            Environment environment = context.getEnvironment();
+            ObjectMapper objectMapper = context.getBean(ObjectMapper.class);
+            TransferReport report;
+            if (IMPORT.equals(command)) {
+                UserImporter importer = new UserImporter(context.getBean(UserBatchService.class), objectMapper,
+                        environment.getProperty("user.batch.size", Integer.class, 500), threads);
+                report = importer.importFile(file, format, resume);
+            } else {
+                UserExporter exporter = new UserExporter(context.getBean(UserService.class), objectMapper,
+                        context.getBeanProvider(UserSnapshotExporter.class).getIfAvailable(),
+                        environment.getProperty("user.pagination.max-size", Integer.class, 1000));
+                report = exporter.export(file, format, resume);
+            }
+            System.out.printf("%s %s: %d rows, %d rejected, %.1f s, %d rows/s%n", command, file, report.getRows(),
+                    report.getFailed(), report.getSeconds(), report.getRowsPerSecond());
+            return 0;
+        } catch (Exception e) {
+            logger.error("{} of {} failed", command, file, e);
+            return 1;
+        }
+    }
+}
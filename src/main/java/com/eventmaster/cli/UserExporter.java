@@ -0,0 +1,117 @@
+package com.eventmaster.cli;
+
+import com.eventmaster.model.User;
+import com.eventmaster.model.UserPage;
+import com.eventmaster.service.UserCursor;
+import com.eventmaster.service.UserService;
+import com.eventmaster.snapshot.UserSnapshotExporter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes the users table to a CSV or NDJSON file, one keyset page of {@code pageSize} users at a
+ * time through {@link UserService#getUserPage}, so memory use does not grow with the table and no
+ * transaction stays open for the whole export. After every page the checkpoint records the last
+ * id written and the file length holding exactly the rows up to it; a resumed export cuts the
+ * file back to that length and continues after that id.
+ */
+public class UserExporter {
+    private static final Logger logger = LoggerFactory.getLogger(UserExporter.class);
+
+    static final String LAST_ID = "lastId";
+    static final String BYTES = "bytes";
+    static final String ROWS = "rows";
+
+    private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final UserService userService;
+    private final ObjectWriter jsonWriter;
+    private final UserSnapshotExporter snapshotExporter;
+    private final int pageSize;
+
+    /**
+     * @param snapshotExporter null when this instance serves a snapshot itself, which it cannot export
+     */
+    public UserExporter(UserService userService, ObjectMapper objectMapper, UserSnapshotExporter snapshotExporter,
+                        int pageSize) {
+        this.userService = userService;
+        this.jsonWriter = objectMapper.writerFor(User.class);
+        this.snapshotExporter = snapshotExporter;
+        this.pageSize = pageSize;
+    }
+
+    public TransferReport export(Path file, UserFileFormat format, boolean resume) throws IOException {
+        long started = System.nanoTime();
+        if (format == UserFileFormat.SNAPSHOT) {
+            if (snapshotExporter == null) {
+                throw new IllegalStateException("Snapshots are exported from the database, not from another snapshot");
+            }
+            // A snapshot is written to a temporary file and only moved into place when complete
+            int rows = snapshotExporter.export(file);
+            return new TransferReport(rows, 0, rows, System.nanoTime() - started);
+        }
+        TransferCheckpoint checkpoint = TransferCheckpoint.open(file, resume);
+        long lastId = checkpoint.get(LAST_ID);
+        long rows = checkpoint.get(ROWS);
+        long rowsThisRun = 0;
+        long lastProgress = started;
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            // Drop anything written after the last checkpoint, or the whole file on a fresh export
+            channel.truncate(checkpoint.get(BYTES));
+            channel.position(checkpoint.get(BYTES));
+            Writer out = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8), 1 << 16);
+            if (!checkpoint.isResumed()) {
+                logger.info("Exporting users to {} as {}", file, format);
+                if (format == UserFileFormat.CSV) {
+                    out.write(UserCsv.HEADER);
+                    out.write('\n');
+                }
+            } else {
+                logger.info("Resuming export to {} after id {} ({} rows written)", file, lastId, rows);
+            }
+            StringBuilder line = new StringBuilder(256);
+            UserPage page;
+            do {
+                page = userService.getUserPage(UserCursor.encode(lastId), pageSize);
+                for (User user : page.getUsers()) {
+                    line.setLength(0);
+                    if (format == UserFileFormat.CSV) {
+                        UserCsv.format(user, line);
+                    } else {
+                        line.append(jsonWriter.writeValueAsString(user)).append('\n');
+                    }
+                    out.append(line);
+                    lastId = user.getId();
+                }
+                rows += page.getUsers().size();
+                rowsThisRun += page.getUsers().size();
+                out.flush();
+                checkpoint.set(LAST_ID, lastId).set(BYTES, channel.position()).set(ROWS, rows).save();
+
+                long now = System.nanoTime();
+                if (now - lastProgress >= PROGRESS_INTERVAL_NANOS) {
+                    lastProgress = now;
+                    logger.info("Exported {} rows, {} rows/s", rows, TransferReport.rate(rowsThisRun, now - started));
+                }
+            } while (page.hasNext());
+            channel.force(true);
+        }
+        checkpoint.delete();
+        TransferReport report = new TransferReport(rows, 0, rowsThisRun, System.nanoTime() - started);
+        logger.info("Exported {} rows to {}, {} rows/s", rows, file, report.getRowsPerSecond());
+        return report;
+    }
+}
@@ -0,0 +1,42 @@
+package com.eventmaster.cli;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * File formats the import and export commands read and write.
+ */
+public enum UserFileFormat {
+    /** Header row plus one user per record, see {@link UserCsv}. */
+    CSV,
+    /** One JSON user per line, as {@code GET /users/stream} writes them. */
+    NDJSON,
+    /** A memory-mapped snapshot (export only), see {@code UserSnapshotWriter}. */
+    SNAPSHOT;
+
+    public static UserFileFormat of(String name) {
+        try {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown format '" + name + "', expected csv, ndjson or snapshot");
+        }
+    }
+
+    /**
+     * The format a file name's extension implies: {@code .csv}, {@code .ndjson}/{@code .jsonl} or
+     * {@code .snapshot}.
+     */
+    public static UserFileFormat forFile(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv")) {
+            return CSV;
+        }
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+            return NDJSON;
+        }
+        if (name.endsWith(".snapshot")) {
+            return SNAPSHOT;
+        }
+        throw new IllegalArgumentException("Cannot tell the format of " + file + ", pass --format=csv|ndjson|snapshot");
+    }
+}
@@ -0,0 +1,293 @@
+package com.eventmaster.cli;
+
+import com.eventmaster.model.BatchCreateResult;
+import com.eventmaster.model.User;
+import com.eventmaster.service.UserBatchService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Loads a CSV or NDJSON file into the users table. The file is read once, sequentially, and cut
+ * into blocks of {@code user.batch.size} records; the blocks are parsed on {@code threads} threads
+ * a few blocks ahead of the writer. Each parsed block goes through {@link UserBatchService}, which
+ * validates it, rejects duplicates with two {@code IN} queries and inserts the rest as JDBC
+ * batches in one transaction. After every block the checkpoint records how many records are done.
+ *
+ * <p>Records that fail to parse or are rejected (invalid, duplicate) are written to
+ * {@code <file>.rejects} as NDJSON, with their record number, instead of stopping the import.
+ */
+public class UserImporter {
+    private static final Logger logger = LoggerFactory.getLogger(UserImporter.class);
+
+    static final String RECORDS = "records";
+    static final String CREATED = "created";
+    static final String FAILED = "failed";
+
+    private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final UserBatchService batchService;
+    private final ObjectReader jsonReader;
+    private final ObjectWriter rejectWriter;
+    private final int chunkSize;
+    private final int threads;
+
+    public UserImporter(UserBatchService batchService, ObjectMapper objectMapper, int chunkSize, int threads) {
+        this.batchService = batchService;
+        this.jsonReader = objectMapper.readerFor(User.class);
+        this.rejectWriter = objectMapper.writer();
+        this.chunkSize = chunkSize;
+        this.threads = threads;
+    }
+
+    public static Path rejectsPathFor(Path file) {
+        return file.resolveSibling(file.getFileName() + ".rejects");
+    }
+
+    public TransferReport importFile(Path file, UserFileFormat format, boolean resume)
+            throws IOException, InterruptedException {
+        if (format == UserFileFormat.SNAPSHOT) {
+            throw new IllegalArgumentException("Snapshots cannot be imported; import a CSV or NDJSON export instead");
+        }
+        TransferCheckpoint checkpoint = TransferCheckpoint.open(file, resume);
+        long records = checkpoint.get(RECORDS);
+        long created = checkpoint.get(CREATED);
+        long failed = checkpoint.get(FAILED);
+        long started = System.nanoTime();
+        long lastProgress = started;
+        long recordsThisRun = 0;
+        Path rejectsPath = rejectsPathFor(file);
+
+        ExecutorService parsers = Executors.newFixedThreadPool(threads, parserThreads());
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+             Writer rejects = Files.newBufferedWriter(rejectsPath, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                     checkpoint.isResumed() ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING)) {
+            RecordSplitter splitter = new RecordSplitter(in, format == UserFileFormat.CSV);
+            Function<String, User> parser = format == UserFileFormat.CSV ? csvParser(splitter) : this::parseJson;
+            for (long skipped = 0; skipped < records; skipped++) {
+                if (splitter.next() == null) {
+                    throw new IllegalStateException("Checkpoint is past the end of " + file + "; was the file replaced?");
+                }
+            }
+            if (records > 0) {
+                logger.info("Resuming import of {} after {} records", file, records);
+            }
+
+            Deque<Future<List<Parsed>>> inFlight = new ArrayDeque<>();
+            long nextRecord = records + 1;
+            while (true) {
+                // Keep every parser busy while the current block is being written
+                while (inFlight.size() < threads * 2) {
+                    List<String> block = splitter.next(chunkSize);
+                    if (block.isEmpty()) {
+                        break;
+                    }
+                    long first = nextRecord;
+                    inFlight.add(parsers.submit(() -> parse(block, first, parser)));
+                    nextRecord += block.size();
+                }
+                if (inFlight.isEmpty()) {
+                    break;
+                }
+                List<Parsed> block = await(inFlight.poll());
+                long blockFailed = write(block, rejects);
+                records += block.size();
+                recordsThisRun += block.size();
+                failed += blockFailed;
+                created += block.size() - blockFailed;
+                rejects.flush();
+                checkpoint.set(RECORDS, records).set(CREATED, created).set(FAILED, failed).save();
+
+                long now = System.nanoTime();
+                if (now - lastProgress >= PROGRESS_INTERVAL_NANOS) {
+                    lastProgress = now;
+                    logger.info("Imported {} records ({} created, {} rejected), {} rows/s", records, created, failed,
+                            TransferReport.rate(recordsThisRun, now - started));
+                }
+            }
+        } finally {
+            parsers.shutdownNow();
+        }
+        checkpoint.delete();
+        if (failed == 0) {
+            Files.deleteIfExists(rejectsPath);
+        }
+        TransferReport report = new TransferReport(records, failed, recordsThisRun, System.nanoTime() - started);
+        logger.info("Imported {} records from {}: {} created, {} rejected{}, {} rows/s", records, file, created, failed,
+                failed == 0 ? "" : " (see " + rejectsPath + ")", report.getRowsPerSecond());
+        return report;
+    }
+
+    // Inserts the users that parsed and writes every rejected record; returns how many were rejected
+    private long write(List<Parsed> block, Writer rejects) throws IOException {
+        List<Parsed> parsed = new ArrayList<>(block.size());
+        List<User> users = new ArrayList<>(block.size());
+        long failed = 0;
+        for (Parsed record : block) {
+            if (record.user == null) {
+                reject(rejects, record.number, record.error, null);
+                failed++;
+            } else {
+                parsed.add(record);
+                users.add(record.user);
+            }
+        }
+        if (users.isEmpty()) {
+            return failed;
+        }
+        // Exports carry bcrypt hashes, which are imported as they are
+        BatchCreateResult result = batchService.createUsers(users.iterator(), true);
+        if (result.isTruncated()) {
+            // Blocks are user.batch.size records, so this only happens when user.batch.max-rows is smaller
+            throw new IllegalStateException("user.batch.max-rows must be at least user.batch.size ("
+                    + users.size() + ") for imports");
+        }
+        for (BatchCreateResult.Row row : result.getRows()) {
+            if (row.getStatus() != BatchCreateResult.Status.CREATED) {
+                String reason = row.getStatus() == BatchCreateResult.Status.CONFLICT
+                        ? "duplicate " + row.getField() : row.getMessage();
+                reject(rejects, parsed.get(row.getIndex()).number, reason, row.getUsername());
+                failed++;
+            }
+        }
+        return failed;
+    }
+
+    private void reject(Writer rejects, long record, String reason, String username) throws IOException {
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("record", record);
+        if (username != null) {
+            line.put("username", username);
+        }
+        line.put("reason", reason);
+        rejects.write(rejectWriter.writeValueAsString(line));
+        rejects.write('\n');
+    }
+
+    private static List<Parsed> parse(List<String> block, long first, Function<String, User> parser) {
+        List<Parsed> parsed = new ArrayList<>(block.size());
+        for (int i = 0; i < block.size(); i++) {
+            try {
+                parsed.add(new Parsed(first + i, parser.apply(block.get(i)), null));
+            } catch (IllegalArgumentException e) {
+                parsed.add(new Parsed(first + i, null, e.getMessage()));
+            }
+        }
+        return parsed;
+    }
+
+    private User parseJson(String record) {
+        try {
+            User user = jsonReader.readValue(record);
+            if (user == null) {
+                throw new IllegalArgumentException("Expected a JSON object");
+            }
+            return user;
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException(e.getOriginalMessage());
+        }
+    }
+
+    private static Function<String, User> csvParser(RecordSplitter splitter) throws IOException {
+        String header = splitter.next();
+        // An empty file has no records to parse
+        return UserCsv.forHeader(header == null ? UserCsv.HEADER : header)::parse;
+    }
+
+    private static <T> T await(Future<T> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static ThreadFactory parserThreads() {
+        AtomicInteger count = new AtomicInteger();
+        return task -> {
+            Thread thread = new Thread(task, "import-parse-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static final class Parsed {
+        final long number;
+        final User user;
+        final String error;
+
+        Parsed(long number, User user, String error) {
+            this.number = number;
+            this.user = user;
+            this.error = error;
+        }
+    }
+
+    /**
+     * Cuts the input into records without parsing them: one per non-blank line, except that a
+     * CSV record continues onto the next line while a quoted field is open.
+     */
+    private static final class RecordSplitter {
+        private final BufferedReader in;
+        private final boolean csv;
+
+        RecordSplitter(BufferedReader in, boolean csv) {
+            this.in = in;
+            this.csv = csv;
+        }
+
+        String next() throws IOException {
+            String line;
+            do {
+                line = in.readLine();
+            } while (line != null && line.isBlank());
+            if (line == null || !csv || !UserCsv.isOpen(line)) {
+                return line;
+            }
+            StringBuilder record = new StringBuilder(line);
+            boolean open = true;
+            while (open && (line = in.readLine()) != null) {
+                record.append('\n').append(line);
+                open = UserCsv.isOpen(line) != open;
+            }
+            return record.toString();
+        }
+
+        List<String> next(int count) throws IOException {
+            List<String> block = new ArrayList<>(count);
+            String record;
+            while (block.size() < count && (record = next()) != null) {
+                block.add(record);
+            }
+            return block;
+        }
+    }
+}
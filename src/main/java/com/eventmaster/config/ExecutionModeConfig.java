@@ -0,0 +1,88 @@
+package com.eventmaster.config;
+
+import org.apache.coyote.ProtocolHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Selects how requests and asynchronous work are executed, via {@code user.execution-mode}:
+ * <ul>
+ *     <li>{@code platform} (default) - Tomcat's worker pool and a bounded pool for streaming responses.</li>
+ *     <li>{@code virtual} - every request and every streaming response runs on its own virtual thread
+ *     (requires Java 21). Concurrency is then bounded by the connection pool rather than by threads;
+ *     see {@code application-virtual.properties} for the matching pool policy.</li>
+ * </ul>
+ */
+@Configuration
+public class ExecutionModeConfig {
+    private static final Logger logger = LoggerFactory.getLogger(ExecutionModeConfig.class);
+
+    public static final String STREAMING_EXECUTOR = "streamingTaskExecutor";
+
+    @Configuration
+    @ConditionalOnProperty(name = "user.execution-mode", havingValue = "platform", matchIfMissing = true)
+    static class PlatformThreadConfig {
+
+        /**
+         * Bounded pool for StreamingResponseBody work. The default async executor spawns a new
+         * thread per stream, which would let a burst of /users/stream calls exhaust the JVM.
+         */
+        @Bean(STREAMING_EXECUTOR)
+        public AsyncTaskExecutor streamingTaskExecutor(@Value("${user.streaming.max-concurrent:8}") int maxConcurrentStreams) {
+            ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+            executor.setCorePoolSize(maxConcurrentStreams);
+            executor.setMaxPoolSize(maxConcurrentStreams);
+            executor.setQueueCapacity(maxConcurrentStreams * 4);
+            executor.setThreadNamePrefix("user-stream-");
+            return executor;
+        }
+    }
+
+    @Configuration
+    @ConditionalOnProperty(name = "user.execution-mode", havingValue = "virtual")
+    static class VirtualThreadConfig {
+
+        VirtualThreadConfig() {
+            if (!VirtualThreads.isSupported()) {
+                throw new IllegalStateException("user.execution-mode=virtual requires Java 21 or newer, running on Java "
+                        + Runtime.version().feature());
+            }
+            logger.info("Serving requests on virtual threads");
+        }
+
+        @Bean(destroyMethod = "shutdown")
+        public ExecutorService httpRequestExecutor() {
+            return VirtualThreads.newThreadPerTaskExecutor("http-vt-");
+        }
+
+        /**
+         * Replaces Tomcat's worker pool, so {@code server.tomcat.threads.max} no longer applies.
+         */
+        @Bean
+        public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandlerCustomizer(
+                ExecutorService httpRequestExecutor) {
+            return protocolHandler -> protocolHandler.setExecutor(httpRequestExecutor);
+        }
+
+        /**
+         * One virtual thread per stream. The concurrency limit still applies because each
+         * stream holds a database connection for its whole duration.
+         */
+        @Bean(STREAMING_EXECUTOR)
+        public AsyncTaskExecutor streamingTaskExecutor(@Value("${user.streaming.max-concurrent:8}") int maxConcurrentStreams) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(VirtualThreads.factory("user-stream-vt-"));
+            executor.setConcurrencyLimit(maxConcurrentStreams);
+            return executor;
+        }
+    }
+}
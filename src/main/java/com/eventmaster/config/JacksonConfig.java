@@ -0,0 +1,52 @@
+package com.eventmaster.config;
+
+import com.eventmaster.model.User;
+import com.eventmaster.model.UserJsonDeserializer;
+import com.eventmaster.model.UserJsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+@Configuration
+public class JacksonConfig {
+
+    /**
+     * Single ObjectMapper shared by the HTTP message converters, the WebFlux codecs and the
+     * streaming endpoints, so NDJSON rows are encoded exactly like regular JSON responses on both stacks.
+     * {@link User}, in every response and request body, goes through its handwritten serializer and
+     * deserializer rather than reflection (see UserJsonBenchmark).
+     */
+    @Bean
+    public ObjectMapper objectMapper() {
+        return configure(Jackson2ObjectMapperBuilder.json()).build();
+    }
+
+    /**
+     * Smile ({@code application/x-jackson-smile}) for internal callers that ask for it. Boot puts this
+     * in place of Spring MVC's default Smile converter, which would use a mapper without the settings above.
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter() {
+        return new MappingJackson2SmileHttpMessageConverter(configure(Jackson2ObjectMapperBuilder.smile()).build());
+    }
+
+    /**
+     * CBOR ({@code application/cbor}), likewise.
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter() {
+        return new MappingJackson2CborHttpMessageConverter(configure(Jackson2ObjectMapperBuilder.cbor()).build());
+    }
+
+    // The handwritten User codec only uses the generic token API, so it serves the binary formats too
+    private static Jackson2ObjectMapperBuilder configure(Jackson2ObjectMapperBuilder builder) {
+        return builder
+                .modules(new JavaTimeModule())
+                .serializerByType(User.class, new UserJsonSerializer())
+                .deserializerByType(User.class, new UserJsonDeserializer());
+    }
+}
@@ -0,0 +1,21 @@
+package com.eventmaster.config;
+
+import com.eventmaster.repository.ReactiveUserRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+/**
+ * JPA repositories for the whole application. {@link ReactiveUserRepository} manages the same
+ * {@code @Entity}, which JPA would otherwise claim and reject as an unsupported reactive repository;
+ * it is registered by {@link ReactiveConfig} instead. An instance serving from a snapshot runs
+ * without JPA (see application-snapshot.properties), so it has none.
+ */
+@Configuration
+@ConditionalOnProperty(name = "user.snapshot.enabled", havingValue = "false", matchIfMissing = true)
+@EnableJpaRepositories(basePackages = "com.eventmaster",
+        excludeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = ReactiveUserRepository.class))
+public class JpaConfig {
+}
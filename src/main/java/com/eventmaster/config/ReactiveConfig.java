@@ -0,0 +1,71 @@
+package com.eventmaster.config;
+
+import com.eventmaster.repository.ReactiveUserRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.boot.web.embedded.netty.NettyServerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.r2dbc.repository.config.EnableR2dbcRepositories;
+import org.springframework.orm.jpa.JpaTransactionManager;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.stream.Collectors;
+
+/**
+ * Reactive stack ({@code spring.main.web-application-type=reactive}, see application-reactive.properties).
+ * The WebFlux endpoints run on R2DBC, while JPA keeps serving the blocking beans that still exist
+ * (index loading at startup, change-feed pruning), so the context holds both a DataSource and a
+ * ConnectionFactory, and two transaction managers.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@EnableConfigurationProperties(DataSourceProperties.class)
+@EnableR2dbcRepositories(basePackageClasses = ReactiveUserRepository.class,
+        includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = ReactiveUserRepository.class))
+public class ReactiveConfig {
+
+    /**
+     * Tomcat is on the classpath for the servlet stack and Boot would otherwise serve WebFlux on it
+     * too. Netty's fixed event loop is what lets a handful of threads hold thousands of connections.
+     */
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory(ObjectProvider<NettyServerCustomizer> serverCustomizers) {
+        NettyReactiveWebServerFactory factory = new NettyReactiveWebServerFactory();
+        factory.getServerCustomizers().addAll(serverCustomizers.orderedStream().collect(Collectors.toList()));
+        return factory;
+    }
+
+    /**
+     * Boot's DataSource auto-configuration backs off as soon as an R2DBC ConnectionFactory exists,
+     * so the Hikari pool for JPA is declared here from the usual {@code spring.datasource.*} properties.
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    /**
+     * The same manager Boot would create for JPA, marked primary so {@code @Transactional} keeps
+     * resolving to it next to R2DBC's ReactiveTransactionManager. ReactiveUserService uses the
+     * auto-configured TransactionalOperator, which is bound to the R2DBC one.
+     */
+    @Bean
+    @Primary
+    public JpaTransactionManager transactionManager(EntityManagerFactory entityManagerFactory,
+                                                    ObjectProvider<TransactionManagerCustomizers> customizers) {
+        JpaTransactionManager transactionManager = new JpaTransactionManager(entityManagerFactory);
+        customizers.ifAvailable(c -> c.customize(transactionManager));
+        return transactionManager;
+    }
+}
@@ -0,0 +1,36 @@
+package com.eventmaster.config;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.annotation.Schedules;
+
+import java.lang.reflect.Method;
+import java.util.Set;
+
+/**
+ * Keeps lazy initialization ({@code spring.main.lazy-initialization=true}, see application-fast.properties)
+ * safe: everything else is created on first use, but nothing would ever use a bean that only has
+ * {@code @Scheduled} work (change-feed polling and pruning, replica health checks), so those stay eager.
+ */
+@Configuration(proxyBeanMethods = false)
+public class StartupConfig {
+
+    @Bean
+    static LazyInitializationExcludeFilter scheduledBeansAreEager() {
+        return (beanName, beanDefinition, beanType) -> hasScheduledMethods(beanType);
+    }
+
+    static boolean hasScheduledMethods(Class<?> beanType) {
+        if (beanType == null || !AnnotationUtils.isCandidateClass(beanType, Set.of(Scheduled.class, Schedules.class))) {
+            return false;
+        }
+        return !MethodIntrospector.selectMethods(beanType, (MethodIntrospector.MetadataLookup<Method>) method ->
+                AnnotatedElementUtils.hasAnnotation(method, Scheduled.class)
+                        || AnnotatedElementUtils.hasAnnotation(method, Schedules.class) ? method : null).isEmpty();
+    }
+}
@@ -1,39 +1,34 @@
 package com.eventmaster.config;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
-import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.ComponentScan;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.http.converter.HttpMessageConverter;
-import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
-import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
-import org.springframework.web.servlet.view.InternalResourceViewResolver;
-
-import java.util.List;
 
+/**
+ * Adds to Boot's Spring MVC auto-configuration rather than replacing it (no {@code @EnableWebMvc}),
+ * so its message converters pick up the ObjectMapper from {@link JacksonConfig} on their own.
+ * Servlet stack only; the reactive variant is configured by ReactiveConfig.
+ */
 @Configuration
-@EnableWebMvc
-@ComponentScan(basePackages = "com.eventmaster")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class WebConfig implements WebMvcConfigurer {
 
-    @Bean
-    public InternalResourceViewResolver viewResolver() {
-        InternalResourceViewResolver resolver = new InternalResourceViewResolver();
-        resolver.setPrefix("/WEB-INF/views/");
-        resolver.setSuffix(".jsp");
-        return resolver;
-    }
+    // Platform or virtual-thread variant, see ExecutionModeConfig
+    @Autowired
+    @Qualifier(ExecutionModeConfig.STREAMING_EXECUTOR)
+    private AsyncTaskExecutor streamingTaskExecutor;
+
+    @Value("${user.streaming.timeout-ms:600000}")
+    private long streamingTimeoutMs;
 
     @Override
-    public void extendMessageConverters(java.util.List<HttpMessageConverter<?>> converters) {
-        for (HttpMessageConverter<?> converter : converters) {
-            if (converter instanceof MappingJackson2HttpMessageConverter) {
-                MappingJackson2HttpMessageConverter jacksonConverter = (MappingJackson2HttpMessageConverter) converter;
-                jacksonConverter.getObjectMapper().registerModule(new JavaTimeModule());
-            }
-        }
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(streamingTaskExecutor);
+        configurer.setDefaultTimeout(streamingTimeoutMs);
     }
 }
@@ -0,0 +1,116 @@
+package com.eventmaster.controller;
+
+import com.eventmaster.model.User;
+import com.eventmaster.model.UserSuggestion;
+import com.eventmaster.service.ReactiveUserService;
+import com.eventmaster.service.UserCursor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * WebFlux variant of {@link UserController}, active when the application runs as a reactive web
+ * application (see application-reactive.properties). Same paths, bodies, headers and error
+ * responses; batch creation, multi-get lookup and the change feed are only served by the servlet stack.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequestMapping("/users")
+public class ReactiveUserController {
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveUserController.class);
+
+    private final ReactiveUserService userService;
+
+    @Autowired
+    public ReactiveUserController(ReactiveUserService userService) {
+        this.userService = userService;
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<User>> getUserById(@PathVariable Long id) {
+        logger.debug("GET request received for user id: {}", id);
+        return userService.findById(id)
+                .map(ReactiveUserController::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/by-username/{username}")
+    public Mono<ResponseEntity<User>> getUserByUsername(@PathVariable String username) {
+        logger.debug("GET request received for username: {}", username);
+        return userService.findByUsername(username).map(ReactiveUserController::ok);
+    }
+
+    @GetMapping("/by-email/{email}")
+    public Mono<ResponseEntity<User>> getUserByEmail(@PathVariable String email) {
+        logger.debug("GET request received for email: {}", email);
+        return userService.findByEmail(email).map(ReactiveUserController::ok);
+    }
+
+    // ETag and Last-Modified; WebFlux answers a matching conditional GET with 304 like Spring MVC does
+    private static ResponseEntity<User> ok(User user) {
+        return ResponseEntity.ok()
+                .eTag(UserETags.of(user))
+                .lastModified(UserETags.lastModified(user.getUpdatedAt()))
+                .body(user);
+    }
+
+    /**
+     * One keyset page of users, with the next cursor in {@code X-Next-Cursor} and {@code Link rel="next"}.
+     */
+    @GetMapping
+    public Mono<ResponseEntity<List<User>>> getAllUsers(@RequestParam(required = false) String cursor,
+                                                        @RequestParam(required = false) Integer limit,
+                                                        ServerHttpRequest request) {
+        logger.debug("GET request received to fetch users page, cursor: {}, limit: {}", cursor, limit);
+        return userService.getUserPage(cursor, limit).map(page -> {
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (page.hasNext()) {
+                String next = UriComponentsBuilder.fromHttpRequest(request)
+                        .replaceQueryParam("cursor", page.getNextCursor())
+                        .toUriString();
+                response.header(UserController.NEXT_CURSOR_HEADER, page.getNextCursor())
+                        .header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+            }
+            return response.body(page.getUsers());
+        });
+    }
+
+    @GetMapping("/search")
+    public Mono<ResponseEntity<List<UserSuggestion>>> searchUsers(@RequestParam(required = false) String prefix,
+                                                                  @RequestParam(required = false) Integer limit) {
+        logger.debug("GET request received to search users, prefix: {}, limit: {}", prefix, limit);
+        return userService.searchUsers(prefix, limit)
+                .collectList()
+                .map(suggestions -> ResponseEntity.ok().eTag(UserETags.of(suggestions)).body(suggestions));
+    }
+
+    /**
+     * Streams every user (optionally after a cursor) as newline-delimited JSON. Rows are read only
+     * as fast as the client consumes them: the encoder requests more from the service as the
+     * response is flushed.
+     */
+    @GetMapping(value = "/stream", produces = UserController.APPLICATION_NDJSON_VALUE)
+    public Flux<User> streamAllUsers(@RequestParam(required = false) String cursor) {
+        logger.debug("GET request received to stream users, cursor: {}", cursor);
+        // Decoded before the response is committed so a bad cursor still gets a 400
+        long afterId = UserCursor.decode(cursor);
+        return userService.streamUsers(afterId);
+    }
+
+    @PostMapping
+    public Mono<User> createUser(@RequestBody User user) {
+        logger.debug("POST request received to create user: {}", user.getUsername());
+        return userService.saveUser(user)
+                .doOnNext(createdUser -> logger.info("User created successfully with id: {}", createdUser.getId()));
+    }
+}
@@ -0,0 +1,53 @@
+package com.eventmaster.controller;
+
+import com.eventmaster.model.UserChangeBatch;
+import com.eventmaster.service.UserChangeFeed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.Map;
+
+/**
+ * Change feed for consumers that keep their own copy of the users: read the head offset, take a
+ * full copy from {@code GET /users}, then long-poll {@code /users/changes} from that offset.
+ * Servlet stack only: the long poll is built on {@link DeferredResult}.
+ */
+@RestController
+@RequestMapping("/users/changes")
+@ConditionalOnProperty(name = "user.events.enabled", havingValue = "true", matchIfMissing = true)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class UserChangeController {
+    private static final Logger logger = LoggerFactory.getLogger(UserChangeController.class);
+
+    private final UserChangeFeed changeFeed;
+
+    @Autowired
+    public UserChangeController(UserChangeFeed changeFeed) {
+        this.changeFeed = changeFeed;
+    }
+
+    /**
+     * Events after {@code after}, in offset order. With {@code waitMs}, an empty result is held
+     * open until events arrive or the wait runs out.
+     */
+    @GetMapping
+    public DeferredResult<UserChangeBatch> getChanges(@RequestParam(defaultValue = "0") long after,
+                                                      @RequestParam(required = false) Integer limit,
+                                                      @RequestParam(defaultValue = "0") long waitMs) {
+        logger.debug("GET request received for user changes after offset: {}, waitMs: {}", after, waitMs);
+        return changeFeed.poll(after, limit, waitMs);
+    }
+
+    @GetMapping("/head")
+    public Map<String, Long> getHead() {
+        return Map.of("offset", changeFeed.head());
+    }
+}
@@ -1,26 +1,59 @@
 package com.eventmaster.controller;
 
+import com.eventmaster.exception.ErrorResponseTemplate;
+import com.eventmaster.exception.InvalidCredentialsException;
+import com.eventmaster.exception.InvalidRequestException;
+import com.eventmaster.exception.SnapshotUnsupportedException;
+import com.eventmaster.model.BatchCreateResult;
 import com.eventmaster.model.User;
+import com.eventmaster.model.UserCollectionVersion;
+import com.eventmaster.model.UserCredentials;
+import com.eventmaster.model.UserLookupRequest;
+import com.eventmaster.model.UserLookupResult;
+import com.eventmaster.model.UserPage;
+import com.eventmaster.model.UserSuggestion;
+import com.eventmaster.service.UserBatchService;
+import com.eventmaster.service.UserCursor;
 import com.eventmaster.service.UserService;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Optional;
 
+// Servlet stack; ReactiveUserController serves the same API when the application runs on WebFlux
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/users")
 public class UserController {
     private static final Logger logger = LoggerFactory.getLogger(UserController.class);
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
     private final UserService userService;
+    private final UserStreamCodec streamCodec;
+
+    // Absent when users are served from a snapshot (user.snapshot.enabled=true), which takes no writes
+    @Autowired(required = false)
+    private UserBatchService userBatchService;
 
     @Autowired
-    public UserController(UserService userService) {
+    public UserController(UserService userService, UserStreamCodec streamCodec) {
         this.userService = userService;
+        this.streamCodec = streamCodec;
     }
 
     @GetMapping("/{id}")
@@ -29,7 +62,7 @@ public class UserController {
         return userService.findById(id)
                 .map(user -> {
                     logger.info("Returning user with id: {}", id);
-                    return ResponseEntity.ok(user);
+                    return ok(user);
                 })
                 .orElseGet(() -> {
                     logger.warn("User not found for id: {}", id);
@@ -37,38 +70,145 @@ public class UserController {
                 });
     }
 
+    // A miss is answered here with the same 404 body GlobalExceptionHandler gives UserNotFoundException,
+    // without throwing one through the dispatcher
     @GetMapping("/by-username/{username}")
-    public ResponseEntity<User> getUserByUsername(@PathVariable String username){
+    public ResponseEntity<?> getUserByUsername(@PathVariable String username){
         logger.debug("GET request received for username: {}", username);
-        User user = userService.findByUsername(username);
-        if (user != null){
+        Optional<User> user = userService.findOptionalByUsername(username);
+        if (user.isPresent()){
             logger.info("Returning user for username: {}", username);
-            return ResponseEntity.ok(user);
+            return ok(user.get());
         } else {
-            logger.warn("User not found for username: {}", username);
-            return ResponseEntity.notFound().build();
+            logger.debug("User not found for username: {}", username);
+            return ErrorResponseTemplate.userNotFound("User not found with username: " + username);
         }
     }
 
+    /**
+     * Existence check: 200 when the username is taken, 404 otherwise, with no body either way.
+     * The user is never loaded (see UserService#existsByUsername).
+     */
+    @RequestMapping(value = "/by-username/{username}", method = RequestMethod.HEAD)
+    public ResponseEntity<Void> usernameExists(@PathVariable String username) {
+        return userService.existsByUsername(username) ? ResponseEntity.ok().build() : ResponseEntity.notFound().build();
+    }
+
     @GetMapping("/by-email/{email}")
-    public ResponseEntity<User> getUserByEmail(@PathVariable String email){
+    public ResponseEntity<?> getUserByEmail(@PathVariable String email){
         logger.debug("GET request received for email: {}", email);
-        User user = userService.findByEmail(email);
-        if (user != null){
+        Optional<User> user = userService.findOptionalByEmail(email);
+        if (user.isPresent()){
             logger.info("Returning user for email: {}", email);
-            return ResponseEntity.ok(user);
+            return ok(user.get());
         } else {
-            logger.warn("User not found for email: {}", email);
-            return ResponseEntity.notFound().build();
+            logger.debug("User not found for email: {}", email);
+            return ErrorResponseTemplate.userNotFound("User not found with email: " + email);
         }
     }
 
+    /**
+     * Single-user response carrying ETag and Last-Modified. For a GET whose If-None-Match or
+     * If-Modified-Since still matches, Spring answers 304 without serializing the body. The body
+     * may be JSON, Smile or CBOR depending on Accept, so it varies by Accept and its tag is weak.
+     */
+    private static ResponseEntity<User> ok(User user) {
+        return ResponseEntity.ok()
+                .varyBy(HttpHeaders.ACCEPT)
+                .eTag(UserETags.of(user))
+                .lastModified(UserETags.lastModified(user.getUpdatedAt()))
+                .body(user);
+    }
+
+    /**
+     * Answers a conditional request for a collection endpoint from the table's version alone,
+     * before any row is loaded, and sets ETag and Last-Modified on the response either way. The
+     * version is cached briefly by {@link UserService#getCollectionVersion}, so most requests do
+     * not query it. Like the 200 responses, a 304 varies by Accept.
+     *
+     * @return true when a 304 has been prepared and the handler should return null
+     */
+    private boolean collectionNotModified(ServletWebRequest webRequest) {
+        UserCollectionVersion version = userService.getCollectionVersion();
+        if (!webRequest.checkNotModified(UserETags.of(version), UserETags.lastModified(version.getLastModified()))) {
+            return false;
+        }
+        webRequest.getResponse().addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        return true;
+    }
+
+    /**
+     * Returns one keyset page of users. The body stays a plain JSON array; the cursor for the
+     * next page is returned in the {@code X-Next-Cursor} header and as a {@code Link rel="next"}.
+     */
     @GetMapping
-    public ResponseEntity<List<User>> getAllUsers() {
-        logger.debug("GET request received to fetch all users");
-        List<User> users = userService.getAllUsers();
-        logger.info("Returning {} users", users.size());
-        return ResponseEntity.ok(users);
+    public ResponseEntity<List<User>> getAllUsers(@RequestParam(required = false) String cursor,
+                                                  @RequestParam(required = false) Integer limit,
+                                                  ServletWebRequest webRequest) {
+        logger.debug("GET request received to fetch users page, cursor: {}, limit: {}", cursor, limit);
+        if (collectionNotModified(webRequest)) {
+            logger.debug("Users unchanged, returning 304");
+            return null;
+        }
+        UserPage page = userService.getUserPage(cursor, limit);
+        logger.info("Returning {} users", page.getUsers().size());
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT);
+        if (page.hasNext()) {
+            String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("cursor", page.getNextCursor())
+                    .toUriString();
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor())
+                    .header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return response.body(page.getUsers());
+    }
+
+    /**
+     * Typeahead search over usernames and names, e.g. {@code GET /users/search?prefix=jo&limit=10}.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<UserSuggestion>> searchUsers(@RequestParam(required = false) String prefix,
+                                                            @RequestParam(required = false) Integer limit) {
+        logger.debug("GET request received to search users, prefix: {}, limit: {}", prefix, limit);
+        List<UserSuggestion> suggestions = userService.searchUsers(prefix, limit);
+        logger.debug("Returning {} search results", suggestions.size());
+        return ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT).eTag(UserETags.of(suggestions)).body(suggestions);
+    }
+
+    /**
+     * Streams every user (optionally after a cursor) as newline-delimited JSON, or length-delimited
+     * Smile or CBOR when the Accept header asks for it, writing each row to the response as it is
+     * read from the database.
+     */
+    @GetMapping(value = "/stream", produces = {APPLICATION_NDJSON_VALUE,
+            UserStreamCodec.APPLICATION_SMILE_DELIMITED_VALUE, UserStreamCodec.APPLICATION_CBOR_DELIMITED_VALUE})
+    public ResponseEntity<StreamingResponseBody> streamAllUsers(@RequestParam(required = false) String cursor,
+                                                                @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                                                ServletWebRequest webRequest) {
+        logger.debug("GET request received to stream users, cursor: {}", cursor);
+        // Decode before the response is committed so a bad cursor still gets a 400
+        long afterId = UserCursor.decode(cursor);
+        if (collectionNotModified(webRequest)) {
+            logger.debug("Users unchanged, returning 304");
+            return null;
+        }
+        MediaType format = streamCodec.negotiate(accept);
+        StreamingResponseBody body = out -> {
+            try (UserStreamCodec.RecordWriter writer = streamCodec.writer(format, out)) {
+                userService.streamUsers(afterId, user -> {
+                    try {
+                        writer.write(user);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(format)
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(body);
     }
 
     @PostMapping
@@ -79,4 +219,62 @@ public class UserController {
         return createdUser;
     }
 
+    /**
+     * Creates many users in one request. Accepts a JSON array, NDJSON, a Smile or CBOR array or
+     * sequence, or the length-delimited Smile and CBOR of {@code /users/stream}; the body is parsed
+     * as a stream and inserted in JDBC batches. Each input row gets its own result entry, and a
+     * conflicting row does not abort the rest of the batch. With {@code keepHashes=true}, passwords
+     * that already are bcrypt hashes are stored as they are, to import an export again.
+     */
+    @PostMapping(value = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_NDJSON_VALUE,
+            UserStreamCodec.APPLICATION_SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE,
+            UserStreamCodec.APPLICATION_SMILE_DELIMITED_VALUE, UserStreamCodec.APPLICATION_CBOR_DELIMITED_VALUE})
+    public BatchCreateResult createUsers(HttpServletRequest request,
+                                         @RequestParam(defaultValue = "false") boolean keepHashes) throws IOException {
+        logger.debug("POST request received to create users in batch");
+        if (userBatchService == null) {
+            throw new SnapshotUnsupportedException("Creating users");
+        }
+        MediaType contentType = MediaType.parseMediaType(request.getContentType());
+        try (UserStreamCodec.RecordReader users = streamCodec.reader(contentType, request.getInputStream())) {
+            BatchCreateResult result = userBatchService.createUsers(users, keepHashes);
+            logger.info("Batch created {} users, {} failed{}", result.getCreated(), result.getFailed(),
+                    result.isTruncated() ? ", truncated" : "");
+            return result;
+        } catch (JsonProcessingException e) {
+            throw new InvalidRequestException("Malformed batch input: " + e.getOriginalMessage(), e);
+        } catch (RuntimeException e) {
+            // The readers wrap parse errors in unchecked exceptions. Chunks parsed before the
+            // malformed record have already been committed.
+            if (e.getCause() instanceof JsonProcessingException) {
+                JsonProcessingException cause = (JsonProcessingException) e.getCause();
+                throw new InvalidRequestException("Malformed batch input: " + cause.getOriginalMessage(), cause);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Checks a username and password: 200 with the user when they match, 401 otherwise. An unknown
+     * username and a wrong password get the same response after about the same time.
+     */
+    @PostMapping("/authenticate")
+    public User authenticate(@RequestBody UserCredentials credentials) {
+        logger.debug("POST request received to authenticate user: {}", credentials.getUsername());
+        return userService.authenticate(credentials.getUsername(), credentials.getPassword())
+                .orElseThrow(InvalidCredentialsException::new);
+    }
+
+    /**
+     * Resolves many users in one round trip. Every requested key is present in the response,
+     * mapped to null when no user matched.
+     */
+    @PostMapping("/lookup")
+    public UserLookupResult lookupUsers(@RequestBody UserLookupRequest request) {
+        logger.debug("POST request received to look up {} users", request.size());
+        UserLookupResult result = userService.lookupUsers(request);
+        logger.info("Returning lookup result for {} keys", request.size());
+        return result;
+    }
+
 }
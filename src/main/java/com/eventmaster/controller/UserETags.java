@@ -0,0 +1,57 @@
+package com.eventmaster.controller;
+
+import com.eventmaster.model.User;
+import com.eventmaster.model.UserCollectionVersion;
+import com.eventmaster.model.UserSuggestion;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Entity tags for user resources, derived from revision data rather than from the serialized
+ * body: a user's id and version, or the table's {@link UserCollectionVersion}. The id is needed
+ * because a URL such as {@code /users/by-username/{username}} can come to name a different user.
+ *
+ * <p>The tags are weak: the same revision is served as JSON, Smile or CBOR depending on Accept,
+ * and those bodies are not byte-for-byte equal. Conditional GETs compare tags weakly, so
+ * If-None-Match still yields 304, and responses vary by Accept so shared caches keep the formats
+ * apart.
+ */
+final class UserETags {
+
+    private UserETags() {
+    }
+
+    static String of(User user) {
+        long version = user.getVersion() == null ? 0 : user.getVersion();
+        return "W/\"" + user.getId() + "-" + version + "\"";
+    }
+
+    static String of(UserCollectionVersion collectionVersion) {
+        return "W/\"c" + collectionVersion.getCount() + "-" + millisHex(collectionVersion.getLastModified()) + "\"";
+    }
+
+    /**
+     * Search results come from the in-memory index, so their tag is a hash of the results
+     * themselves; computing it is far cheaper than serializing them.
+     */
+    static String of(List<UserSuggestion> suggestions) {
+        long hash = 1125899906842597L;
+        for (UserSuggestion suggestion : suggestions) {
+            hash = 31 * hash + String.valueOf(suggestion.getUsername()).hashCode();
+            hash = 31 * hash + String.valueOf(suggestion.getName()).hashCode();
+        }
+        return "W/\"s" + Long.toHexString(hash) + "\"";
+    }
+
+    /**
+     * Epoch millis of the timestamp for a Last-Modified header, or -1 when unknown.
+     */
+    static long lastModified(Instant instant) {
+        return instant == null ? -1 : instant.toEpochMilli();
+    }
+
+    private static String millisHex(Instant instant) {
+        return instant == null ? "0" : Long.toHexString(instant.toEpochMilli());
+    }
+}
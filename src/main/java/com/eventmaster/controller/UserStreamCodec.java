@@ -0,0 +1,261 @@
+package com.eventmaster.controller;
+
+import com.eventmaster.model.User;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads and writes the multi-user bodies of {@code GET /users/stream} and {@code POST /users/batch}.
+ * Besides NDJSON these come length-delimited in Smile or CBOR: each user is a complete Smile or CBOR
+ * document preceded by its size in bytes as an unsigned varint, the framing of Protobuf's
+ * {@code writeDelimitedTo}. A reader can split or skip records without decoding them.
+ * Every format uses the mappers of JacksonConfig, so a user is encoded the same way in a stream
+ * as in a single response.
+ */
+@Component
+public class UserStreamCodec {
+
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+    public static final String APPLICATION_SMILE_DELIMITED_VALUE = "application/x-jackson-smile-delimited";
+    public static final String APPLICATION_CBOR_DELIMITED_VALUE = "application/x-cbor-delimited";
+
+    private static final MediaType NDJSON = MediaType.parseMediaType(UserController.APPLICATION_NDJSON_VALUE);
+    private static final MediaType SMILE = MediaType.parseMediaType(APPLICATION_SMILE_VALUE);
+    private static final MediaType SMILE_DELIMITED = MediaType.parseMediaType(APPLICATION_SMILE_DELIMITED_VALUE);
+    private static final MediaType CBOR_DELIMITED = MediaType.parseMediaType(APPLICATION_CBOR_DELIMITED_VALUE);
+    // In order of preference when the Accept header allows several
+    private static final List<MediaType> STREAM_TYPES = List.of(NDJSON, SMILE_DELIMITED, CBOR_DELIMITED);
+
+    // A user is a few hundred bytes; anything larger is a corrupt or hostile length prefix
+    static final int MAX_RECORD_BYTES = 64 * 1024;
+
+    private final ObjectMapper jsonMapper;
+    private final ObjectMapper smileMapper;
+    private final ObjectMapper cborMapper;
+
+    public UserStreamCodec(ObjectMapper objectMapper,
+                           MappingJackson2SmileHttpMessageConverter smileConverter,
+                           MappingJackson2CborHttpMessageConverter cborConverter) {
+        this.jsonMapper = objectMapper;
+        this.smileMapper = smileConverter.getObjectMapper();
+        this.cborMapper = cborConverter.getObjectMapper();
+    }
+
+    /**
+     * Picks the stream format for an {@code Accept} header, NDJSON when it names none of them.
+     */
+    public MediaType negotiate(String accept) {
+        if (accept == null || accept.isEmpty()) {
+            return NDJSON;
+        }
+        List<MediaType> accepted = MediaType.parseMediaTypes(accept);
+        MediaType.sortBySpecificityAndQuality(accepted);
+        for (MediaType type : accepted) {
+            for (MediaType candidate : STREAM_TYPES) {
+                if (type.includes(candidate)) {
+                    return candidate;
+                }
+            }
+        }
+        return NDJSON;
+    }
+
+    /**
+     * Starts a stream of users in one of the {@link #negotiate} formats. Closing the writer ends the
+     * stream but leaves {@code out} open.
+     */
+    public RecordWriter writer(MediaType type, OutputStream out) throws IOException {
+        if (SMILE_DELIMITED.equalsTypeAndSubtype(type)) {
+            return new DelimitedWriter(smileMapper.writerFor(User.class), out);
+        }
+        if (CBOR_DELIMITED.equalsTypeAndSubtype(type)) {
+            return new DelimitedWriter(cborMapper.writerFor(User.class), out);
+        }
+        SequenceWriter writer = jsonMapper.writerFor(User.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .withRootValueSeparator("\n")
+                .writeValues(out);
+        return new RecordWriter() {
+            @Override
+            public void write(User user) throws IOException {
+                writer.write(user);
+            }
+
+            @Override
+            public void close() throws IOException {
+                writer.close();
+                out.write('\n');
+            }
+        };
+    }
+
+    /**
+     * Reads users from a request body. The delimited types are read frame by frame; JSON, NDJSON,
+     * Smile and CBOR as either an array or a sequence of root values. Malformed input surfaces from
+     * {@code hasNext}/{@code next} as an unchecked exception caused by a JsonProcessingException.
+     */
+    public RecordReader reader(MediaType type, InputStream in) throws IOException {
+        if (SMILE_DELIMITED.equalsTypeAndSubtype(type)) {
+            return new DelimitedReader(smileMapper.readerFor(User.class), in);
+        }
+        if (CBOR_DELIMITED.equalsTypeAndSubtype(type)) {
+            return new DelimitedReader(cborMapper.readerFor(User.class), in);
+        }
+        ObjectMapper mapper = SMILE.equalsTypeAndSubtype(type) ? smileMapper
+                : MediaType.APPLICATION_CBOR.equalsTypeAndSubtype(type) ? cborMapper
+                : jsonMapper;
+        MappingIterator<User> users = mapper.readerFor(User.class).readValues(in);
+        return new RecordReader() {
+            @Override
+            public boolean hasNext() {
+                return users.hasNext();
+            }
+
+            @Override
+            public User next() {
+                return users.next();
+            }
+
+            @Override
+            public void close() throws IOException {
+                users.close();
+            }
+        };
+    }
+
+    public interface RecordWriter extends Closeable {
+
+        void write(User user) throws IOException;
+    }
+
+    public interface RecordReader extends Iterator<User>, Closeable {
+    }
+
+    private static final class DelimitedWriter implements RecordWriter {
+
+        private final ObjectWriter writer;
+        private final OutputStream out;
+        // Each record is encoded here first, since its length has to be written before it
+        private final ByteArrayOutputStream record = new ByteArrayOutputStream(512);
+
+        DelimitedWriter(ObjectWriter writer, OutputStream out) {
+            this.writer = writer;
+            this.out = out;
+        }
+
+        @Override
+        public void write(User user) throws IOException {
+            record.reset();
+            writer.writeValue(record, user);
+            writeLength(out, record.size());
+            record.writeTo(out);
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.flush();
+        }
+    }
+
+    private static final class DelimitedReader implements RecordReader {
+
+        private final ObjectReader reader;
+        private final InputStream in;
+        private byte[] record = new byte[512];
+        private int length = -1;
+
+        DelimitedReader(ObjectReader reader, InputStream in) {
+            this.reader = reader;
+            this.in = in;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (length < 0) {
+                try {
+                    length = readLength(in);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return length >= 0;
+        }
+
+        @Override
+        public User next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            try {
+                if (length > record.length) {
+                    record = new byte[Math.max(length, record.length * 2)];
+                }
+                if (in.readNBytes(record, 0, length) < length) {
+                    throw new JsonParseException(null, "Truncated record: expected " + length + " bytes");
+                }
+                return reader.readValue(record, 0, length);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                length = -1;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    static void writeLength(OutputStream out, int length) throws IOException {
+        while ((length & ~0x7F) != 0) {
+            out.write((length & 0x7F) | 0x80);
+            length >>>= 7;
+        }
+        out.write(length);
+    }
+
+    /**
+     * @return the next record's length, or -1 at the end of the stream
+     */
+    static int readLength(InputStream in) throws IOException {
+        int length = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                if (shift == 0) {
+                    return -1;
+                }
+                throw new JsonParseException(null, "Truncated record length");
+            }
+            length |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                if (length < 0 || length > MAX_RECORD_BYTES) {
+                    throw new JsonParseException(null, "Record of " + Integer.toUnsignedString(length)
+                            + " bytes exceeds the limit of " + MAX_RECORD_BYTES);
+                }
+                return length;
+            }
+        }
+        throw new JsonParseException(null, "Malformed record length");
+    }
+}
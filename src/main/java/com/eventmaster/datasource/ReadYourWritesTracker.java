@@ -0,0 +1,68 @@
+package com.eventmaster.datasource;
+
+import com.eventmaster.model.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+
+/**
+ * Remembers users written by this instance during the last {@code window}, so reads that could
+ * observe them are sent to the primary instead of a replica that may not have caught up yet.
+ * Lookups by id, username or email check the written keys; collection reads check whether
+ * anything was written at all.
+ *
+ * <p>Only writes made through this instance are tracked: a client whose requests are spread over
+ * several instances still needs sticky sessions to read its own writes.
+ */
+public class ReadYourWritesTracker {
+
+    private static final int MAX_TRACKED_KEYS = 100_000;
+
+    private final Cache<String, Boolean> recentKeys;
+    private final long windowNanos;
+    private volatile long lastWriteNanos;
+
+    public ReadYourWritesTracker(Duration window) {
+        this.windowNanos = window.toNanos();
+        this.lastWriteNanos = System.nanoTime() - windowNanos;
+        this.recentKeys = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .maximumSize(MAX_TRACKED_KEYS)
+                .executor(Runnable::run)
+                .build();
+    }
+
+    public static String idKey(Long id) {
+        return "id:" + id;
+    }
+
+    public static String usernameKey(String username) {
+        return "username:" + username;
+    }
+
+    public static String emailKey(String email) {
+        return "email:" + email;
+    }
+
+    public void recordWrite(User user) {
+        if (user.getId() != null) {
+            recentKeys.put(idKey(user.getId()), Boolean.TRUE);
+        }
+        if (user.getUsername() != null) {
+            recentKeys.put(usernameKey(user.getUsername()), Boolean.TRUE);
+        }
+        if (user.getEmail() != null) {
+            recentKeys.put(emailKey(user.getEmail()), Boolean.TRUE);
+        }
+        lastWriteNanos = System.nanoTime();
+    }
+
+    public boolean isRecentlyWritten(String key) {
+        return anyRecentWrite() && recentKeys.getIfPresent(key) != null;
+    }
+
+    public boolean anyRecentWrite() {
+        return System.nanoTime() - lastWriteNanos < windowNanos;
+    }
+}
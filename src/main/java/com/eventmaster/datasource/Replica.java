@@ -0,0 +1,45 @@
+package com.eventmaster.datasource;
+
+import javax.sql.DataSource;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * One read replica: its pool, whether the last health check passed, and how many connections
+ * have been routed to it.
+ */
+public class Replica {
+
+    private final String name;
+    private final DataSource dataSource;
+    private final LongAdder routed = new LongAdder();
+    private volatile boolean healthy = true;
+
+    public Replica(String name, DataSource dataSource) {
+        this.name = name;
+        this.dataSource = dataSource;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    public boolean isHealthy() {
+        return healthy;
+    }
+
+    public void setHealthy(boolean healthy) {
+        this.healthy = healthy;
+    }
+
+    public long getRoutedCount() {
+        return routed.sum();
+    }
+
+    void routed() {
+        routed.increment();
+    }
+}
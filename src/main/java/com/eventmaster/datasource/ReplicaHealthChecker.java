@@ -0,0 +1,48 @@
+package com.eventmaster.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Periodically validates a connection from every replica. A replica that fails is taken out of
+ * rotation until a later check passes; reads go to the other replicas or the primary meanwhile.
+ */
+public class ReplicaHealthChecker {
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaHealthChecker.class);
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final ReplicaRoutingDataSource routingDataSource;
+
+    public ReplicaHealthChecker(ReplicaRoutingDataSource routingDataSource) {
+        this.routingDataSource = routingDataSource;
+    }
+
+    @Scheduled(fixedDelayString = "${user.datasource.health-check-interval-ms:5000}")
+    public void checkReplicas() {
+        for (Replica replica : routingDataSource.getReplicas()) {
+            boolean healthy = isValid(replica);
+            if (healthy != replica.isHealthy()) {
+                if (healthy) {
+                    logger.info("Replica {} is healthy again, returning it to rotation", replica.getName());
+                } else {
+                    logger.warn("Replica {} failed its health check, routing its reads elsewhere", replica.getName());
+                }
+                replica.setHealthy(healthy);
+            }
+        }
+    }
+
+    private boolean isValid(Replica replica) {
+        try (Connection connection = replica.getDataSource().getConnection()) {
+            return connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            logger.debug("Health check of replica {} failed", replica.getName(), e);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.eventmaster.datasource;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reports each replica's health and routed connection count under {@code /actuator/health}.
+ * Always UP: with every replica down, reads fall back to the primary, whose own health is
+ * reported by the datasource indicator.
+ */
+public class ReplicaHealthIndicator implements HealthIndicator {
+
+    private final ReplicaRoutingDataSource routingDataSource;
+
+    public ReplicaHealthIndicator(ReplicaRoutingDataSource routingDataSource) {
+        this.routingDataSource = routingDataSource;
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder builder = Health.up();
+        int healthy = 0;
+        for (Replica replica : routingDataSource.getReplicas()) {
+            Map<String, Object> details = new LinkedHashMap<>();
+            details.put("status", replica.isHealthy() ? "UP" : "DOWN");
+            details.put("routedConnections", replica.getRoutedCount());
+            builder.withDetail(replica.getName(), details);
+            if (replica.isHealthy()) {
+                healthy++;
+            }
+        }
+        return builder
+                .withDetail("healthyReplicas", healthy)
+                .withDetail("primaryRoutedConnections", routingDataSource.getPrimaryRoutedCount())
+                .build();
+    }
+}
@@ -0,0 +1,94 @@
+package com.eventmaster.datasource;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replica settings under {@code user.datasource}. The primary keeps using {@code spring.datasource}.
+ */
+@ConfigurationProperties(prefix = "user.datasource")
+public class ReplicaProperties {
+
+    private List<Endpoint> replicas = new ArrayList<>();
+
+    /** How long after a write this instance keeps reading the written data from the primary. */
+    private Duration readYourWritesWindow = Duration.ofSeconds(5);
+
+    public List<Endpoint> getReplicas() {
+        return replicas;
+    }
+
+    public void setReplicas(List<Endpoint> replicas) {
+        this.replicas = replicas;
+    }
+
+    public Duration getReadYourWritesWindow() {
+        return readYourWritesWindow;
+    }
+
+    public void setReadYourWritesWindow(Duration readYourWritesWindow) {
+        this.readYourWritesWindow = readYourWritesWindow;
+    }
+
+    public static class Endpoint {
+
+        private String url;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+        private Duration connectionTimeout = Duration.ofSeconds(2);
+        /** SQL script run against the replica at startup; only for local stand-ins that are not really replicated. */
+        private String initScript;
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public void setPassword(String password) {
+            this.password = password;
+        }
+
+        public int getMaximumPoolSize() {
+            return maximumPoolSize;
+        }
+
+        public void setMaximumPoolSize(int maximumPoolSize) {
+            this.maximumPoolSize = maximumPoolSize;
+        }
+
+        public Duration getConnectionTimeout() {
+            return connectionTimeout;
+        }
+
+        public void setConnectionTimeout(Duration connectionTimeout) {
+            this.connectionTimeout = connectionTimeout;
+        }
+
+        public String getInitScript() {
+            return initScript;
+        }
+
+        public void setInitScript(String initScript) {
+            this.initScript = initScript;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.eventmaster.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Primary/replica routing, enabled with {@code user.datasource.routing.enabled=true}. The
+ * application's DataSource becomes a lazy proxy over {@link ReplicaRoutingDataSource}: read-only
+ * transactions use a replica from {@code user.datasource.replicas}, everything else uses the
+ * primary configured by {@code spring.datasource}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "user.datasource.routing.enabled", havingValue = "true")
+@EnableConfigurationProperties(ReplicaProperties.class)
+public class ReplicaRoutingConfig {
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingConfig.class);
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource routingDataSource(HikariDataSource primaryDataSource,
+                                                      ReplicaProperties properties,
+                                                      ResourceLoader resourceLoader) {
+        if (properties.getReplicas().isEmpty()) {
+            throw new IllegalStateException("user.datasource.routing.enabled=true requires at least one user.datasource.replicas entry");
+        }
+        List<Replica> replicas = new ArrayList<>();
+        for (int i = 0; i < properties.getReplicas().size(); i++) {
+            ReplicaProperties.Endpoint endpoint = properties.getReplicas().get(i);
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("replica-" + i);
+            dataSource.setJdbcUrl(endpoint.getUrl());
+            dataSource.setUsername(endpoint.getUsername());
+            dataSource.setPassword(endpoint.getPassword());
+            dataSource.setMaximumPoolSize(endpoint.getMaximumPoolSize());
+            dataSource.setConnectionTimeout(endpoint.getConnectionTimeout().toMillis());
+            dataSource.setReadOnly(true);
+            // Do not fail startup when a replica is down; the health checker takes it out of rotation
+            dataSource.setInitializationFailTimeout(-1);
+            if (endpoint.getInitScript() != null) {
+                logger.warn("Initializing replica-{} from {}; use this only for local stand-ins", i, endpoint.getInitScript());
+                // Outside the pool, whose connections are read-only
+                DatabasePopulatorUtils.execute(
+                        new ResourceDatabasePopulator(resourceLoader.getResource(endpoint.getInitScript())),
+                        new DriverManagerDataSource(endpoint.getUrl(), endpoint.getUsername(), endpoint.getPassword()));
+            }
+            replicas.add(new Replica("replica-" + i, dataSource));
+        }
+        logger.info("Routing read-only transactions to {} replica(s)", replicas.size());
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas);
+    }
+
+    /**
+     * Defers fetching the physical connection until the first statement, by which time the
+     * transaction's read-only flag is known.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    /**
+     * Hibernate otherwise keeps a session's connection until the session closes, and with
+     * open-in-view that is the end of the request, so a write following a read would reuse the
+     * replica connection. Releasing after each transaction lets every transaction be routed.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer releaseConnectionsAfterTransaction() {
+        return properties -> properties.put("hibernate.connection.handling_mode",
+                "DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION");
+    }
+
+    @Bean
+    public ReplicaHealthChecker replicaHealthChecker(ReplicaRoutingDataSource routingDataSource) {
+        return new ReplicaHealthChecker(routingDataSource);
+    }
+
+    @Bean
+    public ReplicaHealthIndicator replicasHealthIndicator(ReplicaRoutingDataSource routingDataSource) {
+        return new ReplicaHealthIndicator(routingDataSource);
+    }
+
+    @Bean
+    public ReadYourWritesTracker readYourWritesTracker(ReplicaProperties properties) {
+        return new ReadYourWritesTracker(properties.getReadYourWritesWindow());
+    }
+}
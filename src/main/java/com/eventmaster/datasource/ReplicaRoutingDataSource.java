@@ -0,0 +1,100 @@
+package com.eventmaster.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Sends connections for read-only transactions to a healthy replica, round robin, and everything
+ * else to the primary. Falls back to the primary when no replica is healthy.
+ *
+ * <p>The read-only flag is only known once the transaction has started, after the transaction
+ * manager has asked for a connection, so this must sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    static final String PRIMARY = "primary";
+
+    private static final ThreadLocal<Boolean> FORCE_PRIMARY = new ThreadLocal<>();
+
+    private final List<Replica> replicas;
+    private final AtomicInteger next = new AtomicInteger();
+    private final LongAdder routedToPrimary = new LongAdder();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<Replica> replicas) {
+        this.replicas = List.copyOf(replicas);
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (Replica replica : replicas) {
+            targets.put(replica.getName(), replica.getDataSource());
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    /**
+     * Runs {@code action} with every connection it opens taken from the primary, even inside
+     * read-only transactions. Used where replica lag would give a wrong answer, such as reading
+     * a row just written.
+     */
+    public static <T> T onPrimary(Supplier<T> action) {
+        if (FORCE_PRIMARY.get() != null) {
+            return action.get();
+        }
+        FORCE_PRIMARY.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            FORCE_PRIMARY.remove();
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && FORCE_PRIMARY.get() == null) {
+            int size = replicas.size();
+            int start = Math.floorMod(next.getAndIncrement(), size);
+            for (int i = 0; i < size; i++) {
+                Replica replica = replicas.get((start + i) % size);
+                if (replica.isHealthy()) {
+                    replica.routed();
+                    return replica.getName();
+                }
+            }
+        }
+        routedToPrimary.increment();
+        return PRIMARY;
+    }
+
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    public long getPrimaryRoutedCount() {
+        return routedToPrimary.sum();
+    }
+
+    /**
+     * Closes the replica pools; the primary is a bean of its own and closed by the container.
+     */
+    @Override
+    public void close() throws IOException {
+        for (Replica replica : replicas) {
+            if (replica.getDataSource() instanceof Closeable) {
+                ((Closeable) replica.getDataSource()).close();
+            }
+        }
+    }
+}
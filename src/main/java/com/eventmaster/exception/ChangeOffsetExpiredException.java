@@ -0,0 +1,14 @@
+package com.eventmaster.exception;
+
+/**
+ * Thrown when a change-feed consumer asks to resume from an offset whose events have already been
+ * pruned. The consumer has missed changes and has to resynchronize from a full read.
+ */
+public class ChangeOffsetExpiredException extends RuntimeException {
+
+    public ChangeOffsetExpiredException(long offset, long prunedThrough) {
+        super("Change offset " + offset + " has expired: events up to offset " + prunedThrough
+                + " were pruned. Take the offset from GET /users/changes/head, resynchronize with GET /users,"
+                + " then resume from that offset.");
+    }
+}
@@ -0,0 +1,111 @@
+package com.eventmaster.exception;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+
+/**
+ * The fixed part of an error response (status, error title and headers), built once per kind of
+ * error. Each response only adds the time and the message. The body keeps the
+ * {@code timestamp}/{@code status}/{@code error}/{@code message} layout the handlers have always
+ * returned, as a small immutable object rather than a map filled on every error.
+ */
+public final class ErrorResponseTemplate {
+
+    // Resolved once; LocalDateTime.now() looks up the default zone on every call
+    private static final Clock CLOCK = Clock.systemDefaultZone();
+
+    static final ErrorResponseTemplate USER_NOT_FOUND = new ErrorResponseTemplate(HttpStatus.NOT_FOUND, "User Not Found");
+    static final ErrorResponseTemplate CONFLICT = new ErrorResponseTemplate(HttpStatus.CONFLICT, "Conflict");
+    static final ErrorResponseTemplate BAD_REQUEST = new ErrorResponseTemplate(HttpStatus.BAD_REQUEST, "Bad Request");
+    static final ErrorResponseTemplate UNAUTHORIZED = new ErrorResponseTemplate(HttpStatus.UNAUTHORIZED, "Unauthorized");
+    static final ErrorResponseTemplate GONE = new ErrorResponseTemplate(HttpStatus.GONE, "Gone");
+    static final ErrorResponseTemplate SERVICE_UNAVAILABLE =
+            new ErrorResponseTemplate(HttpStatus.SERVICE_UNAVAILABLE, "Service Unavailable");
+    static final ErrorResponseTemplate OVERLOADED =
+            new ErrorResponseTemplate(HttpStatus.SERVICE_UNAVAILABLE, "Service Unavailable", retryAfter(1));
+    static final ErrorResponseTemplate TOO_MANY_REQUESTS =
+            new ErrorResponseTemplate(HttpStatus.TOO_MANY_REQUESTS, "Too Many Requests");
+    static final ErrorResponseTemplate NOT_IMPLEMENTED = new ErrorResponseTemplate(HttpStatus.NOT_IMPLEMENTED, "Not Implemented");
+    static final ErrorResponseTemplate INTERNAL_SERVER_ERROR =
+            new ErrorResponseTemplate(HttpStatus.INTERNAL_SERVER_ERROR, "Internal Server Error");
+
+    private final HttpStatus status;
+    private final String error;
+    private final HttpHeaders headers;
+
+    private ErrorResponseTemplate(HttpStatus status, String error) {
+        this(status, error, HttpHeaders.EMPTY);
+    }
+
+    private ErrorResponseTemplate(HttpStatus status, String error, HttpHeaders headers) {
+        this.status = status;
+        this.error = error;
+        this.headers = HttpHeaders.readOnlyHttpHeaders(headers);
+    }
+
+    /**
+     * The 404 returned for a user lookup that found nothing, for controllers that answer a miss
+     * without throwing UserNotFoundException.
+     */
+    public static ResponseEntity<Object> userNotFound(String message) {
+        return USER_NOT_FOUND.respond(message);
+    }
+
+    public ResponseEntity<Object> respond(String message) {
+        return new ResponseEntity<>(body(message), headers, status);
+    }
+
+    public ResponseEntity<Object> respond(String message, HttpHeaders extraHeaders) {
+        HttpHeaders all = new HttpHeaders();
+        all.addAll(headers);
+        all.addAll(extraHeaders);
+        return new ResponseEntity<>(body(message), all, status);
+    }
+
+    Body body(String message) {
+        return new Body(LocalDateTime.now(CLOCK), status.value(), error, message);
+    }
+
+    private static HttpHeaders retryAfter(long seconds) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(seconds));
+        return headers;
+    }
+
+    @JsonPropertyOrder({"timestamp", "status", "error", "message"})
+    public static final class Body {
+
+        private final LocalDateTime timestamp;
+        private final int status;
+        private final String error;
+        private final String message;
+
+        Body(LocalDateTime timestamp, int status, String error, String message) {
+            this.timestamp = timestamp;
+            this.status = status;
+            this.error = error;
+            this.message = message;
+        }
+
+        public LocalDateTime getTimestamp() {
+            return timestamp;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+}
@@ -2,23 +2,27 @@ package com.eventmaster.exception;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.dao.DataIntegrityViolationException;
-import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 
-import java.time.LocalDateTime;
-import java.util.LinkedHashMap;
-import java.util.Map;
 
 /**
  * Global exception handler for consistent error responses across the service.
+ * Bodies come from the prebuilt {@link ErrorResponseTemplate}s.
+ * On the reactive stack {@link ReactiveExceptionHandler} delegates to these methods.
  */
 @RestControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
     private static final Logger logger = LoggerFactory.getLogger(GlobalExceptionHandler.class);
+    private static final String OVERLOADED_MESSAGE = "The service is temporarily overloaded. Please retry later.";
 
     /**
      * Handle UserNotFoundException - return 404 with clear error message
@@ -26,13 +30,7 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
     @ExceptionHandler(UserNotFoundException.class)
     public ResponseEntity<Object> handleUserNotFoundException(UserNotFoundException ex) {
         logger.warn("User not found exception occurred: {}", ex.getMessage());
-        Map<String, Object> body = new LinkedHashMap<>();
-        body.put("timestamp", LocalDateTime.now());
-        body.put("status", HttpStatus.NOT_FOUND.value());
-        body.put("error", "User Not Found");
-        body.put("message", ex.getMessage());
-
-        return new ResponseEntity<>(body, HttpStatus.NOT_FOUND);
+        return ErrorResponseTemplate.USER_NOT_FOUND.respond(ex.getMessage());
     }
 
     /**
@@ -42,11 +40,6 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
     public ResponseEntity<Object> handleDuplicateUserException(DuplicateUserException ex) {
         logger.warn("Duplicate user exception occurred: {}", ex.getMessage());
 
-        Map<String, Object> body = new LinkedHashMap<>();
-        body.put("timestamp", LocalDateTime.now());
-        body.put("status", HttpStatus.CONFLICT.value());
-        body.put("error", "Conflict");
-
         String message;
         if (ex.isUsernameDuplicate()) {
             message = "The username is already taken. Please choose a different username.";
@@ -56,8 +49,73 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
             message = ex.getMessage();
         }
 
-        body.put("message", message);
-        return new ResponseEntity<>(body, HttpStatus.CONFLICT);
+        return ErrorResponseTemplate.CONFLICT.respond(message);
+    }
+
+    /**
+     * Handle InvalidRequestException - return 400 when a request parameter cannot be interpreted
+     */
+    @ExceptionHandler(InvalidRequestException.class)
+    public ResponseEntity<Object> handleInvalidRequestException(InvalidRequestException ex) {
+        logger.warn("Invalid request: {}", ex.getMessage());
+        return ErrorResponseTemplate.BAD_REQUEST.respond(ex.getMessage());
+    }
+
+    /**
+     * Handle InvalidCredentialsException - return 401, the same for an unknown user and a wrong password
+     */
+    @ExceptionHandler(InvalidCredentialsException.class)
+    public ResponseEntity<Object> handleInvalidCredentialsException(InvalidCredentialsException ex) {
+        logger.debug("Authentication failed: {}", ex.getMessage());
+        return ErrorResponseTemplate.UNAUTHORIZED.respond(ex.getMessage());
+    }
+
+    /**
+     * Handle ChangeOffsetExpiredException - return 410 Gone so the consumer knows to resynchronize
+     */
+    @ExceptionHandler(ChangeOffsetExpiredException.class)
+    public ResponseEntity<Object> handleChangeOffsetExpiredException(ChangeOffsetExpiredException ex) {
+        logger.warn("Expired change offset requested: {}", ex.getMessage());
+        return ErrorResponseTemplate.GONE.respond(ex.getMessage());
+    }
+
+    /**
+     * Handle SnapshotUnsupportedException - return 501: this instance only serves snapshot reads
+     */
+    @ExceptionHandler(SnapshotUnsupportedException.class)
+    public ResponseEntity<Object> handleSnapshotUnsupportedException(SnapshotUnsupportedException ex) {
+        logger.debug("Not served from snapshot: {}", ex.getMessage());
+        return ErrorResponseTemplate.NOT_IMPLEMENTED.respond(ex.getMessage());
+    }
+
+    /**
+     * Handle connection pool exhaustion - return 503 so callers back off instead of retrying into a saturated pool
+     */
+    @ExceptionHandler({CannotCreateTransactionException.class, CannotGetJdbcConnectionException.class})
+    public ResponseEntity<Object> handleConnectionUnavailable(Exception ex) {
+        logger.warn("Database connection unavailable: {}", ex.getMessage());
+        return ErrorResponseTemplate.SERVICE_UNAVAILABLE.respond(OVERLOADED_MESSAGE);
+    }
+
+    /**
+     * Handle RateLimitExceededException - return 429 with Retry-After. Logged at debug: a client
+     * over its limit can produce these faster than any log should take them.
+     */
+    @ExceptionHandler(RateLimitExceededException.class)
+    public ResponseEntity<Object> handleRateLimitExceededException(RateLimitExceededException ex) {
+        logger.debug("Rate limited: {}", ex.getMessage());
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()));
+        return ErrorResponseTemplate.TOO_MANY_REQUESTS.respond(ex.getMessage(), headers);
+    }
+
+    /**
+     * Handle ServiceOverloadedException - return 503 like an exhausted pool, without ever reaching it
+     */
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<Object> handleServiceOverloadedException(ServiceOverloadedException ex) {
+        logger.debug("Request shed: {}", ex.getMessage());
+        return ErrorResponseTemplate.OVERLOADED.respond(OVERLOADED_MESSAGE);
     }
 
     /**
@@ -66,13 +124,7 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Object> handleGlobalException(Exception ex) {
         logger.error("Unexpected exception occurred", ex);
-        Map<String, Object> body = new LinkedHashMap<>();
-        body.put("timestamp", LocalDateTime.now());
-        body.put("status", HttpStatus.INTERNAL_SERVER_ERROR.value());
-        body.put("error", "Internal Server Error");
-        body.put("message", ex.getMessage());
-
-        return new ResponseEntity<>(body, HttpStatus.INTERNAL_SERVER_ERROR);
+        return ErrorResponseTemplate.INTERNAL_SERVER_ERROR.respond(ex.getMessage());
     }
 }
 
@@ -0,0 +1,13 @@
+package com.eventmaster.exception;
+
+/**
+ * Thrown when a username and password do not match. The message is the same for an unknown
+ * username and a wrong password, so a response does not reveal which usernames exist. Stackless,
+ * like {@link RateLimitExceededException}: a password-guessing client produces these in bulk.
+ */
+public class InvalidCredentialsException extends RuntimeException {
+
+    public InvalidCredentialsException() {
+        super("Invalid username or password", null, false, false);
+    }
+}
@@ -0,0 +1,23 @@
+package com.eventmaster.exception;
+
+/**
+ * Thrown when a request carries a parameter the service cannot interpret,
+ * such as a malformed pagination cursor.
+ */
+public class InvalidRequestException extends RuntimeException {
+
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+
+    public InvalidRequestException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    /**
+     * Construct exception for a cursor token that could not be decoded
+     */
+    public static InvalidRequestException invalidCursor(String cursor) {
+        return new InvalidRequestException("Invalid pagination cursor: " + cursor);
+    }
+}
@@ -0,0 +1,19 @@
+package com.eventmaster.exception;
+
+/**
+ * Thrown when a client has used up its request budget for an endpoint. Carries no stack trace:
+ * it is thrown on purpose, possibly thousands of times a second, before any work is done.
+ */
+public class RateLimitExceededException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public RateLimitExceededException(String endpoint, long retryAfterSeconds) {
+        super("Rate limit exceeded for " + endpoint, null, false, false);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,65 @@
+package com.eventmaster.exception;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Exception handler for the reactive stack. Delegates to {@link GlobalExceptionHandler} so both
+ * stacks answer every error with the same status and body.
+ */
+@RestControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveExceptionHandler {
+
+    private final GlobalExceptionHandler delegate = new GlobalExceptionHandler();
+
+    @ExceptionHandler(UserNotFoundException.class)
+    public ResponseEntity<Object> handleUserNotFoundException(UserNotFoundException ex) {
+        return delegate.handleUserNotFoundException(ex);
+    }
+
+    @ExceptionHandler(DuplicateUserException.class)
+    public ResponseEntity<Object> handleDuplicateUserException(DuplicateUserException ex) {
+        return delegate.handleDuplicateUserException(ex);
+    }
+
+    @ExceptionHandler(InvalidRequestException.class)
+    public ResponseEntity<Object> handleInvalidRequestException(InvalidRequestException ex) {
+        return delegate.handleInvalidRequestException(ex);
+    }
+
+    /**
+     * R2DBC reports a failed connection acquisition as a resource failure rather than a JDBC exception
+     */
+    @ExceptionHandler({CannotCreateTransactionException.class, DataAccessResourceFailureException.class})
+    public ResponseEntity<Object> handleConnectionUnavailable(Exception ex) {
+        return delegate.handleConnectionUnavailable(ex);
+    }
+
+    /**
+     * The password hashing queue is full
+     */
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<Object> handleServiceOverloadedException(ServiceOverloadedException ex) {
+        return delegate.handleServiceOverloadedException(ex);
+    }
+
+    /**
+     * Framework errors (unreadable body, bad path variable, unsupported media type) keep their
+     * status and get an empty body, as ResponseEntityExceptionHandler does on the servlet stack
+     */
+    @ExceptionHandler(ResponseStatusException.class)
+    public ResponseEntity<Object> handleResponseStatusException(ResponseStatusException ex) {
+        return ResponseEntity.status(ex.getStatus()).headers(ex.getResponseHeaders()).build();
+    }
+
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<Object> handleGlobalException(Exception ex) {
+        return delegate.handleGlobalException(ex);
+    }
+}
@@ -0,0 +1,17 @@
+package com.eventmaster.exception;
+
+/**
+ * Thrown when a request is shed because the service already has as many requests in flight as it
+ * can serve at its current latency, or because the password hashing queue is full. Stackless, like
+ * {@link RateLimitExceededException}.
+ */
+public class ServiceOverloadedException extends RuntimeException {
+
+    public ServiceOverloadedException() {
+        this("Concurrency limit reached");
+    }
+
+    public ServiceOverloadedException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,13 @@
+package com.eventmaster.exception;
+
+/**
+ * Thrown on an instance serving users from a snapshot file ({@code user.snapshot.enabled=true})
+ * for operations a snapshot cannot serve: writes, which belong on the instances that own the
+ * database, and search, which has no index in the snapshot.
+ */
+public class SnapshotUnsupportedException extends RuntimeException {
+
+    public SnapshotUnsupportedException(String operation) {
+        super(operation + " is not available on this instance: it serves a read-only user snapshot");
+    }
+}
@@ -2,12 +2,13 @@ package com.eventmaster.exception;
 
 /**
  * Thrown when a User is not found in the database.
- * This is a recoverable application error (not a programming error).
+ * This is a recoverable application error (not a programming error), and a frequent one when
+ * clients probe for users, so it carries no stack trace unless it wraps a cause.
  */
 public class UserNotFoundException extends RuntimeException {
 
     public UserNotFoundException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 
     public UserNotFoundException(String message, Throwable cause) {
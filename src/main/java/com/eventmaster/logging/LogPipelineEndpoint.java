@@ -0,0 +1,59 @@
+package com.eventmaster.logging;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Actuator endpoint exposing queue depth and drop counters of the asynchronous log appenders at
+ * {@code /actuator/logpipeline}. Empty unless a profile that logs asynchronously (prod) is active.
+ */
+@Component
+@Endpoint(id = "logpipeline")
+public class LogPipelineEndpoint {
+
+    @ReadOperation
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (MeteredAsyncAppender appender : asyncAppenders()) {
+            Map<String, Object> appenderStats = new LinkedHashMap<>();
+            appenderStats.put("queueSize", appender.getQueueSize());
+            appenderStats.put("queueDepth", appender.getNumberOfElementsInQueue());
+            appenderStats.put("appended", appender.getAppendedCount());
+            appenderStats.put("discarded", appender.getDiscardedCount());
+            appenderStats.put("dropped", appender.getDroppedCount());
+            stats.put(appender.getName(), appenderStats);
+        }
+        return stats;
+    }
+
+    /**
+     * Async appenders attached to the root logger.
+     */
+    public static List<MeteredAsyncAppender> asyncAppenders() {
+        List<MeteredAsyncAppender> appenders = new ArrayList<>();
+        if (!(LoggerFactory.getILoggerFactory() instanceof LoggerContext)) {
+            return appenders;
+        }
+        Logger root = ((LoggerContext) LoggerFactory.getILoggerFactory()).getLogger(Logger.ROOT_LOGGER_NAME);
+        Iterator<Appender<ILoggingEvent>> iterator = root.iteratorForAppenders();
+        while (iterator.hasNext()) {
+            Appender<ILoggingEvent> appender = iterator.next();
+            if (appender instanceof MeteredAsyncAppender) {
+                appenders.add((MeteredAsyncAppender) appender);
+            }
+        }
+        return appenders;
+    }
+}
@@ -0,0 +1,43 @@
+package com.eventmaster.logging;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Publishes queue depth and drop counters of the asynchronous log appenders, tagged by appender.
+ * Binds nothing unless a profile that logs asynchronously (prod) is active.
+ */
+@Component
+public class LogPipelineMetrics implements MeterBinder {
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (MeteredAsyncAppender appender : LogPipelineEndpoint.asyncAppenders()) {
+            String name = appender.getName();
+            Gauge.builder("log.pipeline.queue.depth", appender, MeteredAsyncAppender::getNumberOfElementsInQueue)
+                    .description("Events waiting to be written")
+                    .tag("appender", name)
+                    .register(registry);
+            Gauge.builder("log.pipeline.queue.capacity", appender, MeteredAsyncAppender::getQueueSize)
+                    .tag("appender", name)
+                    .register(registry);
+            event(registry, appender, "appended", MeteredAsyncAppender::getAppendedCount);
+            event(registry, appender, "discarded", MeteredAsyncAppender::getDiscardedCount);
+            event(registry, appender, "dropped", MeteredAsyncAppender::getDroppedCount);
+        }
+    }
+
+    private static void event(MeterRegistry registry, MeteredAsyncAppender appender, String result,
+                              ToDoubleFunction<MeteredAsyncAppender> count) {
+        FunctionCounter.builder("log.pipeline.events", appender, count)
+                .description("Log events handed to the async appender, by outcome")
+                .tag("appender", appender.getName())
+                .tag("result", result)
+                .register(registry);
+    }
+}
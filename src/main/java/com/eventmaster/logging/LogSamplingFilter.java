@@ -0,0 +1,47 @@
+package com.eventmaster.logging;
+
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides once per request whether its INFO and DEBUG lines are logged, keeping
+ * {@code user.logging.sample-rate} of requests (1.0 logs everything). The decision is stored in
+ * the MDC and enforced by {@link RequestSamplingTurboFilter}, so a sampled request keeps all of
+ * its lines together.
+ */
+@Component
+public class LogSamplingFilter extends OncePerRequestFilter {
+
+    public static final String MDC_KEY = "logSampled";
+    static final String NOT_SAMPLED = "false";
+
+    private final double sampleRate;
+
+    public LogSamplingFilter(@Value("${user.logging.sample-rate:1.0}") double sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (sampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        MDC.put(MDC_KEY, NOT_SAMPLED);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            MDC.remove(MDC_KEY);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.eventmaster.logging;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.OutputStreamAppender;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link AsyncAppender} that counts the events it drops and flushes its buffered targets in batches.
+ *
+ * <p>Events are dropped in two ways: INFO and lower are discarded once the queue is past the
+ * discarding threshold, and with {@code neverBlock} any event is dropped when the queue is full.
+ * Both counts are read from the queue before the event is offered, so they are approximate under
+ * contention.
+ *
+ * <p>Attached appenders configured with {@code immediateFlush=false} only write when their buffer
+ * fills. Every {@code flushIntervalMillis} their streams are flushed, so the log on disk is never
+ * further behind than that.
+ */
+public class MeteredAsyncAppender extends AsyncAppender {
+
+    public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 1000;
+
+    private final LongAdder appended = new LongAdder();
+    private final LongAdder discarded = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    private long flushIntervalMillis = DEFAULT_FLUSH_INTERVAL_MILLIS;
+    private ScheduledFuture<?> flushTask;
+
+    @Override
+    public void start() {
+        super.start();
+        if (isStarted() && flushIntervalMillis > 0) {
+            flushTask = getContext().getScheduledExecutorService().scheduleAtFixedRate(
+                    this::flushAttached, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+            getContext().addScheduledFuture(flushTask);
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (flushTask != null) {
+            flushTask.cancel(false);
+            flushTask = null;
+        }
+        // Drains the queue into the attached appenders, which flush when they stop
+        super.stop();
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        if (!isStarted()) {
+            return;
+        }
+        appended.increment();
+        int remaining = getRemainingCapacity();
+        if (remaining == 0 && isNeverBlock()) {
+            dropped.increment();
+        } else if (remaining < getDiscardingThreshold() && isDiscardable(event)) {
+            discarded.increment();
+        }
+        super.append(event);
+    }
+
+    private void flushAttached() {
+        Iterator<Appender<ILoggingEvent>> appenders = iteratorForAppenders();
+        while (appenders.hasNext()) {
+            Appender<ILoggingEvent> appender = appenders.next();
+            if (appender instanceof OutputStreamAppender
+                    && !((OutputStreamAppender<ILoggingEvent>) appender).isImmediateFlush()) {
+                OutputStream out = ((OutputStreamAppender<ILoggingEvent>) appender).getOutputStream();
+                if (out == null) {
+                    continue;
+                }
+                try {
+                    out.flush();
+                } catch (IOException e) {
+                    addWarn("Failed to flush appender [" + appender.getName() + "]", e);
+                }
+            }
+        }
+    }
+
+    public long getFlushIntervalMillis() {
+        return flushIntervalMillis;
+    }
+
+    public void setFlushIntervalMillis(long flushIntervalMillis) {
+        this.flushIntervalMillis = flushIntervalMillis;
+    }
+
+    /** Events handed to this appender, including the ones later dropped. */
+    public long getAppendedCount() {
+        return appended.sum();
+    }
+
+    /** INFO and lower events discarded because the queue was past the discarding threshold. */
+    public long getDiscardedCount() {
+        return discarded.sum();
+    }
+
+    /** Events of any level dropped because the queue was full. */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+}
@@ -0,0 +1,26 @@
+package com.eventmaster.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.MDC;
+import org.slf4j.Marker;
+
+/**
+ * Drops INFO and lower events logged while handling a request that {@link LogSamplingFilter}
+ * left out of the sample. Turbo filters run before the event is built, so the skipped lines cost
+ * no formatting. WARN and ERROR always pass, as does anything logged outside a request.
+ */
+public class RequestSamplingTurboFilter extends TurboFilter {
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (level != null && level.isGreaterOrEqual(Level.WARN)) {
+            return FilterReply.NEUTRAL;
+        }
+        return LogSamplingFilter.NOT_SAMPLED.equals(MDC.get(LogSamplingFilter.MDC_KEY))
+                ? FilterReply.DENY
+                : FilterReply.NEUTRAL;
+    }
+}
@@ -0,0 +1,31 @@
+package com.eventmaster.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.stereotype.Service;
+
+/**
+ * Times every public method of every {@link Service} bean. Registered as an infrastructure advisor,
+ * so the auto-proxy creator that already proxies the services for {@code @Transactional} applies it
+ * too, without AspectJ.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor serviceTimingAdvisor(ObjectProvider<MeterRegistry> registryProvider) {
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(
+                new AnnotationMatchingPointcut(Service.class, true),
+                new ServiceTimingInterceptor(registryProvider));
+        advisor.setOrder(0);
+        return advisor;
+    }
+}
@@ -0,0 +1,102 @@
+package com.eventmaster.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records every call to a service method in the {@value #METRIC_NAME} timer, tagged with the
+ * class, the method and the exception it threw ({@code none} on success).
+ *
+ * <p>Timers are looked up once per method and exception type and cached, so a call costs two
+ * {@code nanoTime} reads and a map lookup keyed by the {@link Method}; nothing is allocated on the
+ * success path. Histogram buckets come from {@code management.metrics.distribution.*}.
+ *
+ * <p>A method returning a {@link Mono} or {@link Flux} has done no work yet when it returns, so it
+ * is timed from subscription to completion or error instead. Cancelled subscriptions are not recorded.
+ */
+public class ServiceTimingInterceptor implements MethodInterceptor {
+
+    public static final String METRIC_NAME = "user.service";
+
+    private static final String NONE = "none";
+
+    private final ObjectProvider<MeterRegistry> registryProvider;
+    private final ConcurrentMap<Method, Timer> successTimers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Method, ConcurrentMap<Class<?>, Timer>> failureTimers = new ConcurrentHashMap<>();
+
+    /**
+     * The registry is resolved on first use: the interceptor is created while bean post-processors
+     * are being set up, before the registry has been configured.
+     */
+    public ServiceTimingInterceptor(ObjectProvider<MeterRegistry> registryProvider) {
+        this.registryProvider = registryProvider;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Method method = invocation.getMethod();
+        long start = System.nanoTime();
+        try {
+            Object result = invocation.proceed();
+            if (result instanceof Mono) {
+                return timed(method, (Mono<?>) result);
+            }
+            if (result instanceof Flux) {
+                return timed(method, (Flux<?>) result);
+            }
+            successTimer(method).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (Throwable t) {
+            failureTimer(method, t.getClass()).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw t;
+        }
+    }
+
+    private Mono<?> timed(Method method, Mono<?> mono) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return mono.doOnSuccess(value -> successTimer(method).record(System.nanoTime() - start, TimeUnit.NANOSECONDS))
+                    .doOnError(t -> failureTimer(method, t.getClass()).record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    private Flux<?> timed(Method method, Flux<?> flux) {
+        return Flux.defer(() -> {
+            long start = System.nanoTime();
+            return flux.doOnComplete(() -> successTimer(method).record(System.nanoTime() - start, TimeUnit.NANOSECONDS))
+                    .doOnError(t -> failureTimer(method, t.getClass()).record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    private Timer successTimer(Method method) {
+        Timer timer = successTimers.get(method);
+        if (timer == null) {
+            timer = successTimers.computeIfAbsent(method, m -> timer(m, NONE));
+        }
+        return timer;
+    }
+
+    private Timer failureTimer(Method method, Class<?> exceptionType) {
+        return failureTimers.computeIfAbsent(method, m -> new ConcurrentHashMap<>())
+                .computeIfAbsent(exceptionType, type -> timer(method, type.getSimpleName()));
+    }
+
+    private Timer timer(Method method, String exception) {
+        return Timer.builder(METRIC_NAME)
+                .description("Time spent in service methods")
+                .tag("class", method.getDeclaringClass().getSimpleName())
+                .tag("method", method.getName())
+                .tag("exception", exception)
+                .register(registryProvider.getObject());
+    }
+}
@@ -0,0 +1,110 @@
+package com.eventmaster.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a bulk user creation: one {@link Row} per input record, in input order,
+ * plus totals. A failed row never aborts the rest of the batch. When the input held more
+ * records than one request may, it is {@link #isTruncated() truncated}: the rows listed were
+ * processed and nothing after them was read.
+ */
+public class BatchCreateResult {
+
+    public enum Status {
+        CREATED,
+        CONFLICT,
+        INVALID
+    }
+
+    private final List<Row> rows = new ArrayList<>();
+    private int created;
+    private int failed;
+    private boolean truncated;
+
+    public void add(Row row) {
+        rows.add(row);
+        if (row.getStatus() == Status.CREATED) {
+            created++;
+        } else {
+            failed++;
+        }
+    }
+
+    public int getCreated() {
+        return created;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public List<Row> getRows() {
+        return rows;
+    }
+
+    public void markTruncated() {
+        truncated = true;
+    }
+
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Row {
+        private final int index;
+        private final Status status;
+        private final String username;
+        private final String field;
+        private final String message;
+
+        private Row(int index, Status status, String username, String field, String message) {
+            this.index = index;
+            this.status = status;
+            this.username = username;
+            this.field = field;
+            this.message = message;
+        }
+
+        public static Row created(int index, User user) {
+            return new Row(index, Status.CREATED, user.getUsername(), null, null);
+        }
+
+        /**
+         * Row rejected because {@code field} ("username" or "email") is already taken, mirroring
+         * {@link com.eventmaster.exception.DuplicateUserException}.
+         */
+        public static Row conflict(int index, User user, String field) {
+            String value = "username".equals(field) ? user.getUsername() : user.getEmail();
+            return new Row(index, Status.CONFLICT, user.getUsername(), field,
+                    String.format("%s '%s' is already in use", field, value));
+        }
+
+        public static Row invalid(int index, User user, String message) {
+            return new Row(index, Status.INVALID, user == null ? null : user.getUsername(), null, message);
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public String getField() {
+            return field;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+}
@@ -1,18 +1,26 @@
 package com.eventmaster.model;
 import javax.persistence.*;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
 import java.time.LocalDate;
 
+// Mapped by JPA for the servlet stack and by Spring Data R2DBC (the fully qualified annotations) for the reactive one
 @Entity
 @Table(name = "users")
+@org.springframework.data.relational.core.mapping.Table("users")
 public class User {
 
+    // Pooled sequence (see users_seq in schema.sql) so Hibernate can batch inserts;
+    // IDENTITY would force one round trip per row to learn the generated key.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @org.springframework.data.annotation.Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     @JsonIgnore
     private Long id;
 
@@ -32,6 +40,15 @@ public class User {
     @Column(name = "date_joined")
     private LocalDate dateJoined;
 
+    // Incremented on every update; together with updatedAt it identifies a revision for ETags
+    @Version
+    @JsonIgnore
+    private Long version;
+
+    @Column(name = "updated_at")
+    @JsonIgnore
+    private Instant updatedAt;
+
     // Constructors
     public User() {
         // Default constructor
@@ -55,6 +72,13 @@ public class User {
         this.dateJoined = LocalDate.now();
     }
 
+    // Millisecond precision so the value in memory matches what the TIMESTAMP column stores
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        this.updatedAt = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+    }
+
     // Getters and setters
     public Long getId() {
         return id;
@@ -111,4 +135,20 @@ public class User {
     public void setDateJoined(LocalDate dateJoined) {
         this.dateJoined = dateJoined;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,30 @@
+package com.eventmaster.model;
+
+import java.util.List;
+
+/**
+ * A batch of change events in offset order. Pass {@code nextOffset} as {@code after} on the next
+ * request; it equals the request's offset when the batch is empty.
+ */
+public class UserChangeBatch {
+
+    private final List<UserEvent> events;
+    private final long nextOffset;
+
+    public UserChangeBatch(List<UserEvent> events, long nextOffset) {
+        this.events = events;
+        this.nextOffset = nextOffset;
+    }
+
+    public static UserChangeBatch empty(long offset) {
+        return new UserChangeBatch(List.of(), offset);
+    }
+
+    public List<UserEvent> getEvents() {
+        return events;
+    }
+
+    public long getNextOffset() {
+        return nextOffset;
+    }
+}
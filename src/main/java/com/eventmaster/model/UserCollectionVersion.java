@@ -0,0 +1,30 @@
+package com.eventmaster.model;
+
+import java.time.Instant;
+
+/**
+ * Cheap fingerprint of the whole users table: any insert or update moves {@code lastModified}
+ * forward and any delete changes {@code count}. Used to answer conditional requests for
+ * collection endpoints without loading rows.
+ */
+public class UserCollectionVersion {
+
+    private final long count;
+    private final Instant lastModified;
+
+    public UserCollectionVersion(long count, Instant lastModified) {
+        this.count = count;
+        this.lastModified = lastModified;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Latest {@code updated_at} in the table, or null when it is empty.
+     */
+    public Instant getLastModified() {
+        return lastModified;
+    }
+}
@@ -0,0 +1,26 @@
+package com.eventmaster.model;
+
+/**
+ * Body of an authentication request.
+ */
+public class UserCredentials {
+
+    private String username;
+    private String password;
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+}
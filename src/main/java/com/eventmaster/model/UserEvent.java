@@ -0,0 +1,99 @@
+package com.eventmaster.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+import javax.persistence.*;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * One row of the user change outbox. Written in the same transaction as the user it describes,
+ * without a position; {@code UserChangeFeed#sequence} assigns the position, the offset change-feed
+ * consumers resume from, once the row has committed.
+ */
+@Entity
+@Table(name = "user_events")
+@JsonPropertyOrder({"offset", "type", "userId", "createdAt", "user"})
+public class UserEvent {
+
+    public enum Type {
+        CREATED
+    }
+
+    // Pooled like users_seq so batch inserts can append their events in JDBC batches too. Ids follow
+    // allocation, not commit order, so they only identify the row; the position is the offset
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_events_seq")
+    @SequenceGenerator(name = "user_events_seq", sequenceName = "user_events_seq", allocationSize = 50)
+    @JsonIgnore
+    private Long id;
+
+    @Column(name = "log_position", unique = true)
+    @JsonProperty("offset")
+    private Long position;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Type type;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    // The user as GET /users/{id} renders it, stored pre-encoded and served verbatim
+    @Lob
+    @Column(nullable = false)
+    @JsonRawValue
+    @JsonProperty("user")
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    protected UserEvent() {
+    }
+
+    public UserEvent(Type type, Long userId, String payload) {
+        this.type = type;
+        this.userId = userId;
+        this.payload = payload;
+    }
+
+    @PrePersist
+    void stamp() {
+        this.createdAt = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * Position in the change log, or null while the event has not been sequenced yet.
+     */
+    public Long getPosition() {
+        return position;
+    }
+
+    public void setPosition(Long position) {
+        this.position = position;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+}
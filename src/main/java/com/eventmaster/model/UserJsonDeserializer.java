@@ -0,0 +1,98 @@
+package com.eventmaster.model;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.deser.ContextualDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+import java.io.IOException;
+import java.time.LocalDate;
+
+/**
+ * Reads a {@link User} straight off the token stream, the counterpart of {@link UserJsonSerializer}.
+ * Accepts what the bean deserializer accepts: fields in any order, scalars coerced to strings,
+ * {@code dateJoined} in any form JavaTimeModule reads, the {@code @JsonIgnore} fields skipped, and
+ * other unknown fields left to {@code FAIL_ON_UNKNOWN_PROPERTIES}.
+ */
+public class UserJsonDeserializer extends StdDeserializer<User> implements ContextualDeserializer {
+
+    // Resolved once per ObjectMapper; looking it up on every read costs more than the reflection it replaces
+    private final JsonDeserializer<Object> dateDeserializer;
+
+    public UserJsonDeserializer() {
+        this(null);
+    }
+
+    private UserJsonDeserializer(JsonDeserializer<Object> dateDeserializer) {
+        super(User.class);
+        this.dateDeserializer = dateDeserializer;
+    }
+
+    @Override
+    public JsonDeserializer<?> createContextual(DeserializationContext context, BeanProperty property)
+            throws JsonMappingException {
+        if (dateDeserializer != null) {
+            return this;
+        }
+        return new UserJsonDeserializer(context.findRootValueDeserializer(context.constructType(LocalDate.class)));
+    }
+
+    @Override
+    public User deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.START_OBJECT) {
+            token = parser.nextToken();
+        } else if (token != JsonToken.FIELD_NAME && token != JsonToken.END_OBJECT) {
+            return (User) context.handleUnexpectedToken(User.class, parser);
+        }
+        User user = new User();
+        for (; token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "username":
+                    user.setUsername(readString(parser, context));
+                    break;
+                case "password":
+                    user.setPassword(readString(parser, context));
+                    break;
+                case "email":
+                    user.setEmail(readString(parser, context));
+                    break;
+                case "name":
+                    user.setName(readString(parser, context));
+                    break;
+                case "location":
+                    user.setLocation(readString(parser, context));
+                    break;
+                case "dateJoined":
+                    user.setDateJoined(parser.currentToken() == JsonToken.VALUE_NULL ? null
+                            : (LocalDate) dateDeserializer.deserialize(parser, context));
+                    break;
+                case "id":
+                case "version":
+                case "updatedAt":
+                    // Server-assigned (@JsonIgnore on User)
+                    parser.skipChildren();
+                    break;
+                default:
+                    handleUnknownProperty(parser, context, User.class, field);
+            }
+        }
+        return user;
+    }
+
+    private String readString(JsonParser parser, DeserializationContext context) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_STRING) {
+            return parser.getText();
+        }
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        return _parseString(parser, context);
+    }
+}
@@ -0,0 +1,64 @@
+package com.eventmaster.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.time.LocalDate;
+
+/**
+ * Writes a {@link User} field by field instead of through Jackson's reflective bean serializer:
+ * no property introspection or accessor calls through reflection, and the field names are
+ * pre-encoded once so each write copies their bytes instead of escaping them again. The output is
+ * exactly what the bean serializer produces (same fields, order and null handling; the
+ * {@code @JsonIgnore} ones are left out). Registered in JacksonConfig.
+ */
+public class UserJsonSerializer extends StdSerializer<User> {
+
+    static final SerializedString USERNAME = new SerializedString("username");
+    static final SerializedString PASSWORD = new SerializedString("password");
+    static final SerializedString EMAIL = new SerializedString("email");
+    static final SerializedString NAME = new SerializedString("name");
+    static final SerializedString LOCATION = new SerializedString("location");
+    static final SerializedString DATE_JOINED = new SerializedString("dateJoined");
+
+    public UserJsonSerializer() {
+        super(User.class);
+    }
+
+    @Override
+    public void serialize(User user, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        generator.writeStartObject(user);
+        generator.writeFieldName(USERNAME);
+        generator.writeString(user.getUsername());
+        generator.writeFieldName(PASSWORD);
+        generator.writeString(user.getPassword());
+        generator.writeFieldName(EMAIL);
+        generator.writeString(user.getEmail());
+        generator.writeFieldName(NAME);
+        generator.writeString(user.getName());
+        generator.writeFieldName(LOCATION);
+        generator.writeString(user.getLocation());
+        generator.writeFieldName(DATE_JOINED);
+        writeDate(user.getDateJoined(), generator, provider);
+        generator.writeEndObject();
+    }
+
+    // [2024,7,15] like JavaTimeModule's LocalDateSerializer; any other configured format is left to it
+    private static void writeDate(LocalDate date, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        if (date == null) {
+            generator.writeNull();
+        } else if (provider.isEnabled(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)) {
+            generator.writeStartArray();
+            generator.writeNumber(date.getYear());
+            generator.writeNumber(date.getMonthValue());
+            generator.writeNumber(date.getDayOfMonth());
+            generator.writeEndArray();
+        } else {
+            provider.defaultSerializeValue(date, generator);
+        }
+    }
+}
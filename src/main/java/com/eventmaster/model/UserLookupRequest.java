@@ -0,0 +1,42 @@
+package com.eventmaster.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Body of a multi-get lookup. Any of the three key lists may be omitted.
+ */
+public class UserLookupRequest {
+
+    private List<Long> ids = new ArrayList<>();
+    private List<String> usernames = new ArrayList<>();
+    private List<String> emails = new ArrayList<>();
+
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<Long> ids) {
+        this.ids = ids == null ? new ArrayList<>() : ids;
+    }
+
+    public List<String> getUsernames() {
+        return usernames;
+    }
+
+    public void setUsernames(List<String> usernames) {
+        this.usernames = usernames == null ? new ArrayList<>() : usernames;
+    }
+
+    public List<String> getEmails() {
+        return emails;
+    }
+
+    public void setEmails(List<String> emails) {
+        this.emails = emails == null ? new ArrayList<>() : emails;
+    }
+
+    public int size() {
+        return ids.size() + usernames.size() + emails.size();
+    }
+}
@@ -0,0 +1,27 @@
+package com.eventmaster.model;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Result of a multi-get lookup. Every requested key appears in its map, in request order;
+ * keys that matched no user map to null.
+ */
+public class UserLookupResult {
+
+    private final Map<Long, User> ids = new LinkedHashMap<>();
+    private final Map<String, User> usernames = new LinkedHashMap<>();
+    private final Map<String, User> emails = new LinkedHashMap<>();
+
+    public Map<Long, User> getIds() {
+        return ids;
+    }
+
+    public Map<String, User> getUsernames() {
+        return usernames;
+    }
+
+    public Map<String, User> getEmails() {
+        return emails;
+    }
+}
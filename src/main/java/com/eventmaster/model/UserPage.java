@@ -0,0 +1,30 @@
+package com.eventmaster.model;
+
+import java.util.List;
+
+/**
+ * One keyset-paginated slice of the users table, ordered by id.
+ * {@code nextCursor} is null once the last page has been reached.
+ */
+public class UserPage {
+
+    private final List<User> users;
+    private final String nextCursor;
+
+    public UserPage(List<User> users, String nextCursor) {
+        this.users = users;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<User> getUsers() {
+        return users;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
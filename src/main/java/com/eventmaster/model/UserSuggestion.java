@@ -0,0 +1,27 @@
+package com.eventmaster.model;
+
+/**
+ * A search result: just enough of a user to render a typeahead entry.
+ */
+public class UserSuggestion {
+
+    private final String username;
+    private final String name;
+
+    public UserSuggestion(String username, String name) {
+        this.username = username;
+        this.name = name;
+    }
+
+    public static UserSuggestion of(User user) {
+        return new UserSuggestion(user.getUsername(), user.getName());
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,356 @@
+package com.eventmaster.password;
+
+import com.eventmaster.exception.ServiceOverloadedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Hashes and verifies user passwords with bcrypt on a pool of its own, {@code user.password.threads}
+ * threads (default: half the CPUs) behind a queue of {@code user.password.queue-size} tasks. A burst
+ * of signups or logins waits here instead of taking the CPU from every other request, and once the
+ * queue is full further callers get {@link ServiceOverloadedException} (503) at once.
+ *
+ * <p>The bcrypt cost is {@code user.password.cost}, or when that is 0 the highest cost whose hash
+ * takes at most {@code user.password.target-ms} on this machine, measured at startup, but never
+ * below {@code user.password.min-cost}. {@link #verify} hands back a fresh hash when the stored one
+ * was made with another cost, or when the password is still stored as plaintext from before
+ * hashing, so the caller can write it back.
+ */
+@Component
+@ConditionalOnProperty(name = "user.password.hashing.enabled", havingValue = "true", matchIfMissing = true)
+public class PasswordHasher {
+    private static final Logger logger = LoggerFactory.getLogger(PasswordHasher.class);
+
+    static final int MIN_COST = 4;
+    static final int MAX_COST = 31;
+
+    // Timed by the calibration; each cost step doubles the work, so the rest is extrapolated from it
+    private static final int PROBE_COST = 8;
+    private static final Pattern BCRYPT_HASH = Pattern.compile("\\$2[aby]?\\$(\\d\\d)\\$[./0-9A-Za-z]{53}");
+
+    private final int cost;
+    private final BCryptPasswordEncoder encoder;
+    private final ThreadPoolExecutor executor;
+    // Verified against when the user does not exist, so a miss costs as much as a wrong password
+    private volatile String dummyHash;
+
+    private final LongAdder hashCount = new LongAdder();
+    private final LongAdder hashNanos = new LongAdder();
+    private final LongAdder verifyCount = new LongAdder();
+    private final LongAdder verifyNanos = new LongAdder();
+    private final LongAdder waitCount = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+    private final LongAdder rehashCount = new LongAdder();
+
+    public PasswordHasher(@Value("${user.password.cost:0}") int cost,
+                          @Value("${user.password.target-ms:100}") long targetMillis,
+                          @Value("${user.password.min-cost:10}") int minCost,
+                          @Value("${user.password.threads:0}") int threads,
+                          @Value("${user.password.queue-size:16}") int queueSize) {
+        if (cost != 0 && (cost < MIN_COST || cost > MAX_COST)) {
+            throw new IllegalArgumentException("user.password.cost must be 0 (calibrate) or between "
+                    + MIN_COST + " and " + MAX_COST + ", got " + cost);
+        }
+        this.cost = cost != 0 ? cost : calibrate(TimeUnit.MILLISECONDS.toNanos(targetMillis), minCost);
+        this.encoder = new BCryptPasswordEncoder(this.cost);
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), task -> {
+                    Thread thread = new Thread(task, "password-hash-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    // Threads start on the first request; without this they would keep Tomcat's class loader
+                    thread.setContextClassLoader(PasswordHasher.class.getClassLoader());
+                    return thread;
+                });
+        logger.info("Hashing passwords with bcrypt cost {} on {} threads, queue of {}", this.cost, poolSize, queueSize);
+    }
+
+    /**
+     * The highest cost, but at least {@code minCost}, whose hash should take at most
+     * {@code targetNanos}, extrapolated from the fastest of a few hashes at {@link #PROBE_COST}.
+     */
+    static int calibrate(long targetNanos, int minCost) {
+        // Cheap rounds first, so the JIT has compiled bcrypt's loop before anything is timed
+        BCryptPasswordEncoder warmup = new BCryptPasswordEncoder(MIN_COST);
+        for (int i = 0; i < 20; i++) {
+            warmup.encode("calibration");
+        }
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(PROBE_COST);
+        long fastest = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long started = System.nanoTime();
+            probe.encode("calibration");
+            fastest = Math.min(fastest, System.nanoTime() - started);
+        }
+        int cost = PROBE_COST;
+        long estimate = fastest;
+        while (cost < MAX_COST && estimate * 2 <= targetNanos) {
+            cost++;
+            estimate *= 2;
+        }
+        while (cost > MIN_COST && estimate > targetNanos) {
+            cost--;
+            estimate /= 2;
+        }
+        if (cost < minCost) {
+            estimate <<= minCost - cost;
+            logger.warn("bcrypt cost {} takes about {} ms here, over the {} ms target; using it as the minimum",
+                    minCost, TimeUnit.NANOSECONDS.toMillis(estimate), TimeUnit.NANOSECONDS.toMillis(targetNanos));
+            return minCost;
+        }
+        logger.info("Calibrated bcrypt cost {}: about {} ms per hash", cost, TimeUnit.NANOSECONDS.toMillis(estimate));
+        return cost;
+    }
+
+    public static boolean isHash(String value) {
+        return value != null && BCRYPT_HASH.matcher(value).matches();
+    }
+
+    /**
+     * Compares a password with one stored as plaintext, in time independent of where they differ.
+     */
+    public static boolean matchesPlaintext(String password, String stored) {
+        return password != null && stored != null && MessageDigest.isEqual(
+                password.getBytes(StandardCharsets.UTF_8), stored.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * The bcrypt hash of {@code password}, waiting for the pool. A password that looks like a bcrypt
+     * hash is hashed like any other; only {@link #hashAll} can keep one, for imports.
+     *
+     * @throws ServiceOverloadedException when the queue is full
+     */
+    public String hash(String password) {
+        return join(hashAsync(password));
+    }
+
+    public CompletableFuture<String> hashAsync(String password) {
+        if (password == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return submit(() -> encoder.encode(password), hashCount, hashNanos);
+    }
+
+    /**
+     * Hashes the passwords of a batch, in order. At most one of them per pool thread is queued or
+     * running at a time, so a large batch leaves the rest of the queue to single requests. With
+     * {@code keepHashes}, values that already are bcrypt hashes are returned as they are, so
+     * exported users can be imported again; logins rehash them if their cost differs.
+     *
+     * @throws ServiceOverloadedException when the queue is full
+     */
+    public List<String> hashAll(List<String> passwords, boolean keepHashes) {
+        Semaphore slots = new Semaphore(executor.getCorePoolSize());
+        List<CompletableFuture<String>> hashes = new ArrayList<>(passwords.size());
+        for (String password : passwords) {
+            if (keepHashes && isHash(password)) {
+                hashes.add(CompletableFuture.completedFuture(password));
+                continue;
+            }
+            slots.acquireUninterruptibly();
+            CompletableFuture<String> hash = hashAsync(password);
+            hash.whenComplete((value, e) -> slots.release());
+            if (hash.isCompletedExceptionally()) {
+                join(hash);
+            }
+            hashes.add(hash);
+        }
+        List<String> result = new ArrayList<>(hashes.size());
+        for (CompletableFuture<String> hash : hashes) {
+            result.add(join(hash));
+        }
+        return result;
+    }
+
+    /**
+     * Checks {@code password} against {@code stored}, a bcrypt hash or a password stored as
+     * plaintext, waiting for the pool. A null {@code stored} (no such user) is checked against a
+     * dummy hash and never matches, so a miss takes as long as a wrong password.
+     *
+     * @throws ServiceOverloadedException when the queue is full
+     */
+    public Verification verify(String password, String stored) {
+        return join(verifyAsync(password, stored));
+    }
+
+    public CompletableFuture<Verification> verifyAsync(String password, String stored) {
+        if (password == null) {
+            return CompletableFuture.completedFuture(Verification.MISMATCH);
+        }
+        return submit(() -> {
+            if (stored == null) {
+                encoder.matches(password, dummyHash());
+                return Verification.MISMATCH;
+            }
+            Matcher hash = BCRYPT_HASH.matcher(stored);
+            boolean hashed = hash.matches();
+            if (!(hashed ? encoder.matches(password, stored) : matchesPlaintext(password, stored))) {
+                return Verification.MISMATCH;
+            }
+            if (hashed && Integer.parseInt(hash.group(1)) == cost) {
+                return Verification.MATCH;
+            }
+            rehashCount.increment();
+            return new Verification(true, encoder.encode(password));
+        }, verifyCount, verifyNanos);
+    }
+
+    private String dummyHash() {
+        String hash = dummyHash;
+        if (hash == null) {
+            hash = encoder.encode("not a password");
+            dummyHash = hash;
+        }
+        return hash;
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> work, LongAdder count, LongAdder nanos) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        long queued = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                long started = System.nanoTime();
+                waitCount.increment();
+                waitNanos.add(started - queued);
+                T value = null;
+                Throwable failure = null;
+                try {
+                    value = work.get();
+                } catch (RuntimeException | Error e) {
+                    failure = e;
+                }
+                // Counted before the caller is released, so it sees its own work in the meters
+                count.increment();
+                nanos.add(System.nanoTime() - started);
+                if (failure == null) {
+                    result.complete(value);
+                } else {
+                    result.completeExceptionally(failure);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedCount.increment();
+            result.completeExceptionally(new ServiceOverloadedException("Password hashing queue is full"));
+        }
+        return result;
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    public int getCost() {
+        return cost;
+    }
+
+    public int getThreads() {
+        return executor.getCorePoolSize();
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public long hashCount() {
+        return hashCount.sum();
+    }
+
+    public long hashNanos() {
+        return hashNanos.sum();
+    }
+
+    public long verifyCount() {
+        return verifyCount.sum();
+    }
+
+    public long verifyNanos() {
+        return verifyNanos.sum();
+    }
+
+    public long waitCount() {
+        return waitCount.sum();
+    }
+
+    public long waitNanos() {
+        return waitNanos.sum();
+    }
+
+    public long rejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    public long rehashCount() {
+        return rehashCount.sum();
+    }
+
+    /**
+     * Outcome of {@link #verify}: whether the password matched and, if the stored value should be
+     * replaced, the hash to store instead.
+     */
+    public static final class Verification {
+        static final Verification MISMATCH = new Verification(false, null);
+        static final Verification MATCH = new Verification(true, null);
+
+        private final boolean matches;
+        private final String rehash;
+
+        Verification(boolean matches, String rehash) {
+            this.matches = matches;
+            this.rehash = rehash;
+        }
+
+        public boolean matches() {
+            return matches;
+        }
+
+        /**
+         * A hash at the current cost to store in place of the old value, or null when it is current.
+         */
+        public String getRehash() {
+            return rehash;
+        }
+    }
+}
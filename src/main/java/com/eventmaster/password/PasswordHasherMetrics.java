@@ -0,0 +1,61 @@
+package com.eventmaster.password;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes the {@link PasswordHasher} pool as meters: hashes and verifications done and the time
+ * spent on them, how long work waited in the queue and how much is waiting now, and how many
+ * callers were turned away. The verify rate against the work time shows how close the pool is to
+ * its throughput at the current cost.
+ */
+@Component
+@ConditionalOnProperty(name = "user.password.hashing.enabled", havingValue = "true", matchIfMissing = true)
+public class PasswordHasherMetrics implements MeterBinder {
+
+    private final PasswordHasher hasher;
+
+    public PasswordHasherMetrics(PasswordHasher hasher) {
+        this.hasher = hasher;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionTimer.builder("user.password.operations", hasher, PasswordHasher::hashCount,
+                        PasswordHasher::hashNanos, TimeUnit.NANOSECONDS)
+                .description("Passwords hashed on the password pool, and the time spent hashing")
+                .tag("operation", "hash")
+                .register(registry);
+        FunctionTimer.builder("user.password.operations", hasher, PasswordHasher::verifyCount,
+                        PasswordHasher::verifyNanos, TimeUnit.NANOSECONDS)
+                .description("Passwords verified on the password pool, including any rehash, and the time spent")
+                .tag("operation", "verify")
+                .register(registry);
+        FunctionTimer.builder("user.password.queue.wait", hasher, PasswordHasher::waitCount,
+                        PasswordHasher::waitNanos, TimeUnit.NANOSECONDS)
+                .description("Time password work waited for a pool thread")
+                .register(registry);
+        FunctionCounter.builder("user.password.rejected", hasher, PasswordHasher::rejectedCount)
+                .description("Hashes and verifications refused because the queue was full")
+                .register(registry);
+        FunctionCounter.builder("user.password.rehashes", hasher, PasswordHasher::rehashCount)
+                .description("Verified passwords hashed again because of another cost or a plaintext value")
+                .register(registry);
+        Gauge.builder("user.password.queue.depth", hasher, PasswordHasher::getQueueDepth)
+                .description("Hashes and verifications waiting for a pool thread")
+                .register(registry);
+        Gauge.builder("user.password.active", hasher, PasswordHasher::getActiveCount)
+                .description("Pool threads hashing or verifying")
+                .register(registry);
+        Gauge.builder("user.password.cost", hasher, PasswordHasher::getCost)
+                .description("bcrypt cost of new hashes")
+                .register(registry);
+    }
+}
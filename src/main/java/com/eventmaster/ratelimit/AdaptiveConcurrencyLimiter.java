@@ -0,0 +1,121 @@
+package com.eventmaster.ratelimit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caps the number of requests in flight, with a limit that follows observed latency (the gradient
+ * approach of Netflix's concurrency-limits). Latency is averaged per sampling window and compared
+ * with a slow moving average of past windows: while they match the limit grows by about its square
+ * root per window, and when requests start queueing (latency rises above the long-term average) it
+ * shrinks in proportion, down to half per window. Requests over the limit are rejected at once.
+ *
+ * <p>The request path only touches atomics and adders. The thread that completes a request after
+ * the window has elapsed, and wins the compare-and-set on the window start, recomputes the limit.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    // Weight of each window in the long-term latency average, about the last 20 windows
+    private static final double LONG_TERM_WEIGHT = 0.05;
+    // Fraction of the computed limit applied per window, damping oscillation
+    private static final double SMOOTHING = 0.2;
+    private static final double MIN_GRADIENT = 0.5;
+    // Below this many samples a window says too little about latency to move the limit
+    private static final long MIN_SAMPLES = 10;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long windowNanos;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private final LongAdder windowLatencyNanos = new LongAdder();
+    private final LongAdder windowSamples = new LongAdder();
+    private final AtomicLong windowStart;
+    private final LongAdder rejected = new LongAdder();
+
+    private volatile double limit;
+    // Written only by the window's winning thread
+    private volatile double longTermLatencyNanos;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, long windowNanos, long nowNanos) {
+        if (minLimit < 1 || minLimit > maxLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Concurrency limits must satisfy 1 <= min <= initial <= max, got "
+                    + minLimit + ", " + initialLimit + ", " + maxLimit);
+        }
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.windowNanos = windowNanos;
+        this.windowStart = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * @return whether the request may proceed; if so {@link #release} must follow
+     */
+    public boolean tryAcquire() {
+        int current = inFlight.incrementAndGet();
+        if (current > (int) limit) {
+            inFlight.decrementAndGet();
+            rejected.increment();
+            return false;
+        }
+        if (current > peakInFlight.get()) {
+            peakInFlight.accumulateAndGet(current, Math::max);
+        }
+        return true;
+    }
+
+    /**
+     * Ends a request admitted by {@link #tryAcquire} and records how long it took.
+     */
+    public void release(long latencyNanos, long nowNanos) {
+        inFlight.decrementAndGet();
+        windowLatencyNanos.add(latencyNanos);
+        windowSamples.increment();
+        long start = windowStart.get();
+        if (nowNanos - start >= windowNanos && windowStart.compareAndSet(start, nowNanos)) {
+            updateLimit();
+        }
+    }
+
+    private void updateLimit() {
+        long samples = windowSamples.sumThenReset();
+        long latency = windowLatencyNanos.sumThenReset();
+        int peak = peakInFlight.getAndSet(inFlight.get());
+        if (samples < MIN_SAMPLES) {
+            return;
+        }
+        double shortTerm = (double) latency / samples;
+        double longTerm = longTermLatencyNanos == 0 ? shortTerm
+                : longTermLatencyNanos * (1 - LONG_TERM_WEIGHT) + shortTerm * LONG_TERM_WEIGHT;
+        // Let the baseline come back down after a sustained slowdown instead of tolerating it forever
+        if (longTerm > 2 * shortTerm) {
+            longTerm *= 0.95;
+        }
+        longTermLatencyNanos = longTerm;
+
+        double current = limit;
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, longTerm / shortTerm));
+        if (gradient == 1.0 && peak < current / 2) {
+            // Latency is fine but the limit was not the constraint; growing it would mean nothing
+            return;
+        }
+        double target = current * gradient + Math.sqrt(current);
+        double next = current * (1 - SMOOTHING) + target * SMOOTHING;
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+}
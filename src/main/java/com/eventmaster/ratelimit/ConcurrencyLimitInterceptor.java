@@ -0,0 +1,57 @@
+package com.eventmaster.ratelimit;
+
+import com.eventmaster.exception.ServiceOverloadedException;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Admits requests through the {@link AdaptiveConcurrencyLimiter} and reports each one's latency
+ * back to it when the request completes.
+ */
+public class ConcurrencyLimitInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String START_ATTRIBUTE = ConcurrencyLimitInterceptor.class.getName() + ".start";
+
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    public ConcurrencyLimitInterceptor(AdaptiveConcurrencyLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod) || request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+        if (!limiter.tryAcquire()) {
+            throw new ServiceOverloadedException();
+        }
+        request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        release(request);
+    }
+
+    // Long-running endpoints are not limited (see RateLimitConfig); should one go async anyway, its
+    // slot is given back when the handler returns rather than held for the whole response
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        release(request);
+    }
+
+    private void release(HttpServletRequest request) {
+        Object start = request.getAttribute(START_ATTRIBUTE);
+        if (start != null) {
+            request.removeAttribute(START_ATTRIBUTE);
+            long now = System.nanoTime();
+            limiter.release(now - (Long) start, now);
+        }
+    }
+}
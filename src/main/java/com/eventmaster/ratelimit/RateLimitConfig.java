@@ -0,0 +1,65 @@
+package com.eventmaster.ratelimit;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.Set;
+
+/**
+ * Rate limiting and load shedding for the user endpoints, enabled with {@code user.ratelimit.enabled=true}.
+ * Token buckets ({@link RateLimiter}) answer 429 to clients over their budget; the adaptive
+ * concurrency limit ({@link AdaptiveConcurrencyLimiter}) answers 503 once the service has as much in
+ * flight as it can serve at its current latency. Both reject before the controller runs. Servlet stack only.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "user.ratelimit.enabled", havingValue = "true")
+@EnableConfigurationProperties(RateLimitProperties.class)
+public class RateLimitConfig implements WebMvcConfigurer {
+
+    private final RateLimitProperties properties;
+    private final ObjectProvider<AdaptiveConcurrencyLimiter> concurrencyLimiter;
+
+    public RateLimitConfig(RateLimitProperties properties, ObjectProvider<AdaptiveConcurrencyLimiter> concurrencyLimiter) {
+        this.properties = properties;
+        this.concurrencyLimiter = concurrencyLimiter;
+    }
+
+    @Bean
+    public RateLimiter rateLimiter() {
+        return new RateLimiter(properties);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "user.ratelimit.concurrency.enabled", havingValue = "true", matchIfMissing = true)
+    public AdaptiveConcurrencyLimiter concurrencyLimiter() {
+        RateLimitProperties.Concurrency concurrency = properties.getConcurrency();
+        return new AdaptiveConcurrencyLimiter(concurrency.getInitialLimit(), concurrency.getMinLimit(),
+                concurrency.getMaxLimit(), concurrency.getWindow().toNanos(), System.nanoTime());
+    }
+
+    @Bean
+    public RateLimitMetrics rateLimitMetrics(RateLimiter rateLimiter) {
+        return new RateLimitMetrics(rateLimiter, concurrencyLimiter);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new RateLimitInterceptor(rateLimiter(), properties.getClientHeader(),
+                        Set.copyOf(properties.getTrustedProxies())))
+                .addPathPatterns("/users", "/users/**");
+        // Streams, change-feed long polls and batches run for seconds by design: their latency says
+        // nothing about overload, and /users/stream already has its own cap (user.streaming.max-concurrent).
+        // Authentication is bcrypt-bound and capped by the password pool's queue (user.password.queue-size)
+        concurrencyLimiter.ifAvailable(limiter -> registry.addInterceptor(new ConcurrencyLimitInterceptor(limiter))
+                .addPathPatterns("/users", "/users/**")
+                .excludePathPatterns("/users/stream", "/users/changes", "/users/changes/**", "/users/batch",
+                        "/users/authenticate"));
+    }
+}
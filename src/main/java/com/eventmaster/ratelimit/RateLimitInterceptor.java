@@ -0,0 +1,55 @@
+package com.eventmaster.ratelimit;
+
+import com.eventmaster.exception.RateLimitExceededException;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies the {@link RateLimiter} after handler mapping, so requests are counted per mapping pattern,
+ * and before the controller runs, so a rejected request never reaches the service or the database.
+ * The client is the remote address, or the client header when the request comes through a trusted proxy.
+ */
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    private final RateLimiter rateLimiter;
+    private final String clientHeader;
+    private final Set<String> trustedProxies;
+
+    public RateLimitInterceptor(RateLimiter rateLimiter, String clientHeader, Set<String> trustedProxies) {
+        this.rateLimiter = rateLimiter;
+        this.clientHeader = clientHeader;
+        this.trustedProxies = trustedProxies;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // Async dispatches resume a request that was already admitted
+        if (!(handler instanceof HandlerMethod) || request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+        String pattern = (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        long waitNanos = rateLimiter.tryAcquire(request.getMethod(), pattern, client(request));
+        if (waitNanos > 0) {
+            long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+            throw new RateLimitExceededException(request.getMethod() + " " + pattern, retryAfterSeconds);
+        }
+        return true;
+    }
+
+    private String client(HttpServletRequest request) {
+        String remoteAddress = request.getRemoteAddr();
+        // Anyone else could pick a new header value for every request and never run out of tokens
+        if (!trustedProxies.contains(remoteAddress)) {
+            return remoteAddress;
+        }
+        String client = request.getHeader(clientHeader);
+        return client == null || client.isEmpty() ? remoteAddress : client;
+    }
+}
@@ -0,0 +1,51 @@
+package com.eventmaster.ratelimit;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * Publishes the limiters' state and rejection counts as meters, read when the registry is scraped.
+ */
+public class RateLimitMetrics implements MeterBinder {
+
+    private final RateLimiter rateLimiter;
+    private final ObjectProvider<AdaptiveConcurrencyLimiter> concurrencyLimiter;
+
+    public RateLimitMetrics(RateLimiter rateLimiter, ObjectProvider<AdaptiveConcurrencyLimiter> concurrencyLimiter) {
+        this.rateLimiter = rateLimiter;
+        this.concurrencyLimiter = concurrencyLimiter;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("user.ratelimit.clients", rateLimiter, RateLimiter::trackedClientBuckets)
+                .description("Client and endpoint token buckets being tracked")
+                .register(registry);
+        for (RateLimiter.Rule rule : rateLimiter.getRules()) {
+            FunctionCounter.builder("user.ratelimit.rejected", rule, RateLimiter.Rule::rejected)
+                    .description("Requests rejected with 429 by a token bucket")
+                    .tag("endpoint", rule.getName())
+                    .register(registry);
+            if (rule.hasTotal()) {
+                Gauge.builder("user.ratelimit.available", rule, RateLimiter.Rule::totalAvailable)
+                        .description("Tokens left in the endpoint's bucket shared by all clients")
+                        .tag("endpoint", rule.getName())
+                        .register(registry);
+            }
+        }
+        concurrencyLimiter.ifAvailable(limiter -> {
+            Gauge.builder("user.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                    .description("Current adaptive limit on requests in flight")
+                    .register(registry);
+            Gauge.builder("user.concurrency.in.flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                    .description("Requests in flight under the concurrency limit")
+                    .register(registry);
+            FunctionCounter.builder("user.concurrency.rejected", limiter, AdaptiveConcurrencyLimiter::getRejected)
+                    .description("Requests shed with 503 by the concurrency limit")
+                    .register(registry);
+        });
+    }
+}
@@ -0,0 +1,222 @@
+package com.eventmaster.ratelimit;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rate limiting and load shedding settings under {@code user.ratelimit}.
+ */
+@ConfigurationProperties(prefix = "user.ratelimit")
+public class RateLimitProperties {
+
+    /** Request header identifying the client, set by the gateway; the remote address is used when absent. */
+    private String clientHeader = "X-Client-Id";
+
+    /**
+     * Remote addresses of the gateways whose {@code client-header} is believed. From any other address
+     * the header is ignored and the client is the remote address, so by default the header counts for nothing.
+     */
+    private List<String> trustedProxies = new ArrayList<>();
+
+    /** Per-client limit for endpoints without an entry in {@code endpoints}. */
+    private Limit perClient = new Limit(200, 100);
+
+    /** Per-endpoint limits, matched on HTTP method and mapping pattern (e.g. {@code /users/{id}}). */
+    private List<Endpoint> endpoints = new ArrayList<>();
+
+    /** Clients tracked at once; the least recently seen are forgotten (and start again with a full bucket). */
+    private long maxClients = 100_000;
+
+    /** How long an idle client's buckets are kept. */
+    private Duration clientIdleTimeout = Duration.ofMinutes(10);
+
+    private Concurrency concurrency = new Concurrency();
+
+    public String getClientHeader() {
+        return clientHeader;
+    }
+
+    public void setClientHeader(String clientHeader) {
+        this.clientHeader = clientHeader;
+    }
+
+    public List<String> getTrustedProxies() {
+        return trustedProxies;
+    }
+
+    public void setTrustedProxies(List<String> trustedProxies) {
+        this.trustedProxies = trustedProxies;
+    }
+
+    public Limit getPerClient() {
+        return perClient;
+    }
+
+    public void setPerClient(Limit perClient) {
+        this.perClient = perClient;
+    }
+
+    public List<Endpoint> getEndpoints() {
+        return endpoints;
+    }
+
+    public void setEndpoints(List<Endpoint> endpoints) {
+        this.endpoints = endpoints;
+    }
+
+    public long getMaxClients() {
+        return maxClients;
+    }
+
+    public void setMaxClients(long maxClients) {
+        this.maxClients = maxClients;
+    }
+
+    public Duration getClientIdleTimeout() {
+        return clientIdleTimeout;
+    }
+
+    public void setClientIdleTimeout(Duration clientIdleTimeout) {
+        this.clientIdleTimeout = clientIdleTimeout;
+    }
+
+    public Concurrency getConcurrency() {
+        return concurrency;
+    }
+
+    public void setConcurrency(Concurrency concurrency) {
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * A token bucket: {@code capacity} requests in a burst, refilled at {@code rate} per second.
+     */
+    public static class Limit {
+
+        private long capacity;
+        private double rate;
+
+        public Limit() {
+        }
+
+        public Limit(long capacity, double rate) {
+            this.capacity = capacity;
+            this.rate = rate;
+        }
+
+        public long getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(long capacity) {
+            this.capacity = capacity;
+        }
+
+        public double getRate() {
+            return rate;
+        }
+
+        public void setRate(double rate) {
+            this.rate = rate;
+        }
+    }
+
+    public static class Endpoint {
+
+        private String method;
+        private String path;
+        /** Limit for each client; defaults to {@code user.ratelimit.per-client}. */
+        private Limit perClient;
+        /** Limit shared by all clients; none when unset. */
+        private Limit total;
+
+        public String getMethod() {
+            return method;
+        }
+
+        public void setMethod(String method) {
+            this.method = method;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public void setPath(String path) {
+            this.path = path;
+        }
+
+        public Limit getPerClient() {
+            return perClient;
+        }
+
+        public void setPerClient(Limit perClient) {
+            this.perClient = perClient;
+        }
+
+        public Limit getTotal() {
+            return total;
+        }
+
+        public void setTotal(Limit total) {
+            this.total = total;
+        }
+    }
+
+    /**
+     * Adaptive limit on requests in flight across all rate-limited endpoints except the long-running
+     * ones ({@code /users/stream}, {@code /users/changes}).
+     */
+    public static class Concurrency {
+
+        private boolean enabled = true;
+        private int initialLimit = 20;
+        private int minLimit = 4;
+        private int maxLimit = 1000;
+        /** Latency sampling window; the limit is recomputed once per window. */
+        private Duration window = Duration.ofMillis(250);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getInitialLimit() {
+            return initialLimit;
+        }
+
+        public void setInitialLimit(int initialLimit) {
+            this.initialLimit = initialLimit;
+        }
+
+        public int getMinLimit() {
+            return minLimit;
+        }
+
+        public void setMinLimit(int minLimit) {
+            this.minLimit = minLimit;
+        }
+
+        public int getMaxLimit() {
+            return maxLimit;
+        }
+
+        public void setMaxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
+        }
+
+        public Duration getWindow() {
+            return window;
+        }
+
+        public void setWindow(Duration window) {
+            this.window = window;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.eventmaster.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Token buckets per client and endpoint, plus an optional bucket per endpoint shared by all clients.
+ * A request takes a token from its client's bucket first, so a client over its own limit cannot
+ * drain the shared one. Client buckets live in a bounded Caffeine cache and are forgotten when idle.
+ */
+public class RateLimiter {
+
+    /** Rule name for endpoints without their own entry in {@code user.ratelimit.endpoints}. */
+    public static final String DEFAULT_RULE = "*";
+
+    private final Map<String, Rule> rules = new LinkedHashMap<>();
+    private final Rule defaultRule;
+    private final Cache<String, TokenBucket> clientBuckets;
+
+    public RateLimiter(RateLimitProperties properties) {
+        long now = System.nanoTime();
+        for (RateLimitProperties.Endpoint endpoint : properties.getEndpoints()) {
+            String name = key(endpoint.getMethod(), endpoint.getPath());
+            RateLimitProperties.Limit perClient = endpoint.getPerClient() != null ? endpoint.getPerClient() : properties.getPerClient();
+            TokenBucket total = endpoint.getTotal() == null ? null
+                    : new TokenBucket(endpoint.getTotal().getCapacity(), endpoint.getTotal().getRate(), now);
+            rules.put(name, new Rule(name, perClient, total));
+        }
+        this.defaultRule = new Rule(DEFAULT_RULE, properties.getPerClient(), null);
+        this.clientBuckets = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxClients())
+                .expireAfterAccess(properties.getClientIdleTimeout())
+                .build();
+    }
+
+    /**
+     * Takes a token for one request.
+     *
+     * @param pattern the handler's mapping pattern, so {@code /users/1} and {@code /users/2} share a bucket
+     * @return 0 when the request may proceed, otherwise nanoseconds until it could be retried
+     */
+    public long tryAcquire(String method, String pattern, String client) {
+        String endpoint = key(method, pattern);
+        Rule rule = rules.getOrDefault(endpoint, defaultRule);
+        long now = System.nanoTime();
+        TokenBucket bucket = clientBuckets.get(endpoint + ' ' + client,
+                key -> new TokenBucket(rule.perClient.getCapacity(), rule.perClient.getRate(), now));
+        long wait = bucket.tryAcquire(now);
+        if (wait == 0 && rule.total != null) {
+            wait = rule.total.tryAcquire(now);
+        }
+        if (wait > 0) {
+            rule.rejected.increment();
+        }
+        return wait;
+    }
+
+    public Collection<Rule> getRules() {
+        LinkedHashMap<String, Rule> all = new LinkedHashMap<>(rules);
+        all.put(DEFAULT_RULE, defaultRule);
+        return all.values();
+    }
+
+    public long trackedClientBuckets() {
+        return clientBuckets.estimatedSize();
+    }
+
+    private static String key(String method, String pattern) {
+        return method.toUpperCase(Locale.ROOT) + ' ' + pattern;
+    }
+
+    public static final class Rule {
+
+        private final String name;
+        private final RateLimitProperties.Limit perClient;
+        private final TokenBucket total;
+        private final LongAdder rejected = new LongAdder();
+
+        Rule(String name, RateLimitProperties.Limit perClient, TokenBucket total) {
+            this.name = name;
+            this.perClient = perClient;
+            this.total = total;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean hasTotal() {
+            return total != null;
+        }
+
+        /** Tokens left in the shared bucket; 0 when there is none. */
+        public long totalAvailable() {
+            return total == null ? 0 : total.available(System.nanoTime());
+        }
+
+        public long rejected() {
+            return rejected.sum();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.eventmaster.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket. The whole state is one {@code long}: the time at which the bucket will
+ * be full again (the generic cell rate algorithm form of a token bucket). Taking a token pushes that
+ * time one refill interval further, and is allowed while it stays within {@code capacity} intervals
+ * of now; a compare-and-set publishes it, so concurrent requests never block each other.
+ */
+public class TokenBucket {
+
+    private final long capacity;
+    private final long refillIntervalNanos;
+    private final long burstNanos;
+    private final AtomicLong fullAt;
+
+    /**
+     * @param capacity      tokens held when full, i.e. the burst allowed after a quiet period
+     * @param ratePerSecond tokens added per second
+     * @param nowNanos      current {@link System#nanoTime()}; the bucket starts full
+     */
+    public TokenBucket(long capacity, double ratePerSecond, long nowNanos) {
+        if (capacity < 1 || ratePerSecond <= 0) {
+            throw new IllegalArgumentException("Token bucket needs capacity >= 1 and rate > 0, got "
+                    + capacity + " and " + ratePerSecond);
+        }
+        this.capacity = capacity;
+        this.refillIntervalNanos = Math.max(1, (long) (1_000_000_000L / ratePerSecond));
+        this.burstNanos = capacity * refillIntervalNanos;
+        this.fullAt = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Takes one token if there is one.
+     *
+     * @return 0 when a token was taken, otherwise how many nanoseconds until one is available
+     */
+    public long tryAcquire(long nowNanos) {
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, nowNanos) + refillIntervalNanos;
+            long wait = next - nowNanos - burstNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Tokens that could be taken right now.
+     */
+    public long available(long nowNanos) {
+        long pending = Math.max(0, fullAt.get() - nowNanos);
+        return (burstNanos - pending) / refillIntervalNanos;
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,42 @@
+package com.eventmaster.repository;
+import com.eventmaster.model.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.data.repository.query.Param;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking access to the {@code users} table for the reactive stack. Mirrors the queries of
+ * {@link UserRepository}; only present when R2DBC is enabled (see application-reactive.properties).
+ */
+public interface ReactiveUserRepository extends R2dbcRepository<User, Long> {
+
+    // Find user by username
+    Mono<User> findByUsername(String username);
+
+    // Find user by email
+    Mono<User> findByEmail(String email);
+
+    // Keyset page: the next users after the given id, in id order (limit comes from the Pageable)
+    Flux<User> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    // Exact duplicate checks
+    Mono<Boolean> existsByUsername(String username);
+
+    Mono<Boolean> existsByEmail(String email);
+
+    // One id per call. users_seq steps by 50 for Hibernate's pooled-lo blocks, so taking only the
+    // block's first value can never collide with ids handed out by the JPA side.
+    @Query("SELECT NEXT VALUE FOR users_seq")
+    Mono<Long> nextId();
+
+    // Case-insensitive prefix match on username, name or a later word of the name (patterns are built
+    // by the caller); the fallback when the in-memory search index is disabled
+    @Query("SELECT * FROM users WHERE LOWER(username) LIKE :prefix ESCAPE '\\'"
+            + " OR LOWER(name) LIKE :prefix ESCAPE '\\' OR LOWER(name) LIKE :wordPrefix ESCAPE '\\'"
+            + " ORDER BY username LIMIT :limit")
+    Flux<User> searchByPrefix(@Param("prefix") String prefix, @Param("wordPrefix") String wordPrefix,
+                              @Param("limit") int limit);
+}
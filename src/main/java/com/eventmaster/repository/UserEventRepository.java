@@ -0,0 +1,44 @@
+package com.eventmaster.repository;
+
+import com.eventmaster.model.UserEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface UserEventRepository extends JpaRepository<UserEvent, Long> {
+
+    // Next batch after an offset, in log order (limit comes from the Pageable)
+    List<UserEvent> findByPositionGreaterThanOrderByPositionAsc(Long position, Pageable pageable);
+
+    // Committed events not sequenced yet, oldest id first
+    List<UserEvent> findByPositionIsNullOrderByIdAsc(Pageable pageable);
+
+    // Last position handed out; one primary-key lookup per check of waiting consumers
+    @Query(value = "SELECT head FROM user_event_log WHERE id = 1", nativeQuery = true)
+    long findHead();
+
+    // The same, locked until the transaction ends, so sequencers on all instances take turns
+    @Query(value = "SELECT head FROM user_event_log WHERE id = 1 FOR UPDATE", nativeQuery = true)
+    long lockHead();
+
+    @Modifying
+    @Query(value = "UPDATE user_event_log SET head = :head WHERE id = 1", nativeQuery = true)
+    void updateHead(@Param("head") long head);
+
+    // Positions of sequenced events past retention, in log order, for pruning in batches
+    @Query("select e.position from UserEvent e where e.createdAt < :createdBefore and e.position is not null"
+            + " order by e.position")
+    List<Long> findPositionsCreatedBefore(@Param("createdBefore") Instant createdBefore, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("delete from UserEvent e where e.position in :positions")
+    void deleteByPositionIn(@Param("positions") Collection<Long> positions);
+}
@@ -1,9 +1,17 @@
 package com.eventmaster.repository;
 import com.eventmaster.model.User;
+import com.eventmaster.model.UserCollectionVersion;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface UserRepository extends JpaRepository<User, Long> {
 
@@ -17,4 +25,67 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     // Make sure there is no custom query defined for findAll()
     List<User> findAll();
-}
\ No newline at end of file
+
+    // Keyset page: the next users after the given id, in id order (limit comes from the Pageable)
+    List<User> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    // Cursor over every user after the given id; must be consumed inside a transaction and closed
+    @QueryHints({
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true")
+    })
+    Stream<User> streamByIdGreaterThanOrderByIdAsc(Long id);
+
+    // Which of the given usernames are already taken (used to pre-check batch inserts)
+    @Query("select u.username from User u where u.username in :usernames")
+    List<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
+
+    // Which of the given emails are already taken (used to pre-check batch inserts)
+    @Query("select u.email from User u where u.email in :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    // Exact duplicate checks; the *AndIdNot variants ignore the row being updated
+    boolean existsByUsername(String username);
+
+    boolean existsByEmail(String email);
+
+    boolean existsByUsernameAndIdNot(String username, Long id);
+
+    boolean existsByEmailAndIdNot(String email, Long id);
+
+    // Every user's keys, read once at startup to fill the membership and search indexes
+    @QueryHints({
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true")
+    })
+    @Query("select u.id as id, u.username as username, u.email as email, u.name as name from User u")
+    Stream<UserKeys> streamAllKeys();
+
+    interface UserKeys {
+        Long getId();
+
+        String getUsername();
+
+        String getEmail();
+
+        String getName();
+    }
+
+    // Case-insensitive prefix match on username, name or a later word of the name (patterns are built
+    // by the caller); the fallback when the in-memory search index is disabled
+    @Query("select u from User u where lower(u.username) like :prefix escape '\\'"
+            + " or lower(u.name) like :prefix escape '\\' or lower(u.name) like :wordPrefix escape '\\'"
+            + " order by u.username")
+    List<User> searchByPrefix(@Param("prefix") String prefix, @Param("wordPrefix") String wordPrefix, Pageable pageable);
+
+    // Row count and latest update, the collection-level version used for conditional GETs
+    @Query("select new com.eventmaster.model.UserCollectionVersion(count(u), max(u.updatedAt)) from User u")
+    UserCollectionVersion findCollectionVersion();
+
+    // Multi-get lookups; callers chunk the key lists to keep IN clauses bounded
+    List<User> findByIdIn(Collection<Long> ids);
+
+    List<User> findByUsernameIn(Collection<String> usernames);
+
+    List<User> findByEmailIn(Collection<String> emails);
+}
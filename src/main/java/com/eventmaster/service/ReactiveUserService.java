@@ -0,0 +1,311 @@
+package com.eventmaster.service;
+
+import com.eventmaster.cache.UserCache;
+import com.eventmaster.cache.UserMembershipIndex;
+import com.eventmaster.cache.UserSearchIndex;
+import com.eventmaster.exception.DuplicateUserException;
+import com.eventmaster.exception.InvalidRequestException;
+import com.eventmaster.exception.UserNotFoundException;
+import com.eventmaster.model.User;
+import com.eventmaster.model.UserEvent;
+import com.eventmaster.model.UserPage;
+import com.eventmaster.model.UserSuggestion;
+import com.eventmaster.password.PasswordHasher;
+import com.eventmaster.repository.ReactiveUserRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Non-blocking counterpart of {@link UserService} for the WebFlux stack, backed by R2DBC. No thread
+ * waits on the database: a request holds a connection only while its query runs, and nothing
+ * while it is idle.
+ *
+ * <p>The cache, membership index and search index are the same beans {@link UserService} uses
+ * (they are in-memory and never block), so both services see each other's writes. Read replicas
+ * and sharding are not supported on this stack.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveUserService {
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveUserService.class);
+
+    private final ReactiveUserRepository userRepository;
+    private final R2dbcEntityTemplate entityTemplate;
+    private final TransactionalOperator transactionalOperator;
+    private final ObjectMapper objectMapper;
+
+    // Absent when user.cache.enabled=false
+    @Autowired(required = false)
+    private UserCache userCache;
+
+    // Absent when user.membership-index.enabled=false
+    @Autowired(required = false)
+    private UserMembershipIndex membershipIndex;
+
+    // Absent when user.search.enabled=false
+    @Autowired(required = false)
+    private UserSearchIndex searchIndex;
+
+    // Absent when user.password.hashing.enabled=false
+    @Autowired(required = false)
+    private PasswordHasher passwordHasher;
+
+    @Value("${user.events.enabled:true}")
+    private boolean eventsEnabled = true;
+
+    @Value("${user.pagination.default-size:100}")
+    private int defaultPageSize = 100;
+
+    @Value("${user.pagination.max-size:1000}")
+    private int maxPageSize = 1000;
+
+    @Value("${user.search.default-limit:10}")
+    private int defaultSearchLimit = 10;
+
+    @Value("${user.search.max-limit:100}")
+    private int maxSearchLimit = 100;
+
+    public ReactiveUserService(ReactiveUserRepository userRepository,
+                               R2dbcEntityTemplate entityTemplate,
+                               TransactionalOperator transactionalOperator,
+                               ObjectMapper objectMapper) {
+        this.userRepository = userRepository;
+        this.entityTemplate = entityTemplate;
+        this.transactionalOperator = transactionalOperator;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Inserts the user and, when the change feed is enabled, its outbox event in one R2DBC
+     * transaction. Duplicates surface as {@link DuplicateUserException}, as in {@link UserService#saveUser}.
+     */
+    public Mono<User> saveUser(User user) {
+        return Mono.defer(() -> {
+            logger.info("Attempting to save user with username: {}", user.getUsername());
+            return hashPassword(user).then(rejectKnownDuplicate(user)
+                    .then(userRepository.nextId())
+                    .flatMap(id -> {
+                        // Explicit insert: with an assigned id, save() would issue an UPDATE
+                        user.setId(id);
+                        user.setVersion(0L);
+                        user.setUpdatedAt(Instant.now().truncatedTo(ChronoUnit.MILLIS));
+                        return entityTemplate.insert(user);
+                    })
+                    .flatMap(saved -> eventsEnabled ? appendCreatedEvent(saved).thenReturn(saved) : Mono.just(saved))
+                    .as(transactionalOperator::transactional));
+        }).doOnNext(savedUser -> {
+            if (userCache != null) {
+                userCache.put(savedUser);
+            }
+            if (membershipIndex != null) {
+                membershipIndex.add(savedUser);
+            }
+            if (searchIndex != null) {
+                searchIndex.put(savedUser.getId(), savedUser.getUsername(), savedUser.getName());
+            }
+            logger.info("Successfully saved user with id: {} and username: {}", savedUser.getId(), savedUser.getUsername());
+        }).onErrorResume(DataIntegrityViolationException.class, e -> determineConstraintViolation(user)
+                .flatMap(field -> {
+                    if (membershipIndex != null) {
+                        // Written by another instance, or before the index was loaded
+                        membershipIndex.add(UserMembershipIndex.USERNAME.equals(field) ? user.getUsername() : null,
+                                UserMembershipIndex.EMAIL.equals(field) ? user.getEmail() : null);
+                    }
+                    logger.warn("Duplicate {} attempted: {}", field, "username".equals(field) ? user.getUsername() : user.getEmail());
+                    return Mono.error(new DuplicateUserException(field,
+                            "username".equals(field) ? user.getUsername() : user.getEmail()));
+                }));
+    }
+
+    /**
+     * Hashes the password on the {@link PasswordHasher} pool, before the transaction takes a connection.
+     */
+    private Mono<Void> hashPassword(User user) {
+        if (passwordHasher == null) {
+            return Mono.empty();
+        }
+        return Mono.fromFuture(() -> passwordHasher.hashAsync(user.getPassword()))
+                .doOnNext(user::setPassword)
+                .then();
+    }
+
+    /**
+     * Same outbox row {@link UserChangeFeed#append} writes. user_events_seq steps by 50 for
+     * Hibernate's pooled-lo blocks, so using one value per event cannot collide with the JPA side.
+     * The row has no log position yet; {@link UserChangeFeed#sequence} gives it one after commit.
+     */
+    private Mono<Void> appendCreatedEvent(User user) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(user);
+        } catch (JsonProcessingException e) {
+            return Mono.error(new IllegalStateException("Could not encode user " + user.getId() + " for the change feed", e));
+        }
+        return entityTemplate.getDatabaseClient().sql("INSERT INTO user_events (id, type, user_id, payload, created_at)"
+                        + " VALUES (NEXT VALUE FOR user_events_seq, :type, :userId, :payload, :createdAt)")
+                .bind("type", UserEvent.Type.CREATED.name())
+                .bind("userId", user.getId())
+                .bind("payload", payload)
+                .bind("createdAt", Instant.now().truncatedTo(ChronoUnit.MILLIS))
+                .then();
+    }
+
+    /**
+     * Rejects the user without attempting the insert when the membership index already holds its
+     * username or email and the database confirms it.
+     */
+    private Mono<Void> rejectKnownDuplicate(User user) {
+        if (membershipIndex == null) {
+            return Mono.empty();
+        }
+        Mono<Boolean> usernameTaken = membershipIndex.containsUsername(user.getUsername())
+                ? userRepository.existsByUsername(user.getUsername()) : Mono.just(false);
+        Mono<Boolean> emailTaken = membershipIndex.containsEmail(user.getEmail())
+                ? userRepository.existsByEmail(user.getEmail()) : Mono.just(false);
+        return usernameTaken.flatMap(taken -> {
+            if (taken) {
+                logger.warn("Duplicate username rejected before insert: {}", user.getUsername());
+                return Mono.error(new DuplicateUserException(UserMembershipIndex.USERNAME, user.getUsername()));
+            }
+            return emailTaken.flatMap(emailIsTaken -> {
+                if (emailIsTaken) {
+                    logger.warn("Duplicate email rejected before insert: {}", user.getEmail());
+                    return Mono.error(new DuplicateUserException(UserMembershipIndex.EMAIL, user.getEmail()));
+                }
+                return Mono.empty();
+            });
+        });
+    }
+
+    /**
+     * Determines which field caused the constraint violation by asking the database which of the
+     * values is taken; defaults to username when neither is (the other row was removed since).
+     */
+    private Mono<String> determineConstraintViolation(User user) {
+        Mono<Boolean> usernameTaken = user.getUsername() == null ? Mono.just(false)
+                : userRepository.existsByUsername(user.getUsername());
+        Mono<Boolean> emailTaken = user.getEmail() == null ? Mono.just(false)
+                : userRepository.existsByEmail(user.getEmail());
+        return usernameTaken.flatMap(taken -> taken ? Mono.just("username")
+                : emailTaken.map(emailIsTaken -> emailIsTaken ? "email" : "username"));
+    }
+
+    public Mono<User> findByUsername(String username) {
+        logger.debug("Searching for user by username: {}", username);
+        return Mono.defer(() -> cached(userCache == null ? null : userCache.getByUsername(username).orElse(null),
+                        userRepository.findByUsername(username)))
+                .switchIfEmpty(Mono.defer(() -> {
+                    logger.warn("User not found with username: {}", username);
+                    return Mono.error(UserNotFoundException.byUsername(username));
+                }));
+    }
+
+    public Mono<User> findByEmail(String email) {
+        logger.debug("Searching for user by email: {}", email);
+        return Mono.defer(() -> cached(userCache == null ? null : userCache.getByEmail(email).orElse(null),
+                        userRepository.findByEmail(email)))
+                .switchIfEmpty(Mono.defer(() -> {
+                    logger.warn("User not found with email: {}", email);
+                    return Mono.error(UserNotFoundException.byEmail(email));
+                }));
+    }
+
+    /**
+     * Completes empty when there is no such user, like the {@code Optional} of {@link UserService#findById}.
+     */
+    public Mono<User> findById(Long id) {
+        logger.debug("Searching for user by id: {}", id);
+        return Mono.defer(() -> cached(userCache == null ? null : userCache.getById(id).orElse(null),
+                userRepository.findById(id)));
+    }
+
+    /**
+     * One keyset page of users ordered by id; see {@link UserService#getUserPage}.
+     */
+    public Mono<UserPage> getUserPage(String cursor, Integer limit) {
+        return Mono.defer(() -> {
+            long afterId = UserCursor.decode(cursor);
+            int pageSize = resolveLimit(limit, defaultPageSize, maxPageSize);
+            logger.debug("Fetching page of {} users after id: {}", pageSize, afterId);
+            return userRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, pageSize))
+                    .collectList()
+                    .map(users -> new UserPage(users, users.size() < pageSize ? null
+                            : UserCursor.encode(users.get(users.size() - 1).getId())));
+        });
+    }
+
+    /**
+     * Every user after {@code afterId} in id order, honouring the subscriber's demand. Rows are read
+     * in keyset pages of {@code user.pagination.max-size} and at most one page is fetched ahead of what
+     * the subscriber has consumed, so a slow client holds about two pages in memory and no connection
+     * while it is not reading.
+     */
+    public Flux<User> streamUsers(long afterId) {
+        logger.debug("Streaming users after id: {}", afterId);
+        return fetchPage(afterId)
+                .expand(page -> page.size() < maxPageSize ? Mono.empty()
+                        : fetchPage(page.get(page.size() - 1).getId()))
+                .flatMapIterable(page -> page, 1);
+    }
+
+    private Mono<List<User>> fetchPage(long afterId) {
+        return userRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, maxPageSize)).collectList();
+    }
+
+    /**
+     * Typeahead search, see {@link UserService#searchUsers}.
+     */
+    public Flux<UserSuggestion> searchUsers(String prefix, Integer limit) {
+        return Flux.defer(() -> {
+            if (prefix == null || prefix.isBlank()) {
+                return Flux.error(new InvalidRequestException("Search prefix must not be blank"));
+            }
+            int size = resolveLimit(limit, defaultSearchLimit, maxSearchLimit);
+            logger.debug("Searching up to {} users with prefix: {}", size, prefix);
+            if (searchIndex != null) {
+                return Flux.fromIterable(searchIndex.search(prefix, size));
+            }
+            String escaped = prefix.trim().toLowerCase(Locale.ROOT)
+                    .replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+            return userRepository.searchByPrefix(escaped + "%", "% " + escaped + "%", size)
+                    .map(UserSuggestion::of);
+        });
+    }
+
+    /**
+     * Read-through helper: the cached user when present, otherwise the loaded one, which is then cached.
+     */
+    private Mono<User> cached(User hit, Mono<User> loader) {
+        if (hit != null) {
+            return Mono.just(hit);
+        }
+        return userCache == null ? loader : loader.doOnNext(userCache::put);
+    }
+
+    private static int resolveLimit(Integer limit, int defaultLimit, int maxLimit) {
+        if (limit == null) {
+            return Math.min(defaultLimit, maxLimit);
+        }
+        if (limit < 1) {
+            throw new InvalidRequestException("Limit must be at least 1, was: " + limit);
+        }
+        return Math.min(limit, maxLimit);
+    }
+}
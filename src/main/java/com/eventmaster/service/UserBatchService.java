@@ -0,0 +1,251 @@
+package com.eventmaster.service;
+
+import com.eventmaster.datasource.ReplicaRoutingDataSource;
+import com.eventmaster.exception.DuplicateUserException;
+import com.eventmaster.model.BatchCreateResult;
+import com.eventmaster.model.BatchCreateResult.Row;
+import com.eventmaster.model.User;
+import com.eventmaster.password.PasswordHasher;
+import com.eventmaster.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Bulk user creation. Input is consumed as a stream and written in chunks of
+ * {@code user.batch.size} rows, one transaction and one set of JDBC batches per chunk. At most
+ * {@code user.batch.max-rows} rows are read per call; the rest is left unread and the result is
+ * marked truncated. Each chunk is detached once it is flushed, so the
+ * request's persistence context (open for the whole request, see open-in-view) does not grow with
+ * the input and later flushes do not dirty-check earlier chunks.
+ *
+ * <p>Conflicts are resolved per row instead of failing the chunk: duplicates inside the chunk
+ * and rows whose username or email already exist are rejected up front with two {@code IN}
+ * queries. If a concurrent writer still wins a race and the chunk insert fails, the chunk is
+ * rolled back and its rows are retried one at a time through {@link UserService#saveUser}.
+ * With sharded storage every row goes through {@link UserService#saveUser}.
+ *
+ * <p>Passwords of the rows left to insert are hashed on the {@link PasswordHasher} pool, a few at a
+ * time, before the chunk's transaction starts. Values that already are bcrypt hashes are kept only
+ * when the caller asks for it, to import exported users again.
+ *
+ * <p>Absent on an instance serving from a snapshot, which takes no writes.
+ */
+@Service
+@ConditionalOnProperty(name = "user.snapshot.enabled", havingValue = "false", matchIfMissing = true)
+public class UserBatchService {
+    private static final Logger logger = LoggerFactory.getLogger(UserBatchService.class);
+
+    private static final int MAX_COLUMN_LENGTH = 255;
+
+    private final UserRepository userRepository;
+    private final UserService userService;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final int batchSize;
+    private final int maxRows;
+
+    // Absent when user.password.hashing.enabled=false
+    @Autowired(required = false)
+    private PasswordHasher passwordHasher;
+
+    public UserBatchService(UserRepository userRepository,
+                            UserService userService,
+                            TransactionTemplate transactionTemplate,
+                            EntityManager entityManager,
+                            @Value("${user.batch.size:500}") int batchSize,
+                            @Value("${user.batch.max-rows:10000}") int maxRows) {
+        this.userRepository = userRepository;
+        this.userService = userService;
+        this.transactionTemplate = transactionTemplate;
+        this.entityManager = entityManager;
+        this.batchSize = batchSize;
+        this.maxRows = maxRows;
+    }
+
+    /**
+     * @param keepHashes store passwords that already are bcrypt hashes as they are, as for an
+     *        export imported again; otherwise every password is hashed
+     * @return a row for each of the first {@code user.batch.max-rows} users at most, marked
+     *         truncated when the input held more
+     */
+    public BatchCreateResult createUsers(Iterator<User> users, boolean keepHashes) {
+        logger.info("Starting batch user creation with batch size {}", batchSize);
+        userService.requireWritable();
+        BatchCreateResult result = new BatchCreateResult();
+        List<User> chunk = new ArrayList<>(batchSize);
+        int read = 0;
+        while (users.hasNext()) {
+            if (read == maxRows) {
+                // Every row read so far is processed and reported; the client resends from the next index
+                logger.warn("Batch request truncated after {} users", maxRows);
+                result.markTruncated();
+                break;
+            }
+            chunk.add(users.next());
+            read++;
+            if (chunk.size() == batchSize) {
+                insertChunk(chunk, keepHashes, result);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            insertChunk(chunk, keepHashes, result);
+        }
+        logger.info("Batch user creation finished: {} created, {} failed", result.getCreated(), result.getFailed());
+        return result;
+    }
+
+    private void insertChunk(List<User> chunk, boolean keepHashes, BatchCreateResult result) {
+        int offset = result.getRows().size();
+        Row[] rows = new Row[chunk.size()];
+
+        // Validate and reject duplicates within the chunk itself
+        Set<String> usernames = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            User user = chunk.get(i);
+            String problem = validate(user);
+            if (problem != null) {
+                rows[i] = Row.invalid(offset + i, user, problem);
+            } else if (usernames.contains(user.getUsername())) {
+                rows[i] = Row.conflict(offset + i, user, "username");
+            } else if (emails.contains(user.getEmail())) {
+                rows[i] = Row.conflict(offset + i, user, "email");
+            } else {
+                usernames.add(user.getUsername());
+                emails.add(user.getEmail());
+            }
+        }
+
+        if (userService.isSharded()) {
+            // A chunk spans several shard databases, so there is no single transaction to batch it in
+            for (int i = 0; i < chunk.size(); i++) {
+                if (rows[i] == null) {
+                    rows[i] = insertOne(offset + i, chunk.get(i), keepHashes);
+                }
+            }
+            for (Row row : rows) {
+                result.add(row);
+            }
+            return;
+        }
+
+        // Reject rows that collide with users already in the database, as seen by the primary
+        Set<String> takenUsernames = usernames.isEmpty() ? Set.of()
+                : new HashSet<>(ReplicaRoutingDataSource.onPrimary(() -> userRepository.findExistingUsernames(usernames)));
+        Set<String> takenEmails = emails.isEmpty() ? Set.of()
+                : new HashSet<>(ReplicaRoutingDataSource.onPrimary(() -> userRepository.findExistingEmails(emails)));
+        List<Integer> pending = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            if (rows[i] != null) {
+                continue;
+            }
+            User user = chunk.get(i);
+            if (takenUsernames.contains(user.getUsername())) {
+                rows[i] = Row.conflict(offset + i, user, "username");
+            } else if (takenEmails.contains(user.getEmail())) {
+                rows[i] = Row.conflict(offset + i, user, "email");
+            } else {
+                pending.add(i);
+            }
+        }
+
+        List<User> toInsert = new ArrayList<>(pending.size());
+        for (int i : pending) {
+            toInsert.add(chunk.get(i));
+        }
+        hashPasswords(toInsert, keepHashes);
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                userRepository.saveAll(toInsert);
+                userService.recordCreated(toInsert);
+                userRepository.flush();
+                // Flushed, so nothing is lost; the users and their events need no more dirty checking
+                entityManager.clear();
+            });
+            userService.indexSavedUsers(toInsert);
+            for (int i : pending) {
+                rows[i] = Row.created(offset + i, chunk.get(i));
+            }
+        } catch (DataIntegrityViolationException e) {
+            logger.warn("Batch insert of {} users hit a constraint violation, retrying rows individually", toInsert.size());
+            // Every pending password is a hash by now, so saveUser must keep it
+            for (int i : pending) {
+                rows[i] = insertOne(offset + i, chunk.get(i), true);
+            }
+        }
+
+        for (Row row : rows) {
+            result.add(row);
+        }
+        logger.debug("Processed batch chunk of {} users starting at index {}", chunk.size(), offset);
+    }
+
+    // Only rows that passed every check are hashed
+    private void hashPasswords(List<User> users, boolean keepHashes) {
+        if (passwordHasher == null || users.isEmpty()) {
+            return;
+        }
+        List<String> passwords = new ArrayList<>(users.size());
+        for (User user : users) {
+            passwords.add(user.getPassword());
+        }
+        List<String> hashes = passwordHasher.hashAll(passwords, keepHashes);
+        for (int i = 0; i < users.size(); i++) {
+            users.get(i).setPassword(hashes.get(i));
+        }
+    }
+
+    private Row insertOne(int index, User user, boolean keepHash) {
+        // The rolled-back chunk insert already assigned an id and version; clear them so the row is persisted as new
+        user.setId(null);
+        user.setVersion(null);
+        try {
+            userService.saveUser(user, keepHash);
+            return Row.created(index, user);
+        } catch (DuplicateUserException e) {
+            return Row.conflict(index, user, e.getField());
+        }
+    }
+
+    private static String validate(User user) {
+        if (user == null) {
+            return "user must not be null";
+        }
+        if (isBlank(user.getUsername())) {
+            return "username is required";
+        }
+        if (isBlank(user.getEmail())) {
+            return "email is required";
+        }
+        if (user.getPassword() == null) {
+            return "password is required";
+        }
+        if (tooLong(user.getUsername()) || tooLong(user.getEmail()) || tooLong(user.getPassword())
+                || tooLong(user.getName()) || tooLong(user.getLocation())) {
+            return "fields must be at most " + MAX_COLUMN_LENGTH + " characters";
+        }
+        return null;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static boolean tooLong(String value) {
+        return value != null && value.length() > MAX_COLUMN_LENGTH;
+    }
+}
@@ -0,0 +1,279 @@
+package com.eventmaster.service;
+
+import com.eventmaster.exception.ChangeOffsetExpiredException;
+import com.eventmaster.exception.InvalidRequestException;
+import com.eventmaster.model.User;
+import com.eventmaster.model.UserChangeBatch;
+import com.eventmaster.model.UserEvent;
+import com.eventmaster.repository.UserEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Transactional outbox of user changes and the long-poll feed that serves it.
+ *
+ * <p>{@link #append} writes one {@code user_events} row per user inside the caller's transaction,
+ * so an event exists exactly when its user does. Consumers read batches after an offset (the
+ * event's log position) and resume from the returned {@code nextOffset}.
+ *
+ * <p>Event ids come from a pooled sequence, so a transaction can commit after one holding a higher
+ * id, and ids cannot serve as offsets. Instead {@link #sequence} gives committed events positions
+ * after the last one handed out, holding the lock on the {@code user_event_log} row while it does.
+ * Sequencing transactions on every instance take turns on that lock, so positions follow commit
+ * order: an event that commits after a consumer has read up to some position always gets a higher
+ * one, however long its transaction took. Reads go to the primary even when replica routing is
+ * on, so a consumer sees events as soon as they are sequenced.
+ */
+@Service
+@ConditionalOnProperty(name = "user.events.enabled", havingValue = "true", matchIfMissing = true)
+public class UserChangeFeed {
+    private static final Logger logger = LoggerFactory.getLogger(UserChangeFeed.class);
+
+    private final UserEventRepository eventRepository;
+    private final ObjectMapper objectMapper;
+    private final TaskScheduler taskScheduler;
+    private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean sequenceScheduled = new AtomicBoolean();
+    private volatile long prunedThrough;
+
+    // Each sequencing batch runs in its own transaction, holding the log lock only that long
+    @Autowired
+    private TransactionOperations transactionOperations = TransactionOperations.withoutTransaction();
+
+    @Value("${user.events.sequence-batch-size:1000}")
+    private int sequenceBatchSize = 1000;
+
+    @Value("${user.events.default-limit:100}")
+    private int defaultLimit = 100;
+
+    @Value("${user.events.max-limit:1000}")
+    private int maxLimit = 1000;
+
+    @Value("${user.events.max-wait-ms:30000}")
+    private long maxWaitMs = 30000;
+
+    @Value("${user.events.retention:7d}")
+    private Duration retention = Duration.ofDays(7);
+
+    @Value("${user.events.prune-batch-size:1000}")
+    private int pruneBatchSize = 1000;
+
+    public UserChangeFeed(UserEventRepository eventRepository, ObjectMapper objectMapper, TaskScheduler taskScheduler) {
+        this.eventRepository = eventRepository;
+        this.objectMapper = objectMapper;
+        this.taskScheduler = taskScheduler;
+    }
+
+    /**
+     * Records a {@link UserEvent.Type#CREATED} event for each user. Must run in the transaction
+     * that inserts the users, after they have been assigned ids.
+     */
+    public void append(Collection<User> users) {
+        List<UserEvent> events = new ArrayList<>(users.size());
+        for (User user : users) {
+            events.add(new UserEvent(UserEvent.Type.CREATED, user.getId(), encode(user)));
+        }
+        eventRepository.saveAll(events);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    scheduleSequence();
+                }
+            });
+        } else {
+            scheduleSequence();
+        }
+    }
+
+    private String encode(User user) {
+        try {
+            return objectMapper.writeValueAsString(user);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not encode user " + user.getId() + " for the change feed", e);
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} sequenced events after {@code after}, without waiting.
+     *
+     * @param limit maximum number of events; null means the default, and values above the cap are clamped
+     */
+    public UserChangeBatch read(long after, Integer limit) {
+        if (after < 0) {
+            throw new InvalidRequestException("Offset must not be negative, was: " + after);
+        }
+        if (after < prunedThrough) {
+            throw new ChangeOffsetExpiredException(after, prunedThrough);
+        }
+        return fetch(after, resolveLimit(limit));
+    }
+
+    /**
+     * Long poll: completes as soon as events after {@code after} are visible, or with an empty
+     * batch once {@code waitMs} has passed. Waiting holds no thread; waiters are re-checked when
+     * this instance sequences events and every {@code user.events.poll-interval-ms} for events
+     * sequenced by other instances.
+     */
+    public DeferredResult<UserChangeBatch> poll(long after, Integer limit, long waitMs) {
+        UserChangeBatch batch = read(after, limit);
+        long timeout = Math.min(Math.max(waitMs, 0), maxWaitMs);
+        DeferredResult<UserChangeBatch> result = new DeferredResult<>(timeout, () -> UserChangeBatch.empty(after));
+        if (!batch.getEvents().isEmpty() || timeout == 0) {
+            result.setResult(batch);
+            return result;
+        }
+        Waiter waiter = new Waiter(after, resolveLimit(limit), result);
+        result.onCompletion(() -> waiters.remove(waiter));
+        waiters.add(waiter);
+        return result;
+    }
+
+    /**
+     * The latest visible offset: where a consumer that has just read the full user list resumes.
+     */
+    public long head() {
+        return eventRepository.findHead();
+    }
+
+    private UserChangeBatch fetch(long after, int limit) {
+        List<UserEvent> events = eventRepository.findByPositionGreaterThanOrderByPositionAsc(
+                after, PageRequest.of(0, limit));
+        long next = events.isEmpty() ? after : events.get(events.size() - 1).getPosition();
+        return new UserChangeBatch(events, next);
+    }
+
+    // Commits in quick succession share one sequencing run
+    private void scheduleSequence() {
+        if (sequenceScheduled.compareAndSet(false, true)) {
+            taskScheduler.schedule(this::sequence, Instant.now());
+        }
+    }
+
+    /**
+     * Gives committed events without a position the next positions in the log, oldest id first,
+     * {@code user.events.sequence-batch-size} per transaction, then wakes the waiters. Runs after
+     * every commit that appended events and every {@code user.events.sequence-interval-ms} for
+     * events that other instances, or the reactive stack, have written.
+     */
+    @Scheduled(fixedDelayString = "${user.events.sequence-interval-ms:1000}")
+    public void sequence() {
+        sequenceScheduled.set(false);
+        long sequenced = 0;
+        int batch;
+        do {
+            batch = transactionOperations.execute(status -> sequenceBatch());
+            sequenced += batch;
+        } while (batch == sequenceBatchSize);
+        if (sequenced > 0) {
+            logger.debug("Sequenced {} user events", sequenced);
+            checkWaiters();
+        }
+    }
+
+    private int sequenceBatch() {
+        // Taken before reading the unsequenced rows, so those sequenced by the last holder are already committed
+        long head = eventRepository.lockHead();
+        List<UserEvent> events = eventRepository.findByPositionIsNullOrderByIdAsc(PageRequest.of(0, sequenceBatchSize));
+        if (events.isEmpty()) {
+            return 0;
+        }
+        for (UserEvent event : events) {
+            event.setPosition(++head);
+        }
+        eventRepository.saveAll(events);
+        eventRepository.updateHead(head);
+        return events.size();
+    }
+
+    /**
+     * Completes every waiter that has new events. One read of the log head decides which waiters
+     * need a batch read at all.
+     */
+    @Scheduled(fixedDelayString = "${user.events.poll-interval-ms:1000}")
+    public void checkWaiters() {
+        if (waiters.isEmpty()) {
+            return;
+        }
+        long head = head();
+        for (Waiter waiter : waiters) {
+            if (waiter.after < head && !waiter.result.isSetOrExpired()) {
+                UserChangeBatch batch = fetch(waiter.after, waiter.limit);
+                if (!batch.getEvents().isEmpty()) {
+                    waiter.result.setResult(batch);
+                }
+            }
+        }
+    }
+
+    /**
+     * Deletes events older than {@code user.events.retention}, {@code user.events.prune-batch-size}
+     * rows per statement. Consumers asking for an offset below the pruned range get a
+     * {@link ChangeOffsetExpiredException}.
+     */
+    @Scheduled(fixedDelayString = "${user.events.prune-interval-ms:60000}")
+    public void prune() {
+        Instant cutoff = Instant.now().minus(retention);
+        long deleted = 0;
+        List<Long> positions;
+        do {
+            positions = eventRepository.findPositionsCreatedBefore(cutoff, PageRequest.of(0, pruneBatchSize));
+            if (!positions.isEmpty()) {
+                eventRepository.deleteByPositionIn(positions);
+                prunedThrough = Math.max(prunedThrough, positions.get(positions.size() - 1));
+                deleted += positions.size();
+            }
+        } while (positions.size() == pruneBatchSize);
+        if (deleted > 0) {
+            logger.info("Pruned {} user events older than {}, through offset {}", deleted, cutoff, prunedThrough);
+        }
+    }
+
+    public int getWaiterCount() {
+        return waiters.size();
+    }
+
+    private int resolveLimit(Integer limit) {
+        if (limit == null) {
+            return Math.min(defaultLimit, maxLimit);
+        }
+        if (limit < 1) {
+            throw new InvalidRequestException("Limit must be at least 1, was: " + limit);
+        }
+        return Math.min(limit, maxLimit);
+    }
+
+    private static final class Waiter {
+        private final long after;
+        private final int limit;
+        private final DeferredResult<UserChangeBatch> result;
+
+        Waiter(long after, int limit, DeferredResult<UserChangeBatch> result) {
+            this.after = after;
+            this.limit = limit;
+            this.result = result;
+        }
+    }
+}
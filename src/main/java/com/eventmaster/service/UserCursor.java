@@ -0,0 +1,46 @@
+package com.eventmaster.service;
+
+import com.eventmaster.exception.InvalidRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Encodes and decodes the opaque cursor tokens used for keyset pagination.
+ * A cursor is the id of the last user on the previous page; it is wrapped in
+ * URL-safe Base64 so clients treat it as opaque and we can change the format later.
+ */
+public final class UserCursor {
+
+    private static final String PREFIX = "v1:";
+
+    private UserCursor() {
+    }
+
+    public static String encode(Long lastId) {
+        byte[] raw = (PREFIX + lastId).getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+    }
+
+    /**
+     * Decode a cursor token back to the id it points after.
+     *
+     * @param cursor the token from a previous page, or null/blank for the first page
+     * @return the id to continue after, or 0 when starting from the beginning
+     */
+    public static long decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!raw.startsWith(PREFIX)) {
+                throw InvalidRequestException.invalidCursor(cursor);
+            }
+            return Long.parseLong(raw.substring(PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            // Covers both bad Base64 and NumberFormatException
+            throw InvalidRequestException.invalidCursor(cursor);
+        }
+    }
+}
@@ -1,34 +1,198 @@
 package com.eventmaster.service;
 
+import com.eventmaster.cache.UserCache;
+import com.eventmaster.cache.UserLoadCoalescer;
+import com.eventmaster.cache.UserMembershipIndex;
+import com.eventmaster.cache.UserNegativeCache;
+import com.eventmaster.cache.UserSearchIndex;
+import com.eventmaster.datasource.ReadYourWritesTracker;
+import com.eventmaster.datasource.ReplicaRoutingDataSource;
 import com.eventmaster.exception.DuplicateUserException;
+import com.eventmaster.exception.InvalidRequestException;
+import com.eventmaster.exception.SnapshotUnsupportedException;
 import com.eventmaster.exception.UserNotFoundException;
 import com.eventmaster.model.User;
+import com.eventmaster.model.UserCollectionVersion;
+import com.eventmaster.model.UserLookupRequest;
+import com.eventmaster.model.UserLookupResult;
+import com.eventmaster.model.UserPage;
+import com.eventmaster.model.UserSuggestion;
+import com.eventmaster.password.PasswordHasher;
 import com.eventmaster.repository.UserRepository;
+import com.eventmaster.sharding.ShardedUserStore;
+import com.eventmaster.snapshot.UserSnapshot;
+import com.eventmaster.snapshot.UserSnapshotStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class UserService {
     private static final Logger logger = LoggerFactory.getLogger(UserService.class);
 
-    @Autowired
+    // Absent when users are served from a snapshot file (user.snapshot.enabled=true), which runs without JPA
+    @Autowired(required = false)
     private UserRepository userRepository;
 
+    // Absent with the snapshot, like userRepository
+    @Autowired(required = false)
+    private EntityManager entityManager;
+
+    // Absent when user.cache.enabled=false
+    @Autowired(required = false)
+    private UserCache userCache;
+
+    // Absent when user.coalescing.enabled=false
+    @Autowired(required = false)
+    private UserLoadCoalescer loadCoalescer;
+
+    // Absent when user.negative-cache.enabled=false
+    @Autowired(required = false)
+    private UserNegativeCache negativeCache;
+
+    // Absent when user.membership-index.enabled=false
+    @Autowired(required = false)
+    private UserMembershipIndex membershipIndex;
+
+    // Absent when user.search.enabled=false
+    @Autowired(required = false)
+    private UserSearchIndex searchIndex;
+
+    // Present only when reads are routed to replicas (user.datasource.routing.enabled=true)
+    @Autowired(required = false)
+    private ReadYourWritesTracker writeTracker;
+
+    // Present only when users are sharded (user.sharding.enabled=true); replaces userRepository for user data
+    @Autowired(required = false)
+    private ShardedUserStore shardedStore;
+
+    // Present only when users are served from a snapshot file (user.snapshot.enabled=true). Reads
+    // bypass the database, cache and coalescer, since a snapshot read is a lookup in memory; writes
+    // and search are rejected
+    @Autowired(required = false)
+    private UserSnapshotStore snapshotStore;
+
+    // Absent when user.events.enabled=false
+    @Autowired(required = false)
+    private UserChangeFeed changeFeed;
+
+    // Absent when user.password.hashing.enabled=false; passwords are then stored and compared as given
+    @Autowired(required = false)
+    private PasswordHasher passwordHasher;
+
+    // Runs the insert and its outbox event in one transaction; absent with the snapshot
+    @Autowired(required = false)
+    private TransactionOperations transactionOperations = TransactionOperations.withoutTransaction();
+
+    // Wraps the reads that go to the database or the shards, see load(); snapshot reads run without
+    // one, so they never check out a connection
+    private TransactionOperations readOnlyTransaction = TransactionOperations.withoutTransaction();
+
+    @Value("${user.pagination.default-size:100}")
+    private int defaultPageSize = 100;
+
+    @Value("${user.pagination.max-size:1000}")
+    private int maxPageSize = 1000;
+
+    @Value("${user.lookup.max-keys:1000}")
+    private int maxLookupKeys = 1000;
+
+    @Value("${user.lookup.chunk-size:500}")
+    private int lookupChunkSize = 500;
+
+    @Value("${user.search.default-limit:10}")
+    private int defaultSearchLimit = 10;
+
+    @Value("${user.search.max-limit:100}")
+    private int maxSearchLimit = 100;
+
+    @Value("${user.collection-version.ttl-ms:1000}")
+    private long collectionVersionTtlMillis = 1000;
+
+    // Last collection version read, see getCollectionVersion()
+    private volatile CachedCollectionVersion collectionVersion;
+
+    // Bumped after every write by this instance; a cached version read before the write no longer matches
+    private final AtomicLong collectionWrites = new AtomicLong();
+
     public User saveUser(User user) {
+        return saveUser(user, false);
+    }
+
+    /**
+     * Same as {@link #saveUser(User)}, but with {@code keepHash} a password that already is a bcrypt
+     * hash is stored as it is. Only for imports of exported users and batch rows hashed already.
+     */
+    public User saveUser(User user, boolean keepHash) {
         logger.info("Attempting to save user with username: {}", user.getUsername());
+        requireWritable();
+        rejectKnownDuplicate(user);
+        if (passwordHasher != null && !(keepHash && PasswordHasher.isHash(user.getPassword()))) {
+            // After the duplicate check, so a rejected signup costs no hash
+            user.setPassword(passwordHasher.hash(user.getPassword()));
+        }
         try {
-            User savedUser = userRepository.save(user);
+            // The insert is flushed at commit, so a constraint violation surfaces from execute()
+            User savedUser = transactionOperations.execute(status -> {
+                User saved = shardedStore != null ? shardedStore.insert(user) : userRepository.save(user);
+                if (changeFeed != null) {
+                    changeFeed.append(List.of(saved));
+                }
+                return saved;
+            });
+            if (userCache != null) {
+                userCache.put(savedUser);
+            }
+            if (negativeCache != null) {
+                negativeCache.invalidate(savedUser.getUsername());
+            }
+            if (membershipIndex != null) {
+                membershipIndex.add(savedUser);
+            }
+            if (searchIndex != null) {
+                searchIndex.put(savedUser.getId(), savedUser.getUsername(), savedUser.getName());
+            }
+            if (writeTracker != null) {
+                writeTracker.recordWrite(savedUser);
+            }
+            collectionWrites.incrementAndGet();
             logger.info("Successfully saved user with id: {} and username: {}", savedUser.getId(), savedUser.getUsername());
             return savedUser;
         } catch (DataIntegrityViolationException e) {
-            // Parse the exception to determine which constraint was violated
             String field = determineConstraintViolation(e, user);
+            if (membershipIndex != null) {
+                // Written by another instance, or before the index was loaded
+                membershipIndex.add(UserMembershipIndex.USERNAME.equals(field) ? user.getUsername() : null,
+                        UserMembershipIndex.EMAIL.equals(field) ? user.getEmail() : null);
+            }
             logger.warn("Duplicate {} attempted: {}", field, "username".equals(field) ? user.getUsername() : user.getEmail());
             throw new DuplicateUserException(field,
                 "username".equals(field) ? user.getUsername() : user.getEmail());
@@ -39,14 +203,59 @@ public class UserService {
     }
 
     /**
-     * Determines which field caused the constraint violation by checking if the username or email
-     * value appears in the exception message.
+     * Rejects the user without attempting the insert when the membership index already holds its
+     * username or email and the database confirms it. An unconfirmed hit (stale index) falls
+     * through to the insert.
+     */
+    private void rejectKnownDuplicate(User user) {
+        if (membershipIndex == null) {
+            return;
+        }
+        if (membershipIndex.containsUsername(user.getUsername()) && usernameTaken(user)) {
+            logger.warn("Duplicate username rejected before insert: {}", user.getUsername());
+            throw new DuplicateUserException(UserMembershipIndex.USERNAME, user.getUsername());
+        }
+        if (membershipIndex.containsEmail(user.getEmail()) && emailTaken(user)) {
+            logger.warn("Duplicate email rejected before insert: {}", user.getEmail());
+            throw new DuplicateUserException(UserMembershipIndex.EMAIL, user.getEmail());
+        }
+    }
+
+    // Uniqueness is decided by the primary; a lagging replica would let duplicates through to the insert
+    private boolean usernameTaken(User user) {
+        if (shardedStore != null) {
+            return shardedStore.existsByUsername(user.getUsername(), user.getId());
+        }
+        return ReplicaRoutingDataSource.onPrimary(() -> user.getId() == null
+                ? userRepository.existsByUsername(user.getUsername())
+                : userRepository.existsByUsernameAndIdNot(user.getUsername(), user.getId()));
+    }
+
+    private boolean emailTaken(User user) {
+        if (shardedStore != null) {
+            return shardedStore.existsByEmail(user.getEmail(), user.getId());
+        }
+        return ReplicaRoutingDataSource.onPrimary(() -> user.getId() == null
+                ? userRepository.existsByEmail(user.getEmail())
+                : userRepository.existsByEmailAndIdNot(user.getEmail(), user.getId()));
+    }
+
+    /**
+     * Determines which field caused the constraint violation by asking the database which of the
+     * values is taken. Falls back to checking whether the username or email value appears in the
+     * exception message when neither is found (for example, the other row was removed since).
      *
      * @param e the DataIntegrityViolationException
      * @param user the user being saved
      * @return "username" or "email"
      */
     private String determineConstraintViolation(DataIntegrityViolationException e, User user) {
+        if (user.getUsername() != null && usernameTaken(user)) {
+            return "username";
+        }
+        if (user.getEmail() != null && emailTaken(user)) {
+            return "email";
+        }
         String message = e.getMessage();
         if (message != null) {
             // Check if the email value appears in the exception message
@@ -62,35 +271,249 @@ public class UserService {
         return "username";
     }
 
+    /**
+     * Checks a username and password. The password is verified on the {@link PasswordHasher} pool;
+     * an unknown username is verified against a dummy hash, so it takes as long as a wrong password.
+     * A match against a hash of another cost, or against a password still stored as plaintext, is
+     * hashed again at the current cost and written back.
+     *
+     * @return the user, when the password matches
+     */
+    public Optional<User> authenticate(String username, String password) {
+        Optional<User> user = username == null ? Optional.empty() : findOptionalByUsername(username);
+        String stored = user.map(User::getPassword).orElse(null);
+        if (passwordHasher == null) {
+            return user.filter(found -> PasswordHasher.matchesPlaintext(password, stored));
+        }
+        PasswordHasher.Verification verification = passwordHasher.verify(password, stored);
+        if (!verification.matches()) {
+            logger.info("Authentication failed for username: {}", username);
+            return Optional.empty();
+        }
+        logger.info("Authenticated user with username: {}", username);
+        if (verification.getRehash() != null) {
+            return Optional.of(updatePassword(user.get(), stored, verification.getRehash()));
+        }
+        return user;
+    }
+
+    /**
+     * Replaces the stored password of {@code user} with {@code hash}, unless it changed since it was
+     * read as {@code stored}. Best effort: the caller is authenticated either way, and a hash that
+     * is not written is simply made again at the next login. Snapshots are read-only, so they are
+     * not rewritten.
+     */
+    private User updatePassword(User user, String stored, String hash) {
+        if (snapshotStore != null) {
+            return user;
+        }
+        try {
+            // Dirty checking bumps the version and updatedAt, so ETags and caches see the new value;
+            // on shards the compare-and-set UPDATE does the same
+            User updated = transactionOperations.execute(status -> shardedStore != null
+                    ? shardedStore.updatePassword(user.getId(), stored, hash).orElse(null)
+                    : userRepository.findById(user.getId())
+                            .filter(current -> stored.equals(current.getPassword()))
+                            .map(current -> {
+                                current.setPassword(hash);
+                                return current;
+                            })
+                            .orElse(null));
+            if (updated == null) {
+                return user;
+            }
+            if (userCache != null) {
+                userCache.put(updated);
+            }
+            if (writeTracker != null) {
+                writeTracker.recordWrite(updated);
+            }
+            collectionWrites.incrementAndGet();
+            logger.info("Rehashed password of user with id: {}", updated.getId());
+            return updated;
+        } catch (OptimisticLockingFailureException e) {
+            logger.debug("Password of user id {} changed concurrently, not rehashed", user.getId());
+            return user;
+        }
+    }
+
+    /**
+     * @throws SnapshotUnsupportedException when users are served from a read-only snapshot
+     */
+    public void requireWritable() {
+        if (snapshotStore != null) {
+            throw new SnapshotUnsupportedException("Creating users");
+        }
+    }
+
+    /**
+     * True when users live in shards rather than in the {@code users} table behind {@link UserRepository}.
+     */
+    public boolean isSharded() {
+        return shardedStore != null;
+    }
+
+    /**
+     * Appends change events for users inserted outside {@link #saveUser} (batch inserts). Call it in
+     * the inserting transaction so the events commit or roll back with the users.
+     */
+    public void recordCreated(Collection<User> users) {
+        if (changeFeed != null && !users.isEmpty()) {
+            changeFeed.append(users);
+        }
+    }
+
+    /**
+     * Records users written outside {@link #saveUser} (batch inserts) in the membership and search
+     * indexes, and drops them from the negative cache.
+     */
+    public void indexSavedUsers(Collection<User> users) {
+        for (User user : users) {
+            if (negativeCache != null) {
+                negativeCache.invalidate(user.getUsername());
+            }
+            if (membershipIndex != null) {
+                membershipIndex.add(user);
+            }
+            if (searchIndex != null) {
+                searchIndex.put(user.getId(), user.getUsername(), user.getName());
+            }
+            if (writeTracker != null) {
+                writeTracker.recordWrite(user);
+            }
+        }
+        collectionWrites.incrementAndGet();
+    }
+
+    /**
+     * Fills the membership and search indexes from the database once the application has started,
+     * in a single pass over the table. Saves that happen while they load are indexed as usual;
+     * duplicates the partial membership index misses are still caught by the unique constraints.
+     * Always read from the primary, so the indexes do not start out behind by the replication lag.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void loadIndexes() {
+        if (snapshotStore != null || membershipIndex == null && searchIndex == null) {
+            return;
+        }
+        long started = System.nanoTime();
+        if (shardedStore != null) {
+            LongAdder indexed = new LongAdder();
+            shardedStore.forEach(user -> {
+                if (membershipIndex != null) {
+                    membershipIndex.add(user.getUsername(), user.getEmail());
+                }
+                if (searchIndex != null) {
+                    searchIndex.put(user.getId(), user.getUsername(), user.getName());
+                }
+                indexed.increment();
+            });
+            logger.info("Indexed {} sharded users in {} ms", indexed.sum(), (System.nanoTime() - started) / 1_000_000);
+            return;
+        }
+        long count = ReplicaRoutingDataSource.onPrimary(() -> {
+            long indexed = 0;
+            try (Stream<UserRepository.UserKeys> keys = userRepository.streamAllKeys()) {
+                for (UserRepository.UserKeys key : (Iterable<UserRepository.UserKeys>) keys::iterator) {
+                    if (membershipIndex != null) {
+                        membershipIndex.add(key.getUsername(), key.getEmail());
+                    }
+                    if (searchIndex != null) {
+                        searchIndex.put(key.getId(), key.getUsername(), key.getName());
+                    }
+                    indexed++;
+                }
+            }
+            return indexed;
+        });
+        logger.info("Indexed {} users in {} ms", count, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    @Autowired(required = false)
+    void setTransactionManager(PlatformTransactionManager transactionManager) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        this.readOnlyTransaction = template;
+    }
+
+    /**
+     * @throws UserNotFoundException on a miss; {@link #findOptionalByUsername} reports one without an exception
+     */
     public User findByUsername(String username){
+        return findOptionalByUsername(username).orElseThrow(() -> UserNotFoundException.byUsername(username));
+    }
+
+    public Optional<User> findOptionalByUsername(String username) {
         logger.debug("Searching for user by username: {}", username);
-        try {
-            User user = userRepository.findByUsername(username)
-                    .orElseThrow(() -> UserNotFoundException.byUsername(username));
+        Optional<User> user = snapshotStore != null ? snapshotStore.current().findByUsername(username)
+                : cached(userCache == null ? Optional.empty() : userCache.getByUsername(username),
+                        () -> load(UserLoadCoalescer.Lookup.USERNAME, username, ReadYourWritesTracker.usernameKey(username),
+                                () -> shardedStore != null ? shardedStore.findByUsername(username)
+                                        : userRepository.findByUsername(username)));
+        if (user.isPresent()) {
             logger.info("Found user with username: {}", username);
-            return user;
-        } catch (UserNotFoundException e) {
-            logger.warn("User not found with username: {}", username);
-            throw e;
+        } else {
+            logger.debug("User not found with username: {}", username);
         }
+        return user;
     }
 
+    /**
+     * @throws UserNotFoundException on a miss; {@link #findOptionalByEmail} reports one without an exception
+     */
     public User findByEmail(String email){
+        return findOptionalByEmail(email).orElseThrow(() -> UserNotFoundException.byEmail(email));
+    }
+
+    public Optional<User> findOptionalByEmail(String email) {
         logger.debug("Searching for user by email: {}", email);
-        try {
-            User user = userRepository.findByEmail(email)
-                    .orElseThrow(() -> UserNotFoundException.byEmail(email));
+        Optional<User> user = snapshotStore != null ? snapshotStore.current().findByEmail(email)
+                : cached(userCache == null ? Optional.empty() : userCache.getByEmail(email),
+                        () -> load(UserLoadCoalescer.Lookup.EMAIL, email, ReadYourWritesTracker.emailKey(email),
+                                () -> shardedStore != null ? shardedStore.findByEmail(email)
+                                        : userRepository.findByEmail(email)));
+        if (user.isPresent()) {
             logger.info("Found user with email: {}", email);
-            return user;
-        } catch (UserNotFoundException e) {
-            logger.warn("User not found with email: {}", email);
-            throw e;
+        } else {
+            logger.debug("User not found with email: {}", email);
         }
+        return user;
+    }
+
+    /**
+     * Whether a user with this username exists, without loading it. Answered from the user cache or
+     * the negative cache when they know, otherwise by an exists query on the username index, whose
+     * negative answer is then remembered for {@code user.negative-cache.ttl}.
+     */
+    public boolean existsByUsername(String username) {
+        if (snapshotStore != null) {
+            return snapshotStore.current().existsByUsername(username);
+        }
+        if (userCache != null && userCache.getByUsername(username).isPresent()) {
+            return true;
+        }
+        if (negativeCache != null && negativeCache.isKnownMissing(username)) {
+            return false;
+        }
+        Boolean exists = readOnlyTransaction.execute(status -> readAfterWrite(ReadYourWritesTracker.usernameKey(username),
+                () -> shardedStore != null ? shardedStore.existsByUsername(username, null)
+                        : userRepository.existsByUsername(username)));
+        if (Boolean.TRUE.equals(exists)) {
+            return true;
+        }
+        if (negativeCache != null) {
+            negativeCache.recordMissing(username);
+        }
+        return false;
     }
 
     public Optional<User> findById(Long id){
         logger.debug("Searching for user by id: {}", id);
-        Optional<User> user = userRepository.findById(id);
+        Optional<User> user = snapshotStore != null ? snapshotStore.current().findById(id)
+                : cached(userCache == null ? Optional.empty() : userCache.getById(id),
+                        () -> load(UserLoadCoalescer.Lookup.ID, id, ReadYourWritesTracker.idKey(id),
+                                () -> shardedStore != null ? shardedStore.findById(id) : userRepository.findById(id)));
         if (user.isPresent()) {
             logger.info("Found user with id: {}", id);
         } else {
@@ -101,8 +524,303 @@ public class UserService {
 
     public List<User> getAllUsers() {
         logger.debug("Fetching all users");
-        List<User> users = userRepository.findAll();
+        // Sharded: every shard is queried in parallel and the results merged in id order
+        List<User> users = snapshotStore != null ? snapshotStore.current().findPage(0, Integer.MAX_VALUE)
+                : readOnlyTransaction.execute(status -> shardedStore != null ? shardedStore.findAll()
+                        : readAfterAnyWrite(userRepository::findAll));
         logger.info("Retrieved {} users from database", users.size());
         return users;
     }
+
+    /**
+     * Version of the users table as a whole, for the validators of collection endpoints. One
+     * aggregate query, whose result is reused for {@code user.collection-version.ttl-ms}: every
+     * write by this instance invalidates it at once, so only writes by other instances can go
+     * unseen, and for no longer than that.
+     */
+    public UserCollectionVersion getCollectionVersion() {
+        if (snapshotStore != null) {
+            return snapshotStore.current().getCollectionVersion();
+        }
+        // Sampled before the query, so a write that commits while it runs makes the result stale at once
+        long writes = collectionWrites.get();
+        long now = System.nanoTime();
+        CachedCollectionVersion cached = collectionVersion;
+        if (cached != null && cached.writes == writes
+                && now - cached.readAt < TimeUnit.MILLISECONDS.toNanos(collectionVersionTtlMillis)) {
+            return cached.version;
+        }
+        UserCollectionVersion version = readOnlyTransaction.execute(status -> shardedStore != null
+                ? shardedStore.findCollectionVersion() : readAfterAnyWrite(userRepository::findCollectionVersion));
+        collectionVersion = new CachedCollectionVersion(version, writes, now);
+        return version;
+    }
+
+    /**
+     * Typeahead search: users whose username, name or a word of the name starts with
+     * {@code prefix}, ignoring case. Served from the in-memory search index, or with a
+     * {@code LIKE} query when the index is disabled. Only the query opens a transaction, so an
+     * answer from the index never takes a connection.
+     *
+     * @param limit maximum number of results; null means the default, and values above the cap are clamped
+     */
+    public List<UserSuggestion> searchUsers(String prefix, Integer limit) {
+        if (prefix == null || prefix.isBlank()) {
+            throw new InvalidRequestException("Search prefix must not be blank");
+        }
+        if (snapshotStore != null) {
+            throw new SnapshotUnsupportedException("Search");
+        }
+        int size = resolveLimit(limit, defaultSearchLimit, maxSearchLimit);
+        logger.debug("Searching up to {} users with prefix: {}", size, prefix);
+        List<UserSuggestion> results;
+        if (searchIndex != null) {
+            results = searchIndex.search(prefix, size);
+        } else {
+            String escaped = prefix.trim().toLowerCase(Locale.ROOT)
+                    .replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+            List<User> matches = readOnlyTransaction.execute(status -> shardedStore != null
+                    ? shardedStore.searchByPrefix(escaped + "%", "% " + escaped + "%", size)
+                    : readAfterAnyWrite(() -> userRepository.searchByPrefix(escaped + "%", "% " + escaped + "%",
+                            PageRequest.of(0, size))));
+            results = matches.stream().map(UserSuggestion::of).collect(Collectors.toList());
+        }
+        logger.debug("Found {} users with prefix: {}", results.size(), prefix);
+        return results;
+    }
+
+    /**
+     * Returns one keyset page of users ordered by id. Unlike {@link #getAllUsers()} this only ever
+     * holds {@code limit} rows, so heap use does not grow with the size of the table.
+     *
+     * @param cursor token from the previous page, or null for the first page
+     * @param limit requested page size; null means the default, and values above the cap are clamped
+     */
+    public UserPage getUserPage(String cursor, Integer limit) {
+        long afterId = UserCursor.decode(cursor);
+        int pageSize = resolvePageSize(limit);
+        logger.debug("Fetching page of {} users after id: {}", pageSize, afterId);
+
+        List<User> users = snapshotStore != null ? snapshotStore.current().findPage(afterId, pageSize)
+                : readOnlyTransaction.execute(status -> shardedStore != null ? shardedStore.findPage(afterId, pageSize)
+                        : readAfterAnyWrite(() -> userRepository.findByIdGreaterThanOrderByIdAsc(afterId,
+                                PageRequest.of(0, pageSize))));
+        String nextCursor = users.size() < pageSize ? null
+                : UserCursor.encode(users.get(users.size() - 1).getId());
+        logger.info("Retrieved page of {} users", users.size());
+        return new UserPage(users, nextCursor);
+    }
+
+    /**
+     * Feeds every user after {@code afterId} to {@code consumer}, one row at a time, straight from a
+     * database cursor. Each entity is detached once consumed so the persistence context stays
+     * empty and memory use is flat regardless of table size.
+     *
+     * @return the number of users streamed
+     */
+    public long streamUsers(long afterId, Consumer<User> consumer) {
+        logger.debug("Streaming users after id: {}", afterId);
+        if (snapshotStore != null) {
+            // One snapshot for the whole stream, even if a newer one is swapped in meanwhile
+            long count = streamPages(afterId, consumer, snapshotStore.current()::findPage);
+            logger.info("Streamed {} users from snapshot", count);
+            return count;
+        }
+        if (shardedStore != null) {
+            Long count = readOnlyTransaction.execute(status -> streamPages(afterId, consumer, shardedStore::findPage));
+            logger.info("Streamed {} sharded users", count);
+            return count;
+        }
+        // The cursor needs the transaction's connection until the last row is consumed
+        Long count = readOnlyTransaction.execute(status -> readAfterAnyWrite(() -> {
+            long streamed = 0;
+            try (Stream<User> users = userRepository.streamByIdGreaterThanOrderByIdAsc(afterId)) {
+                for (User user : (Iterable<User>) users::iterator) {
+                    consumer.accept(user);
+                    entityManager.detach(user);
+                    streamed++;
+                }
+            }
+            return streamed;
+        }));
+        logger.info("Streamed {} users", count);
+        return count;
+    }
+
+    // Read one keyset page at a time (merged across shards, when sharded), so memory stays bounded by the page size
+    private long streamPages(long afterId, Consumer<User> consumer, BiFunction<Long, Integer, List<User>> findPage) {
+        long count = 0;
+        long after = afterId;
+        List<User> page;
+        do {
+            page = findPage.apply(after, maxPageSize);
+            for (User user : page) {
+                consumer.accept(user);
+                count++;
+            }
+            if (!page.isEmpty()) {
+                after = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == maxPageSize);
+        return count;
+    }
+
+    /**
+     * Resolves many users by id, username and/or email in one call. Keys are served from the cache
+     * where possible and the rest are loaded with {@code IN} queries of at most
+     * {@code user.lookup.chunk-size} keys each. Every requested key appears in the result,
+     * mapped to null when no user matched.
+     */
+    public UserLookupResult lookupUsers(UserLookupRequest request) {
+        if (request.size() > maxLookupKeys) {
+            throw new InvalidRequestException("Lookup requests are limited to " + maxLookupKeys
+                    + " keys, got: " + request.size());
+        }
+        logger.debug("Looking up {} ids, {} usernames and {} emails",
+                request.getIds().size(), request.getUsernames().size(), request.getEmails().size());
+        UserLookupResult result = snapshotStore != null ? resolveAll(request, snapshotStore.current())
+                : readOnlyTransaction.execute(status -> readAfterAnyWrite(() -> resolveAll(request)));
+        logger.info("Resolved lookup of {} keys", request.size());
+        return result;
+    }
+
+    private UserLookupResult resolveAll(UserLookupRequest request) {
+        UserLookupResult result = new UserLookupResult();
+        resolveAll(request.getIds(), result.getIds(), id -> userCache.getById(id),
+                shardedStore != null ? shardedStore::findByIdIn : userRepository::findByIdIn, User::getId);
+        resolveAll(request.getUsernames(), result.getUsernames(), username -> userCache.getByUsername(username),
+                shardedStore != null ? shardedStore::findByUsernameIn : userRepository::findByUsernameIn, User::getUsername);
+        resolveAll(request.getEmails(), result.getEmails(), email -> userCache.getByEmail(email),
+                shardedStore != null ? shardedStore::findByEmailIn : userRepository::findByEmailIn, User::getEmail);
+        return result;
+    }
+
+    // Snapshot lookups are reads from memory, so each key is simply looked up on its own
+    private static UserLookupResult resolveAll(UserLookupRequest request, UserSnapshot snapshot) {
+        UserLookupResult result = new UserLookupResult();
+        for (Long id : request.getIds()) {
+            if (id != null) {
+                result.getIds().put(id, snapshot.findById(id).orElse(null));
+            }
+        }
+        for (String username : request.getUsernames()) {
+            if (username != null) {
+                result.getUsernames().put(username, snapshot.findByUsername(username).orElse(null));
+            }
+        }
+        for (String email : request.getEmails()) {
+            if (email != null) {
+                result.getEmails().put(email, snapshot.findByEmail(email).orElse(null));
+            }
+        }
+        return result;
+    }
+
+    private <K> void resolveAll(List<K> keys, Map<K, User> resolved, Function<K, Optional<User>> cacheLookup,
+                                Function<Collection<K>, List<User>> loader, Function<User, K> keyOf) {
+        List<K> missing = new ArrayList<>();
+        for (K key : keys) {
+            if (key == null || resolved.containsKey(key)) {
+                continue;
+            }
+            User hit = userCache == null ? null : cacheLookup.apply(key).orElse(null);
+            resolved.put(key, hit);
+            if (hit == null) {
+                missing.add(key);
+            }
+        }
+        for (int from = 0; from < missing.size(); from += lookupChunkSize) {
+            List<K> chunk = missing.subList(from, Math.min(from + lookupChunkSize, missing.size()));
+            for (User user : loader.apply(chunk)) {
+                K key = keyOf.apply(user);
+                if (resolved.containsKey(key)) {
+                    resolved.put(key, user);
+                }
+                if (userCache != null) {
+                    userCache.put(user);
+                }
+            }
+        }
+    }
+
+    /**
+     * Read-through helper: returns the cached user when present, otherwise loads it and populates
+     * the cache. Misses are not cached.
+     */
+    private Optional<User> cached(Optional<User> hit, Supplier<Optional<User>> loader) {
+        if (hit.isPresent()) {
+            return hit;
+        }
+        Optional<User> loaded = loader.get();
+        if (userCache != null) {
+            loaded.ifPresent(userCache::put);
+        }
+        return loaded;
+    }
+
+    /**
+     * Runs a single-user lookup query in a read-only transaction. Concurrent lookups of the same key
+     * share one query through the coalescer; the transaction is opened by the caller that runs it, so
+     * the others wait without holding a connection. A user this instance wrote within the
+     * read-your-writes window is read from the primary, so a lagging replica cannot hide the write,
+     * and by each caller on its own, since a replica query already running may predate the write.
+     */
+    private Optional<User> load(UserLoadCoalescer.Lookup lookup, Object key, String writeKey,
+                                Supplier<Optional<User>> query) {
+        if (writeTracker != null && writeTracker.isRecentlyWritten(writeKey)) {
+            return readOnlyTransaction.execute(status -> ReplicaRoutingDataSource.onPrimary(query));
+        }
+        if (loadCoalescer == null) {
+            return readOnlyTransaction.execute(status -> query.get());
+        }
+        return loadCoalescer.load(lookup, key, () -> readOnlyTransaction.execute(status -> query.get()));
+    }
+
+    /**
+     * Runs a read keyed by {@code key} against the primary when this instance wrote that user
+     * within the read-your-writes window, so a lagging replica cannot hide the write.
+     */
+    private <T> T readAfterWrite(String key, Supplier<T> read) {
+        if (writeTracker != null && writeTracker.isRecentlyWritten(key)) {
+            return ReplicaRoutingDataSource.onPrimary(read);
+        }
+        return read.get();
+    }
+
+    /**
+     * Collection reads could include any written user, so they go to the primary while any write
+     * is inside the window.
+     */
+    private <T> T readAfterAnyWrite(Supplier<T> read) {
+        if (writeTracker != null && writeTracker.anyRecentWrite()) {
+            return ReplicaRoutingDataSource.onPrimary(read);
+        }
+        return read.get();
+    }
+
+    private static final class CachedCollectionVersion {
+        final UserCollectionVersion version;
+        final long writes;
+        final long readAt;
+
+        CachedCollectionVersion(UserCollectionVersion version, long writes, long readAt) {
+            this.version = version;
+            this.writes = writes;
+            this.readAt = readAt;
+        }
+    }
+
+    private int resolvePageSize(Integer limit) {
+        return resolveLimit(limit, defaultPageSize, maxPageSize);
+    }
+
+    private static int resolveLimit(Integer limit, int defaultLimit, int maxLimit) {
+        if (limit == null) {
+            return Math.min(defaultLimit, maxLimit);
+        }
+        if (limit < 1) {
+            throw new InvalidRequestException("Limit must be at least 1, was: " + limit);
+        }
+        return Math.min(limit, maxLimit);
+    }
 }
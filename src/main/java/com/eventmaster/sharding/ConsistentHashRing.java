@@ -0,0 +1,68 @@
+package com.eventmaster.sharding;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Maps keys to shard names with consistent hashing. Each shard is placed on the ring at
+ * {@code virtualNodes} points; a key belongs to the first point at or after its own hash. Adding
+ * a shard therefore only moves the keys that land on the new shard's points, about
+ * {@code 1/(n+1)} of them, instead of reshuffling everything as {@code hash % n} would.
+ *
+ * <p>Positions come from MD5, not {@link String#hashCode()}, so every instance and every JVM
+ * agrees on where a key lives.
+ */
+public class ConsistentHashRing {
+
+    private final NavigableMap<Long, String> ring = new TreeMap<>();
+    private final int virtualNodes;
+
+    public ConsistentHashRing(Collection<String> shards, int virtualNodes) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("A hash ring needs at least one shard");
+        }
+        if (virtualNodes < 1) {
+            throw new IllegalArgumentException("virtualNodes must be at least 1, was: " + virtualNodes);
+        }
+        this.virtualNodes = virtualNodes;
+        for (String shard : shards) {
+            for (int i = 0; i < virtualNodes; i++) {
+                String previous = ring.put(hash(shard + "#" + i), shard);
+                if (previous != null && !previous.equals(shard)) {
+                    throw new IllegalStateException("Hash collision between shards " + previous + " and " + shard);
+                }
+            }
+        }
+    }
+
+    public String shardFor(String key) {
+        Map.Entry<Long, String> owner = ring.ceilingEntry(hash(key));
+        return owner != null ? owner.getValue() : ring.firstEntry().getValue();
+    }
+
+    public int getVirtualNodes() {
+        return virtualNodes;
+    }
+
+    static long hash(String key) {
+        byte[] digest = md5().digest(key.getBytes(StandardCharsets.UTF_8));
+        long hash = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            hash = (hash << 8) | (digest[i] & 0xFF);
+        }
+        return hash;
+    }
+
+    private static MessageDigest md5() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 is required of every Java platform", e);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.eventmaster.sharding;
+
+import com.eventmaster.model.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Moves users whose shard no longer matches the hash ring, typically after a shard was added to
+ * the configuration. Each shard is scanned in id-ordered pages and every misplaced user is:
+ * <ol>
+ *   <li>copied to the shard the ring now names (a copy left by an interrupted run is reused),</li>
+ *   <li>repointed in the directory, after which lookups by id and email read the copy,</li>
+ *   <li>deleted from the old shard.</li>
+ * </ol>
+ * A user is readable throughout, so the service stays online. Only one rebalance runs at a time.
+ */
+public class ShardRebalancer {
+    private static final Logger logger = LoggerFactory.getLogger(ShardRebalancer.class);
+
+    private final ShardedUserStore store;
+    private final int batchSize;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public ShardRebalancer(ShardedUserStore store, int batchSize) {
+        this.store = store;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @return the number of users moved off each shard
+     */
+    public Map<String, Long> rebalance() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("A rebalance is already running");
+        }
+        try {
+            long started = System.nanoTime();
+            Map<String, Long> moved = new LinkedHashMap<>();
+            for (UserShard source : store.getShards()) {
+                moved.put(source.getName(), drain(source));
+            }
+            logger.info("Rebalance finished in {} ms, users moved per source shard: {}",
+                    (System.nanoTime() - started) / 1_000_000, moved);
+            return moved;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    private long drain(UserShard source) {
+        long moved = 0;
+        long afterId = 0;
+        List<User> page;
+        do {
+            page = source.findPage(afterId, batchSize);
+            for (User user : page) {
+                String owner = store.getRing().shardFor(user.getUsername());
+                if (!owner.equals(source.getName())) {
+                    move(user, source, store.getShard(owner));
+                    moved++;
+                }
+            }
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == batchSize);
+        if (moved > 0) {
+            logger.info("Moved {} users off shard {}", moved, source.getName());
+        }
+        return moved;
+    }
+
+    private void move(User user, UserShard source, UserShard target) {
+        try {
+            target.insert(user);
+        } catch (DuplicateKeyException e) {
+            logger.debug("User {} already copied to {} by an earlier run", user.getId(), target.getName());
+        }
+        store.getDirectory().updateShard(user.getId(), target.getName());
+        source.delete(user.getId());
+    }
+}
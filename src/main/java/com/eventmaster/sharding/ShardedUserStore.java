@@ -0,0 +1,301 @@
+package com.eventmaster.sharding;
+
+import com.eventmaster.model.User;
+import com.eventmaster.model.UserCollectionVersion;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Users partitioned across {@link UserShard}s. New users are placed by a consistent hash of their
+ * username; the {@link UserDirectoryEntry directory} in the primary database records where every
+ * user actually is, assigns ids, and keeps usernames and emails unique across shards.
+ *
+ * <ul>
+ *   <li>Lookups by id or email ask the directory, then read one shard.</li>
+ *   <li>Lookups by username go straight to the shard the ring names and only consult the
+ *       directory on a miss, which covers users not yet moved by a rebalance.</li>
+ *   <li>Collection reads query every shard in parallel and merge the sorted results.</li>
+ * </ul>
+ */
+public class ShardedUserStore implements Closeable {
+
+    private static final Comparator<User> BY_ID = Comparator.comparing(User::getId);
+    private static final Comparator<User> BY_USERNAME = Comparator.comparing(User::getUsername);
+
+    private final Map<String, UserShard> shards;
+    private final ConsistentHashRing ring;
+    private final UserDirectoryRepository directory;
+    private final Executor queryExecutor;
+
+    public ShardedUserStore(List<UserShard> shards, int virtualNodes, UserDirectoryRepository directory,
+                            Executor queryExecutor) {
+        this.shards = new LinkedHashMap<>();
+        for (UserShard shard : shards) {
+            if (this.shards.put(shard.getName(), shard) != null) {
+                throw new IllegalArgumentException("Duplicate shard name: " + shard.getName());
+            }
+        }
+        this.ring = new ConsistentHashRing(this.shards.keySet(), virtualNodes);
+        this.directory = directory;
+        this.queryExecutor = queryExecutor;
+    }
+
+    /**
+     * Registers the user in the directory, which assigns its id and rejects a taken username or
+     * email with a {@link org.springframework.dao.DataIntegrityViolationException}, then writes it
+     * to its shard. Must run inside a transaction on the primary: if that transaction rolls back
+     * after the shard write, the shard row is deleted again.
+     */
+    public User insert(User user) {
+        UserShard shard = shards.get(ring.shardFor(user.getUsername()));
+        UserDirectoryEntry entry = directory.saveAndFlush(
+                new UserDirectoryEntry(user.getUsername(), user.getEmail(), shard.getName()));
+        user.setId(entry.getId());
+        user.setVersion(0L);
+        user.setUpdatedAt(Instant.now().truncatedTo(ChronoUnit.MILLIS));
+        shard.insert(user);
+        Long id = user.getId();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    shard.delete(id);
+                }
+            }
+        });
+        return user;
+    }
+
+    /**
+     * Replaces the password of user {@code id} on the shard the directory names, unless it is no
+     * longer {@code expected}.
+     *
+     * @return the updated user, or empty when the password had changed or the user is gone
+     */
+    public Optional<User> updatePassword(Long id, String expected, String password) {
+        return directory.findById(id).flatMap(entry -> {
+            UserShard shard = shard(entry);
+            Instant updatedAt = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+            return shard.updatePassword(id, expected, password, updatedAt) ? shard.findById(id) : Optional.empty();
+        });
+    }
+
+    public Optional<User> findById(Long id) {
+        return directory.findById(id).flatMap(entry -> shard(entry).findById(id));
+    }
+
+    public Optional<User> findByUsername(String username) {
+        String owner = ring.shardFor(username);
+        Optional<User> user = shards.get(owner).findByUsername(username);
+        if (user.isPresent()) {
+            return user;
+        }
+        return directory.findByUsername(username)
+                .filter(entry -> !entry.getShard().equals(owner))
+                .flatMap(entry -> shard(entry).findByUsername(username));
+    }
+
+    public Optional<User> findByEmail(String email) {
+        return directory.findByEmail(email).flatMap(entry -> shard(entry).findById(entry.getId()));
+    }
+
+    public boolean existsByUsername(String username, Long exceptId) {
+        return exceptId == null ? directory.existsByUsername(username)
+                : directory.existsByUsernameAndIdNot(username, exceptId);
+    }
+
+    public boolean existsByEmail(String email, Long exceptId) {
+        return exceptId == null ? directory.existsByEmail(email)
+                : directory.existsByEmailAndIdNot(email, exceptId);
+    }
+
+    public List<User> findAll() {
+        return merge(scatter(UserShard::findAll), BY_ID, Integer.MAX_VALUE);
+    }
+
+    /**
+     * The next {@code limit} users after {@code afterId} across all shards: each shard returns its
+     * own first {@code limit}, and the merge keeps the smallest ids.
+     */
+    public List<User> findPage(long afterId, int limit) {
+        return merge(scatter(shard -> shard.findPage(afterId, limit)), BY_ID, limit);
+    }
+
+    public List<User> searchByPrefix(String prefix, String wordPrefix, int limit) {
+        return merge(scatter(shard -> shard.searchByPrefix(prefix, wordPrefix, limit)), BY_USERNAME, limit);
+    }
+
+    public UserCollectionVersion findCollectionVersion() {
+        long count = 0;
+        Instant lastModified = null;
+        for (UserCollectionVersion version : scatter(UserShard::findCollectionVersion)) {
+            count += version.getCount();
+            if (version.getLastModified() != null
+                    && (lastModified == null || version.getLastModified().isAfter(lastModified))) {
+                lastModified = version.getLastModified();
+            }
+        }
+        return new UserCollectionVersion(count, lastModified);
+    }
+
+    public List<User> findByIdIn(Collection<Long> ids) {
+        return gather(directory.findByIdIn(ids));
+    }
+
+    public List<User> findByUsernameIn(Collection<String> usernames) {
+        return gather(directory.findByUsernameIn(usernames));
+    }
+
+    public List<User> findByEmailIn(Collection<String> emails) {
+        return gather(directory.findByEmailIn(emails));
+    }
+
+    /**
+     * Visits every user, shard by shard, without holding more than one row at a time.
+     */
+    public void forEach(Consumer<User> consumer) {
+        for (UserShard shard : shards.values()) {
+            shard.forEach(consumer);
+        }
+    }
+
+    public Collection<UserShard> getShards() {
+        return shards.values();
+    }
+
+    public UserShard getShard(String name) {
+        return shards.get(name);
+    }
+
+    public ConsistentHashRing getRing() {
+        return ring;
+    }
+
+    /**
+     * Closes the shard pools.
+     */
+    @Override
+    public void close() throws IOException {
+        for (UserShard shard : shards.values()) {
+            shard.close();
+        }
+    }
+
+    UserDirectoryRepository getDirectory() {
+        return directory;
+    }
+
+    private UserShard shard(UserDirectoryEntry entry) {
+        UserShard shard = shards.get(entry.getShard());
+        if (shard == null) {
+            throw new IllegalStateException("User " + entry.getId() + " is on shard " + entry.getShard()
+                    + ", which is not configured");
+        }
+        return shard;
+    }
+
+    // Directory entries grouped by shard, then one IN query per shard, all shards in parallel
+    private List<User> gather(List<UserDirectoryEntry> entries) {
+        Map<String, List<Long>> idsByShard = new HashMap<>();
+        for (UserDirectoryEntry entry : entries) {
+            idsByShard.computeIfAbsent(shard(entry).getName(), name -> new ArrayList<>()).add(entry.getId());
+        }
+        List<CompletableFuture<List<User>>> futures = idsByShard.entrySet().stream()
+                .map(ids -> CompletableFuture.supplyAsync(() -> shards.get(ids.getKey()).findByIdIn(ids.getValue()), queryExecutor))
+                .collect(Collectors.toList());
+        List<User> users = new ArrayList<>(entries.size());
+        for (List<User> part : join(futures)) {
+            users.addAll(part);
+        }
+        return users;
+    }
+
+    /**
+     * Runs {@code query} against every shard in parallel and returns the results in shard order.
+     */
+    private <T> List<T> scatter(Function<UserShard, T> query) {
+        if (shards.size() == 1) {
+            return List.of(query.apply(shards.values().iterator().next()));
+        }
+        List<CompletableFuture<T>> futures = shards.values().stream()
+                .map(shard -> CompletableFuture.supplyAsync(() -> query.apply(shard), queryExecutor))
+                .collect(Collectors.toList());
+        return join(futures);
+    }
+
+    private static <T> List<T> join(List<CompletableFuture<T>> futures) {
+        List<T> results = new ArrayList<>(futures.size());
+        try {
+            for (CompletableFuture<T> future : futures) {
+                results.add(future.join());
+            }
+        } catch (CompletionException e) {
+            futures.forEach(future -> future.cancel(false));
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+        return results;
+    }
+
+    /**
+     * K-way merge of per-shard lists that are each sorted by {@code order}, stopping at {@code limit}.
+     */
+    static List<User> merge(List<List<User>> sorted, Comparator<User> order, int limit) {
+        PriorityQueue<Cursor> heads = new PriorityQueue<>((a, b) -> order.compare(a.current(), b.current()));
+        int total = 0;
+        for (List<User> users : sorted) {
+            total += users.size();
+            if (!users.isEmpty()) {
+                heads.add(new Cursor(users));
+            }
+        }
+        List<User> merged = new ArrayList<>(Math.min(total, limit));
+        while (!heads.isEmpty() && merged.size() < limit) {
+            Cursor head = heads.poll();
+            merged.add(head.current());
+            if (head.advance()) {
+                heads.add(head);
+            }
+        }
+        return merged;
+    }
+
+    private static final class Cursor {
+        private final List<User> users;
+        private int position;
+
+        Cursor(List<User> users) {
+            this.users = users;
+        }
+
+        User current() {
+            return users.get(position);
+        }
+
+        boolean advance() {
+            return ++position < users.size();
+        }
+    }
+}
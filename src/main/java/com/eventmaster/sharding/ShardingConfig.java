@@ -0,0 +1,74 @@
+package com.eventmaster.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sharded user storage, enabled with {@code user.sharding.enabled=true}. {@link ShardedUserStore}
+ * then replaces {@code UserRepository} for everything {@code UserService} does with users.
+ */
+@Configuration
+@ConditionalOnProperty(name = "user.sharding.enabled", havingValue = "true")
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingConfig {
+    private static final Logger logger = LoggerFactory.getLogger(ShardingConfig.class);
+
+    @Bean
+    public ThreadPoolTaskExecutor shardQueryExecutor(ShardingProperties properties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getQueryThreads());
+        executor.setMaxPoolSize(properties.getQueryThreads());
+        executor.setThreadNamePrefix("shard-query-");
+        return executor;
+    }
+
+    @Bean
+    public ShardedUserStore shardedUserStore(ShardingProperties properties, UserDirectoryRepository directory,
+                                             ThreadPoolTaskExecutor shardQueryExecutor, ResourceLoader resourceLoader) {
+        if (properties.getShards().isEmpty()) {
+            throw new IllegalStateException("user.sharding.enabled=true requires at least one user.sharding.shards entry");
+        }
+        List<UserShard> shards = new ArrayList<>();
+        for (ShardingProperties.Shard config : properties.getShards()) {
+            shards.add(createShard(config, resourceLoader));
+        }
+        logger.info("Sharding users across {} shard(s) with {} virtual nodes each", shards.size(),
+                properties.getVirtualNodes());
+        return new ShardedUserStore(shards, properties.getVirtualNodes(), directory, shardQueryExecutor);
+    }
+
+    private static UserShard createShard(ShardingProperties.Shard config, ResourceLoader resourceLoader) {
+        if (config.getName() == null || config.getName().isBlank()) {
+            throw new IllegalStateException("Every user.sharding.shards entry needs a name");
+        }
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName(config.getName());
+        dataSource.setJdbcUrl(config.getUrl());
+        dataSource.setUsername(config.getUsername());
+        dataSource.setPassword(config.getPassword());
+        dataSource.setMaximumPoolSize(config.getMaximumPoolSize());
+        dataSource.setConnectionTimeout(config.getConnectionTimeout().toMillis());
+        if (config.getInitScript() != null) {
+            DatabasePopulatorUtils.execute(
+                    new ResourceDatabasePopulator(resourceLoader.getResource(config.getInitScript())), dataSource);
+        }
+        return new UserShard(config.getName(), dataSource);
+    }
+
+    @Bean
+    public ShardRebalancer shardRebalancer(ShardedUserStore shardedUserStore, ShardingProperties properties) {
+        return new ShardRebalancer(shardedUserStore, properties.getRebalanceBatchSize());
+    }
+}
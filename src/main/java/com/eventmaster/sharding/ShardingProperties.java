@@ -0,0 +1,127 @@
+package com.eventmaster.sharding;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shard settings under {@code user.sharding}. The directory lives in the primary database
+ * ({@code spring.datasource}).
+ */
+@ConfigurationProperties(prefix = "user.sharding")
+public class ShardingProperties {
+
+    private List<Shard> shards = new ArrayList<>();
+
+    /** Points per shard on the hash ring; more points spread users more evenly. */
+    private int virtualNodes = 128;
+
+    /** Threads running per-shard queries of scatter-gather reads. */
+    private int queryThreads = 16;
+
+    /** Users read per page while rebalancing. */
+    private int rebalanceBatchSize = 500;
+
+    public List<Shard> getShards() {
+        return shards;
+    }
+
+    public void setShards(List<Shard> shards) {
+        this.shards = shards;
+    }
+
+    public int getVirtualNodes() {
+        return virtualNodes;
+    }
+
+    public void setVirtualNodes(int virtualNodes) {
+        this.virtualNodes = virtualNodes;
+    }
+
+    public int getQueryThreads() {
+        return queryThreads;
+    }
+
+    public void setQueryThreads(int queryThreads) {
+        this.queryThreads = queryThreads;
+    }
+
+    public int getRebalanceBatchSize() {
+        return rebalanceBatchSize;
+    }
+
+    public void setRebalanceBatchSize(int rebalanceBatchSize) {
+        this.rebalanceBatchSize = rebalanceBatchSize;
+    }
+
+    public static class Shard {
+
+        /** Stable name: users are placed by hashing against it, so renaming a shard moves its users. */
+        private String name;
+        private String url;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+        private Duration connectionTimeout = Duration.ofSeconds(5);
+        /** SQL script run against the shard at startup, e.g. classpath:shard-schema.sql for local databases. */
+        private String initScript;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public void setPassword(String password) {
+            this.password = password;
+        }
+
+        public int getMaximumPoolSize() {
+            return maximumPoolSize;
+        }
+
+        public void setMaximumPoolSize(int maximumPoolSize) {
+            this.maximumPoolSize = maximumPoolSize;
+        }
+
+        public Duration getConnectionTimeout() {
+            return connectionTimeout;
+        }
+
+        public void setConnectionTimeout(Duration connectionTimeout) {
+            this.connectionTimeout = connectionTimeout;
+        }
+
+        public String getInitScript() {
+            return initScript;
+        }
+
+        public void setInitScript(String initScript) {
+            this.initScript = initScript;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.eventmaster.sharding;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Actuator endpoint at {@code /actuator/shards}: a GET shows how many users each shard holds, a
+ * POST runs the {@link ShardRebalancer} (after adding a shard to the configuration and
+ * restarting) and returns how many users were moved off each shard. Exposed only by the admin
+ * profile, see application-admin.properties.
+ */
+@Component
+@ConditionalOnProperty(name = "user.sharding.enabled", havingValue = "true")
+@Endpoint(id = "shards")
+public class ShardsEndpoint {
+
+    private final ShardedUserStore store;
+    private final ShardRebalancer rebalancer;
+
+    public ShardsEndpoint(ShardedUserStore store, ShardRebalancer rebalancer) {
+        this.store = store;
+        this.rebalancer = rebalancer;
+    }
+
+    @ReadOperation
+    public Map<String, Object> shards() {
+        Map<String, Object> users = new LinkedHashMap<>();
+        for (UserShard shard : store.getShards()) {
+            users.put(shard.getName(), shard.findCollectionVersion().getCount());
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("users", users);
+        stats.put("virtualNodes", store.getRing().getVirtualNodes());
+        stats.put("rebalancing", rebalancer.isRunning());
+        return stats;
+    }
+
+    @WriteOperation
+    public Map<String, Long> rebalance() {
+        return rebalancer.rebalance();
+    }
+}
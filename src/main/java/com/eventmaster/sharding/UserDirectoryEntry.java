@@ -0,0 +1,52 @@
+package com.eventmaster.sharding;
+
+import javax.persistence.*;
+
+/**
+ * Where a sharded user lives. The directory sits in the primary database and is the single place
+ * that assigns user ids and enforces that usernames and emails are unique across all shards.
+ */
+@Entity
+@Table(name = "user_directory")
+public class UserDirectoryEntry {
+
+    // Same pooled sequence as unsharded users, so ids stay unique if data is moved between the layouts
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_directory_seq")
+    @SequenceGenerator(name = "user_directory_seq", sequenceName = "users_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false, unique = true)
+    private String username;
+
+    @Column(nullable = false, unique = true)
+    private String email;
+
+    @Column(nullable = false)
+    private String shard;
+
+    protected UserDirectoryEntry() {
+    }
+
+    public UserDirectoryEntry(String username, String email, String shard) {
+        this.username = username;
+        this.email = email;
+        this.shard = shard;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getShard() {
+        return shard;
+    }
+}
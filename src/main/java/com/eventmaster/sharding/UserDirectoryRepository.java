@@ -0,0 +1,40 @@
+package com.eventmaster.sharding;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface UserDirectoryRepository extends JpaRepository<UserDirectoryEntry, Long> {
+
+    Optional<UserDirectoryEntry> findByUsername(String username);
+
+    Optional<UserDirectoryEntry> findByEmail(String email);
+
+    // Multi-get lookups; callers chunk the key lists to keep IN clauses bounded
+    List<UserDirectoryEntry> findByIdIn(Collection<Long> ids);
+
+    List<UserDirectoryEntry> findByUsernameIn(Collection<String> usernames);
+
+    List<UserDirectoryEntry> findByEmailIn(Collection<String> emails);
+
+    // Exact duplicate checks across every shard; the *AndIdNot variants ignore the row being updated
+    boolean existsByUsername(String username);
+
+    boolean existsByEmail(String email);
+
+    boolean existsByUsernameAndIdNot(String username, Long id);
+
+    boolean existsByEmailAndIdNot(String email, Long id);
+
+    // Repoints a user at the shard it was copied to during rebalancing
+    @Transactional
+    @Modifying
+    @Query("update UserDirectoryEntry e set e.shard = :shard where e.id = :id")
+    int updateShard(@Param("id") Long id, @Param("shard") String shard);
+}
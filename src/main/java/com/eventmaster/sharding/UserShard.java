@@ -0,0 +1,146 @@
+package com.eventmaster.sharding;
+
+import com.eventmaster.model.User;
+import com.eventmaster.model.UserCollectionVersion;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * One shard: a database holding a {@code users} table with the same columns as the unsharded one
+ * (see shard-schema.sql). Plain JDBC, because the shared JPA persistence unit is bound to the
+ * primary database. Ids are assigned by the directory, never by the shard.
+ */
+public class UserShard implements Closeable {
+
+    private static final String COLUMNS = "id, username, password, email, name, location, date_joined, version, updated_at";
+
+    private static final RowMapper<User> USER_ROW_MAPPER = (rs, rowNum) -> {
+        Date dateJoined = rs.getDate("date_joined");
+        User user = new User(rs.getString("username"), rs.getString("password"), rs.getString("email"),
+                rs.getString("name"), rs.getString("location"), dateJoined == null ? null : dateJoined.toLocalDate());
+        user.setId(rs.getLong("id"));
+        user.setVersion(rs.getLong("version"));
+        user.setUpdatedAt(rs.getTimestamp("updated_at").toInstant());
+        return user;
+    };
+
+    private final String name;
+    private final DataSource dataSource;
+    private final NamedParameterJdbcTemplate jdbc;
+
+    public UserShard(String name, DataSource dataSource) {
+        this.name = name;
+        this.dataSource = dataSource;
+        this.jdbc = new NamedParameterJdbcTemplate(dataSource);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void insert(User user) {
+        jdbc.update("INSERT INTO users (" + COLUMNS + ") VALUES (:id, :username, :password, :email, :name,"
+                + " :location, :dateJoined, :version, :updatedAt)", new MapSqlParameterSource()
+                .addValue("id", user.getId())
+                .addValue("username", user.getUsername())
+                .addValue("password", user.getPassword())
+                .addValue("email", user.getEmail())
+                .addValue("name", user.getName())
+                .addValue("location", user.getLocation())
+                .addValue("dateJoined", user.getDateJoined() == null ? null : Date.valueOf(user.getDateJoined()))
+                .addValue("version", user.getVersion())
+                .addValue("updatedAt", Timestamp.from(user.getUpdatedAt())));
+    }
+
+    /**
+     * Replaces the password, but only while it is still {@code expected}, and bumps the version as
+     * JPA's optimistic locking would.
+     *
+     * @return whether the row was updated
+     */
+    public boolean updatePassword(Long id, String expected, String password, Instant updatedAt) {
+        return jdbc.update("UPDATE users SET password = :password, version = version + 1, updated_at = :updatedAt"
+                + " WHERE id = :id AND password = :expected", new MapSqlParameterSource("id", id)
+                .addValue("expected", expected)
+                .addValue("password", password)
+                .addValue("updatedAt", Timestamp.from(updatedAt))) == 1;
+    }
+
+    public int delete(Long id) {
+        return jdbc.update("DELETE FROM users WHERE id = :id", new MapSqlParameterSource("id", id));
+    }
+
+    public Optional<User> findById(Long id) {
+        return first(jdbc.query("SELECT " + COLUMNS + " FROM users WHERE id = :id",
+                new MapSqlParameterSource("id", id), USER_ROW_MAPPER));
+    }
+
+    public Optional<User> findByUsername(String username) {
+        return first(jdbc.query("SELECT " + COLUMNS + " FROM users WHERE username = :username",
+                new MapSqlParameterSource("username", username), USER_ROW_MAPPER));
+    }
+
+    public List<User> findByIdIn(Collection<Long> ids) {
+        return jdbc.query("SELECT " + COLUMNS + " FROM users WHERE id IN (:ids)",
+                new MapSqlParameterSource("ids", ids), USER_ROW_MAPPER);
+    }
+
+    public List<User> findAll() {
+        return jdbc.query("SELECT " + COLUMNS + " FROM users ORDER BY id", USER_ROW_MAPPER);
+    }
+
+    // Keyset page in id order, as in UserRepository#findByIdGreaterThanOrderByIdAsc
+    public List<User> findPage(long afterId, int limit) {
+        return jdbc.query("SELECT " + COLUMNS + " FROM users WHERE id > :afterId ORDER BY id LIMIT :limit",
+                new MapSqlParameterSource("afterId", afterId).addValue("limit", limit), USER_ROW_MAPPER);
+    }
+
+    // Same match as UserRepository#searchByPrefix
+    public List<User> searchByPrefix(String prefix, String wordPrefix, int limit) {
+        return jdbc.query("SELECT " + COLUMNS + " FROM users WHERE LOWER(username) LIKE :prefix ESCAPE '\\'"
+                        + " OR LOWER(name) LIKE :prefix ESCAPE '\\' OR LOWER(name) LIKE :wordPrefix ESCAPE '\\'"
+                        + " ORDER BY username LIMIT :limit",
+                new MapSqlParameterSource("prefix", prefix).addValue("wordPrefix", wordPrefix).addValue("limit", limit),
+                USER_ROW_MAPPER);
+    }
+
+    public UserCollectionVersion findCollectionVersion() {
+        return jdbc.getJdbcTemplate().queryForObject("SELECT COUNT(*), MAX(updated_at) FROM users", (rs, rowNum) -> {
+            Timestamp lastModified = rs.getTimestamp(2);
+            return new UserCollectionVersion(rs.getLong(1), lastModified == null ? null : lastModified.toInstant());
+        });
+    }
+
+    /**
+     * Feeds every user on the shard to {@code consumer} one row at a time, without materializing
+     * the table.
+     */
+    public void forEach(Consumer<User> consumer) {
+        RowCallbackHandler handler = rs -> consumer.accept(USER_ROW_MAPPER.mapRow(rs, rs.getRow()));
+        jdbc.getJdbcTemplate().query("SELECT " + COLUMNS + " FROM users", handler);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (dataSource instanceof Closeable) {
+            ((Closeable) dataSource).close();
+        }
+    }
+
+    private static Optional<User> first(List<User> users) {
+        return users.isEmpty() ? Optional.empty() : Optional.of(users.get(0));
+    }
+}
@@ -0,0 +1,220 @@
+package com.eventmaster.snapshot;
+
+import com.eventmaster.model.User;
+import com.eventmaster.model.UserCollectionVersion;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.CRC32C;
+
+import static com.eventmaster.snapshot.UserSnapshotFormat.*;
+
+/**
+ * A snapshot file written by {@link UserSnapshotWriter}, memory-mapped read-only. The users stay
+ * in the page cache rather than on the heap: a lookup walks the index in the mapping and decodes
+ * only the record it finds into a {@link User}, and a miss allocates nothing.
+ *
+ * <p>Immutable and safe for any number of threads, since every read uses absolute positions. The
+ * mapping is released when the snapshot is garbage collected, so one that has been swapped out
+ * can still finish the lookups already running on it.
+ */
+public final class UserSnapshot {
+
+    private final Path path;
+    private final ByteBuffer buffer;
+    private final int count;
+    private final int slotMask;
+    private final long createdAt;
+    private final Instant lastModified;
+    private final int idIndexAt;
+    private final int usernameIndexAt;
+    private final int emailIndexAt;
+
+    private UserSnapshot(Path path, ByteBuffer buffer) throws IOException {
+        this.path = path;
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(MAGIC_AT) != MAGIC) {
+            throw new IOException(path + " is not a user snapshot");
+        }
+        if (buffer.getInt(VERSION_AT) != VERSION) {
+            throw new IOException(path + " has snapshot format version " + buffer.getInt(VERSION_AT)
+                    + ", this service reads version " + VERSION);
+        }
+        this.count = buffer.getInt(USER_COUNT_AT);
+        int slots = buffer.getInt(HASH_SLOTS_AT);
+        this.slotMask = slots - 1;
+        this.createdAt = buffer.getLong(CREATED_AT);
+        int lastModifiedNanos = buffer.getInt(LAST_MODIFIED_NANOS_AT);
+        this.lastModified = lastModifiedNanos == NULL_NANOS ? null
+                : Instant.ofEpochSecond(buffer.getLong(LAST_MODIFIED_SECONDS_AT), lastModifiedNanos);
+        this.idIndexAt = buffer.getInt(ID_INDEX_AT);
+        this.usernameIndexAt = buffer.getInt(USERNAME_INDEX_AT);
+        this.emailIndexAt = buffer.getInt(EMAIL_INDEX_AT);
+
+        long expectedSize = (long) emailIndexAt + (long) slots * HASH_ENTRY_BYTES;
+        if (count < 0 || slots < count || Integer.bitCount(slots) != 1 || idIndexAt < HEADER_BYTES
+                || usernameIndexAt != idIndexAt + (long) count * ID_ENTRY_BYTES
+                || emailIndexAt != usernameIndexAt + (long) slots * HASH_ENTRY_BYTES
+                || expectedSize != buffer.capacity()) {
+            throw new IOException(path + " is truncated or has an inconsistent header");
+        }
+        CRC32C checksum = new CRC32C();
+        checksum.update(buffer.duplicate().position(HEADER_BYTES));
+        if ((int) checksum.getValue() != buffer.getInt(CHECKSUM_AT)) {
+            throw new IOException(path + " failed its checksum");
+        }
+    }
+
+    /**
+     * Maps and validates the snapshot at {@code path}, reading it once to verify the checksum
+     * (which also pulls it into the page cache).
+     *
+     * @throws IOException when the file cannot be read or is not a complete snapshot of this format
+     */
+    public static UserSnapshot open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(path + " is larger than a user snapshot can be");
+            }
+            MappedByteBuffer mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new UserSnapshot(path, mapping);
+        }
+    }
+
+    public Optional<User> findById(long id) {
+        int record = recordOf(id);
+        return record == 0 ? Optional.empty() : Optional.of(decode(record));
+    }
+
+    public Optional<User> findByUsername(String username) {
+        int record = probe(usernameIndexAt, username, false);
+        return record == 0 ? Optional.empty() : Optional.of(decode(record));
+    }
+
+    public Optional<User> findByEmail(String email) {
+        int record = probe(emailIndexAt, email, true);
+        return record == 0 ? Optional.empty() : Optional.of(decode(record));
+    }
+
+    public boolean existsByUsername(String username) {
+        return probe(usernameIndexAt, username, false) != 0;
+    }
+
+    /**
+     * Up to {@code limit} users with ids above {@code afterId}, in id order.
+     */
+    public List<User> findPage(long afterId, int limit) {
+        List<User> page = new ArrayList<>(Math.min(limit, count));
+        for (int i = firstIdAbove(afterId); i < count && page.size() < limit; i++) {
+            page.add(decode(buffer.getInt(idIndexAt + i * ID_ENTRY_BYTES + 8)));
+        }
+        return page;
+    }
+
+    public UserCollectionVersion getCollectionVersion() {
+        return new UserCollectionVersion(count, lastModified);
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public Instant getCreatedAt() {
+        return Instant.ofEpochMilli(createdAt);
+    }
+
+    public long getBytes() {
+        return buffer.capacity();
+    }
+
+    // Binary search of the id index; 0 when absent
+    private int recordOf(long id) {
+        int i = firstIdAbove(id - 1);
+        if (i < count && buffer.getLong(idIndexAt + i * ID_ENTRY_BYTES) == id) {
+            return buffer.getInt(idIndexAt + i * ID_ENTRY_BYTES + 8);
+        }
+        return 0;
+    }
+
+    private int firstIdAbove(long afterId) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (buffer.getLong(idIndexAt + mid * ID_ENTRY_BYTES) <= afterId) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Linear probe of a hash index; 0 when absent. Slots hold the full hash, so records are only
+    // read to confirm a likely match.
+    private int probe(int indexAt, String key, boolean email) {
+        if (key == null) {
+            return 0;
+        }
+        int hash = hash(key);
+        for (int slot = hash & slotMask; ; slot = (slot + 1) & slotMask) {
+            int entry = indexAt + slot * HASH_ENTRY_BYTES;
+            int record = buffer.getInt(entry + 4);
+            if (record == 0) {
+                return 0;
+            }
+            if (buffer.getInt(entry) == hash) {
+                int field = record + RECORD_FIXED_BYTES;
+                if (email) {
+                    field += 2 + (buffer.getShort(field) & 0xFFFF);
+                }
+                if (matches(buffer, field + 2, buffer.getShort(field) & 0xFFFF, key)) {
+                    return record;
+                }
+            }
+        }
+    }
+
+    private User decode(int record) {
+        ByteBuffer in = buffer.duplicate().position(record);
+        User user = new User();
+        user.setId(in.getLong());
+        long version = in.getLong();
+        user.setVersion(version == NULL_VERSION ? null : version);
+        long updatedSeconds = in.getLong();
+        int updatedNanos = in.getInt();
+        user.setUpdatedAt(updatedNanos == NULL_NANOS ? null : Instant.ofEpochSecond(updatedSeconds, updatedNanos));
+        int dateJoined = in.getInt();
+        user.setDateJoined(dateJoined == NULL_DAY ? null : LocalDate.ofEpochDay(dateJoined));
+        user.setUsername(readString(in));
+        user.setEmail(readString(in));
+        user.setPassword(readString(in));
+        user.setName(readString(in));
+        user.setLocation(readString(in));
+        return user;
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getShort() & 0xFFFF;
+        if (length == NULL_STRING) {
+            return null;
+        }
+        byte[] utf8 = new byte[length];
+        in.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,64 @@
+package com.eventmaster.snapshot;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Actuator endpoint at {@code /actuator/usersnapshot}. On an instance serving from a snapshot, a
+ * GET describes the snapshot in use and a POST loads the file at {@code user.snapshot.path} now
+ * rather than at the next poll. Elsewhere a POST exports the users table to that path, and a GET
+ * shows where exports go. Exposed only by the admin profile, see application-admin.properties.
+ */
+@Component
+@Endpoint(id = "usersnapshot")
+public class UserSnapshotEndpoint {
+
+    private final UserSnapshotStore store;
+    private final UserSnapshotExporter exporter;
+
+    public UserSnapshotEndpoint(ObjectProvider<UserSnapshotStore> store, ObjectProvider<UserSnapshotExporter> exporter) {
+        this.store = store.getIfAvailable();
+        this.exporter = exporter.getIfAvailable();
+    }
+
+    @ReadOperation
+    public Map<String, Object> snapshot() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        if (store == null) {
+            stats.put("serving", false);
+            stats.put("exportPath", exporter.getDefaultPath().toString());
+            return stats;
+        }
+        UserSnapshot snapshot = store.current();
+        stats.put("serving", true);
+        stats.put("path", snapshot.getPath().toString());
+        stats.put("users", snapshot.size());
+        stats.put("bytes", snapshot.getBytes());
+        stats.put("createdAt", snapshot.getCreatedAt().toString());
+        stats.put("swaps", store.swapCount());
+        stats.put("failedLoads", store.failedLoadCount());
+        return stats;
+    }
+
+    @WriteOperation
+    public Map<String, Object> refresh() throws IOException {
+        Map<String, Object> result = new LinkedHashMap<>();
+        if (store != null) {
+            result.put("loaded", store.reload());
+            result.put("users", store.current().size());
+            return result;
+        }
+        Path target = exporter.getDefaultPath();
+        result.put("path", target.toString());
+        result.put("exported", exporter.export(target));
+        return result;
+    }
+}
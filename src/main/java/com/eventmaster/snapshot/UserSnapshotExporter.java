@@ -0,0 +1,61 @@
+package com.eventmaster.snapshot;
+
+import com.eventmaster.service.UserService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Writes the users table into a snapshot file for instances running with
+ * {@code user.snapshot.enabled=true}. Users are streamed from the database in id order, so the
+ * export holds only the index entries in memory, never the users. Present on instances that own
+ * the data, i.e. those not serving from a snapshot themselves.
+ */
+@Component
+@ConditionalOnProperty(name = "user.snapshot.enabled", havingValue = "false", matchIfMissing = true)
+public class UserSnapshotExporter {
+    private static final Logger logger = LoggerFactory.getLogger(UserSnapshotExporter.class);
+
+    private final UserService userService;
+    private final Path defaultPath;
+
+    public UserSnapshotExporter(UserService userService, @Value("${user.snapshot.path}") String defaultPath) {
+        this.userService = userService;
+        this.defaultPath = Paths.get(defaultPath).toAbsolutePath();
+    }
+
+    public Path getDefaultPath() {
+        return defaultPath;
+    }
+
+    /**
+     * Exports every user to {@code target}, replacing any snapshot already there in one step.
+     *
+     * @return the number of users written
+     */
+    public int export(Path target) throws IOException {
+        long started = System.nanoTime();
+        try (UserSnapshotWriter writer = new UserSnapshotWriter(target)) {
+            userService.streamUsers(0, user -> {
+                try {
+                    writer.add(user);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            int count = writer.finish();
+            logger.info("Exported {} users to snapshot {} in {} ms", count, target,
+                    (System.nanoTime() - started) / 1_000_000);
+            return count;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.eventmaster.snapshot;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Layout of a user snapshot file, shared by {@link UserSnapshotWriter} and {@link UserSnapshot}.
+ * All numbers are big-endian and every offset is an {@code int} from the start of the file, so a
+ * snapshot is at most 2 GB and fits one mapping.
+ *
+ * <pre>
+ * header   64 bytes   magic, format version, user count, hash table size, creation time,
+ *                     latest updated_at, CRC-32C of everything after the header, index offsets
+ * records  variable   one per user, in id order:
+ *                       long id, long version, long updated_at seconds, int updated_at nanos,
+ *                       int date_joined epoch day, then username, email, password, name and
+ *                       location as an unsigned short length followed by that many UTF-8 bytes
+ * id index            user count x (long id, int record offset), sorted by id
+ * username index      hash table size x (int hash, int record offset), open addressing with
+ *                     linear probing; offset 0 marks an empty slot
+ * email index         same as the username index
+ * </pre>
+ *
+ * Strings are hashed and compared straight from their UTF-8 bytes in the file, so a lookup that
+ * misses allocates nothing.
+ */
+final class UserSnapshotFormat {
+
+    static final int MAGIC = 0x55534E50; // "USNP"
+    static final int VERSION = 1;
+
+    static final int HEADER_BYTES = 64;
+    static final int MAGIC_AT = 0;
+    static final int VERSION_AT = 4;
+    static final int USER_COUNT_AT = 8;
+    static final int HASH_SLOTS_AT = 12;
+    static final int CREATED_AT = 16;
+    static final int LAST_MODIFIED_SECONDS_AT = 24;
+    static final int LAST_MODIFIED_NANOS_AT = 32;
+    static final int CHECKSUM_AT = 36;
+    static final int ID_INDEX_AT = 40;
+    static final int USERNAME_INDEX_AT = 44;
+    static final int EMAIL_INDEX_AT = 48;
+
+    static final int RECORD_FIXED_BYTES = 32;
+    static final int ID_ENTRY_BYTES = 12;
+    static final int HASH_ENTRY_BYTES = 8;
+
+    // Markers for absent values
+    static final int NULL_STRING = 0xFFFF;
+    static final int MAX_STRING_BYTES = NULL_STRING - 1;
+    static final long NULL_VERSION = Long.MIN_VALUE;
+    static final int NULL_NANOS = -1;
+    static final int NULL_DAY = Integer.MIN_VALUE;
+
+    private static final int FNV_OFFSET = 0x811C9DC5;
+    private static final int FNV_PRIME = 0x01000193;
+
+    private UserSnapshotFormat() {
+    }
+
+    /**
+     * Hash table size for {@code count} keys: a power of two at least twice the count, so probe
+     * sequences stay short.
+     */
+    static int hashSlots(int count) {
+        return Integer.highestOneBit(Math.max(count, 1) * 2 - 1) << 1;
+    }
+
+    /**
+     * FNV-1a of the UTF-8 encoding of {@code value}, computed without encoding it.
+     */
+    static int hash(String value) {
+        int hash = FNV_OFFSET;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                hash = (hash ^ c) * FNV_PRIME;
+            } else if (c < 0x800) {
+                hash = (hash ^ (0xC0 | c >> 6)) * FNV_PRIME;
+                hash = (hash ^ (0x80 | c & 0x3F)) * FNV_PRIME;
+            } else if (Character.isSurrogate(c)) {
+                int codePoint = codePointAt(value, i);
+                if (codePoint < 0) {
+                    hash = (hash ^ '?') * FNV_PRIME;
+                    continue;
+                }
+                i++;
+                hash = (hash ^ (0xF0 | codePoint >> 18)) * FNV_PRIME;
+                hash = (hash ^ (0x80 | codePoint >> 12 & 0x3F)) * FNV_PRIME;
+                hash = (hash ^ (0x80 | codePoint >> 6 & 0x3F)) * FNV_PRIME;
+                hash = (hash ^ (0x80 | codePoint & 0x3F)) * FNV_PRIME;
+            } else {
+                hash = (hash ^ (0xE0 | c >> 12)) * FNV_PRIME;
+                hash = (hash ^ (0x80 | c >> 6 & 0x3F)) * FNV_PRIME;
+                hash = (hash ^ (0x80 | c & 0x3F)) * FNV_PRIME;
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * FNV-1a of already encoded bytes; equal to {@link #hash(String)} of the string they encode.
+     */
+    static int hash(byte[] utf8) {
+        int hash = FNV_OFFSET;
+        for (byte b : utf8) {
+            hash = (hash ^ (b & 0xFF)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * Whether the {@code length} bytes at {@code position} are the UTF-8 encoding of {@code value}.
+     */
+    static boolean matches(ByteBuffer buffer, int position, int length, String value) {
+        int end = position + length;
+        int at = position;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                if (at >= end || buffer.get(at++) != (byte) c) {
+                    return false;
+                }
+            } else if (c < 0x800) {
+                if (at + 2 > end
+                        || buffer.get(at++) != (byte) (0xC0 | c >> 6)
+                        || buffer.get(at++) != (byte) (0x80 | c & 0x3F)) {
+                    return false;
+                }
+            } else if (Character.isSurrogate(c)) {
+                int codePoint = codePointAt(value, i);
+                if (codePoint < 0) {
+                    if (at >= end || buffer.get(at++) != '?') {
+                        return false;
+                    }
+                    continue;
+                }
+                i++;
+                if (at + 4 > end
+                        || buffer.get(at++) != (byte) (0xF0 | codePoint >> 18)
+                        || buffer.get(at++) != (byte) (0x80 | codePoint >> 12 & 0x3F)
+                        || buffer.get(at++) != (byte) (0x80 | codePoint >> 6 & 0x3F)
+                        || buffer.get(at++) != (byte) (0x80 | codePoint & 0x3F)) {
+                    return false;
+                }
+            } else {
+                if (at + 3 > end
+                        || buffer.get(at++) != (byte) (0xE0 | c >> 12)
+                        || buffer.get(at++) != (byte) (0x80 | c >> 6 & 0x3F)
+                        || buffer.get(at++) != (byte) (0x80 | c & 0x3F)) {
+                    return false;
+                }
+            }
+        }
+        return at == end;
+    }
+
+    // The supplementary code point starting at index, or -1 for an unpaired surrogate, which
+    // String.getBytes(UTF_8) encodes as '?'
+    private static int codePointAt(String value, int index) {
+        char high = value.charAt(index);
+        if (Character.isHighSurrogate(high) && index + 1 < value.length()) {
+            char low = value.charAt(index + 1);
+            if (Character.isLowSurrogate(low)) {
+                return Character.toCodePoint(high, low);
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,43 @@
+package com.eventmaster.snapshot;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes the size and age of the snapshot being served, and how often it was replaced or a new
+ * file was rejected.
+ */
+@Component
+@ConditionalOnProperty(name = "user.snapshot.enabled", havingValue = "true")
+public class UserSnapshotMetrics implements MeterBinder {
+
+    private final UserSnapshotStore store;
+
+    public UserSnapshotMetrics(UserSnapshotStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("user.snapshot.users", store, s -> s.current().size())
+                .description("Users in the snapshot being served")
+                .register(registry);
+        Gauge.builder("user.snapshot.bytes", store, s -> s.current().getBytes())
+                .description("Size of the mapped snapshot file")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("user.snapshot.created", store, s -> s.current().getCreatedAt().getEpochSecond())
+                .description("When the snapshot being served was exported, in epoch seconds")
+                .register(registry);
+        FunctionCounter.builder("user.snapshot.swaps", store, UserSnapshotStore::swapCount)
+                .description("Snapshots replaced by a newer file")
+                .register(registry);
+        FunctionCounter.builder("user.snapshot.load.failures", store, UserSnapshotStore::failedLoadCount)
+                .description("Snapshot files rejected as unreadable, truncated or corrupt")
+                .register(registry);
+    }
+}
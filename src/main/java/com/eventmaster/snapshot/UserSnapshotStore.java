@@ -0,0 +1,110 @@
+package com.eventmaster.snapshot;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serves users from the snapshot at {@code user.snapshot.path} instead of the database, enabled
+ * with {@code user.snapshot.enabled=true}. The file is checked every
+ * {@code user.snapshot.poll-interval-ms}; when a new one has been moved into place it is mapped
+ * and validated off to the side, then swapped in with a single volatile write. Lookups already
+ * running finish on the snapshot they started with. A file that fails validation is logged and
+ * skipped, and the current snapshot keeps serving.
+ */
+@Component
+@ConditionalOnProperty(name = "user.snapshot.enabled", havingValue = "true")
+public class UserSnapshotStore {
+    private static final Logger logger = LoggerFactory.getLogger(UserSnapshotStore.class);
+
+    private final Path path;
+    private final AtomicLong swaps = new AtomicLong();
+    private final AtomicLong failedLoads = new AtomicLong();
+    private volatile UserSnapshot current;
+    // Identity of the file last loaded or rejected, so each new file is read once
+    private Object seenFileKey;
+    private long seenModified;
+
+    public UserSnapshotStore(@Value("${user.snapshot.path}") String path) {
+        this.path = Paths.get(path).toAbsolutePath();
+        if (!reload()) {
+            throw new IllegalStateException("user.snapshot.enabled=true requires a valid snapshot at " + this.path);
+        }
+    }
+
+    /**
+     * The snapshot to serve from. Callers that read several times for one request (pages of a
+     * stream) should hold on to it, so a swap cannot change the data halfway.
+     */
+    public UserSnapshot current() {
+        return current;
+    }
+
+    @Scheduled(fixedDelayString = "${user.snapshot.poll-interval-ms:5000}")
+    public void checkForNewSnapshot() {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            synchronized (this) {
+                if (Objects.equals(attributes.fileKey(), seenFileKey)
+                        && attributes.lastModifiedTime().toMillis() == seenModified) {
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            logger.debug("Snapshot {} is not readable, keeping the current one", path, e);
+            return;
+        }
+        reload();
+    }
+
+    /**
+     * Loads the file at the snapshot path now and swaps it in if it is valid.
+     *
+     * @return whether a new snapshot is being served
+     */
+    public synchronized boolean reload() {
+        long started = System.nanoTime();
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            seenFileKey = attributes.fileKey();
+            seenModified = attributes.lastModifiedTime().toMillis();
+            UserSnapshot loaded = UserSnapshot.open(path);
+            UserSnapshot previous = current;
+            current = loaded;
+            if (previous != null) {
+                swaps.incrementAndGet();
+            }
+            logger.info("Serving {} users from snapshot {} created {}, loaded in {} ms", loaded.size(), path,
+                    loaded.getCreatedAt(), (System.nanoTime() - started) / 1_000_000);
+            return true;
+        } catch (IOException e) {
+            failedLoads.incrementAndGet();
+            logger.error("Could not load user snapshot {}{}", path,
+                    current == null ? "" : ", still serving the one created " + current.getCreatedAt(), e);
+            return false;
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public long swapCount() {
+        return swaps.get();
+    }
+
+    public long failedLoadCount() {
+        return failedLoads.get();
+    }
+}
@@ -0,0 +1,204 @@
+package com.eventmaster.snapshot;
+
+import com.eventmaster.model.User;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+import static com.eventmaster.snapshot.UserSnapshotFormat.*;
+
+/**
+ * Writes users, in ascending id order, into a snapshot file (see {@link UserSnapshotFormat}).
+ * Records are streamed to disk as they are added; only their ids, offsets and key hashes are held
+ * until {@link #finish()} writes the indexes. The file is built next to {@code target} and moved
+ * over it in one step, so a reader watching {@code target} never sees a partial snapshot.
+ */
+public class UserSnapshotWriter implements Closeable {
+
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    private final Path target;
+    private final Path temporary;
+    private final CRC32C checksum = new CRC32C();
+    private final DataOutputStream out;
+
+    private long[] ids = new long[1024];
+    private int[] offsets = new int[1024];
+    private int[] usernameHashes = new int[1024];
+    private int[] emailHashes = new int[1024];
+    private int count;
+    private long position = HEADER_BYTES;
+    private Instant lastModified;
+    private boolean finished;
+
+    public UserSnapshotWriter(Path target) throws IOException {
+        this.target = target.toAbsolutePath();
+        this.temporary = this.target.resolveSibling(this.target.getFileName() + ".tmp");
+        Files.createDirectories(this.target.getParent());
+        OutputStream file = new BufferedOutputStream(Files.newOutputStream(temporary), BUFFER_BYTES);
+        // Placeholder, rewritten by finish() once the counts and offsets are known
+        file.write(new byte[HEADER_BYTES]);
+        this.out = new DataOutputStream(new CheckedOutputStream(file, checksum));
+    }
+
+    public void add(User user) throws IOException {
+        if (finished) {
+            throw new IllegalStateException("Snapshot already finished");
+        }
+        if (user.getId() == null || user.getUsername() == null || user.getEmail() == null) {
+            throw new IllegalArgumentException("Snapshot users need an id, a username and an email");
+        }
+        if (count > 0 && user.getId() <= ids[count - 1]) {
+            throw new IllegalArgumentException("Users must be added in ascending id order, got id " + user.getId()
+                    + " after " + ids[count - 1]);
+        }
+        if (count == ids.length) {
+            grow();
+        }
+        byte[] username = user.getUsername().getBytes(StandardCharsets.UTF_8);
+        byte[] email = user.getEmail().getBytes(StandardCharsets.UTF_8);
+        ids[count] = user.getId();
+        offsets[count] = checkedOffset(position);
+        usernameHashes[count] = hash(username);
+        emailHashes[count] = hash(email);
+        count++;
+
+        Instant updatedAt = user.getUpdatedAt();
+        out.writeLong(user.getId());
+        out.writeLong(user.getVersion() == null ? NULL_VERSION : user.getVersion());
+        out.writeLong(updatedAt == null ? 0 : updatedAt.getEpochSecond());
+        out.writeInt(updatedAt == null ? NULL_NANOS : updatedAt.getNano());
+        out.writeInt(user.getDateJoined() == null ? NULL_DAY : Math.toIntExact(user.getDateJoined().toEpochDay()));
+        position += RECORD_FIXED_BYTES;
+        writeString(username);
+        writeString(email);
+        writeString(bytes(user.getPassword()));
+        writeString(bytes(user.getName()));
+        writeString(bytes(user.getLocation()));
+
+        if (updatedAt != null && (lastModified == null || updatedAt.isAfter(lastModified))) {
+            lastModified = updatedAt;
+        }
+    }
+
+    /**
+     * Writes the indexes and header, then replaces {@code target} with the finished file.
+     *
+     * @return the number of users written
+     */
+    public int finish() throws IOException {
+        if (finished) {
+            throw new IllegalStateException("Snapshot already finished");
+        }
+        finished = true;
+        int idIndexAt = checkedOffset(position);
+        for (int i = 0; i < count; i++) {
+            out.writeLong(ids[i]);
+            out.writeInt(offsets[i]);
+        }
+        position += (long) count * ID_ENTRY_BYTES;
+
+        int slots = hashSlots(count);
+        int usernameIndexAt = checkedOffset(position);
+        writeHashIndex(usernameHashes, slots);
+        int emailIndexAt = checkedOffset(position);
+        writeHashIndex(emailHashes, slots);
+        checkedOffset(position);
+        out.close();
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC_AT, MAGIC)
+                .putInt(VERSION_AT, VERSION)
+                .putInt(USER_COUNT_AT, count)
+                .putInt(HASH_SLOTS_AT, slots)
+                .putLong(CREATED_AT, System.currentTimeMillis())
+                .putLong(LAST_MODIFIED_SECONDS_AT, lastModified == null ? 0 : lastModified.getEpochSecond())
+                .putInt(LAST_MODIFIED_NANOS_AT, lastModified == null ? NULL_NANOS : lastModified.getNano())
+                .putInt(CHECKSUM_AT, (int) checksum.getValue())
+                .putInt(ID_INDEX_AT, idIndexAt)
+                .putInt(USERNAME_INDEX_AT, usernameIndexAt)
+                .putInt(EMAIL_INDEX_AT, emailIndexAt);
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+            channel.write(header, 0);
+            channel.force(true);
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return count;
+    }
+
+    /**
+     * Discards the partial file unless {@link #finish()} completed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (!finished) {
+            finished = true;
+            out.close();
+        }
+        Files.deleteIfExists(temporary);
+    }
+
+    private void writeHashIndex(int[] hashes, int slots) throws IOException {
+        int[] table = new int[slots * 2];
+        int mask = slots - 1;
+        for (int i = 0; i < count; i++) {
+            int slot = hashes[i] & mask;
+            while (table[slot * 2 + 1] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot * 2] = hashes[i];
+            table[slot * 2 + 1] = offsets[i];
+        }
+        for (int value : table) {
+            out.writeInt(value);
+        }
+        position += (long) slots * HASH_ENTRY_BYTES;
+    }
+
+    private void writeString(byte[] utf8) throws IOException {
+        if (utf8 == null) {
+            out.writeShort(NULL_STRING);
+            position += 2;
+            return;
+        }
+        if (utf8.length > MAX_STRING_BYTES) {
+            throw new IllegalArgumentException("Value of " + utf8.length + " bytes is too long for a snapshot");
+        }
+        out.writeShort(utf8.length);
+        out.write(utf8);
+        position += 2 + utf8.length;
+    }
+
+    private void grow() {
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        offsets = Arrays.copyOf(offsets, capacity);
+        usernameHashes = Arrays.copyOf(usernameHashes, capacity);
+        emailHashes = Arrays.copyOf(emailHashes, capacity);
+    }
+
+    private static byte[] bytes(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int checkedOffset(long position) {
+        if (position > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Snapshot exceeds the 2 GB a single mapping can hold");
+        }
+        return (int) position;
+    }
+}
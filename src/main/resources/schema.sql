@@ -1,15 +1,63 @@
+DROP TABLE IF EXISTS user_events;
+DROP TABLE IF EXISTS user_event_log;
+DROP SEQUENCE IF EXISTS user_events_seq;
+DROP TABLE IF EXISTS user_directory;
 DROP TABLE IF EXISTS users;
+DROP SEQUENCE IF EXISTS users_seq;
+
+-- Ids are allocated in blocks of 50 (pooled-lo): each NEXT VALUE hands out [value, value + 49].
+-- Seed rows below use explicit ids, so the sequence starts past them.
+CREATE SEQUENCE users_seq START WITH 51 INCREMENT BY 50;
+
 CREATE TABLE users (
-    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    id BIGINT PRIMARY KEY,
     username VARCHAR(255) NOT NULL UNIQUE,
     password VARCHAR(255) NOT NULL,
     email VARCHAR(255) NOT NULL UNIQUE,
     name VARCHAR(255),
     location VARCHAR(255),
-    date_joined DATE
+    date_joined DATE,
+    version BIGINT DEFAULT 0 NOT NULL,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL
+);
+
+-- Collection-level ETag for GET /users: count(*) and max(updated_at)
+CREATE INDEX idx_users_updated_at ON users (updated_at);
+
+INSERT INTO users (id, username, password, email, name, location, date_joined) VALUES
+(1, 'jdoe', 'password123', 'jdoe@example.com', 'John Doe', 'New York', '2024-06-01'),
+(2, 'asmith', 'securepass', 'asmith@example.com', 'Alice Smith', 'Los Angeles', '2024-07-15'),
+(3, 'bwayne', 'darkknight', 'bwayne@example.com', 'Bruce Wayne', 'Gotham', '2024-05-10');
+
+-- Change-feed outbox: one row per user change, written in the same transaction as the user.
+-- log_position, the consumer offset, is null until the committed row is sequenced.
+CREATE SEQUENCE user_events_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE user_events (
+    id BIGINT PRIMARY KEY,
+    log_position BIGINT UNIQUE,
+    type VARCHAR(16) NOT NULL,
+    user_id BIGINT NOT NULL,
+    payload CLOB NOT NULL,
+    created_at TIMESTAMP NOT NULL
 );
 
-INSERT INTO users (username, password, email, name, location, date_joined) VALUES
-('jdoe', 'password123', 'jdoe@example.com', 'John Doe', 'New York', '2024-06-01'),
-('asmith', 'securepass', 'asmith@example.com', 'Alice Smith', 'Los Angeles', '2024-07-15'),
-('bwayne', 'darkknight', 'bwayne@example.com', 'Bruce Wayne', 'Gotham', '2024-05-10');
\ No newline at end of file
+-- Retention pruning deletes by age
+CREATE INDEX idx_user_events_created_at ON user_events (created_at);
+
+-- Last log position handed out. Sequencers lock this row, so positions follow commit order.
+CREATE TABLE user_event_log (
+    id INT PRIMARY KEY,
+    head BIGINT NOT NULL
+);
+
+INSERT INTO user_event_log (id, head) VALUES (1, 0);
+
+-- Shard directory (user.sharding.enabled=true): where each sharded user lives. Assigns ids from
+-- users_seq and keeps usernames and emails unique across shards.
+CREATE TABLE user_directory (
+    id BIGINT PRIMARY KEY,
+    username VARCHAR(255) NOT NULL UNIQUE,
+    email VARCHAR(255) NOT NULL UNIQUE,
+    shard VARCHAR(64) NOT NULL
+);
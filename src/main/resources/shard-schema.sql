@@ -0,0 +1,15 @@
+-- Users table of one shard (user.sharding.shards[n].init-script). Same columns as users in schema.sql;
+-- ids are assigned by user_directory in the primary database, so there is no sequence here.
+CREATE TABLE IF NOT EXISTS users (
+    id BIGINT PRIMARY KEY,
+    username VARCHAR(255) NOT NULL UNIQUE,
+    password VARCHAR(255) NOT NULL,
+    email VARCHAR(255) NOT NULL UNIQUE,
+    name VARCHAR(255),
+    location VARCHAR(255),
+    date_joined DATE,
+    version BIGINT DEFAULT 0 NOT NULL,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_users_updated_at ON users (updated_at);
@@ -0,0 +1,92 @@
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+import ch.qos.logback.core.spi.FilterReply;
+import com.eventmaster.logging.LogSamplingFilter;
+import com.eventmaster.logging.MeteredAsyncAppender;
+import com.eventmaster.logging.RequestSamplingTurboFilter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LogPipelineTest {
+    private final LoggerContext loggerContext = new LoggerContext();
+    private final RequestSamplingTurboFilter turboFilter = new RequestSamplingTurboFilter();
+
+    @AfterEach
+    public void cleanup(){
+        MDC.clear();
+        loggerContext.stop();
+    }
+
+    private FilterReply decide(Level level){
+        return turboFilter.decide(null, loggerContext.getLogger("com.eventmaster.service.UserService"), level, "msg", null, null);
+    }
+
+    private ILoggingEvent event(Level level){
+        return new LoggingEvent("test", loggerContext.getLogger("test"), level, "msg", null, null);
+    }
+
+    @Test
+    public void testUnsampledRequestDropsInfoButKeepsWarnings(){
+        MDC.put(LogSamplingFilter.MDC_KEY, "false");
+
+        assertEquals(FilterReply.DENY, decide(Level.INFO));
+        assertEquals(FilterReply.DENY, decide(Level.DEBUG));
+        assertEquals(FilterReply.NEUTRAL, decide(Level.WARN));
+        assertEquals(FilterReply.NEUTRAL, decide(Level.ERROR));
+    }
+
+    @Test
+    public void testOutsideRequestNothingIsFiltered(){
+        assertEquals(FilterReply.NEUTRAL, decide(Level.INFO));
+        assertEquals(FilterReply.NEUTRAL, decide(Level.DEBUG));
+    }
+
+    @Test
+    public void testFullQueueDropsAndCounts() throws Exception {
+        CountDownLatch consuming = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AppenderBase<ILoggingEvent> slow = new AppenderBase<ILoggingEvent>() {
+            @Override
+            protected void append(ILoggingEvent event) {
+                consuming.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        slow.setContext(loggerContext);
+        slow.start();
+
+        MeteredAsyncAppender appender = new MeteredAsyncAppender();
+        appender.setContext(loggerContext);
+        appender.setQueueSize(4);
+        appender.setDiscardingThreshold(0);
+        appender.setNeverBlock(true);
+        appender.setFlushIntervalMillis(0);
+        appender.addAppender(slow);
+        appender.start();
+
+        // The worker takes the first event and blocks in the slow appender; the queue holds four more
+        appender.doAppend(event(Level.ERROR));
+        consuming.await();
+        for (int i = 0; i < 6; i++) {
+            appender.doAppend(event(Level.ERROR));
+        }
+
+        assertEquals(7, appender.getAppendedCount());
+        assertEquals(2, appender.getDroppedCount());
+        assertEquals(4, appender.getNumberOfElementsInQueue());
+        release.countDown();
+        appender.stop();
+    }
+}
@@ -0,0 +1,116 @@
+import com.eventmaster.exception.ServiceOverloadedException;
+import com.eventmaster.password.PasswordHasher;
+import com.eventmaster.password.PasswordHasher.Verification;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PasswordHasherTest {
+
+    private final List<PasswordHasher> hashers = new ArrayList<>();
+
+    @AfterEach
+    public void tearDown() {
+        hashers.forEach(PasswordHasher::shutdown);
+    }
+
+    private PasswordHasher hasher(int cost, int threads, int queueSize) {
+        PasswordHasher hasher = new PasswordHasher(cost, 100, 4, threads, queueSize);
+        hashers.add(hasher);
+        return hasher;
+    }
+
+    @Test
+    public void testHashVerifiesAndIsNotThePassword() {
+        PasswordHasher hasher = hasher(4, 1, 16);
+
+        String hash = hasher.hash("s3cret");
+
+        assertNotEquals("s3cret", hash);
+        assertTrue(PasswordHasher.isHash(hash));
+        assertTrue(hash.startsWith("$2a$04$"), hash);
+        assertTrue(hasher.verify("s3cret", hash).matches());
+        assertNull(hasher.verify("s3cret", hash).getRehash());
+        assertFalse(hasher.verify("S3cret", hash).matches());
+        assertEquals(1, hasher.hashCount());
+        assertEquals(3, hasher.verifyCount());
+    }
+
+    @Test
+    public void testExistingHashesArePassedThroughOnlyWhenAsked() {
+        PasswordHasher hasher = hasher(4, 1, 16);
+        String hash = hasher.hash("s3cret");
+
+        // A password that looks like a hash is still a password
+        String hashOfHash = hasher.hash(hash);
+        assertNotEquals(hash, hashOfHash);
+        assertTrue(hasher.verify(hash, hashOfHash).matches());
+        assertNotEquals(hash, hasher.hashAll(List.of(hash), false).get(0));
+
+        List<String> hashes = hasher.hashAll(List.of(hash, "imported"), true);
+        assertSame(hash, hashes.get(0));
+        assertTrue(hasher.verify("imported", hashes.get(1)).matches());
+        assertEquals(4, hasher.hashCount());
+    }
+
+    @Test
+    public void testPlaintextAndOtherCostsAreRehashed() {
+        PasswordHasher hasher = hasher(5, 1, 16);
+        String oldHash = hasher(4, 1, 16).hash("s3cret");
+
+        Verification plaintext = hasher.verify("s3cret", "s3cret");
+        assertTrue(plaintext.matches());
+        assertTrue(plaintext.getRehash().startsWith("$2a$05$"));
+        assertTrue(hasher.verify("s3cret", plaintext.getRehash()).matches());
+
+        Verification cheaper = hasher.verify("s3cret", oldHash);
+        assertTrue(cheaper.matches());
+        assertTrue(cheaper.getRehash().startsWith("$2a$05$"));
+
+        assertFalse(hasher.verify("wrong", "s3cret").matches());
+        assertNull(hasher.verify("wrong", oldHash).getRehash());
+        assertEquals(2, hasher.rehashCount());
+    }
+
+    @Test
+    public void testUnknownUserIsVerifiedAgainstADummyHash() {
+        PasswordHasher hasher = hasher(4, 1, 16);
+
+        assertFalse(hasher.verify("s3cret", null).matches());
+        assertFalse(hasher.verify(null, "s3cret").matches());
+        // The miss did the same bcrypt work as a wrong password would have
+        assertEquals(1, hasher.verifyCount());
+    }
+
+    @Test
+    public void testFullQueueIsRejectedAtOnce() {
+        // Cost 12 keeps the only thread busy for tens of milliseconds while the queue fills
+        PasswordHasher hasher = hasher(12, 1, 1);
+
+        CompletableFuture<String> running = hasher.hashAsync("first");
+        CompletableFuture<String> queued = hasher.hashAsync("second");
+        CompletableFuture<String> rejected = hasher.hashAsync("third");
+
+        CompletionException e = assertThrows(CompletionException.class, rejected::join);
+        assertTrue(e.getCause() instanceof ServiceOverloadedException);
+        assertTrue(PasswordHasher.isHash(running.join()));
+        assertTrue(PasswordHasher.isHash(queued.join()));
+        assertEquals(1, hasher.rejectedCount());
+    }
+
+    @Test
+    public void testCalibrationKeepsTheMinimumCost() {
+        // No cost is fast enough for a zero target, so the floor applies
+        PasswordHasher hasher = new PasswordHasher(0, 0, 6, 1, 16);
+        hashers.add(hasher);
+
+        assertEquals(6, hasher.getCost());
+        assertThrows(IllegalArgumentException.class, () -> new PasswordHasher(3, 100, 4, 1, 16));
+    }
+}
@@ -0,0 +1,153 @@
+import com.eventmaster.exception.RateLimitExceededException;
+import com.eventmaster.ratelimit.AdaptiveConcurrencyLimiter;
+import com.eventmaster.ratelimit.RateLimitInterceptor;
+import com.eventmaster.ratelimit.RateLimitProperties;
+import com.eventmaster.ratelimit.RateLimiter;
+import com.eventmaster.ratelimit.TokenBucket;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RateLimitTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    public void testTokenBucketAllowsBurstThenRefillsAtRate() {
+        TokenBucket bucket = new TokenBucket(3, 10, 0);
+
+        assertEquals(0, bucket.tryAcquire(0));
+        assertEquals(0, bucket.tryAcquire(0));
+        assertEquals(0, bucket.tryAcquire(0));
+        assertEquals(100 * MS, bucket.tryAcquire(0));
+
+        assertEquals(0, bucket.available(50 * MS));
+        assertEquals(0, bucket.tryAcquire(100 * MS));
+        assertEquals(3, bucket.available(10_000 * MS));
+    }
+
+    @Test
+    public void testTokenBucketHandsOutExactlyCapacityUnderContention() throws Exception {
+        TokenBucket bucket = new TokenBucket(1_000, 0.001, 0);
+        AtomicInteger granted = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch done = new CountDownLatch(8);
+        for (int t = 0; t < 8; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < 500; i++) {
+                    if (bucket.tryAcquire(0) == 0) {
+                        granted.incrementAndGet();
+                    }
+                }
+                done.countDown();
+            });
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        executor.shutdown();
+
+        assertEquals(1_000, granted.get());
+    }
+
+    @Test
+    public void testRateLimiterKeepsClientsApartAndSharesTotal() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setPerClient(new RateLimitProperties.Limit(2, 0.001));
+        RateLimitProperties.Endpoint create = new RateLimitProperties.Endpoint();
+        create.setMethod("POST");
+        create.setPath("/users");
+        create.setTotal(new RateLimitProperties.Limit(3, 0.001));
+        properties.setEndpoints(List.of(create));
+        RateLimiter limiter = new RateLimiter(properties);
+
+        assertEquals(0, limiter.tryAcquire("GET", "/users/{id}", "a"));
+        assertEquals(0, limiter.tryAcquire("GET", "/users/{id}", "a"));
+        assertTrue(limiter.tryAcquire("GET", "/users/{id}", "a") > 0);
+        assertEquals(0, limiter.tryAcquire("GET", "/users/{id}", "b"));
+        assertEquals(0, limiter.tryAcquire("GET", "/users/by-username/{username}", "a"));
+
+        assertEquals(0, limiter.tryAcquire("POST", "/users", "a"));
+        assertEquals(0, limiter.tryAcquire("POST", "/users", "b"));
+        assertEquals(0, limiter.tryAcquire("POST", "/users", "c"));
+        assertTrue(limiter.tryAcquire("POST", "/users", "d") > 0);
+    }
+
+    @Test
+    public void testClientHeaderIsOnlyBelievedFromTrustedProxies() throws Exception {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setPerClient(new RateLimitProperties.Limit(1, 0.001));
+        RateLimitInterceptor interceptor = new RateLimitInterceptor(new RateLimiter(properties), "X-Client-Id",
+                Set.of("10.0.0.1"));
+        HandlerMethod handler = new HandlerMethod(new Object(), Object.class.getMethod("toString"));
+
+        // Through the gateway, each client has its own bucket
+        assertTrue(interceptor.preHandle(authenticate("10.0.0.1", "a"), new MockHttpServletResponse(), handler));
+        assertTrue(interceptor.preHandle(authenticate("10.0.0.1", "b"), new MockHttpServletResponse(), handler));
+
+        // From anywhere else a new header value does not buy a new bucket
+        assertTrue(interceptor.preHandle(authenticate("10.0.0.9", "c"), new MockHttpServletResponse(), handler));
+        assertThrows(RateLimitExceededException.class,
+                () -> interceptor.preHandle(authenticate("10.0.0.9", "d"), new MockHttpServletResponse(), handler));
+    }
+
+    private static MockHttpServletRequest authenticate(String remoteAddress, String client) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/users/authenticate");
+        request.setRemoteAddr(remoteAddress);
+        request.addHeader("X-Client-Id", client);
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/users/authenticate");
+        return request;
+    }
+
+    @Test
+    public void testConcurrencyLimitShrinksWhenLatencyRisesAndGrowsWhenSaturated() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 2, 100, 100 * MS, 0);
+        long now = 0;
+
+        // Saturated at steady latency: the limit grows
+        now = window(limiter, now, 10, MS);
+        now = window(limiter, now, 10, MS);
+        int grown = limiter.getLimit();
+        assertTrue(grown > 10, "limit " + grown);
+
+        // Latency jumps tenfold: the limit shrinks
+        now = window(limiter, now, grown, 10 * MS);
+        now = window(limiter, now, grown, 10 * MS);
+        assertTrue(limiter.getLimit() < grown, "limit " + limiter.getLimit());
+
+        // Over the limit: rejected right away
+        long rejectedBefore = limiter.getRejected();
+        int admitted = 0;
+        while (limiter.tryAcquire()) {
+            admitted++;
+        }
+        assertEquals(limiter.getLimit(), admitted);
+        assertEquals(rejectedBefore + 1, limiter.getRejected());
+    }
+
+    // Fills the limiter with the given number of requests, then completes them at the end of a window
+    private static long window(AdaptiveConcurrencyLimiter limiter, long start, int requests, long latency) {
+        int admitted = 0;
+        for (int i = 0; i < requests && limiter.tryAcquire(); i++) {
+            admitted++;
+        }
+        long end = start + 100 * MS;
+        for (int i = 0; i < Math.max(admitted, 10); i++) {
+            if (i >= admitted) {
+                limiter.tryAcquire();
+            }
+            limiter.release(latency, i == Math.max(admitted, 10) - 1 ? end : start);
+        }
+        return end;
+    }
+}
@@ -0,0 +1,119 @@
+import com.eventmaster.cache.UserMembershipIndex;
+import com.eventmaster.exception.DuplicateUserException;
+import com.eventmaster.exception.InvalidRequestException;
+import com.eventmaster.exception.UserNotFoundException;
+import com.eventmaster.model.User;
+import com.eventmaster.repository.ReactiveUserRepository;
+import com.eventmaster.service.ReactiveUserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ReactiveUserServiceTest {
+
+    @Mock
+    private ReactiveUserRepository userRepository;
+
+    @Mock
+    private R2dbcEntityTemplate entityTemplate;
+
+    @Mock
+    private TransactionalOperator transactionalOperator;
+
+    @Mock
+    private UserMembershipIndex membershipIndex;
+
+    private ReactiveUserService userService;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        userService = new ReactiveUserService(userRepository, entityTemplate, transactionalOperator, new ObjectMapper());
+    }
+
+    @Test
+    public void testUserNotFoundByUsername() {
+        when(userRepository.findByUsername("missing")).thenReturn(Mono.empty());
+
+        UserNotFoundException e = assertThrows(UserNotFoundException.class,
+                () -> userService.findByUsername("missing").block());
+        assertEquals("User not found with username: missing", e.getMessage());
+    }
+
+    @Test
+    public void testFindByIdCompletesEmptyWhenMissing() {
+        when(userRepository.findById(42L)).thenReturn(Mono.empty());
+
+        assertNull(userService.findById(42L).block());
+    }
+
+    @Test
+    public void testStreamUsersFetchesNextPageOnlyAfterFullPage() {
+        ReflectionTestUtils.setField(userService, "maxPageSize", 2);
+        when(userRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, 2)))
+                .thenReturn(Flux.just(user(1L), user(2L)));
+        when(userRepository.findByIdGreaterThanOrderByIdAsc(2L, PageRequest.of(0, 2)))
+                .thenReturn(Flux.just(user(3L)));
+
+        List<Long> ids = userService.streamUsers(0L).map(User::getId).collectList().block();
+
+        assertEquals(List.of(1L, 2L, 3L), ids);
+    }
+
+    @Test
+    public void testStreamUsersHonoursDemand() {
+        ReflectionTestUtils.setField(userService, "maxPageSize", 2);
+        when(userRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, 2)))
+                .thenReturn(Flux.just(user(1L), user(2L)));
+        when(userRepository.findByIdGreaterThanOrderByIdAsc(2L, PageRequest.of(0, 2)))
+                .thenReturn(Flux.just(user(3L), user(4L)));
+
+        List<Long> ids = userService.streamUsers(0L).take(2, true).map(User::getId).collectList().block();
+
+        // One page of look-ahead at most
+        assertEquals(List.of(1L, 2L), ids);
+        verify(userRepository, never()).findByIdGreaterThanOrderByIdAsc(4L, PageRequest.of(0, 2));
+    }
+
+    @Test
+    public void testSearchRejectsBlankPrefix() {
+        assertThrows(InvalidRequestException.class, () -> userService.searchUsers(" ", null).blockFirst());
+    }
+
+    @Test
+    public void testKnownDuplicateRejectedBeforeInsert() {
+        ReflectionTestUtils.setField(userService, "membershipIndex", membershipIndex);
+        User user = new User("taken", "password123", "taken@example.com", "Taken", "Austin, TX");
+        when(membershipIndex.containsUsername("taken")).thenReturn(true);
+        when(userRepository.existsByUsername("taken")).thenReturn(Mono.just(true));
+        when(userRepository.nextId()).thenReturn(Mono.just(1L));
+        when(transactionalOperator.transactional(ArgumentMatchers.<Mono<Object>>any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        DuplicateUserException e = assertThrows(DuplicateUserException.class, () -> userService.saveUser(user).block());
+        assertEquals(UserMembershipIndex.USERNAME, e.getField());
+        verify(entityTemplate, never()).insert(any(User.class));
+    }
+
+    private static User user(long id) {
+        User user = new User("user" + id, "password123", "user" + id + "@example.com", "User " + id, "Austin, TX");
+        user.setId(id);
+        return user;
+    }
+}
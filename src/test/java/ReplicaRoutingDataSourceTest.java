@@ -0,0 +1,91 @@
+import com.eventmaster.datasource.ReadYourWritesTracker;
+import com.eventmaster.datasource.Replica;
+import com.eventmaster.datasource.ReplicaRoutingDataSource;
+import com.eventmaster.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReplicaRoutingDataSourceTest {
+    private Replica replica;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate readOnly;
+    private TransactionTemplate readWrite;
+
+    @BeforeEach
+    public void setup(){
+        // Two separate databases, each answering "which one am I?"
+        DataSource primary = database("primary");
+        replica = new Replica("replica-0", database("replica"));
+        DataSource routing = new LazyConnectionDataSourceProxy(
+                new ReplicaRoutingDataSource(primary, List.of(replica)));
+        jdbc = new JdbcTemplate(routing);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(routing);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readWrite = new TransactionTemplate(transactionManager);
+    }
+
+    private static DataSource database(String role){
+        DataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + role + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE node (role VARCHAR(16))");
+        jdbc.update("INSERT INTO node VALUES (?)", role);
+        return dataSource;
+    }
+
+    private String role(){
+        return jdbc.queryForObject("SELECT role FROM node", String.class);
+    }
+
+    @Test
+    public void testReadOnlyTransactionsUseReplicaAndOthersPrimary(){
+        assertEquals("replica", readOnly.execute(status -> role()));
+        assertEquals("primary", readWrite.execute(status -> role()));
+        assertEquals("primary", role());
+        assertEquals(1, replica.getRoutedCount());
+    }
+
+    @Test
+    public void testOnPrimaryAndUnhealthyReplicaFallBackToPrimary(){
+        assertEquals("primary", readOnly.execute(status -> ReplicaRoutingDataSource.onPrimary(this::role)));
+
+        replica.setHealthy(false);
+        assertEquals("primary", readOnly.execute(status -> role()));
+        replica.setHealthy(true);
+        assertEquals("replica", readOnly.execute(status -> role()));
+    }
+
+    @Test
+    public void testReadYourWritesTrackerForgetsWritesAfterWindow() throws InterruptedException {
+        ReadYourWritesTracker tracker = new ReadYourWritesTracker(Duration.ofMillis(200));
+        assertFalse(tracker.anyRecentWrite());
+
+        User user = new User();
+        user.setId(7L);
+        user.setUsername("jdoe");
+        user.setEmail("jdoe@example.com");
+        tracker.recordWrite(user);
+        assertTrue(tracker.anyRecentWrite());
+        assertTrue(tracker.isRecentlyWritten(ReadYourWritesTracker.idKey(7L)));
+        assertTrue(tracker.isRecentlyWritten(ReadYourWritesTracker.usernameKey("jdoe")));
+        assertTrue(tracker.isRecentlyWritten(ReadYourWritesTracker.emailKey("jdoe@example.com")));
+        assertFalse(tracker.isRecentlyWritten(ReadYourWritesTracker.idKey(8L)));
+
+        Thread.sleep(300);
+        assertFalse(tracker.anyRecentWrite());
+        assertFalse(tracker.isRecentlyWritten(ReadYourWritesTracker.idKey(7L)));
+    }
+}
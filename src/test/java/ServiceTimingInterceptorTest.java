@@ -0,0 +1,59 @@
+import com.eventmaster.metrics.ServiceTimingInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ServiceTimingInterceptorTest {
+    private MeterRegistry registry;
+    private Greeter greeter;
+
+    public static class Greeter {
+        public String greet(String name){
+            if (name == null) {
+                throw new IllegalArgumentException("name is required");
+            }
+            return "Hello " + name;
+        }
+    }
+
+    @BeforeEach
+    public void setup(){
+        registry = new SimpleMeterRegistry();
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton("registry", registry);
+
+        ProxyFactory proxyFactory = new ProxyFactory(new Greeter());
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvice(new ServiceTimingInterceptor(beanFactory.getBeanProvider(MeterRegistry.class)));
+        greeter = (Greeter) proxyFactory.getProxy();
+    }
+
+    private Timer timer(String exception){
+        return registry.find(ServiceTimingInterceptor.METRIC_NAME)
+                .tags("class", "Greeter", "method", "greet", "exception", exception)
+                .timer();
+    }
+
+    @Test
+    public void testSuccessfulCallsShareOneTimer(){
+        assertEquals("Hello asmith", greeter.greet("asmith"));
+        greeter.greet("jdoe");
+
+        assertNotNull(timer("none"));
+        assertEquals(2, timer("none").count());
+    }
+
+    @Test
+    public void testFailureRecordedUnderExceptionTag(){
+        assertThrows(IllegalArgumentException.class, () -> greeter.greet(null));
+
+        assertNull(timer("none"));
+        assertEquals(1, timer("IllegalArgumentException").count());
+    }
+}
@@ -0,0 +1,175 @@
+import com.eventmaster.model.User;
+import com.eventmaster.sharding.ConsistentHashRing;
+import com.eventmaster.sharding.ShardRebalancer;
+import com.eventmaster.sharding.ShardedUserStore;
+import com.eventmaster.sharding.UserDirectoryEntry;
+import com.eventmaster.sharding.UserDirectoryRepository;
+import com.eventmaster.sharding.UserShard;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ShardedUserStoreTest {
+    @Mock
+    private UserDirectoryRepository directory;
+
+    private final List<UserShard> shards = new ArrayList<>();
+
+    @BeforeEach
+    public void setup(){
+        MockitoAnnotations.openMocks(this);
+        for (int i = 0; i < 3; i++) {
+            DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                    "jdbc:h2:mem:shard-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+            DatabasePopulatorUtils.execute(new ResourceDatabasePopulator(new ClassPathResource("shard-schema.sql")), dataSource);
+            shards.add(new UserShard("shard-" + i, dataSource));
+        }
+    }
+
+    @AfterEach
+    public void teardown(){
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private ShardedUserStore store(int shardCount){
+        return new ShardedUserStore(shards.subList(0, shardCount), 64, directory, Runnable::run);
+    }
+
+    private static User user(long id){
+        User user = new User("user" + id, "password", "user" + id + "@example.com", "User " + id, "Austin, TX",
+                LocalDate.of(2024, 1, 1));
+        user.setId(id);
+        user.setVersion(0L);
+        user.setUpdatedAt(Instant.parse("2024-01-01T00:00:00Z"));
+        return user;
+    }
+
+    // Writes users straight to the shard the ring assigns, as ShardedUserStore#insert would
+    private void seed(ShardedUserStore store, int count){
+        for (long id = 1; id <= count; id++) {
+            User user = user(id);
+            store.getShard(store.getRing().shardFor(user.getUsername())).insert(user);
+        }
+    }
+
+    @Test
+    public void testAddingShardOnlyMovesKeysToNewShard(){
+        ConsistentHashRing two = new ConsistentHashRing(List.of("shard-0", "shard-1"), 64);
+        ConsistentHashRing three = new ConsistentHashRing(List.of("shard-0", "shard-1", "shard-2"), 64);
+        int moved = 0;
+        for (int i = 0; i < 10_000; i++) {
+            String key = "user" + i;
+            String before = two.shardFor(key);
+            String after = three.shardFor(key);
+            if (!before.equals(after)) {
+                assertEquals("shard-2", after);
+                moved++;
+            }
+        }
+        // About a third of the keys, nowhere near the two thirds a modulo hash would move
+        assertTrue(moved > 2_000 && moved < 4_700, "moved " + moved);
+    }
+
+    @Test
+    public void testScatterGatherMergesShardsInIdOrder(){
+        ShardedUserStore store = store(3);
+        seed(store, 30);
+        for (UserShard shard : shards) {
+            assertTrue(shard.findCollectionVersion().getCount() > 0, shard.getName() + " is empty");
+        }
+
+        List<Long> ids = store.findAll().stream().map(User::getId).collect(Collectors.toList());
+        assertEquals(30, ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals(i + 1, ids.get(i));
+        }
+        assertEquals(List.of(11L, 12L, 13L), store.findPage(10, 3).stream().map(User::getId).collect(Collectors.toList()));
+        assertEquals(30, store.findCollectionVersion().getCount());
+        assertEquals("user7", store.findByUsername("user7").orElseThrow().getUsername());
+    }
+
+    @Test
+    public void testInsertIsUndoneWhenPrimaryTransactionRollsBack(){
+        ShardedUserStore store = store(3);
+        UserDirectoryEntry entry = new UserDirectoryEntry("user99", "user99@example.com", "shard-0");
+        ReflectionTestUtils.setField(entry, "id", 1L);
+        when(directory.saveAndFlush(any())).thenReturn(entry);
+
+        TransactionSynchronizationManager.initSynchronization();
+        User saved = store.insert(user(99));
+        assertEquals(1L, saved.getId());
+        assertTrue(store.findByUsername("user99").isPresent());
+
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+        assertFalse(store.findByUsername("user99").isPresent());
+    }
+
+    @Test
+    public void testPasswordIsOnlyReplacedWhileUnchanged(){
+        ShardedUserStore store = store(3);
+        seed(store, 1);
+        String shard = store.getRing().shardFor("user1");
+        UserDirectoryEntry entry = new UserDirectoryEntry("user1", "user1@example.com", shard);
+        ReflectionTestUtils.setField(entry, "id", 1L);
+        when(directory.findById(1L)).thenReturn(Optional.of(entry));
+
+        User updated = store.updatePassword(1L, "password", "$2a$10$hash").orElseThrow();
+        assertEquals("$2a$10$hash", updated.getPassword());
+        assertEquals(1L, updated.getVersion());
+        assertTrue(updated.getUpdatedAt().isAfter(Instant.parse("2024-01-01T00:00:00Z")));
+
+        // A concurrent change wins: the stale expected value matches nothing
+        assertFalse(store.updatePassword(1L, "password", "$2a$10$other").isPresent());
+        assertEquals("$2a$10$hash", store.getShard(shard).findById(1L).orElseThrow().getPassword());
+    }
+
+    @Test
+    public void testRebalanceMovesUsersOntoAddedShard(){
+        seed(store(2), 200);
+        when(directory.findById(anyLong())).thenReturn(Optional.empty());
+
+        ShardedUserStore grown = store(3);
+        Map<String, Long> moved = new ShardRebalancer(grown, 50).rebalance();
+
+        long total = moved.values().stream().mapToLong(Long::longValue).sum();
+        assertEquals(0L, moved.get("shard-2"));
+        assertEquals(total, shards.get(2).findCollectionVersion().getCount());
+        assertTrue(total > 0);
+        for (User user : grown.findAll()) {
+            String owner = grown.getRing().shardFor(user.getUsername());
+            assertTrue(grown.getShard(owner).findById(user.getId()).isPresent());
+        }
+        assertEquals(200, grown.findAll().size());
+        User movedUser = shards.get(2).findPage(0, 1).get(0);
+        verify(directory).updateShard(eq(movedUser.getId()), eq("shard-2"));
+    }
+}
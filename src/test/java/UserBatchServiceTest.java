@@ -0,0 +1,142 @@
+import com.eventmaster.exception.DuplicateUserException;
+import com.eventmaster.model.BatchCreateResult;
+import com.eventmaster.model.BatchCreateResult.Status;
+import com.eventmaster.model.User;
+import com.eventmaster.repository.UserRepository;
+import com.eventmaster.service.UserBatchService;
+import com.eventmaster.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+public class UserBatchServiceTest {
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private EntityManager entityManager;
+
+    private UserBatchService userBatchService;
+
+    @BeforeEach
+    public void setup(){
+        MockitoAnnotations.openMocks(this);
+        userBatchService = new UserBatchService(userRepository, userService,
+                new TransactionTemplate(transactionManager), entityManager, 2, 5);
+    }
+
+    private static User user(String username, String email){
+        return new User(username, "password", email, "Name", "Austin, TX");
+    }
+
+    @Test
+    public void testRowsAreReportedIndividually(){
+        when(userRepository.findExistingUsernames(anyCollection())).thenReturn(List.of("jdoe"));
+        List<User> input = List.of(
+                user("new1", "new1@example.com"),
+                user("jdoe", "other@example.com"),
+                user("new2", "new1@example.com"),
+                new User("nopass", null, "nopass@example.com", "Name", "Austin, TX"));
+
+        BatchCreateResult result = userBatchService.createUsers(input.iterator(), false);
+
+        assertEquals(4, result.getRows().size());
+        assertEquals(Status.CREATED, result.getRows().get(0).getStatus());
+        assertEquals(Status.CONFLICT, result.getRows().get(1).getStatus());
+        assertEquals("username", result.getRows().get(1).getField());
+        // Different chunk from new1, so the collision is found by the database pre-check
+        assertEquals(Status.CREATED, result.getRows().get(2).getStatus());
+        assertEquals(Status.INVALID, result.getRows().get(3).getStatus());
+        assertEquals(2, result.getCreated());
+        assertEquals(2, result.getFailed());
+    }
+
+    @Test
+    public void testDuplicatesWithinChunkAreRejected(){
+        List<User> input = List.of(user("same", "a@example.com"), user("same", "b@example.com"));
+
+        BatchCreateResult result = userBatchService.createUsers(input.iterator(), false);
+
+        assertEquals(Status.CREATED, result.getRows().get(0).getStatus());
+        assertEquals(Status.CONFLICT, result.getRows().get(1).getStatus());
+        assertEquals("username", result.getRows().get(1).getField());
+    }
+
+    @Test
+    public void testRacingInsertFallsBackToRowByRow(){
+        User first = user("first", "first@example.com");
+        User second = user("second", "second@example.com");
+        when(userRepository.saveAll(any())).thenThrow(new DataIntegrityViolationException("duplicate"));
+        when(userService.saveUser(second, true)).thenThrow(new DuplicateUserException("email", second.getEmail()));
+
+        BatchCreateResult result = userBatchService.createUsers(List.of(first, second).iterator(), false);
+
+        assertEquals(Status.CREATED, result.getRows().get(0).getStatus());
+        assertEquals(Status.CONFLICT, result.getRows().get(1).getStatus());
+        assertEquals("email", result.getRows().get(1).getField());
+        // The rows were hashed before the chunk insert, so the retry keeps those hashes
+        verify(userService).saveUser(first, true);
+    }
+
+    @Test
+    public void testEachCommittedChunkIsDetached(){
+        List<User> input = List.of(user("a", "a@example.com"), user("b", "b@example.com"), user("c", "c@example.com"));
+
+        userBatchService.createUsers(input.iterator(), false);
+
+        verify(userRepository, times(2)).flush();
+        verify(entityManager, times(2)).clear();
+    }
+
+    @Test
+    public void testOversizedBatchIsTruncatedAtTheLimit(){
+        List<User> input = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            input.add(user("user" + i, "user" + i + "@example.com"));
+        }
+        Iterator<User> users = input.iterator();
+
+        BatchCreateResult result = userBatchService.createUsers(users, false);
+
+        assertTrue(result.isTruncated());
+        assertEquals(5, result.getRows().size());
+        assertEquals(5, result.getCreated());
+        // Chunks of two: the fifth user went in on its own and the rest was left unread
+        verify(userRepository, times(3)).saveAll(any());
+        assertTrue(users.hasNext());
+    }
+
+    @Test
+    public void testBatchAtTheLimitIsNotTruncated(){
+        List<User> input = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            input.add(user("user" + i, "user" + i + "@example.com"));
+        }
+
+        BatchCreateResult result = userBatchService.createUsers(input.iterator(), false);
+
+        assertFalse(result.isTruncated());
+        assertEquals(5, result.getCreated());
+    }
+}
@@ -0,0 +1,66 @@
+import com.eventmaster.cache.UserCache;
+import com.eventmaster.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UserCacheTest {
+    private UserCache userCache;
+
+    @BeforeEach
+    public void setup(){
+        userCache = new UserCache(100, Duration.ofMinutes(5));
+    }
+
+    private static User user(long id, String username, String email){
+        User user = new User(username, "password", email, "Name", "Austin, TX");
+        user.setId(id);
+        return user;
+    }
+
+    @Test
+    public void testEntryReachableByAllKeys(){
+        User user = user(1L, "asmith", "asmith@example.com");
+        userCache.put(user);
+
+        assertSame(user, userCache.getById(1L).orElseThrow());
+        assertSame(user, userCache.getByUsername("asmith").orElseThrow());
+        assertSame(user, userCache.getByEmail("asmith@example.com").orElseThrow());
+        assertEquals(1, userCache.size());
+    }
+
+    @Test
+    public void testUpdateDropsStaleSecondaryKeys(){
+        userCache.put(user(1L, "asmith", "asmith@example.com"));
+        userCache.put(user(1L, "alice", "asmith@example.com"));
+
+        assertFalse(userCache.getByUsername("asmith").isPresent());
+        assertEquals("alice", userCache.getByUsername("alice").orElseThrow().getUsername());
+        assertTrue(userCache.getByEmail("asmith@example.com").isPresent());
+    }
+
+    @Test
+    public void testInvalidateRemovesSecondaryKeys(){
+        userCache.put(user(1L, "asmith", "asmith@example.com"));
+        userCache.invalidate(1L);
+
+        assertFalse(userCache.getById(1L).isPresent());
+        assertFalse(userCache.getByUsername("asmith").isPresent());
+        assertFalse(userCache.getByEmail("asmith@example.com").isPresent());
+    }
+
+    @Test
+    public void testHitAndMissCounters(){
+        userCache.put(user(1L, "asmith", "asmith@example.com"));
+
+        userCache.getByUsername("asmith");
+        userCache.getByUsername("nobody");
+        userCache.getById(2L);
+
+        assertEquals(1, userCache.hitCount());
+        assertEquals(2, userCache.missCount());
+    }
+}
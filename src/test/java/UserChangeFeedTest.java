@@ -0,0 +1,110 @@
+import com.eventmaster.exception.ChangeOffsetExpiredException;
+import com.eventmaster.model.User;
+import com.eventmaster.model.UserChangeBatch;
+import com.eventmaster.model.UserEvent;
+import com.eventmaster.repository.UserEventRepository;
+import com.eventmaster.service.UserChangeFeed;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class UserChangeFeedTest {
+    @Mock
+    private UserEventRepository eventRepository;
+
+    @Mock
+    private TaskScheduler taskScheduler;
+
+    private UserChangeFeed changeFeed;
+
+    @BeforeEach
+    public void setup(){
+        MockitoAnnotations.openMocks(this);
+        changeFeed = new UserChangeFeed(eventRepository, new ObjectMapper(), taskScheduler);
+    }
+
+    private static UserEvent event(long offset){
+        UserEvent event = new UserEvent(UserEvent.Type.CREATED, offset + 100, "{}");
+        ReflectionTestUtils.setField(event, "id", offset + 50);
+        event.setPosition(offset);
+        return event;
+    }
+
+    @Test
+    public void testAppendEncodesEachUser(){
+        User user = new User("jdoe", "password123", "jdoe@example.com", "John Doe", "New York", null);
+        user.setId(7L);
+
+        changeFeed.append(List.of(user));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<UserEvent>> saved = ArgumentCaptor.forClass(List.class);
+        verify(eventRepository).saveAll(saved.capture());
+        UserEvent event = saved.getValue().get(0);
+        assertEquals(7L, event.getUserId());
+        assertEquals(UserEvent.Type.CREATED, event.getType());
+        assertTrue(event.getPayload().contains("\"username\":\"jdoe\""));
+    }
+
+    @Test
+    public void testLongPollWaitsUntilEventsArrive(){
+        when(eventRepository.findByPositionGreaterThanOrderByPositionAsc(eq(5L), any()))
+                .thenReturn(List.of());
+        DeferredResult<UserChangeBatch> result = changeFeed.poll(5, null, 10_000);
+        assertFalse(result.hasResult());
+        assertEquals(1, changeFeed.getWaiterCount());
+
+        when(eventRepository.findHead()).thenReturn(7L);
+        when(eventRepository.findByPositionGreaterThanOrderByPositionAsc(eq(5L), any()))
+                .thenReturn(List.of(event(6), event(7)));
+        changeFeed.checkWaiters();
+
+        UserChangeBatch batch = (UserChangeBatch) result.getResult();
+        assertEquals(2, batch.getEvents().size());
+        assertEquals(7L, batch.getNextOffset());
+    }
+
+    @Test
+    public void testOffsetsBelowPrunedRangeExpire(){
+        when(eventRepository.findPositionsCreatedBefore(any(), any())).thenReturn(List.of(1L, 2L, 3L));
+        changeFeed.prune();
+        verify(eventRepository).deleteByPositionIn(List.of(1L, 2L, 3L));
+
+        assertThrows(ChangeOffsetExpiredException.class, () -> changeFeed.read(2, null));
+        when(eventRepository.findByPositionGreaterThanOrderByPositionAsc(anyLong(), any()))
+                .thenReturn(List.of());
+        assertEquals(3L, changeFeed.read(3, null).getNextOffset());
+    }
+
+    @Test
+    public void testSequencingContinuesFromTheLockedHead(){
+        // Committed late with a lower id than events already sequenced, it still lands after the head
+        UserEvent late = new UserEvent(UserEvent.Type.CREATED, 101L, "{}");
+        ReflectionTestUtils.setField(late, "id", 2L);
+        UserEvent next = new UserEvent(UserEvent.Type.CREATED, 102L, "{}");
+        ReflectionTestUtils.setField(next, "id", 101L);
+        when(eventRepository.lockHead()).thenReturn(40L);
+        when(eventRepository.findByPositionIsNullOrderByIdAsc(any())).thenReturn(List.of(late, next));
+
+        changeFeed.sequence();
+
+        assertEquals(41L, late.getPosition());
+        assertEquals(42L, next.getPosition());
+        verify(eventRepository).updateHead(42L);
+    }
+}
@@ -0,0 +1,142 @@
+import com.eventmaster.cli.TransferCheckpoint;
+import com.eventmaster.cli.TransferReport;
+import com.eventmaster.cli.UserCsv;
+import com.eventmaster.cli.UserFileFormat;
+import com.eventmaster.cli.UserImporter;
+import com.eventmaster.model.BatchCreateResult;
+import com.eventmaster.model.User;
+import com.eventmaster.service.UserBatchService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class UserImportExportTest {
+
+    @TempDir
+    Path directory;
+
+    private UserBatchService batchService;
+    private final List<String> created = new ArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        batchService = mock(UserBatchService.class);
+        // Every username is new except "taken"
+        when(batchService.createUsers(any(Iterator.class), eq(true))).thenAnswer(invocation -> {
+            Iterator<User> users = invocation.getArgument(0);
+            BatchCreateResult result = new BatchCreateResult();
+            for (int i = 0; users.hasNext(); i++) {
+                User user = users.next();
+                if ("taken".equals(user.getUsername())) {
+                    result.add(BatchCreateResult.Row.conflict(i, user, "username"));
+                } else {
+                    created.add(user.getUsername());
+                    result.add(BatchCreateResult.Row.created(i, user));
+                }
+            }
+            return result;
+        });
+    }
+
+    @Test
+    public void testCsvRoundTripKeepsQuotesNewlinesAndNulls() {
+        User user = new User("jdoe", "pa,ss\"word", "jdoe@example.com", "John\nDoe", null);
+        user.setDateJoined(LocalDate.of(2024, 6, 1));
+        User empty = new User("asmith", "secret", "asmith@example.com", "", null);
+        empty.setDateJoined(null);
+
+        StringBuilder out = new StringBuilder();
+        UserCsv.format(user, out);
+        UserCsv.format(empty, out);
+        String[] lines = out.toString().split("\n");
+        assertEquals("jdoe,\"pa,ss\"\"word\",jdoe@example.com,\"John", lines[0]);
+        assertEquals("asmith,secret,asmith@example.com,\"\",,", lines[2]);
+
+        UserCsv csv = UserCsv.forHeader(UserCsv.HEADER);
+        User read = csv.parse(lines[0] + "\n" + lines[1]);
+        assertEquals("pa,ss\"word", read.getPassword());
+        assertEquals("John\nDoe", read.getName());
+        assertNull(read.getLocation());
+        assertEquals(LocalDate.of(2024, 6, 1), read.getDateJoined());
+
+        User readEmpty = csv.parse(lines[2]);
+        assertEquals("", readEmpty.getName());
+        assertNull(readEmpty.getLocation());
+        assertNull(readEmpty.getDateJoined());
+    }
+
+    @Test
+    public void testHeaderMayReorderButNotMissColumns() {
+        User user = UserCsv.forHeader("email,username,password").parse("a@example.com,alice,secret");
+        assertEquals("alice", user.getUsername());
+        assertEquals("a@example.com", user.getEmail());
+
+        assertThrows(IllegalArgumentException.class, () -> UserCsv.forHeader("username,email"));
+        assertThrows(IllegalArgumentException.class, () -> UserCsv.forHeader("username,password,email,age"));
+    }
+
+    @Test
+    public void testRejectedRecordsAreListedAndTheRestImported() throws Exception {
+        Path file = csv("alice,secret,alice@example.com,Alice,,2024-01-02",
+                "taken,secret,taken@example.com,,,",
+                "bob,secret,bob@example.com,\"Bob",
+                "Builder\",Leeds,",
+                "carol,secret,carol@example.com,Carol,,yesterday");
+
+        TransferReport report = new UserImporter(batchService, new ObjectMapper(), 2, 2)
+                .importFile(file, UserFileFormat.CSV, false);
+
+        assertEquals(4, report.getRows());
+        assertEquals(2, report.getFailed());
+        assertEquals(List.of("alice", "bob"), created);
+        List<String> rejects = Files.readAllLines(UserImporter.rejectsPathFor(file));
+        assertEquals(2, rejects.size());
+        assertTrue(rejects.get(0).startsWith("{\"record\":2,\"username\":\"taken\""), rejects.get(0));
+        assertTrue(rejects.get(1).startsWith("{\"record\":4,"), rejects.get(1));
+        assertFalse(Files.exists(TransferCheckpoint.pathFor(file)));
+    }
+
+    @Test
+    public void testResumeSkipsCommittedRecords() throws Exception {
+        Path file = csv("alice,secret,alice@example.com,,,",
+                "bob,secret,bob@example.com,,,",
+                "carol,secret,carol@example.com,,,");
+        TransferCheckpoint.open(file, false).set("records", 2).set("created", 2).save();
+        UserImporter importer = new UserImporter(batchService, new ObjectMapper(), 500, 1);
+
+        assertThrows(IllegalStateException.class, () -> importer.importFile(file, UserFileFormat.CSV, false));
+        assertTrue(created.isEmpty());
+
+        TransferReport report = importer.importFile(file, UserFileFormat.CSV, true);
+        assertEquals(List.of("carol"), created);
+        assertEquals(3, report.getRows());
+        assertEquals(0, report.getFailed());
+        assertFalse(Files.exists(TransferCheckpoint.pathFor(file)));
+        assertFalse(Files.exists(UserImporter.rejectsPathFor(file)));
+    }
+
+    private Path csv(String... records) throws IOException {
+        Path file = directory.resolve("users.csv");
+        List<String> lines = new ArrayList<>();
+        lines.add(UserCsv.HEADER);
+        lines.addAll(List.of(records));
+        Files.write(file, lines, StandardCharsets.UTF_8);
+        return file;
+    }
+}
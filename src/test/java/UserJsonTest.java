@@ -0,0 +1,63 @@
+import com.eventmaster.config.JacksonConfig;
+import com.eventmaster.model.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UserJsonTest {
+
+    private final ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+
+    // What the handwritten serializer replaces
+    private final ObjectMapper reflectionMapper = Jackson2ObjectMapperBuilder.json()
+            .modules(new JavaTimeModule())
+            .build();
+
+    @Test
+    public void testSerializesLikeBeanSerializer() throws Exception {
+        User user = new User("asmith", "secure\"pass", "asmith@example.com", "Alice Smith", "Los Angeles",
+                LocalDate.of(2024, 7, 15));
+        user.setId(2L);
+        user.setVersion(3L);
+        user.setUpdatedAt(Instant.now());
+        User empty = new User();
+
+        for (User u : List.of(user, empty)) {
+            assertEquals(reflectionMapper.writeValueAsString(u), objectMapper.writeValueAsString(u));
+        }
+        assertEquals(reflectionMapper.writeValueAsString(List.of(user, empty)),
+                objectMapper.writeValueAsString(List.of(user, empty)));
+    }
+
+    @Test
+    public void testDeserializesLikeBeanDeserializer() throws Exception {
+        String json = "{\"id\":99,\"dateJoined\":\"2024-07-15\",\"username\":\"asmith\",\"password\":12,"
+                + "\"unknown\":{\"nested\":[1,2]},\"email\":\"asmith@example.com\",\"name\":null,\"version\":7}";
+
+        User user = objectMapper.readValue(json, User.class);
+        User expected = reflectionMapper.readValue(json, User.class);
+
+        assertNull(user.getId());
+        assertNull(user.getVersion());
+        assertEquals(LocalDate.of(2024, 7, 15), user.getDateJoined());
+        assertEquals("12", user.getPassword());
+        assertEquals(reflectionMapper.writeValueAsString(expected), objectMapper.writeValueAsString(user));
+        assertEquals(LocalDate.of(2024, 7, 15),
+                objectMapper.readValue("{\"dateJoined\":[2024,7,15]}", User.class).getDateJoined());
+    }
+
+    @Test
+    public void testRejectsNonObjectAndNonScalarFields() {
+        assertThrows(MismatchedInputException.class, () -> objectMapper.readValue("[1]", User.class));
+        assertThrows(MismatchedInputException.class,
+                () -> objectMapper.readValue("{\"username\":[\"a\",\"b\"]}", User.class));
+    }
+}
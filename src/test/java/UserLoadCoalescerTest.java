@@ -0,0 +1,94 @@
+import com.eventmaster.cache.UserLoadCoalescer;
+import com.eventmaster.cache.UserLoadCoalescer.Lookup;
+import com.eventmaster.model.User;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UserLoadCoalescerTest {
+
+    private static final int CALLERS = 8;
+
+    private final UserLoadCoalescer coalescer = new UserLoadCoalescer();
+
+    @Test
+    public void testConcurrentLookupsShareOneQuery() throws Exception {
+        User user = new User();
+        user.setUsername("organizer");
+        AtomicInteger queries = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<Optional<User>>> results = runConcurrently(Lookup.USERNAME, "organizer", () -> {
+            queries.incrementAndGet();
+            await(release);
+            return Optional.of(user);
+        }, release);
+
+        for (Future<Optional<User>> result : results) {
+            assertSame(user, result.get(5, TimeUnit.SECONDS).orElseThrow());
+        }
+        assertEquals(1, queries.get());
+        assertEquals(1, coalescer.loadCount(Lookup.USERNAME));
+        assertEquals(CALLERS - 1, coalescer.coalescedCount(Lookup.USERNAME));
+        assertEquals(0, coalescer.inFlight());
+
+        // Finished queries are not remembered
+        coalescer.load(Lookup.USERNAME, "organizer", Optional::empty);
+        assertEquals(2, coalescer.loadCount(Lookup.USERNAME));
+    }
+
+    @Test
+    public void testFailureReachesEveryWaiter() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        IllegalStateException failure = new IllegalStateException("database down");
+
+        List<Future<Optional<User>>> results = runConcurrently(Lookup.ID, 7L, () -> {
+            await(release);
+            throw failure;
+        }, release);
+
+        for (Future<Optional<User>> result : results) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertSame(failure, e.getCause());
+        }
+        assertEquals(1, coalescer.loadCount(Lookup.ID));
+        assertEquals(0, coalescer.loadCount(Lookup.EMAIL));
+    }
+
+    // Starts CALLERS lookups of one key, and lets the query finish once all but its own caller are waiting on it
+    private List<Future<Optional<User>>> runConcurrently(Lookup lookup, Object key, Supplier<Optional<User>> loader,
+                                                         CountDownLatch release) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        List<Future<Optional<User>>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(() -> coalescer.load(lookup, key, loader)));
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (coalescer.coalescedCount(lookup) < CALLERS - 1 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+        executor.shutdown();
+        return results;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
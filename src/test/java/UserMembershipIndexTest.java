@@ -0,0 +1,44 @@
+import com.eventmaster.cache.UserMembershipIndex;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UserMembershipIndexTest {
+
+    @Test
+    public void testAddedKeysAreAlwaysFound(){
+        UserMembershipIndex index = new UserMembershipIndex(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            index.add("user" + i, "user" + i + "@example.com");
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(index.containsUsername("user" + i));
+            assertTrue(index.containsEmail("user" + i + "@example.com"));
+        }
+        assertFalse(index.containsUsername(null));
+        assertFalse(index.containsEmail(null));
+    }
+
+    @Test
+    public void testFalsePositivesStayNearTheConfiguredRate(){
+        UserMembershipIndex index = new UserMembershipIndex(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            index.add("user" + i, null);
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (index.containsUsername("other" + i)) {
+                falsePositives++;
+            }
+        }
+        // 1% expected; usernames and emails are separate filters
+        assertTrue(falsePositives < 2_000, falsePositives + " false positives");
+        assertFalse(index.containsEmail("user1"));
+    }
+
+    @Test
+    public void testRejectsInvalidSizing(){
+        assertThrows(IllegalArgumentException.class, () -> new UserMembershipIndex(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new UserMembershipIndex(1000, 1.0));
+    }
+}
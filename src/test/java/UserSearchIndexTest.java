@@ -0,0 +1,52 @@
+import com.eventmaster.cache.UserSearchIndex;
+import com.eventmaster.model.UserSuggestion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UserSearchIndexTest {
+    private UserSearchIndex searchIndex;
+
+    @BeforeEach
+    public void setup(){
+        searchIndex = new UserSearchIndex();
+        searchIndex.put(1L, "jdoe", "John Doe");
+        searchIndex.put(2L, "asmith", "Alice Smith");
+        searchIndex.put(3L, "johnny", "Johnny Appleseed");
+    }
+
+    private List<String> usernames(String prefix, int limit){
+        return searchIndex.search(prefix, limit).stream()
+                .map(UserSuggestion::getUsername)
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void testMatchesUsernameAndNameWordsIgnoringCase(){
+        assertEquals(List.of("jdoe", "johnny"), usernames("JO", 10));
+        assertEquals(List.of("asmith"), usernames("smi", 10));
+        assertEquals(List.of("jdoe"), usernames("john d", 10));
+        assertTrue(usernames("zed", 10).isEmpty());
+    }
+
+    @Test
+    public void testEachUserReturnedOnceAndLimitApplied(){
+        // "j" hits jdoe's username and name and both of johnny's terms
+        assertEquals(List.of("jdoe", "johnny"), usernames("j", 10));
+        assertEquals(1, usernames("j", 1).size());
+    }
+
+    @Test
+    public void testRenameDropsOldTerms(){
+        searchIndex.put(2L, "alice", "Alice Jones");
+
+        assertTrue(usernames("smith", 10).isEmpty());
+        assertTrue(usernames("asm", 10).isEmpty());
+        assertEquals(List.of("alice"), usernames("jon", 10));
+        assertEquals(3, searchIndex.size());
+    }
+}
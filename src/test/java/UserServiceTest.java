@@ -1,18 +1,40 @@
+import com.eventmaster.cache.UserCache;
+import com.eventmaster.cache.UserMembershipIndex;
+import com.eventmaster.cache.UserNegativeCache;
+import com.eventmaster.cache.UserSearchIndex;
 import com.eventmaster.exception.DuplicateUserException;
 import com.eventmaster.model.User;
+import com.eventmaster.model.UserCollectionVersion;
+import com.eventmaster.password.PasswordHasher;
 import com.eventmaster.repository.UserRepository;
 import com.eventmaster.service.UserService;
 import com.eventmaster.exception.UserNotFoundException;
-
+import com.eventmaster.exception.InvalidRequestException;
+import com.eventmaster.model.UserLookupRequest;
+import com.eventmaster.model.UserLookupResult;
+import com.eventmaster.model.UserPage;
+import com.eventmaster.model.UserSuggestion;
+import com.eventmaster.service.UserCursor;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 
 
 public class UserServiceTest {
@@ -21,6 +43,21 @@ public class UserServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private UserCache userCache;
+
+    @Mock
+    private UserMembershipIndex membershipIndex;
+
+    @Mock
+    private UserSearchIndex searchIndex;
+
+    @Spy
+    private UserNegativeCache negativeCache = new UserNegativeCache(100, Duration.ofMinutes(1));
+
+    @Spy
+    private PasswordHasher passwordHasher = new PasswordHasher(4, 100, 4, 1, 16);
+
     @InjectMocks
     private UserService userService;
 
@@ -91,6 +128,84 @@ public class UserServiceTest {
         assertEquals(user.getEmail(), savedUser.getEmail());
     }
 
+    @Test
+    public void testSaveUserStoresPasswordHash(){
+        User user = new User("testuser", "password", "email@example.com", "Test Name", "Location");
+        when(userRepository.save(user)).thenReturn(user);
+
+        User savedUser = userService.saveUser(user);
+
+        assertTrue(PasswordHasher.isHash(savedUser.getPassword()));
+        assertTrue(passwordHasher.verify("password", savedUser.getPassword()).matches());
+    }
+
+    @Test
+    public void testCollectionVersionIsReusedUntilAWrite(){
+        UserCollectionVersion version = new UserCollectionVersion(3, Instant.parse("2024-06-01T00:00:00Z"));
+        when(userRepository.findCollectionVersion()).thenReturn(version);
+
+        assertSame(version, userService.getCollectionVersion());
+        assertSame(version, userService.getCollectionVersion());
+        verify(userRepository, times(1)).findCollectionVersion();
+
+        User user = new User("testuser", "password", "email@example.com", "Test Name", "Location");
+        when(userRepository.save(user)).thenReturn(user);
+        userService.saveUser(user);
+
+        userService.getCollectionVersion();
+        verify(userRepository, times(2)).findCollectionVersion();
+    }
+
+    @Test
+    public void testSaveUserHashesPasswordThatLooksLikeAHash(){
+        // passwordHasher runs at cost 4, as a client could submit
+        String cheapHash = passwordHasher.hash("password");
+        User user = new User("testuser", cheapHash, "email@example.com", "Test Name", "Location");
+        when(userRepository.save(user)).thenReturn(user);
+
+        User savedUser = userService.saveUser(user);
+
+        assertNotEquals(cheapHash, savedUser.getPassword());
+        assertTrue(passwordHasher.verify(cheapHash, savedUser.getPassword()).matches());
+        assertFalse(passwordHasher.verify("password", savedUser.getPassword()).matches());
+    }
+
+    @Test
+    public void testSaveUserKeepsImportedHashWhenAsked(){
+        String exported = passwordHasher.hash("password");
+        User user = new User("testuser", exported, "email@example.com", "Test Name", "Location");
+        when(userRepository.save(user)).thenReturn(user);
+
+        assertEquals(exported, userService.saveUser(user, true).getPassword());
+    }
+
+    @Test
+    public void testAuthenticateRehashesPlaintextPassword(){
+        User user = new User(username, "password123", "testUser@example.com", username, "Austin, TX");
+        user.setId(7L);
+        when(userRepository.findByUsername(username)).thenReturn(Optional.of(user));
+        when(userRepository.findById(7L)).thenReturn(Optional.of(user));
+
+        User authenticated = userService.authenticate(username, "password123").orElseThrow();
+
+        assertTrue(PasswordHasher.isHash(authenticated.getPassword()));
+        // Once when loaded, once with the new hash
+        verify(userCache, times(2)).put(authenticated);
+        assertTrue(userService.authenticate(username, "password123").isPresent());
+        assertEquals(1, passwordHasher.rehashCount());
+    }
+
+    @Test
+    public void testAuthenticateRejectsWrongPasswordAndUnknownUser(){
+        User user = new User(username, passwordHasher.hash("password123"), "testUser@example.com", username, "Austin, TX");
+        when(userRepository.findByUsername(username)).thenReturn(Optional.of(user));
+
+        assertTrue(userService.authenticate(username, "password124").isEmpty());
+        assertTrue(userService.authenticate("nobody", "password123").isEmpty());
+        assertEquals(2, passwordHasher.verifyCount());
+        verify(userRepository, never()).findById(any());
+    }
+
     @Test
     public void testSaveUserDuplicateUsername(){
         User user = new User("testuser", "password", "email@example.com", "Test Name", "Location");
@@ -127,6 +242,58 @@ public class UserServiceTest {
         assertEquals("email 'email@example.com' is already in use", ex.getMessage());
     }
 
+    @Test
+    public void testSaveUserRejectsIndexedDuplicateWithoutInsert(){
+        User user = new User("testuser", "password", "email@example.com", "Test Name", "Location");
+        when(membershipIndex.containsEmail("email@example.com")).thenReturn(true);
+        when(userRepository.existsByEmail("email@example.com")).thenReturn(true);
+
+        DuplicateUserException ex = assertThrows(DuplicateUserException.class,
+                () -> userService.saveUser(user));
+
+        assertTrue(ex.isEmailDuplicate());
+        verify(userRepository, never()).save(any());
+    }
+
+    @Test
+    public void testSaveUserIgnoresStaleIndexHit(){
+        User user = new User("testuser", "password", "email@example.com", "Test Name", "Location");
+        when(membershipIndex.containsUsername("testuser")).thenReturn(true);
+        when(userRepository.existsByUsername("testuser")).thenReturn(false);
+        when(userRepository.save(user)).thenReturn(user);
+
+        assertSame(user, userService.saveUser(user));
+        verify(membershipIndex).add(user);
+    }
+
+    @Test
+    public void testSaveUserViolationFieldFromDatabaseNotMessage(){
+        User user = new User("testuser", "password", "email@example.com", "Test Name", "Location");
+        when(userRepository.save(user))
+                .thenThrow(new DataIntegrityViolationException("could not execute statement"));
+        when(userRepository.existsByEmail("email@example.com")).thenReturn(true);
+
+        DuplicateUserException ex = assertThrows(DuplicateUserException.class,
+                () -> userService.saveUser(user));
+
+        assertTrue(ex.isEmailDuplicate());
+        verify(membershipIndex).add(null, "email@example.com");
+    }
+
+    @Test
+    public void testSearchUsesIndexWithClampedLimit(){
+        List<UserSuggestion> suggestions = List.of(new UserSuggestion("jdoe", "John Doe"));
+        when(searchIndex.search("jo", 100)).thenReturn(suggestions);
+
+        assertSame(suggestions, userService.searchUsers("jo", 5000));
+        verify(userRepository, never()).searchByPrefix(any(), any(), any());
+    }
+
+    @Test
+    public void testSearchRejectsBlankPrefix(){
+        assertThrows(InvalidRequestException.class, () -> userService.searchUsers(" ", null));
+    }
+
     @Test
     public void testUserFindByEmail(){
         String email = "test@test";
@@ -142,4 +309,130 @@ public class UserServiceTest {
         assertEquals(user.getUsername(), user_ret.getUsername());
     }
 
+    @Test
+    public void testGetUserPageReturnsCursorWhenPageIsFull(){
+        User first = new User("first", "password", "first@example.com", "First", "Austin, TX");
+        first.setId(7L);
+        User second = new User("second", "password", "second@example.com", "Second", "Austin, TX");
+        second.setId(9L);
+        when(userRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, 2)))
+                .thenReturn(List.of(first, second));
+
+        UserPage page = userService.getUserPage(null, 2);
+
+        assertEquals(2, page.getUsers().size());
+        assertTrue(page.hasNext());
+        assertEquals(9L, UserCursor.decode(page.getNextCursor()));
+    }
+
+    @Test
+    public void testGetUserPageLastPageHasNoCursor(){
+        User user = new User(username, "password123", "testUser@example.com", username, "Austin, TX");
+        user.setId(10L);
+        when(userRepository.findByIdGreaterThanOrderByIdAsc(eq(9L), any())).thenReturn(List.of(user));
+
+        UserPage page = userService.getUserPage(UserCursor.encode(9L), 5);
+
+        assertEquals(1, page.getUsers().size());
+        assertFalse(page.hasNext());
+    }
+
+    @Test
+    public void testGetUserPageClampsLimitToMaximum(){
+        when(userRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, 1000))).thenReturn(List.of());
+
+        UserPage page = userService.getUserPage(null, 50_000);
+
+        assertTrue(page.getUsers().isEmpty());
+        assertFalse(page.hasNext());
+    }
+
+    @Test
+    public void testGetUserPageRejectsMalformedCursor(){
+        assertThrows(InvalidRequestException.class, () -> userService.getUserPage("not-a-cursor", 10));
+    }
+
+    @Test
+    public void testFindByUsernameServedFromCache(){
+        User user = new User(username, "password123", "testUser@example.com", username, "Austin, TX");
+        when(userCache.getByUsername(username)).thenReturn(Optional.of(user));
+
+        User found = userService.findByUsername(username);
+
+        assertEquals(username, found.getUsername());
+        verify(userRepository, never()).findByUsername(username);
+    }
+
+    @Test
+    public void testFindByEmailPopulatesCacheOnMiss(){
+        String email = "test@test";
+        User user = new User("ryanjo", "test", email, "ryan", "Austin,Tx");
+        when(userRepository.findByEmail(email)).thenReturn(Optional.of(user));
+
+        userService.findByEmail(email);
+
+        verify(userCache).put(user);
+    }
+
+    @Test
+    public void testSaveUserUpdatesCache(){
+        User user = new User("testuser", "password", "email@example.com", "Test Name", "Location");
+        when(userRepository.save(user)).thenReturn(user);
+
+        userService.saveUser(user);
+
+        verify(userCache).put(user);
+    }
+
+    @Test
+    public void testLookupUsersMixesCacheHitsAndMisses(){
+        User cached = new User("cached", "password", "cached@example.com", "Cached", "Austin, TX");
+        cached.setId(1L);
+        User loaded = new User("loaded", "password", "loaded@example.com", "Loaded", "Austin, TX");
+        loaded.setId(2L);
+        when(userCache.getById(1L)).thenReturn(Optional.of(cached));
+        when(userRepository.findByIdIn(List.of(2L, 3L))).thenReturn(List.of(loaded));
+
+        UserLookupRequest request = new UserLookupRequest();
+        request.setIds(List.of(1L, 2L, 3L));
+        UserLookupResult result = userService.lookupUsers(request);
+
+        assertSame(cached, result.getIds().get(1L));
+        assertSame(loaded, result.getIds().get(2L));
+        assertTrue(result.getIds().containsKey(3L));
+        assertNull(result.getIds().get(3L));
+        verify(userCache).put(loaded);
+    }
+
+    @Test
+    public void testLookupUsersRejectsTooManyKeys(){
+        UserLookupRequest request = new UserLookupRequest();
+        request.setUsernames(Collections.nCopies(1001, username));
+
+        assertThrows(InvalidRequestException.class, () -> userService.lookupUsers(request));
+    }
+
+    @Test
+    public void testMissIsReportedWithoutStackTrace(){
+        assertEquals(Optional.empty(), userService.findOptionalByUsername(username));
+        UserNotFoundException e = assertThrows(UserNotFoundException.class, () -> userService.findByEmail(testemail));
+        assertEquals(0, e.getStackTrace().length);
+    }
+
+    @Test
+    public void testExistsByUsernameRemembersMissUntilSave(){
+        when(userRepository.existsByUsername(username)).thenReturn(false);
+
+        assertFalse(userService.existsByUsername(username));
+        assertFalse(userService.existsByUsername(username));
+        verify(userRepository, times(1)).existsByUsername(username);
+
+        User user = new User(username, "password", "email@example.com", "Test Name", "Location");
+        when(userRepository.save(user)).thenReturn(user);
+        userService.saveUser(user);
+        when(userRepository.existsByUsername(username)).thenReturn(true);
+
+        assertTrue(userService.existsByUsername(username));
+    }
+
 }
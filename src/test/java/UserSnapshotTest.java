@@ -0,0 +1,125 @@
+import com.eventmaster.model.User;
+import com.eventmaster.model.UserCollectionVersion;
+import com.eventmaster.snapshot.UserSnapshot;
+import com.eventmaster.snapshot.UserSnapshotStore;
+import com.eventmaster.snapshot.UserSnapshotWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UserSnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testLookupsReadBackEveryField() throws IOException {
+        Path file = directory.resolve("users.snapshot");
+        User jdoe = user(1L, "jdoe", "jdoe@example.com");
+        jdoe.setName("John Doe");
+        jdoe.setDateJoined(LocalDate.of(2024, 6, 1));
+        jdoe.setVersion(3L);
+        jdoe.setUpdatedAt(Instant.parse("2024-06-02T10:15:30.123456789Z"));
+        User unicode = user(7L, "zoë😀", "zoë@example.com");
+        unicode.setUpdatedAt(Instant.parse("2024-07-01T00:00:00Z"));
+        write(file, jdoe, user(4L, "asmith", "asmith@example.com"), unicode);
+
+        UserSnapshot snapshot = UserSnapshot.open(file);
+
+        User read = snapshot.findById(1L).orElseThrow();
+        assertEquals("jdoe", read.getUsername());
+        assertEquals("jdoe@example.com", read.getEmail());
+        assertEquals("secret", read.getPassword());
+        assertEquals("John Doe", read.getName());
+        assertNull(read.getLocation());
+        assertEquals(LocalDate.of(2024, 6, 1), read.getDateJoined());
+        assertEquals(3L, read.getVersion());
+        assertEquals(jdoe.getUpdatedAt(), read.getUpdatedAt());
+
+        assertEquals(7L, snapshot.findByUsername("zoë😀").orElseThrow().getId());
+        assertEquals(7L, snapshot.findByEmail("zoë@example.com").orElseThrow().getId());
+        assertEquals(4L, snapshot.findByEmail("asmith@example.com").orElseThrow().getId());
+        assertTrue(snapshot.existsByUsername("asmith"));
+
+        assertTrue(snapshot.findById(2L).isEmpty());
+        assertTrue(snapshot.findByUsername("zoë").isEmpty());
+        assertTrue(snapshot.findByUsername("jdoe@example.com").isEmpty());
+        assertFalse(snapshot.existsByUsername("nobody"));
+
+        assertEquals(List.of(4L, 7L), ids(snapshot.findPage(1L, 10)));
+        assertEquals(List.of(1L), ids(snapshot.findPage(0L, 1)));
+        UserCollectionVersion version = snapshot.getCollectionVersion();
+        assertEquals(3, version.getCount());
+        assertEquals(Instant.parse("2024-07-01T00:00:00Z"), version.getLastModified());
+    }
+
+    @Test
+    public void testStoreSwapsInNewSnapshotsAndKeepsServingOnBadOnes() throws IOException {
+        Path file = directory.resolve("users.snapshot");
+        write(file, user(1L, "jdoe", "jdoe@example.com"));
+        UserSnapshotStore store = new UserSnapshotStore(file.toString());
+        UserSnapshot first = store.current();
+
+        store.checkForNewSnapshot();
+        assertSame(first, store.current());
+
+        write(file, user(1L, "jdoe", "jdoe@example.com"), user(2L, "asmith", "asmith@example.com"));
+        store.checkForNewSnapshot();
+        assertEquals(2, store.current().size());
+        assertEquals(1, store.swapCount());
+        // The old snapshot still answers lookups that started on it
+        assertTrue(first.findByUsername("jdoe").isPresent());
+
+        UserSnapshot second = store.current();
+        write(file, user(3L, "bwayne", "bwayne@example.com"));
+        try (RandomAccessFile corrupt = new RandomAccessFile(file.toFile(), "rw")) {
+            corrupt.seek(70);
+            corrupt.write(corrupt.read() ^ 0xFF);
+        }
+        store.checkForNewSnapshot();
+        assertSame(second, store.current());
+        assertEquals(1, store.failedLoadCount());
+    }
+
+    @Test
+    public void testUsersMustBeWrittenInIdOrder() throws IOException {
+        Path file = directory.resolve("users.snapshot");
+        try (UserSnapshotWriter writer = new UserSnapshotWriter(file)) {
+            writer.add(user(2L, "asmith", "asmith@example.com"));
+            assertThrows(IllegalArgumentException.class, () -> writer.add(user(1L, "jdoe", "jdoe@example.com")));
+        }
+        assertFalse(Files.exists(file));
+        try (var files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    private static void write(Path file, User... users) throws IOException {
+        try (UserSnapshotWriter writer = new UserSnapshotWriter(file)) {
+            for (User user : users) {
+                writer.add(user);
+            }
+            writer.finish();
+        }
+    }
+
+    private static User user(Long id, String username, String email) {
+        User user = new User(username, "secret", email, null, null);
+        user.setId(id);
+        return user;
+    }
+
+    private static List<Long> ids(List<User> users) {
+        return users.stream().map(User::getId).collect(Collectors.toList());
+    }
+}
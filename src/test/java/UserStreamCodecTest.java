@@ -0,0 +1,84 @@
+import com.eventmaster.config.JacksonConfig;
+import com.eventmaster.controller.UserStreamCodec;
+import com.eventmaster.model.User;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UserStreamCodecTest {
+
+    private static final MediaType SMILE_DELIMITED = MediaType.parseMediaType(UserStreamCodec.APPLICATION_SMILE_DELIMITED_VALUE);
+    private static final MediaType CBOR_DELIMITED = MediaType.parseMediaType(UserStreamCodec.APPLICATION_CBOR_DELIMITED_VALUE);
+
+    private final JacksonConfig jacksonConfig = new JacksonConfig();
+    private final UserStreamCodec codec = new UserStreamCodec(jacksonConfig.objectMapper(),
+            jacksonConfig.smileHttpMessageConverter(), jacksonConfig.cborHttpMessageConverter());
+
+    @Test
+    public void testNegotiatesStreamFormat() {
+        assertEquals("application/x-ndjson", codec.negotiate(null).toString());
+        assertEquals("application/x-ndjson", codec.negotiate("*/*").toString());
+        assertEquals(CBOR_DELIMITED, codec.negotiate("application/x-cbor-delimited"));
+        assertEquals(SMILE_DELIMITED,
+                codec.negotiate("application/x-ndjson;q=0.5, application/x-jackson-smile-delimited"));
+    }
+
+    @Test
+    public void testDelimitedRoundTripIsSmallerThanNdjson() throws Exception {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            users.add(new User("user" + i, "password" + i, "user" + i + "@example.com", "User " + i, "Austin, TX",
+                    LocalDate.of(2024, 1, 1).plusDays(i)));
+        }
+        byte[] ndjson = write(MediaType.parseMediaType("application/x-ndjson"), users);
+
+        for (MediaType type : List.of(SMILE_DELIMITED, CBOR_DELIMITED)) {
+            byte[] bytes = write(type, users);
+            assertTrue(bytes.length < ndjson.length, type + ": " + bytes.length + " vs " + ndjson.length);
+
+            List<User> read = new ArrayList<>();
+            try (UserStreamCodec.RecordReader reader = codec.reader(type, new ByteArrayInputStream(bytes))) {
+                reader.forEachRemaining(read::add);
+            }
+            assertEquals(users.size(), read.size());
+            for (int i = 0; i < users.size(); i++) {
+                assertEquals(users.get(i).getEmail(), read.get(i).getEmail());
+                assertEquals(users.get(i).getDateJoined(), read.get(i).getDateJoined());
+            }
+        }
+    }
+
+    @Test
+    public void testTruncatedRecordIsAParseError() throws Exception {
+        User user = new User("asmith", "securepass", "asmith@example.com", "Alice Smith", "Los Angeles",
+                LocalDate.of(2024, 7, 15));
+        byte[] bytes = write(CBOR_DELIMITED, List.of(user, user));
+        byte[] truncated = Arrays.copyOf(bytes, bytes.length - 3);
+
+        try (UserStreamCodec.RecordReader reader = codec.reader(CBOR_DELIMITED, new ByteArrayInputStream(truncated))) {
+            assertEquals("asmith", reader.next().getUsername());
+            UncheckedIOException e = assertThrows(UncheckedIOException.class, reader::next);
+            assertTrue(e.getCause() instanceof JsonProcessingException);
+        }
+    }
+
+    private byte[] write(MediaType type, List<User> users) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (UserStreamCodec.RecordWriter writer = codec.writer(type, out)) {
+            for (User user : users) {
+                writer.write(user);
+            }
+        }
+        return out.toByteArray();
+    }
+}